@@ -0,0 +1,147 @@
+package ro.ubb.springjpa.loadtest;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.service.PurchaseSnapshot;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the report aggregations on boxed collections, as PurchaseServiceImpl wrote them before fastutil, with the
+ * primitive paths the services run now: the scans of the PurchaseSnapshot behind the all-time reports, decoded into
+ * an Int2LongOpenHashMap like PurchaseAnalyticsServiceImpl does, and the IntOpenHashSet of the purchase ids a sketch
+ * rebuild has counted. Prints the time, the bytes allocated by all the threads and the garbage collections per
+ * purchase over a large in-memory purchase list.
+ * Run with gradle aggregationBenchmark; no database is needed.
+ */
+public class AggregationBenchmark {
+
+    private static final int PURCHASES = 2_000_000;
+    private static final int BOOKS = 20_000;
+    private static final int CLIENTS = 100_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(42);
+        List<Purchase> purchases = new ArrayList<>(PURCHASES);
+        for (int i = 0; i < PURCHASES; i++) {
+            int bookId = 1 + random.nextInt(BOOKS);
+            Purchase purchase = new Purchase(1 + random.nextInt(CLIENTS), bookId, "Library " + i % 5);
+            purchase.setId(i + 1);
+            purchase.setPriceCents(100L + bookId % 5_000);
+            purchases.add(purchase);
+        }
+        PurchaseSnapshot[] snapshot = new PurchaseSnapshot[1];
+
+        for (int round = 1; round <= ROUNDS; round++)
+        {
+            boolean last = round == ROUNDS;
+            measure("snapshot build", last, () -> {
+                PurchaseSnapshot.Builder builder = PurchaseSnapshot.builder();
+                for (Purchase purchase : purchases)
+                    builder.add(purchase.getClientId(), purchase.getBookId(), purchase.getPriceCents(), purchase.getLibrary());
+                snapshot[0] = builder.build();
+                return snapshot[0].size();
+            });
+            measure("money spent, HashMap<Integer, Long>", last, () -> {
+                Map<Integer, Long> moneySpent = new HashMap<>();
+                for (Purchase purchase : purchases)
+                    moneySpent.merge(purchase.getClientId(), purchase.getPriceCents(), Long::sum);
+                return moneySpent.size();
+            });
+            measure("money spent, snapshot scan", last, () -> {
+                long[] spend = snapshot[0].spendPerClient();
+                Int2LongOpenHashMap moneySpent = new Int2LongOpenHashMap(spend.length);
+                for (int code = 0; code < spend.length; code++)
+                    moneySpent.put(snapshot[0].clientAt(code), spend[code]);
+                return moneySpent.size();
+            });
+            measure("sales, HashMap<Integer, Long>", last, () -> {
+                Map<Integer, Long> sales = new HashMap<>();
+                for (Purchase purchase : purchases)
+                    sales.merge(purchase.getBookId(), 1L, Long::sum);
+                return sales.size();
+            });
+            measure("sales, snapshot scan", last, () -> {
+                long[] counts = snapshot[0].salesPerBook();
+                Int2LongOpenHashMap sales = new Int2LongOpenHashMap(counts.length);
+                for (int code = 0; code < counts.length; code++)
+                    sales.put(snapshot[0].bookAt(code), counts[code]);
+                return sales.size();
+            });
+            // the ids of the purchases a sketch rebuild has read, checked against the purchases committed meanwhile
+            measure("purchase ids, HashSet<Integer>", last, () -> {
+                Set<Integer> counted = new HashSet<>();
+                for (Purchase purchase : purchases)
+                    counted.add(purchase.getId());
+                return counted.size();
+            });
+            measure("purchase ids, IntOpenHashSet", last, () -> {
+                IntSet counted = new IntOpenHashSet();
+                for (Purchase purchase : purchases)
+                    counted.add(purchase.getId().intValue());
+                return counted.size();
+            });
+        }
+    }
+
+    private interface Run {
+        int entries();
+    }
+
+    /**
+     * Times a run, counts the bytes all the threads allocated and the garbage collections during it. All the threads,
+     * since the snapshot scans run on the common fork-join pool. Only the last round is printed, the previous ones
+     * warm up the JIT.
+     */
+    private static void measure(String name, boolean print, Run run)
+    {
+        long collectionsBefore = collections();
+        long collectionMillisBefore = collectionMillis();
+        long allocatedBefore = allocated();
+        long start = System.nanoTime();
+        int entries = run.entries();
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocated() - allocatedBefore;
+        if (print)
+            System.out.printf("%-36s %6.1f ns/purchase %6.1f bytes/purchase %4d GCs %5d ms in GC %7d entries%n",
+                    name, elapsed / (double) PURCHASES, allocated / (double) PURCHASES,
+                    collections() - collectionsBefore, collectionMillis() - collectionMillisBefore, entries);
+    }
+
+    private static long allocated()
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+            allocated += Math.max(bytes, 0);
+        return allocated;
+    }
+
+    private static long collections()
+    {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            collections += Math.max(collector.getCollectionCount(), 0);
+        return collections;
+    }
+
+    private static long collectionMillis()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(collector.getCollectionTime(), 0);
+        return millis;
+    }
+}
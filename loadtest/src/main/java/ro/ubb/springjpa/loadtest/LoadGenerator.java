@@ -0,0 +1,102 @@
+package ro.ubb.springjpa.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: operations start at a fixed arrival rate whether or not the previous ones finished,
+ * and their latency is measured from the moment they were scheduled to start. A slow service therefore shows up
+ * as queueing delay in the latencies instead of silently lowering the request rate.
+ */
+public final class LoadGenerator
+{
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private final Workload workload;
+    private final OperationMix mix;
+    private final int threads;
+
+    public LoadGenerator(Workload workload, OperationMix mix, int threads)
+    {
+        this.workload = workload;
+        this.mix = mix;
+        this.threads = threads;
+    }
+
+    /**
+     * Runs one step of the test at a fixed rate. Operations started during the warm-up are executed but not measured.
+     * @param rate the arrival rate, in operations per second
+     * @param warmupSeconds the duration of the warm-up
+     * @param durationSeconds the duration of the measurement
+     * @return the latencies and errors of the measured operations
+     */
+    public StepResult run(double rate, int warmupSeconds, int durationSeconds) throws InterruptedException
+    {
+        log.info("run - rate={}/s, warmup={}s, duration={}s, mix={}", rate, warmupSeconds, durationSeconds, mix);
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values())
+        {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+        AtomicLong lastCompletion = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long scheduled = 0;
+
+        for (long intended = start; intended < end; intended += interval)
+        {
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+
+            Operation operation = mix.next();
+            boolean measured = intended >= measureFrom;
+            long intendedStart = intended;
+            if (measured)
+                scheduled++;
+            workers.execute(() -> {
+                try {
+                    workload.execute(operation);
+                } catch (Exception e) {
+                    if (measured)
+                        errors.get(operation).increment();
+                    log.debug("run - {} failed", operation, e);
+                }
+                if (measured)
+                {
+                    long now = System.nanoTime();
+                    latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(now - intendedStart));
+                    lastCompletion.accumulateAndGet(now, Math::max);
+                }
+            });
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        {
+            int abandoned = workers.shutdownNow().size();
+            log.warn("run - the service did not keep up, {} queued operations abandoned", abandoned);
+        }
+        long elapsed = Math.max(lastCompletion.get(), end) - measureFrom;
+        return new StepResult(rate, scheduled, elapsed, latencies, errors);
+    }
+}
@@ -0,0 +1,69 @@
+package ro.ubb.springjpa.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ro.ubb.springjpa.Migrate;
+import ro.ubb.springjpa.config.AppLocalConfig;
+import ro.ubb.springjpa.config.CatalogConfig;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts an embedded PostgreSQL, migrates it, starts the application context against it, seeds the data set
+ * and drives the services at every rate of loadtest.rates in turn, so the knee of the throughput curve shows up
+ * as the step where the achieved rate stops following the target and the latencies jump.
+ * Every setting is a system property (gradle loadTest -Dloadtest.rates=100,200,400).
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception
+    {
+        Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+        String rates = System.getProperty("loadtest.rates", "50,100,200,400,800");
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+        OperationMix mix = OperationMix.parse(System.getProperty("loadtest.mix", "browse=60,filter=15,purchase=20,report=5"));
+        int threads = Integer.getInteger("loadtest.threads", 64);
+        int books = Integer.getInteger("loadtest.books", 1000);
+        int clients = Integer.getInteger("loadtest.clients", 5000);
+        int purchases = Integer.getInteger("loadtest.purchases", 20000);
+        double exponent = Double.parseDouble(System.getProperty("loadtest.zipfExponent", "1.0"));
+        Path output = Paths.get(System.getProperty("loadtest.output", "build/loadtest"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            Migrate.migrate(jdbcUrl, "postgres", "postgres");
+
+            // system properties take precedence over local/db.properties and local/app.properties
+            System.setProperty("db.jdbcUrl", jdbcUrl);
+            System.setProperty("db.username", "postgres");
+            System.setProperty("db.password", "postgres");
+            System.setProperty("db.showSql", "false");
+            System.setProperty("events.file", "");
+
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppLocalConfig.class, CatalogConfig.class)) {
+                Workload workload = Workload.seed(context, books, clients, purchases, exponent);
+                LoadGenerator generator = new LoadGenerator(workload, mix, threads);
+
+                List<StepResult> results = new ArrayList<>();
+                for (String rate : rates.split(",")) {
+                    StepResult result = generator.run(Double.parseDouble(rate.trim()), warmupSeconds, durationSeconds);
+                    result.print(System.out);
+                    result.write(output);
+                    results.add(result);
+                }
+
+                System.out.printf("%n%-12s %12s%n", "target/s", "achieved/s");
+                String[] targets = rates.split(",");
+                for (int i = 0; i < results.size(); i++)
+                    System.out.printf("%-12s %12.1f%n", targets[i].trim(), results.get(i).getThroughput());
+                log.info("loadtest - histograms written to {}", output.toAbsolutePath());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ro.ubb.springjpa.loadtest;
+
+/**
+ * The operations of the load test, named after what the users of the bookstore do.
+ */
+public enum Operation
+{
+    /** looks up a book and a client by id */
+    BROWSE,
+    /** searches the catalog by author */
+    FILTER,
+    /** buys a book */
+    PURCHASE,
+    /** runs one of the sales reports */
+    REPORT
+}
@@ -0,0 +1,80 @@
+package ro.ubb.springjpa.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice of the next operation, configured as "browse=60,filter=15,purchase=20,report=5".
+ */
+public final class OperationMix
+{
+    private final Operation[] operations;
+    private final double[] cumulative;
+
+    private OperationMix(Operation[] operations, double[] cumulative)
+    {
+        this.operations = operations;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Parses a mix.
+     * @param mix comma-separated operation=weight pairs
+     * @return the mix
+     * @throws IllegalArgumentException if an operation is unknown or no weight is positive
+     */
+    public static OperationMix parse(String mix)
+    {
+        Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(","))
+        {
+            String[] parts = entry.split("=");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid operation mix entry: " + entry);
+            double weight = Double.parseDouble(parts[1].trim());
+            if (weight > 0)
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        if (weights.isEmpty())
+            throw new IllegalArgumentException("The operation mix is empty: " + mix);
+
+        Operation[] operations = weights.keySet().toArray(new Operation[0]);
+        double[] cumulative = new double[operations.length];
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++)
+        {
+            sum += weights.get(operations[i]);
+            cumulative[i] = sum / total;
+        }
+        return new OperationMix(operations, cumulative);
+    }
+
+    /**
+     * Draws the next operation.
+     * @return an operation, chosen according to the weights
+     */
+    public Operation next()
+    {
+        double x = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < operations.length - 1; i++)
+            if (x < cumulative[i])
+                return operations[i];
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder mix = new StringBuilder();
+        double previous = 0;
+        for (int i = 0; i < operations.length; i++)
+        {
+            mix.append(i == 0 ? "" : ",").append(operations[i].name().toLowerCase())
+                    .append('=').append(Math.round((cumulative[i] - previous) * 100)).append('%');
+            previous = cumulative[i];
+        }
+        return mix.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package ro.ubb.springjpa.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The text output of EXPLAIN, with the few facts the query plan check looks at.
+ */
+public final class QueryPlan
+{
+    private static final Pattern ROWS = Pattern.compile("rows=(\\d+)");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\S+)");
+
+    private final List<String> lines;
+
+    public QueryPlan(List<String> lines)
+    {
+        this.lines = lines;
+    }
+
+    /**
+     * Gets the row estimate of the top plan node.
+     * @return the number of rows the planner expects the statement to return or change
+     */
+    public long getEstimatedRows()
+    {
+        Matcher matcher = ROWS.matcher(lines.get(0));
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    /**
+     * Gets the relations read with a sequential scan.
+     * @return the names of the tables (or partitions) scanned sequentially
+     */
+    public List<String> getSequentialScans()
+    {
+        List<String> relations = new ArrayList<>();
+        for (String line : lines)
+        {
+            Matcher matcher = SEQ_SCAN.matcher(line);
+            if (matcher.find())
+                relations.add(matcher.group(1));
+        }
+        return relations;
+    }
+
+    /**
+     * Checks if some node reads an index (index scan, index-only scan or bitmap index scan).
+     * @return true if the plan uses an index
+     */
+    public boolean usesIndex()
+    {
+        return lines.stream().anyMatch(line -> line.contains("Index Scan") || line.contains("Index Only Scan"));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.join("\n", lines);
+    }
+}
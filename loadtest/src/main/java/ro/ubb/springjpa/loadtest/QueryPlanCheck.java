@@ -0,0 +1,226 @@
+package ro.ubb.springjpa.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.Migrate;
+import ro.ubb.springjpa.config.AppLocalConfig;
+import ro.ubb.springjpa.config.CatalogConfig;
+import ro.ubb.springjpa.domain.catalog.CatalogKey;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.BookSpecifications;
+import ro.ubb.springjpa.repository.ClientRepository;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Query plan regression check. Seeds an embedded PostgreSQL, calls the repository methods, captures the SQL Hibernate
+ * sends for each of them and runs EXPLAIN on it. A lookup fails the check when it reads a table of more than
+ * MIN_ROWS_FOR_INDEX rows with a sequential scan, or when the planner expects it to touch more rows than allowed.
+ * Runs as part of gradle check and exits with status 1 on a failure.
+ */
+public class QueryPlanCheck {
+
+    private static final int BOOKS = 2_000;
+    private static final int CLIENTS = 2_000;
+    private static final int PURCHASES = 100_000;
+
+    /**
+     * Sequential scans of smaller relations (the empty partitions of the coming months, for instance) are the right plan.
+     */
+    private static final long MIN_ROWS_FOR_INDEX = 1_000;
+
+    private interface Action {
+        void run(int id) throws Exception;
+    }
+
+    /**
+     * A repository call, the id it is called with and the rules its statements must respect.
+     */
+    private static final class Check {
+        private final String name;
+        private final int id;
+        private final Action action;
+        private final boolean indexRequired;
+        private final long maxRows;
+
+        private Check(String name, int id, Action action, boolean indexRequired, long maxRows) {
+            this.name = name;
+            this.id = id;
+            this.action = action;
+            this.indexRequired = indexRequired;
+            this.maxRows = maxRows;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int failures;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            Migrate.migrate(jdbcUrl, "postgres", "postgres");
+            System.setProperty("db.jdbcUrl", jdbcUrl);
+            System.setProperty("db.username", "postgres");
+            System.setProperty("db.password", "postgres");
+            System.setProperty("db.showSql", "false");
+            System.setProperty("db.statementInspector", SqlCapture.class.getName());
+            System.setProperty("events.file", "");
+            System.setProperty("warmup.enabled", "false");
+
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppLocalConfig.class, CatalogConfig.class)) {
+                failures = run(context);
+            }
+        }
+        System.out.printf("%nquery plan check: %s%n", failures == 0 ? "passed" : failures + " failure(s)");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    private static int run(AnnotationConfigApplicationContext context) throws Exception
+    {
+        Workload.seed(context, BOOKS, CLIENTS, 0, 1.0);
+        DataSource dataSource = context.getBean(DataSource.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into purchase (id, bookid, clientid, library, purchasedate, pricecents) " +
+                "select nextval('hibernate_sequence'), b.id, c.id, 'Library ' || (g % 5), now(), b.pricecents " +
+                "from generate_series(1, ?) g " +
+                "join (select id, pricecents, row_number() over (order by id) - 1 as n from book) b on b.n = g % ? " +
+                "join (select id, row_number() over (order by id) - 1 as n from client) c on c.n = (g * 7) % ?",
+                PURCHASES, BOOKS, CLIENTS);
+        jdbcTemplate.execute("analyze");
+
+        int bookId = jdbcTemplate.queryForObject("select min(id) from book", Integer.class);
+        int clientId = jdbcTemplate.queryForObject("select min(id) from client", Integer.class);
+        int purchaseId = jdbcTemplate.queryForObject("select min(id) from purchase", Integer.class);
+
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        ClientRepository clientRepository = context.getBean(ClientRepository.class);
+        PurchaseRepository purchaseRepository = context.getBean(PurchaseRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Check> checks = new ArrayList<>();
+        checks.add(new Check("PurchaseRepository.countByBookId", bookId, purchaseRepository::countByBookId, true, 1));
+        checks.add(new Check("PurchaseRepository.deleteByClientId", clientId,
+                id -> rolledBack(transaction, () -> purchaseRepository.deleteByClientId(id), purchaseRepository::flush), true, 1_000));
+        checks.add(new Check("PurchaseRepository.deleteByBookId", bookId,
+                id -> rolledBack(transaction, () -> purchaseRepository.deleteByBookId(id), purchaseRepository::flush), true, 1_000));
+        checks.add(new Check("PurchaseRepository.findById", purchaseId, purchaseRepository::findById, true, 10));
+        checks.add(new Check("BookRepository.findById", bookId, bookRepository::findById, true, 1));
+        checks.add(new Check("ClientRepository.findById", clientId, clientRepository::findById, true, 1));
+        checks.add(new Check("BookRepository.findPage", bookId, id -> bookRepository.findPage(
+                Specification.where(BookSpecifications.priceBetween(Money.ofCents(id), null))
+                        .and(BookSpecifications.after(CatalogSort.PRICE_ASC, CatalogKey.parse(CatalogSort.PRICE_ASC, id + ":" + id))),
+                CatalogSort.PRICE_ASC, 20), true, 100));
+        checks.add(new Check("BookRepository.findAll", 0, id -> bookRepository.findAll(), false, Long.MAX_VALUE));
+        checks.add(new Check("ClientRepository.findAll", 0, id -> clientRepository.findAll(), false, Long.MAX_VALUE));
+
+        int failures = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            for (Check check : checks) {
+                SqlCapture.drain();
+                check.action.run(check.id);
+                List<String> statements = SqlCapture.drain();
+                if (statements.isEmpty()) {
+                    System.out.printf("FAIL %s: no SQL captured (is db.statementInspector set?)%n", check.name);
+                    failures++;
+                }
+                for (String sql : statements)
+                    failures += verify(connection, check, sql, check.id);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Runs a change and flushes it, so its statements are sent, then rolls it back to keep the data set intact.
+     */
+    private static void rolledBack(TransactionTemplate transaction, Runnable action, Runnable flush)
+    {
+        transaction.execute(status -> {
+            action.run();
+            flush.run();
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+
+    /**
+     * Explains one statement of a check and prints the verdict.
+     * @return the number of failed rules
+     */
+    private static int verify(Connection connection, Check check, String sql, int parameter) throws SQLException
+    {
+        QueryPlan plan = explain(connection, sql, parameter);
+        List<String> problems = new ArrayList<>();
+        if (check.indexRequired) {
+            for (String relation : plan.getSequentialScans()) {
+                long rows = estimatedTableRows(connection, relation);
+                if (rows >= MIN_ROWS_FOR_INDEX)
+                    problems.add("sequential scan on " + relation + " (" + rows + " rows)");
+            }
+            if (!plan.usesIndex())
+                problems.add("no index used");
+        }
+        if (plan.getEstimatedRows() > check.maxRows)
+            problems.add("estimated " + plan.getEstimatedRows() + " rows, expected at most " + check.maxRows);
+
+        if (problems.isEmpty()) {
+            System.out.printf("ok   %s: %s%n", check.name, sql);
+            return 0;
+        }
+        System.out.printf("FAIL %s: %s%n     %s%n%s%n", check.name, sql, String.join(", ", problems), plan);
+        return 1;
+    }
+
+    /**
+     * Runs EXPLAIN on a statement with JDBC placeholders, by preparing it with $n parameters
+     * and explaining its execution with the given value for every parameter.
+     */
+    private static QueryPlan explain(Connection connection, String sql, int parameter) throws SQLException
+    {
+        StringBuilder prepared = new StringBuilder();
+        StringJoiner values = new StringJoiner(", ", "(", ")");
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameters);
+                values.add(Integer.toString(parameter));
+            }
+            else
+                prepared.append(c);
+        }
+
+        List<String> lines = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("prepare plan_check as " + prepared);
+            try (ResultSet plan = statement.executeQuery("explain execute plan_check" + (parameters > 0 ? values : ""))) {
+                while (plan.next())
+                    lines.add(plan.getString(1));
+            } finally {
+                statement.execute("deallocate plan_check");
+            }
+        }
+        return new QueryPlan(lines);
+    }
+
+    private static long estimatedTableRows(Connection connection, String relation) throws SQLException
+    {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select reltuples from pg_class where relname = '" + relation.replace("'", "''") + "'")) {
+            return rows.next() ? (long) rows.getFloat(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ro.ubb.springjpa.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hibernate StatementInspector which records the SQL of every statement, so the query plan check can explain
+ * exactly the queries the repositories send. Enabled with db.statementInspector.
+ */
+public class SqlCapture implements StatementInspector
+{
+    private static final List<String> statements = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql)
+    {
+        synchronized (statements) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Returns the statements recorded since the last call and forgets them.
+     * @return the SQL of the statements, in execution order, without duplicates
+     */
+    public static List<String> drain()
+    {
+        synchronized (statements) {
+            List<String> drained = new ArrayList<>();
+            for (String statement : statements)
+                if (!drained.contains(statement))
+                    drained.add(statement);
+            statements.clear();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ro.ubb.springjpa.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The measurements of one step of the load test. Latencies are recorded in microseconds.
+ */
+public final class StepResult
+{
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final double rate;
+    private final long scheduled;
+    private final long elapsedNanos;
+    private final Map<Operation, Histogram> latencies;
+    private final Map<Operation, LongAdder> errors;
+
+    StepResult(double rate, long scheduled, long elapsedNanos, Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors)
+    {
+        this.rate = rate;
+        this.scheduled = scheduled;
+        this.elapsedNanos = elapsedNanos;
+        this.latencies = latencies;
+        this.errors = errors;
+    }
+
+    /**
+     * Gets the throughput actually achieved: the measured operations divided by the time it took to complete them.
+     * Below the knee it matches the target rate; past it the backlog stretches the time and the throughput flattens.
+     * @return the completed operations per second
+     */
+    public double getThroughput()
+    {
+        long completed = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        return completed / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Prints one line per operation: count, errors, throughput and latency percentiles in milliseconds.
+     * @param out the stream written
+     */
+    public void print(PrintStream out)
+    {
+        out.printf("%n%.0f/s target, %d scheduled, %.1f/s achieved%n", rate, scheduled, getThroughput());
+        out.printf("%-10s %8s %7s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50", "p90", "p99", "p99.9", "max");
+        latencies.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() == 0)
+                return;
+            out.printf("%-10s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name().toLowerCase(),
+                    histogram.getTotalCount(), errors.get(operation).sum(),
+                    histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+        });
+    }
+
+    /**
+     * Writes the full percentile distribution of every operation, in milliseconds, as &lt;operation&gt;-&lt;rate&gt;.hgrm files
+     * which can be plotted with the HdrHistogram plotter.
+     * @param directory the output directory
+     */
+    public void write(Path directory) throws IOException
+    {
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, Histogram> entry : latencies.entrySet())
+        {
+            if (entry.getValue().getTotalCount() == 0)
+                continue;
+            Path file = directory.resolve(String.format("%s-%.0f.hgrm", entry.getKey().name().toLowerCase(), rate));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ro.ubb.springjpa.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ro.ubb.springjpa.Migrate;
+import ro.ubb.springjpa.config.AppLocalConfig;
+import ro.ubb.springjpa.config.CatalogConfig;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.service.BookService;
+import ro.ubb.springjpa.service.ClientService;
+import ro.ubb.springjpa.service.PurchaseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A limited-edition launch: stock.buyers clients start buying the same book at the same instant, while only
+ * stock.copies copies exist. Prints the purchases per second and the latencies of every round and fails if
+ * the number of copies sold differs from the stock, which would mean the conditional decrement let an oversell through.
+ * Run with gradle stockContention -Dstock.buyers=1000 -Dstock.copies=200.
+ */
+public class StockContention {
+
+    private static final Logger log = LoggerFactory.getLogger(StockContention.class);
+
+    private static final String LIBRARY = "Library 0";
+
+    public static void main(String[] args) throws Exception
+    {
+        int buyers = Integer.getInteger("stock.buyers", 1000);
+        int copies = Integer.getInteger("stock.copies", 200);
+        int rounds = Integer.getInteger("stock.rounds", 5);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            Migrate.migrate(jdbcUrl, "postgres", "postgres");
+
+            System.setProperty("db.jdbcUrl", jdbcUrl);
+            System.setProperty("db.username", "postgres");
+            System.setProperty("db.password", "postgres");
+            System.setProperty("db.showSql", "false");
+            System.setProperty("events.file", "");
+
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppLocalConfig.class, CatalogConfig.class)) {
+                BookService bookService = context.getBean(BookService.class);
+                ClientService clientService = context.getBean(ClientService.class);
+                PurchaseService purchaseService = context.getBean(PurchaseService.class);
+                BookRepository bookRepository = context.getBean(BookRepository.class);
+
+                List<Client> clients = new ArrayList<>(buyers);
+                for (int i = 0; i < buyers; i++)
+                    clients.add(new Client("First" + i, "Last" + i, "client" + i + "@bookstore.ro"));
+                clientService.addClients(clients);
+
+                System.out.printf("%-6s %8s %8s %8s %12s %10s %10s %10s%n",
+                        "round", "sold", "soldOut", "errors", "purchases/s", "p50 ms", "p99 ms", "max ms");
+                for (int round = 1; round <= rounds; round++) {
+                    Book book = new Book("Limited edition " + round, "Author", "Publisher", 2019, Money.ofCents(4999));
+                    bookService.addBooks(List.of(book));
+                    // one library may sell at most half of the copies, the other library is only limited by the book stock
+                    bookService.restock(book.getId(), LIBRARY, copies / 2);
+                    bookService.restock(book.getId(), null, copies - copies / 2);
+
+                    Result result = launch(purchaseService, book.getId(), clients, buyers);
+                    int left = bookRepository.findById(book.getId()).map(Book::getStock).orElse(-1);
+                    System.out.printf("%-6d %8d %8d %8d %12.1f %10.2f %10.2f %10.2f%n", round,
+                            result.sold.sum(), result.soldOut.sum(), result.errors.sum(),
+                            buyers / (result.elapsedNanos / 1e9),
+                            result.latencies.getValueAtPercentile(50) / 1000.0,
+                            result.latencies.getValueAtPercentile(99) / 1000.0,
+                            result.latencies.getMaxValue() / 1000.0);
+
+                    if (result.sold.sum() != Math.min(copies, buyers) || left != copies - result.sold.sum())
+                        throw new IllegalStateException("Sold " + result.sold.sum() + " of " + copies + " copies, " + left + " left");
+                }
+                log.info("stockContention - no oversell in {} rounds", rounds);
+            }
+        }
+    }
+
+    /**
+     * Starts one thread per buyer and releases them together, so every purchase of the round contends for the same rows.
+     */
+    private static Result launch(PurchaseService purchaseService, int bookId, List<Client> clients, int buyers) throws Exception
+    {
+        Result result = new Result();
+        ExecutorService threads = Executors.newFixedThreadPool(buyers);
+        CountDownLatch ready = new CountDownLatch(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> purchases = new ArrayList<>(buyers);
+        for (int i = 0; i < buyers; i++) {
+            Purchase purchase = new Purchase(clients.get(i).getId(), bookId, i % 2 == 0 ? LIBRARY : "Library 1");
+            purchases.add(threads.submit(() -> {
+                ready.countDown();
+                start.await();
+                long begin = System.nanoTime();
+                try {
+                    purchaseService.add(purchase);
+                    result.sold.increment();
+                } catch (Exception e) {
+                    if (e.getMessage() != null && e.getMessage().contains("sold out"))
+                        result.soldOut.increment();
+                    else {
+                        result.errors.increment();
+                        log.debug("launch - purchase failed", e);
+                    }
+                }
+                result.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+                return null;
+            }));
+        }
+
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> purchase : purchases)
+            purchase.get();
+        result.elapsedNanos = System.nanoTime() - begin;
+        threads.shutdown();
+        return result;
+    }
+
+    private static final class Result {
+        private final LongAdder sold = new LongAdder();
+        private final LongAdder soldOut = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private long elapsedNanos;
+    }
+}
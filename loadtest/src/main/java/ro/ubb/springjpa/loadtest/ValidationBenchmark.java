@@ -0,0 +1,103 @@
+package ro.ubb.springjpa.loadtest;
+
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.validators.BookValidator;
+import ro.ubb.springjpa.domain.validators.ValidationEngine;
+import ro.ubb.springjpa.domain.validators.ValidatorException;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the book validation before and after the ValidationResult rewrite: time and bytes allocated per call
+ * for valid books, and the throughput of the sequential loop against ValidationEngine.validateAll for a bulk load.
+ * Run with gradle validationBenchmark; no database is needed.
+ */
+public class ValidationBenchmark {
+
+    private static final int BOOKS = 200_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws ValidatorException
+    {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++)
+            books.add(new Book("Title " + i, "Author " + i % 100, "Publisher " + i % 20, 1950 + i % 70, Money.ofCents(100 + i)));
+        // one invalid book in a thousand, as in a realistic import file
+        for (int i = 0; i < BOOKS; i += 1000)
+            books.get(i).setTitle("");
+
+        BookValidator validator = new BookValidator();
+        ValidationEngine engine = new ValidationEngine();
+
+        for (int round = 1; round <= ROUNDS; round++)
+        {
+            boolean last = round == ROUNDS;
+            measure("legacy string concatenation", books, last, () -> {
+                int invalid = 0;
+                for (Book book : books)
+                    if (!legacyValidate(book))
+                        invalid++;
+                return invalid;
+            });
+            measure("ValidationResult, sequential", books, last, () -> {
+                int invalid = 0;
+                for (Book book : books)
+                {
+                    try {
+                        validator.validate(book);
+                    } catch (ValidatorException e) {
+                        invalid++;
+                    }
+                }
+                return invalid;
+            });
+            measure("ValidationEngine.validateAll", books, last, () -> engine.validateAll(books, validator).size());
+        }
+    }
+
+    private interface Run {
+        int invalid() throws ValidatorException;
+    }
+
+    /**
+     * Times a run and counts the bytes the current thread allocated during it. Only the last round is printed,
+     * the previous ones warm up the JIT. The allocations of validateAll happen on the fork-join threads
+     * and are therefore not counted.
+     */
+    private static void measure(String name, List<Book> books, boolean print, Run run) throws ValidatorException
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        int invalid = run.invalid();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (print)
+            System.out.printf("%-32s %8.1f ns/book %8.1f bytes/book %6d invalid%n",
+                    name, elapsed / (double) books.size(), allocated / (double) books.size(), invalid);
+    }
+
+    /**
+     * The book validation as it was written before ValidationResult, kept here as the baseline.
+     * @return true if the book is valid
+     */
+    private static boolean legacyValidate(Book object)
+    {
+        String errorMessage = "Book Validation Error\n";
+        if(object.getTitle() == null || object.getTitle().equals(""))
+            errorMessage += "Invalid title!\n";
+        if(object.getAuthor() == null || object.getAuthor().equals(""))
+            errorMessage += "Invalid author!\n";
+        if(object.getPublisher() == null || object.getPublisher().equals(""))
+            errorMessage +="Invalid publisher!\n";
+        if(object.getPublicationYear() <1950 || object.getPublicationYear()>2020)
+            errorMessage += "Invalid publication date!\n";
+        if(!object.getPrice().isPositive())
+            errorMessage += "Invalid price!\n";
+        return errorMessage.equals("Book Validation Error\n");
+    }
+}
@@ -0,0 +1,150 @@
+package ro.ubb.springjpa.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.service.BookService;
+import ro.ubb.springjpa.service.ClientService;
+import ro.ubb.springjpa.service.PurchaseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The data set of the load test and the service calls behind every operation.
+ * Books and clients are picked with a Zipf distribution over the seeded ids.
+ */
+public final class Workload
+{
+    private static final Logger log = LoggerFactory.getLogger(Workload.class);
+
+    private static final int LIBRARIES = 5;
+    private static final int BOOKS_PER_AUTHOR = 10;
+
+    private final BookService bookService;
+    private final ClientService clientService;
+    private final PurchaseService purchaseService;
+
+    private final int[] bookIds;
+    private final int[] clientIds;
+    private final ZipfDistribution books;
+    private final ZipfDistribution clients;
+    private final ZipfDistribution authors;
+    private final AtomicInteger reports = new AtomicInteger();
+
+    private Workload(ApplicationContext context, int[] bookIds, int[] clientIds, double exponent)
+    {
+        this.bookService = context.getBean(BookService.class);
+        this.clientService = context.getBean(ClientService.class);
+        this.purchaseService = context.getBean(PurchaseService.class);
+        this.bookIds = bookIds;
+        this.clientIds = clientIds;
+        this.books = new ZipfDistribution(bookIds.length, exponent);
+        this.clients = new ZipfDistribution(clientIds.length, exponent);
+        this.authors = new ZipfDistribution(authorCount(bookIds.length), exponent);
+    }
+
+    /**
+     * Fills the database through the services and prepares the workload.
+     * @param context the started application context
+     * @param bookCount the number of books
+     * @param clientCount the number of clients
+     * @param purchaseCount the number of purchases made before the test starts
+     * @param exponent the skew of the Zipf distributions
+     * @return the workload
+     */
+    public static Workload seed(ApplicationContext context, int bookCount, int clientCount, int purchaseCount, double exponent) throws Exception
+    {
+        long start = System.nanoTime();
+        BookService bookService = context.getBean(BookService.class);
+        ClientService clientService = context.getBean(ClientService.class);
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++)
+            books.add(new Book("Title " + i, author(i / BOOKS_PER_AUTHOR), "Publisher " + (i % 20),
+                    1950 + i % 70, Money.ofCents(500 + ThreadLocalRandom.current().nextInt(10_000))));
+        bookService.addBooks(books);
+        int[] bookIds = books.stream().mapToInt(Book::getId).toArray();
+
+        List<Client> clients = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++)
+            clients.add(new Client("First" + i, "Last" + i, "client" + i + "@bookstore.ro"));
+        clientService.addClients(clients);
+        int[] clientIds = clients.stream().mapToInt(Client::getId).toArray();
+
+        Workload workload = new Workload(context, bookIds, clientIds, exponent);
+        for (int i = 0; i < purchaseCount; i++)
+            workload.purchase();
+        log.info("seed - {} books, {} clients and {} purchases created in {} ms",
+                bookCount, clientCount, purchaseCount, (System.nanoTime() - start) / 1_000_000);
+        return workload;
+    }
+
+    /**
+     * Runs one operation.
+     * @param operation the operation
+     */
+    public void execute(Operation operation) throws Exception
+    {
+        switch (operation)
+        {
+            case BROWSE:
+                this.bookService.findOne(this.bookIds[this.books.next()]);
+                this.clientService.findOne(this.clientIds[this.clients.next()]);
+                break;
+            case FILTER:
+                this.bookService.filter(author(this.authors.next()));
+                break;
+            case PURCHASE:
+                this.purchase();
+                break;
+            case REPORT:
+                this.report();
+                break;
+        }
+    }
+
+    private void purchase() throws Exception
+    {
+        Purchase purchase = new Purchase(this.clientIds[this.clients.next()], this.bookIds[this.books.next()],
+                "Library " + ThreadLocalRandom.current().nextInt(LIBRARIES));
+        this.purchaseService.add(purchase);
+    }
+
+    /**
+     * Runs the reports in turn: one from the rollup, one aggregated in memory and one aggregated by the database.
+     */
+    private void report() throws Exception
+    {
+        switch (this.reports.getAndIncrement() % 3)
+        {
+            case 0:
+                this.purchaseService.reportSalesPerLibrary();
+                break;
+            case 1:
+                this.purchaseService.reportTop3BestSellingBooks();
+                break;
+            default:
+                this.purchaseService.reportSalesPerAuthor();
+        }
+    }
+
+    private static int authorCount(int bookCount)
+    {
+        return (bookCount + BOOKS_PER_AUTHOR - 1) / BOOKS_PER_AUTHOR;
+    }
+
+    /**
+     * Names an author with a fixed width, so filtering by one author name does not match the others.
+     */
+    private static String author(int index)
+    {
+        return String.format("Author %06d", index);
+    }
+}
@@ -0,0 +1,43 @@
+package ro.ubb.springjpa.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf distribution over the ranks 0..n-1: rank k is drawn with a probability proportional to 1 / (k + 1)^exponent,
+ * so a few ids receive most of the traffic, as the best sellers and the regular clients do in production.
+ */
+public final class ZipfDistribution
+{
+    private final double[] cumulative;
+
+    /**
+     * Precomputes the cumulative distribution.
+     * @param n the number of ranks
+     * @param exponent the skew, 0 meaning uniform
+     */
+    public ZipfDistribution(int n, double exponent)
+    {
+        if (n <= 0)
+            throw new IllegalArgumentException("The distribution needs at least one rank");
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++)
+        {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++)
+            cumulative[k] /= sum;
+    }
+
+    /**
+     * Draws a rank.
+     * @return a rank between 0 and n-1, 0 being the most frequent
+     */
+    public int next()
+    {
+        int rank = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, cumulative.length - 1);
+    }
+}
@@ -3,24 +3,71 @@ package ro.ubb.springjpa;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
-import ro.ubb.springjpa.service.ClientServiceImpl;
+import ro.ubb.springjpa.config.AppLocalConfig;
+import ro.ubb.springjpa.config.CatalogConfig;
+import ro.ubb.springjpa.service.CacheWarmup;
+import ro.ubb.springjpa.service.PurchaseAnalyticsService;
+import ro.ubb.springjpa.service.RecommendationService;
+import ro.ubb.springjpa.service.SketchAnalyticsService;
+import ro.ubb.springjpa.service.TypeaheadService;
 import ro.ubb.springjpa.ui.Console;
 
+import java.util.function.BooleanSupplier;
+
 /**
  * author: radu
  */
 public class Main {
-    public static void main(String[] args)
+    private static final long READY_POLL_MILLIS = 50;
+    private static final long READY_LOG_MILLIS = 10_000;
+
+    public static void main(String[] args) throws InterruptedException
     {
         Logger log = LoggerFactory.getLogger(Main.class);
         log.trace("Start...");
+        long start = System.nanoTime();
 
         AnnotationConfigApplicationContext context =
                 new AnnotationConfigApplicationContext(
-                        "ro.ubb.springjpa"
+                        AppLocalConfig.class, CatalogConfig.class
                 );
+        log.info("startup - context started in {} ms", (System.nanoTime() - start) / 1_000_000);
+
+        // the warm-up gives up once warmup.budgetMillis ran out, the caches are filled further on first use
+        if (!context.getBean(CacheWarmup.class).awaitReady())
+            log.warn("startup - cache warm-up budget ran out, starting with partly warmed caches");
+        awaitReady(log, "recommendations", context.getBean(RecommendationService.class)::isReady);
+        awaitReady(log, "suggestions", context.getBean(TypeaheadService.class)::isReady);
+        awaitReady(log, "sketches", context.getBean(SketchAnalyticsService.class)::isReady);
+        awaitReady(log, "analytics snapshot", context.getBean(PurchaseAnalyticsService.class)::isReady);
+        log.info("startup - ready after {} ms", (System.nanoTime() - start) / 1_000_000);
 
-        context.getBean(Console.class).run();
+        Console console = context.getBean(Console.class);
+        log.info("startup - console ready after {} ms", (System.nanoTime() - start) / 1_000_000);
+        console.run();
+        context.close();
         log.trace("End...");
     }
+
+    /**
+     * Waits until a structure built in the background after the startup is ready, so the console never answers
+     * that it is still being built. A failed build is retried by the scheduled rebuild of its service, so the wait
+     * is logged instead of given up.
+     */
+    private static void awaitReady(Logger log, String name, BooleanSupplier ready) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        long nextLog = READY_LOG_MILLIS;
+        while (!ready.getAsBoolean())
+        {
+            Thread.sleep(READY_POLL_MILLIS);
+            long waited = (System.nanoTime() - start) / 1_000_000;
+            if (waited >= nextLog)
+            {
+                log.warn("startup - {} still being built after {} ms", name, waited);
+                nextLog += READY_LOG_MILLIS;
+            }
+        }
+        log.info("startup - {} ready after waiting {} ms", name, (System.nanoTime() - start) / 1_000_000);
+    }
 }
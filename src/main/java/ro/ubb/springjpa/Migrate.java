@@ -0,0 +1,47 @@
+package ro.ubb.springjpa;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Applies the versioned schema migrations from db/migration to the database configured in local/db.properties.
+ * Run once at deploy time (gradle migrate); the application itself only validates the schema.
+ */
+public class Migrate {
+    public static void main(String[] args) throws IOException
+    {
+        Logger log = LoggerFactory.getLogger(Migrate.class);
+
+        Properties properties = new Properties();
+        try (InputStream input = Migrate.class.getClassLoader().getResourceAsStream("local/db.properties")) {
+            properties.load(input);
+        }
+
+        int applied = migrate(properties.getProperty("db.jdbcUrl"), properties.getProperty("db.username"), properties.getProperty("db.password"));
+        log.info("migrate - {} migrations applied", applied);
+    }
+
+    /**
+     * Brings the schema of a database to the latest version.
+     * A database created before the migrations existed is baselined at version 0, so every script runs on it.
+     * @param jdbcUrl the url of the database
+     * @param username the user name
+     * @param password the password
+     * @return the number of migrations applied
+     */
+    public static int migrate(String jdbcUrl, String username, String password)
+    {
+        Flyway flyway = Flyway.configure()
+                .dataSource(jdbcUrl, username, password)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+        return flyway.migrate();
+    }
+}
@@ -4,8 +4,9 @@ import org.springframework.context.annotation.*;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 
 @Configuration
-@Import({JPAConfig.class})
+@Import({JPAConfig.class, R2dbcConfig.class})
 @PropertySources({@PropertySource(value = "classpath:local/db.properties"),
+        @PropertySource(value = "classpath:local/app.properties"),
 })
 public class AppLocalConfig {
     /**
@@ -17,4 +18,14 @@ public class AppLocalConfig {
     public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
         return new PropertySourcesPlaceholderConfigurer();
     }
+
+    /**
+     * Logs how long the creation of every bean took once the context is started.
+     *
+     * @return
+     */
+    @Bean
+    public static StartupTimingPostProcessor startupTimingPostProcessor() {
+        return new StartupTimingPostProcessor();
+    }
 }
@@ -1,11 +1,50 @@
 package ro.ubb.springjpa.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
+import ro.ubb.springjpa.service.invalidation.LoopbackInvalidationBus;
+import ro.ubb.springjpa.service.invalidation.PostgresInvalidationBus;
 
 @Configuration
-@ComponentScan({"ro.ubb.springjpa.repository", "ro.ubb.springjpa.service", "ro.ubb.springjpa.ui", "ro.ubb.springjpa.domain.validators"})
+@EnableScheduling
+@ComponentScan(value = {"ro.ubb.springjpa.repository", "ro.ubb.springjpa.service", "ro.ubb.springjpa.ui", "ro.ubb.springjpa.domain.validators"},
+        lazyInit = true)
 public class CatalogConfig {
 
+    /**
+     * Scheduler shared by the @Scheduled jobs, so a long job does not delay the others.
+     *
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("scheduler-");
+        return scheduler;
+    }
+
+    /**
+     * The cache invalidation bus named by cache.invalidation.bus: "postgres" when several instances share
+     * the database, "loopback" for a single instance.
+     *
+     * @return
+     */
+    @Bean
+    public InvalidationBus invalidationBus(@Value("${cache.invalidation.bus}") String bus) {
+        switch (bus) {
+            case "postgres":
+                return new PostgresInvalidationBus();
+            case "loopback":
+                return new LoopbackInvalidationBus();
+            default:
+                throw new IllegalArgumentException("Unknown cache.invalidation.bus: " + bus);
+        }
+    }
 
 }
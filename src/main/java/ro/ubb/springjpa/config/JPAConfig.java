@@ -3,9 +3,17 @@ package ro.ubb.springjpa.config;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.hibernate5.HibernateExceptionTranslator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -13,19 +21,24 @@ import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import ro.ubb.springjpa.repository.WorkloadRoutingDataSource;
+import ro.ubb.springjpa.repository.WorkloadType;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by radu.
  */
 
 @Configuration
-@EnableJpaRepositories({"ro.ubb.springjpa.repository"})
+@EnableJpaRepositories(value = {"ro.ubb.springjpa.repository"}, bootstrapMode = BootstrapMode.LAZY)
 @EnableTransactionManagement
-//@EnableCaching
+@EnableCaching
 public class JPAConfig {
 
     @Value("${db.jdbcUrl}")
@@ -40,51 +53,144 @@ public class JPAConfig {
     @Value("${db.generateDDL}")
     private Boolean generateDDL;
 
+    @Value("${db.showSql}")
+    private Boolean showSql;
+
+    @Value("${db.statementInspector}")
+    private String statementInspector;
+
+    @Value("${db.oltp.poolSize}")
+    private int oltpPoolSize;
+
+    @Value("${db.oltp.statementTimeoutMillis}")
+    private long oltpStatementTimeoutMillis;
+
+    @Value("${db.reporting.poolSize}")
+    private int reportingPoolSize;
+
+    @Value("${db.reporting.statementTimeoutMillis}")
+    private long reportingStatementTimeoutMillis;
+
     /**
-     * http://www.baeldung.com/hikaricp
+     * The data source of the application: connections come from the pool of the WorkloadType of the thread
+     * at the moment a transaction issues its first statement.
      *
      * @return
      */
     @Bean
+    @Primary
     public DataSource dataSource() {
+        Map<Object, Object> pools = new HashMap<>();
+        pools.put(WorkloadType.OLTP, oltpDataSource());
+        pools.put(WorkloadType.REPORTING, reportingDataSource());
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+        routing.setTargetDataSources(pools);
+        routing.setDefaultTargetDataSource(oltpDataSource());
+        routing.afterPropertiesSet();
+
+        // the defaults are given so the proxy does not open a connection to read them at startup
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    /**
+     * Pool of the checkouts and the other short transactions.
+     *
+     * @return
+     */
+    @Bean
+    public DataSource oltpDataSource() {
+        return pool("oltp", oltpPoolSize, oltpStatementTimeoutMillis);
+    }
+
+    /**
+     * Pool of the reports, exports and rebuilds. Being a separate pool, it can be exhausted without
+     * a single checkout waiting for a connection.
+     *
+     * @return
+     */
+    @Bean
+    public DataSource reportingDataSource() {
+        return pool("reporting", reportingPoolSize, reportingStatementTimeoutMillis);
+    }
+
+    /**
+     * http://www.baeldung.com/hikaricp
+     * Every connection of the pool gets the statement_timeout of its workload when it is opened.
+     */
+    private HikariDataSource pool(String name, int size, long statementTimeoutMillis) {
         HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
         config.setJdbcUrl(jdbcUrl);
         config.setUsername(username);
         config.setPassword(password);
+        config.setMaximumPoolSize(size);
+        config.setConnectionInitSql("set statement_timeout = " + statementTimeoutMillis);
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        HikariDataSource dataSource = new HikariDataSource(config);
-        return dataSource;
+        return new HikariDataSource(config);
     }
 
+    /**
+     * The entity manager factory is built in the background, so the rest of the context starts in parallel;
+     * the repositories are bootstrapped lazily and wait for it on first use.
+     * Without DDL generation, Hibernate only validates the mappings against the existing schema.
+     * db.statementInspector optionally names a Hibernate StatementInspector which sees every SQL statement.
+     *
+     * @return
+     */
     @Bean
-    public EntityManagerFactory entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         vendorAdapter.setDatabase(Database.POSTGRESQL);
         vendorAdapter.setGenerateDdl(generateDDL);
-        vendorAdapter.setShowSql(true);
+        vendorAdapter.setShowSql(showSql);
+
+        Map<String, Object> jpaProperties = new HashMap<>();
+        jpaProperties.put("hibernate.jdbc.batch_size", "50");
+        jpaProperties.put("hibernate.order_inserts", "true");
+        if (!generateDDL)
+            jpaProperties.put("hibernate.hbm2ddl.auto", "validate");
+        if (!statementInspector.isEmpty())
+            jpaProperties.put("hibernate.session_factory.statement_inspector", statementInspector);
 
         LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
         factory.setJpaVendorAdapter(vendorAdapter);
+        factory.setJpaPropertyMap(jpaProperties);
         factory.setPackagesToScan("ro.ubb.springjpa.domain.model");
         factory.setDataSource(dataSource());
-        factory.afterPropertiesSet();
-        return factory.getObject();
+        factory.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+        return factory;
     }
 
     @Bean
-    public EntityManager entityManager() {
-        return entityManagerFactory().createEntityManager();
+    @Lazy
+    public EntityManager entityManager(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.createEntityManager();
     }
 
     @Bean
-    PlatformTransactionManager transactionManager() {
+    PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
         JpaTransactionManager manager = new JpaTransactionManager();
-        manager.setEntityManagerFactory(entityManagerFactory());
+        manager.setEntityManagerFactory(entityManagerFactory);
         return manager;
     }
 
+    /**
+     * In-memory caches of the books and clients looked up by id, filled by the CacheWarmup at startup.
+     *
+     * @return
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        return new ConcurrentMapCacheManager("books", "clients");
+    }
+
     @Bean
     public HibernateExceptionTranslator hibernateExceptionTranslator() {
         return new HibernateExceptionTranslator();
@@ -0,0 +1,57 @@
+package ro.ubb.springjpa.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking connections to the same database as JPAConfig, for the reactive repositories.
+ * The pool is created on first use, so the application pays nothing for it unless the reactive services are used.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    @Value("${db.jdbcUrl}")
+    private String jdbcUrl;
+
+    @Value("${db.username}")
+    private String username;
+
+    @Value("${db.password}")
+    private String password;
+
+    @Value("${r2dbc.pool.maxSize}")
+    private int maxSize;
+
+    /**
+     * The R2DBC url is derived from the JDBC one (jdbc:postgresql://host:port/db becomes r2dbc:postgresql://host:port/db).
+     * The parameters of the JDBC url are dropped: their names are those of the JDBC driver, and the credentials are
+     * taken from db.username and db.password.
+     *
+     * @return
+     */
+    @Bean(destroyMethod = "dispose")
+    @Lazy
+    public ConnectionPool connectionFactory() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(jdbcUrl.replaceFirst("^jdbc:", "r2dbc:").replaceFirst("\\?.*$", ""))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options);
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(1)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build();
+        return new ConnectionPool(configuration);
+    }
+}
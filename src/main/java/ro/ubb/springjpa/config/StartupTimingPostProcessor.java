@@ -0,0 +1,49 @@
+package ro.ubb.springjpa.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the time spent creating every bean (instantiation, injection and initialization,
+ * including the beans it depends on) and logs the slowest ones when the context is refreshed.
+ */
+public class StartupTimingPostProcessor implements InstantiationAwareBeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(StartupTimingPostProcessor.class);
+
+    private static final int REPORTED_BEANS = 10;
+
+    private final long createdAt = System.nanoTime();
+    private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        startTimes.putIfAbsent(beanName, System.nanoTime());
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Long start = startTimes.remove(beanName);
+        if (start != null)
+            durations.put(beanName, System.nanoTime() - start);
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        log.info("startup - context refreshed {} ms after the post processors were registered, {} beans created eagerly",
+                (System.nanoTime() - createdAt) / 1_000_000, durations.size());
+        durations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(REPORTED_BEANS)
+                .forEach(entry -> log.info("startup - bean {} created in {} ms", entry.getKey(), entry.getValue() / 1_000_000));
+    }
+}
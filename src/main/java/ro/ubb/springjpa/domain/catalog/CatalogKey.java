@@ -0,0 +1,67 @@
+package ro.ubb.springjpa.domain.catalog;
+
+import ro.ubb.springjpa.domain.model.Book;
+
+/**
+ * The position of a book in a catalog order, from which the next page starts (keyset pagination).
+ * Written as "id:value", so it can be handed to clients as an opaque string.
+ */
+public final class CatalogKey
+{
+    private final int id;
+    private final Comparable<?> value;
+
+    private CatalogKey(int id, Comparable<?> value)
+    {
+        this.id = id;
+        this.value = value;
+    }
+
+    /**
+     * Gets the key of a book.
+     * @param sort the order of the page
+     * @param book the last book of the page
+     * @return the key
+     */
+    public static CatalogKey of(CatalogSort sort, Book book)
+    {
+        return new CatalogKey(book.getId(), sort.valueOf(book));
+    }
+
+    /**
+     * Parses a key written by toString.
+     * @param sort the order the key was taken in
+     * @param key the string
+     * @return the key
+     * @throws IllegalArgumentException if the string is not a key of that order
+     */
+    public static CatalogKey parse(CatalogSort sort, String key)
+    {
+        int separator = key.indexOf(':');
+        if (separator < 0)
+            throw new IllegalArgumentException("Invalid catalog key: " + key);
+        return new CatalogKey(Integer.parseInt(key.substring(0, separator)), sort.parseValue(key.substring(separator + 1)));
+    }
+
+    /**
+     * Gets id.
+     * @return the id of the book
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets value.
+     * @return the sorted value of the book
+     */
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.id + ":" + this.value;
+    }
+}
@@ -0,0 +1,65 @@
+package ro.ubb.springjpa.domain.catalog;
+
+import ro.ubb.springjpa.domain.model.Book;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type CatalogPage, one page of books with the facet counts of the query.
+ */
+public class CatalogPage
+{
+    private final List<Book> books;
+    private final String nextKey;
+    private final Map<String, Long> publishers;
+    private final Map<String, Long> authors;
+
+    /**
+     * Instantiates a new CatalogPage.
+     *
+     * @param books      the books of the page
+     * @param nextKey    the key the next page starts after, or null if this is the last page
+     * @param publishers the number of matching books of every publisher, ignoring the publisher filter
+     * @param authors    the number of matching books of every author, ignoring the author filter
+     */
+    public CatalogPage(List<Book> books, String nextKey, Map<String, Long> publishers, Map<String, Long> authors)
+    {
+        this.books = books;
+        this.nextKey = nextKey;
+        this.publishers = publishers;
+        this.authors = authors;
+    }
+
+    /**
+     * Gets books.
+     * @return the books of the page, in the order of the query
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Gets next key.
+     * @return the key to pass as CatalogQuery.after for the next page, or null if this is the last page
+     */
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    /**
+     * Gets publishers.
+     * @return the publisher facet: books per publisher, in descending order of the count
+     */
+    public Map<String, Long> getPublishers() {
+        return publishers;
+    }
+
+    /**
+     * Gets authors.
+     * @return the author facet: books per author, in descending order of the count
+     */
+    public Map<String, Long> getAuthors() {
+        return authors;
+    }
+}
@@ -0,0 +1,163 @@
+package ro.ubb.springjpa.domain.catalog;
+
+import ro.ubb.springjpa.domain.model.Money;
+
+/**
+ * The type CatalogQuery, the filters, order and position of a catalog page. Filters left null are not applied.
+ */
+public class CatalogQuery
+{
+    private Money minPrice;
+    private Money maxPrice;
+    private Integer fromYear;
+    private Integer toYear;
+    private String publisher;
+    private String author;
+    private CatalogSort sort = CatalogSort.TITLE;
+    private String after;
+    private int pageSize = 20;
+
+    /**
+     * Gets min price.
+     * @return the lowest price, inclusive
+     */
+    public Money getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Sets min price.
+     * @param minPrice the lowest price, inclusive
+     */
+    public void setMinPrice(Money minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    /**
+     * Gets max price.
+     * @return the highest price, inclusive
+     */
+    public Money getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Sets max price.
+     * @param maxPrice the highest price, inclusive
+     */
+    public void setMaxPrice(Money maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Gets from year.
+     * @return the first publication year, inclusive
+     */
+    public Integer getFromYear() {
+        return fromYear;
+    }
+
+    /**
+     * Sets from year.
+     * @param fromYear the first publication year, inclusive
+     */
+    public void setFromYear(Integer fromYear) {
+        this.fromYear = fromYear;
+    }
+
+    /**
+     * Gets to year.
+     * @return the last publication year, inclusive
+     */
+    public Integer getToYear() {
+        return toYear;
+    }
+
+    /**
+     * Sets to year.
+     * @param toYear the last publication year, inclusive
+     */
+    public void setToYear(Integer toYear) {
+        this.toYear = toYear;
+    }
+
+    /**
+     * Gets publisher.
+     * @return the publisher facet selected
+     */
+    public String getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Sets publisher.
+     * @param publisher the publisher facet selected
+     */
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Gets author.
+     * @return the author facet selected
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Sets author.
+     * @param author the author facet selected
+     */
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    /**
+     * Gets sort.
+     * @return the order of the books
+     */
+    public CatalogSort getSort() {
+        return sort;
+    }
+
+    /**
+     * Sets sort.
+     * @param sort the order of the books
+     */
+    public void setSort(CatalogSort sort) {
+        this.sort = sort;
+    }
+
+    /**
+     * Gets after.
+     * @return the next key of the previous page, or null for the first page
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * Sets after.
+     * @param after the next key of the previous page, or null for the first page
+     */
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    /**
+     * Gets page size.
+     * @return the maximum number of books of the page
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets page size.
+     * @param pageSize the maximum number of books of the page
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
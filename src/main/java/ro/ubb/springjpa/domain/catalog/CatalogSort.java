@@ -0,0 +1,78 @@
+package ro.ubb.springjpa.domain.catalog;
+
+import ro.ubb.springjpa.domain.model.Book;
+
+/**
+ * The orders of the catalog pages. Every order ends with the book id, so it is total and pages can continue
+ * after the last book of the previous page.
+ */
+public enum CatalogSort
+{
+    PRICE_ASC("priceCents", true),
+    PRICE_DESC("priceCents", false),
+    YEAR_ASC("publicationYear", true),
+    YEAR_DESC("publicationYear", false),
+    TITLE("title", true);
+
+    private final String attribute;
+    private final boolean ascending;
+
+    CatalogSort(String attribute, boolean ascending)
+    {
+        this.attribute = attribute;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Gets attribute.
+     * @return the Book attribute sorted on
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Checks if the order is ascending.
+     * @return true for ascending orders, false for descending ones
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Gets the sorted value of a book.
+     * @param book the book
+     * @return the value of the attribute sorted on
+     */
+    public Comparable<?> valueOf(Book book)
+    {
+        switch (this.attribute)
+        {
+            case "priceCents":
+                return book.getPriceCents();
+            case "publicationYear":
+                return book.getPublicationYear();
+            default:
+                return book.getTitle();
+        }
+    }
+
+    /**
+     * Parses a value written by valueOf(book).toString().
+     * @param value the string
+     * @return the value, of the type of the attribute sorted on
+     * @throws NumberFormatException if a numeric value cannot be parsed
+     */
+    public Comparable<?> parseValue(String value)
+    {
+        switch (this.attribute)
+        {
+            case "priceCents":
+                return Long.parseLong(value);
+            case "publicationYear":
+                return Integer.parseInt(value);
+            default:
+                return value;
+        }
+    }
+}
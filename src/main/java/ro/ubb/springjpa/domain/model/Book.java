@@ -1,5 +1,6 @@
 package ro.ubb.springjpa.domain.model;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 
 /**
@@ -12,7 +13,11 @@ public class Book extends BaseEntity<Integer>
     private String author;
     private String publisher;
     private int publicationYear;
-    private float price;
+    private long priceCents;
+
+    // never written back by updates: purchases decrement it with a conditional UPDATE and a stale copy would undo them
+    @Column(updatable = false)
+    private Integer stock;
 
     public Book(){}
 
@@ -23,15 +28,15 @@ public class Book extends BaseEntity<Integer>
      * @param author          String representing the author of the book
      * @param publisher       String representing the publisher of the book
      * @param publicationYear int representing the publication year of the book
-     * @param price           float representing the price of the book
+     * @param price           Money representing the price of the book
      */
-    public Book(String title, String author, String publisher, int publicationYear, float price)
+    public Book(String title, String author, String publisher, int publicationYear, Money price)
     {
         this.title = title;
         this.author = author;
         this.publisher = publisher;
         this.publicationYear = publicationYear;
-        this.price = price;
+        this.priceCents = price.getCents();
     }
 
     /**
@@ -102,16 +107,40 @@ public class Book extends BaseEntity<Integer>
      * Gets price.
      * @return the price
      */
-    public float getPrice() {
-        return price;
+    public Money getPrice() {
+        return Money.ofCents(priceCents);
     }
 
     /**
      * Sets price.
      * @param price the price
      */
-    public void setPrice(float price) {
-        this.price = price;
+    public void setPrice(Money price) {
+        this.priceCents = price.getCents();
+    }
+
+    /**
+     * Gets the price in cents, without allocating a Money.
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Gets the number of copies left, as it was when the book was loaded.
+     * @return the copies left, or null if the stock of the book is not tracked
+     */
+    public Integer getStock() {
+        return stock;
+    }
+
+    /**
+     * Sets the initial stock of a new book. The stock of a stored book is only changed through BookService.restock.
+     * @param stock the copies available, or null to sell the book without a limit
+     */
+    public void setStock(Integer stock) {
+        this.stock = stock;
     }
 
     @Override
@@ -136,7 +165,8 @@ public class Book extends BaseEntity<Integer>
                 ", author='" + this.author + '\'' +
                 ", publisher='" + this.publisher + '\'' +
                 ", publicationYear=" + this.publicationYear +
-                ", price=" + this.price +
+                ", price=" + this.getPrice() +
+                ", stock=" + this.stock +
                 "}";
     }
 
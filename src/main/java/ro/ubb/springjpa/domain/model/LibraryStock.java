@@ -0,0 +1,53 @@
+package ro.ubb.springjpa.domain.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The type LibraryStock, holding how many more copies of a book one library may sell, out of the stock of the book.
+ * A library without a row for a book is only limited by the stock of the book.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"bookId", "library"}))
+public class LibraryStock extends BaseEntity<Integer>
+{
+    private int bookId;
+    private String library;
+    private int quantity;
+
+    public LibraryStock(){}
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getLibrary() {
+        return library;
+    }
+
+    public void setLibrary(String library) {
+        this.library = library;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryStock{" + super.toString() + " " +
+                "bookId=" + bookId +
+                ", library=" + library +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
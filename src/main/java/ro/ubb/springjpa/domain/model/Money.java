@@ -0,0 +1,101 @@
+package ro.ubb.springjpa.domain.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The type Money, an exact amount stored as a number of cents.
+ */
+public final class Money implements Comparable<Money>, Serializable
+{
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents)
+    {
+        this.cents = cents;
+    }
+
+    /**
+     * Creates an amount out of a number of cents.
+     * @param cents long representing the amount in cents
+     * @return the amount
+     */
+    public static Money ofCents(long cents)
+    {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Parses a decimal amount such as "12.5", rounding it half-up to cents.
+     * @param amount String representing the amount
+     * @return the amount
+     * @throws NumberFormatException if the string is not a decimal number
+     */
+    public static Money parse(String amount)
+    {
+        try {
+            return ofCents(new BigDecimal(amount.trim()).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + amount);
+        }
+    }
+
+    /**
+     * Gets cents.
+     * @return the amount in cents
+     */
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * Adds two amounts.
+     * @param other the amount to add
+     * @return the sum of the amounts
+     */
+    public Money plus(Money other)
+    {
+        return ofCents(Math.addExact(this.cents, other.cents));
+    }
+
+    /**
+     * Checks if the amount is greater than zero.
+     * @return true if the amount is positive, false otherwise
+     */
+    public boolean isPositive()
+    {
+        return this.cents > 0;
+    }
+
+    @Override
+    public int compareTo(Money other)
+    {
+        return Long.compare(this.cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+            return true;
+        if (object == null || getClass() != object.getClass())
+            return false;
+
+        return this.cents == ((Money) object).cents;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(this.cents);
+    }
+
+    @Override
+    public String toString()
+    {
+        return BigDecimal.valueOf(this.cents, 2).toPlainString();
+    }
+}
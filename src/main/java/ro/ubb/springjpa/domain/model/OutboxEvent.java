@@ -0,0 +1,89 @@
+package ro.ubb.springjpa.domain.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import java.time.LocalDateTime;
+
+/**
+ * The type OutboxEvent, a change of a book, client or purchase recorded in the same transaction as the change itself.
+ * The rows are numbered with their publish order by the OutboxRelay when it publishes them.
+ */
+@Entity
+public class OutboxEvent extends BaseEntity<Integer>
+{
+    private String aggregateType;
+    private Integer aggregateId;
+    private String eventType;
+    @Column(columnDefinition = "text")
+    private String payload;
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt;
+    private Long publishOrder;
+
+    public OutboxEvent(){}
+
+    /**
+     * Instantiates a new OutboxEvent.
+     *
+     * @param aggregateType String representing the type of the changed entity (Book, Client or Purchase)
+     * @param aggregateId   Integer representing the id of the changed entity
+     * @param eventType     String representing the kind of change
+     * @param payload       String representing the new state of the entity, as JSON
+     */
+    public OutboxEvent(String aggregateType, Integer aggregateId, String eventType, String payload)
+    {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Integer getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public Long getPublishOrder() {
+        return publishOrder;
+    }
+
+    public void setPublishOrder(Long publishOrder) {
+        this.publishOrder = publishOrder;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" + super.toString() + " " +
+                "aggregateType=" + aggregateType +
+                ", aggregateId=" + aggregateId +
+                ", eventType=" + eventType +
+                ", createdAt=" + createdAt +
+                ", publishedAt=" + publishedAt +
+                ", publishOrder=" + publishOrder +
+                '}';
+    }
+}
@@ -1,6 +1,8 @@
 package ro.ubb.springjpa.domain.model;
 
 import javax.persistence.Entity;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
 
 @Entity
 public class Purchase extends BaseEntity<Integer>
@@ -8,6 +10,13 @@ public class Purchase extends BaseEntity<Integer>
     private int clientId;
     private int bookId;
     private String library;
+    private LocalDateTime purchaseDate;
+    // the price of the book when it was sold, which later price changes do not touch
+    private long priceCents;
+
+    // optional key chosen by the till, so a retried submission is recognized; stored in the purchasekey table
+    @Transient
+    private String purchaseKey;
 
     public Purchase(){}
 
@@ -24,6 +33,9 @@ public class Purchase extends BaseEntity<Integer>
                 "clientId=" + clientId +
                 ", bookId=" + bookId +
                 ", library=" + library +
+                ", purchaseDate=" + purchaseDate +
+                ", price=" + getPrice() +
+                ", purchaseKey=" + purchaseKey +
                 '}';
     }
 
@@ -35,6 +47,46 @@ public class Purchase extends BaseEntity<Integer>
         this.library = library;
     }
 
+    public LocalDateTime getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public void setPurchaseDate(LocalDateTime purchaseDate) {
+        this.purchaseDate = purchaseDate;
+    }
+
+    /**
+     * Gets the price the book was sold at.
+     * @return the price
+     */
+    public Money getPrice() {
+        return Money.ofCents(priceCents);
+    }
+
+    /**
+     * Gets the price the book was sold at in cents, without allocating a Money.
+     * @return the price in cents
+     */
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Sets the price the book was sold at.
+     * @param priceCents the price in cents
+     */
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    public String getPurchaseKey() {
+        return purchaseKey;
+    }
+
+    public void setPurchaseKey(String purchaseKey) {
+        this.purchaseKey = purchaseKey;
+    }
+
     public int getClientId() {
         return clientId;
     }
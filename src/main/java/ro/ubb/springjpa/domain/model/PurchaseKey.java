@@ -0,0 +1,54 @@
+package ro.ubb.springjpa.domain.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * The type PurchaseKey, recording the idempotency key a purchase was submitted with.
+ * The purchase table is partitioned by date and cannot have a unique index on the key alone, so the keys live here.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = "purchaseKey"))
+public class PurchaseKey extends BaseEntity<Integer>
+{
+    private String purchaseKey;
+    private int purchaseId;
+    private LocalDateTime createdAt;
+
+    public PurchaseKey(){}
+
+    public String getPurchaseKey() {
+        return purchaseKey;
+    }
+
+    public void setPurchaseKey(String purchaseKey) {
+        this.purchaseKey = purchaseKey;
+    }
+
+    public int getPurchaseId() {
+        return purchaseId;
+    }
+
+    public void setPurchaseId(int purchaseId) {
+        this.purchaseId = purchaseId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseKey{" + super.toString() + " " +
+                "purchaseKey=" + purchaseKey +
+                ", purchaseId=" + purchaseId +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
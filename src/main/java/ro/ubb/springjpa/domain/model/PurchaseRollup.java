@@ -0,0 +1,64 @@
+package ro.ubb.springjpa.domain.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * The type PurchaseRollup, holding the units sold and the revenue of a library for one day.
+ * Rows are incremented as purchases are added, so reports over long periods read one row per day and library.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"saleDate", "library"}))
+public class PurchaseRollup extends BaseEntity<Integer>
+{
+    private LocalDate saleDate;
+    private String library;
+    private long units;
+    private long revenueCents;
+
+    public PurchaseRollup(){}
+
+    public LocalDate getSaleDate() {
+        return saleDate;
+    }
+
+    public void setSaleDate(LocalDate saleDate) {
+        this.saleDate = saleDate;
+    }
+
+    public String getLibrary() {
+        return library;
+    }
+
+    public void setLibrary(String library) {
+        this.library = library;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public void setRevenueCents(long revenueCents) {
+        this.revenueCents = revenueCents;
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseRollup{" + super.toString() + " " +
+                "saleDate=" + saleDate +
+                ", library=" + library +
+                ", units=" + units +
+                ", revenue=" + Money.ofCents(revenueCents) +
+                '}';
+    }
+}
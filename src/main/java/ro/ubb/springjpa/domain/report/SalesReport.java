@@ -0,0 +1,74 @@
+package ro.ubb.springjpa.domain.report;
+
+import ro.ubb.springjpa.domain.model.Money;
+
+/**
+ * The type SalesReport, one row of a grouped sales report.
+ */
+public class SalesReport
+{
+    private final String group;
+    private final long units;
+    private final Money revenue;
+
+    /**
+     * Instantiates a new SalesReport.
+     *
+     * @param group   String representing the value the purchases were grouped by (library, day, author...)
+     * @param units   Long representing the number of books sold
+     * @param revenue Long representing the money earned, in cents
+     */
+    public SalesReport(String group, Long units, Long revenue)
+    {
+        this.group = group;
+        this.units = units == null ? 0 : units;
+        this.revenue = Money.ofCents(revenue == null ? 0 : revenue);
+    }
+
+    /**
+     * Instantiates a new SalesReport for a calendar month.
+     *
+     * @param year    Integer representing the year
+     * @param month   Integer representing the month of the year
+     * @param units   Long representing the number of books sold
+     * @param revenue Long representing the money earned, in cents
+     */
+    public SalesReport(Integer year, Integer month, Long units, Long revenue)
+    {
+        this(String.format("%04d-%02d", year, month), units, revenue);
+    }
+
+    /**
+     * Gets the group.
+     * @return the value the purchases were grouped by
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Gets units.
+     * @return the number of books sold
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    /**
+     * Gets revenue.
+     * @return the money earned
+     */
+    public Money getRevenue() {
+        return revenue;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SalesReport{" +
+                "group='" + this.group + '\'' +
+                ", units=" + this.units +
+                ", revenue=" + this.revenue +
+                "}";
+    }
+}
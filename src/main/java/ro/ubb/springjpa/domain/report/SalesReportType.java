@@ -0,0 +1,28 @@
+package ro.ubb.springjpa.domain.report;
+
+/**
+ * The grouped sales reports.
+ */
+public enum SalesReportType
+{
+    LIBRARY("library"),
+    DAY("day"),
+    MONTH("month"),
+    AUTHOR("author"),
+    PUBLISHER("publisher");
+
+    private final String group;
+
+    SalesReportType(String group)
+    {
+        this.group = group;
+    }
+
+    /**
+     * Gets the group.
+     * @return the name of what the purchases are grouped by
+     */
+    public String getGroup() {
+        return group;
+    }
+}
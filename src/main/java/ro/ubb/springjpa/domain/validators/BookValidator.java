@@ -11,38 +11,32 @@ public class BookValidator implements Validator<Book>
 {
 
     /**
-     * Validates an object of type Book
+     * Checks an object of type Book
      * @param object object representing an instance of class Book
-     * @throws ValidatorException if the object cannot be validated
+     * @param result the result collecting the violations
      */
     @Override
-    public void validate(Book object) throws ValidatorException
+    public void validate(Book object, ValidationResult result)
     {
-        String errorMessage = "Book Validation Error\n";
-        if(object.getTitle() == null || object.getTitle().equals(""))
+        if(object.getTitle() == null || object.getTitle().isEmpty())
         {
-            errorMessage += "Invalid title!\n";
+            result.add(Violation.BOOK_TITLE);
         }
-        if(object.getAuthor() == null || object.getAuthor().equals(""))
+        if(object.getAuthor() == null || object.getAuthor().isEmpty())
         {
-            errorMessage += "Invalid author!\n";
+            result.add(Violation.BOOK_AUTHOR);
         }
-        if(object.getPublisher() == null || object.getPublisher().equals(""))
+        if(object.getPublisher() == null || object.getPublisher().isEmpty())
         {
-            errorMessage +="Invalid publisher!\n";
+            result.add(Violation.BOOK_PUBLISHER);
         }
         if(object.getPublicationYear() <1950 || object.getPublicationYear()>2020)
         {
-            errorMessage += "Invalid publication date!\n";
+            result.add(Violation.BOOK_PUBLICATION_YEAR);
         }
-        if(object.getPrice() <= 0)
+        if(!object.getPrice().isPositive())
         {
-            errorMessage += "Invalid price!\n";
-        }
-
-        if(!errorMessage.equals("Book Validation Error\n"))
-        {
-            throw new ValidatorException(errorMessage);
+            result.add(Violation.BOOK_PRICE);
         }
     }
 }
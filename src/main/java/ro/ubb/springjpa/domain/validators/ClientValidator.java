@@ -10,29 +10,24 @@ import ro.ubb.springjpa.domain.model.Client;
 public class ClientValidator implements Validator<Client>
 {
     /**
-     * Validates an object of type Client
+     * Checks an object of type Client
      * @param object object representing an instance of class Client
-     * @throws ValidatorException exception thrown if the object cannot be validated
+     * @param result the result collecting the violations
      */
     @Override
-    public void validate(Client object) throws ValidatorException
+    public void validate(Client object, ValidationResult result)
     {
-        String errorMessage = "Client Validation Error\n";
-        if(object.getFirstName() == null || object.getFirstName().equals(""))
+        if(object.getFirstName() == null || object.getFirstName().isEmpty())
         {
-            errorMessage += "Invalid first name!\n";
+            result.add(Violation.CLIENT_FIRST_NAME);
         }
-        if(object.getLastName() == null || object.getLastName().equals(""))
+        if(object.getLastName() == null || object.getLastName().isEmpty())
         {
-            errorMessage += "Invalid last name!\n";
+            result.add(Violation.CLIENT_LAST_NAME);
         }
-        if(object.getAddress() == null || object.getAddress().equals("") || !object.getAddress().contains("@"))
+        if(object.getAddress() == null || object.getAddress().isEmpty() || object.getAddress().indexOf('@') < 0)
         {
-            errorMessage += "Invalid address!\n";
-        }
-        if(!errorMessage.equals("Client Validation Error\n"))
-        {
-            throw new ValidatorException(errorMessage);
+            result.add(Violation.CLIENT_ADDRESS);
         }
     }
 }
@@ -9,21 +9,23 @@ import ro.ubb.springjpa.domain.model.Purchase;
 @Component
 public class PurchaseValidator implements Validator<Purchase> {
 
+    private static final int MAX_KEY_LENGTH = 64;
+
     /**
-     * Validates an object of type purchase
+     * Checks an object of type purchase
      * @param purchase object representing an instance of class Purchase
-     * @throws ValidatorException exception thrown if the object cannot be validated
+     * @param result the result collecting the violations
      */
     @Override
-    public void validate(Purchase purchase) throws ValidatorException{
-        String errorMessage = "Purchase Validation Error\n";
+    public void validate(Purchase purchase, ValidationResult result) {
         if (purchase.getClientId() == 0)
-            errorMessage += "Invalid Client Id";
+            result.add(Violation.PURCHASE_CLIENT_ID);
         if (purchase.getBookId() == 0)
-            errorMessage += "Invalid Book Id";
-        if (purchase.getLibrary() == null || purchase.getLibrary().equals(""))
-            errorMessage += "Invalid library";
-        if(!errorMessage.equals("Purchase Validation Error\n"))
-            throw new ValidatorException(errorMessage);
+            result.add(Violation.PURCHASE_BOOK_ID);
+        if (purchase.getLibrary() == null || purchase.getLibrary().isEmpty())
+            result.add(Violation.PURCHASE_LIBRARY);
+        if (purchase.getPurchaseKey() != null
+                && (purchase.getPurchaseKey().isEmpty() || purchase.getPurchaseKey().length() > MAX_KEY_LENGTH))
+            result.add(Violation.PURCHASE_KEY);
     }
 }
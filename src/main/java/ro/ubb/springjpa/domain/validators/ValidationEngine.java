@@ -0,0 +1,106 @@
+package ro.ubb.springjpa.domain.validators;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validates collections of objects in parallel, for bulk loads. The collection is split into ranges validated
+ * by fork-join tasks; every range reuses a single ValidationResult, so only the invalid objects allocate.
+ */
+@Component
+public class ValidationEngine
+{
+    private static final int THRESHOLD = 1024;
+
+    /**
+     * Validates every object of a collection.
+     * @param objects the objects to validate
+     * @param validator the validator of their type
+     * @param <T> the type of the objects
+     * @return the invalid objects, in the order of the collection; empty if all of them are valid
+     */
+    public <T> List<ValidationFailure<T>> validateAll(Collection<T> objects, Validator<T> validator)
+    {
+        // the tasks read the objects by index, which only a random access list does in constant time
+        List<T> list = objects instanceof List && objects instanceof RandomAccess ? (List<T>) objects : new ArrayList<>(objects);
+        if (list.isEmpty())
+            return Collections.emptyList();
+        return ForkJoinPool.commonPool().invoke(new ValidateTask<>(list, validator, 0, list.size()));
+    }
+
+    /**
+     * Validates every object of a collection, failing on the first invalid ones.
+     * @param objects the objects to validate
+     * @param validator the validator of their type
+     * @param <T> the type of the objects
+     * @throws ValidatorException if some objects are not valid, listing each of them with its position
+     */
+    public <T> void requireAllValid(Collection<T> objects, Validator<T> validator) throws ValidatorException
+    {
+        List<ValidationFailure<T>> failures = this.validateAll(objects, validator);
+        if (failures.isEmpty())
+            return;
+        StringBuilder message = new StringBuilder();
+        failures.forEach(failure -> message.append("#").append(failure.getIndex()).append(": ").append(failure.getMessage()));
+        throw new ValidatorException(message.toString());
+    }
+
+    private static final class ValidateTask<T> extends RecursiveTask<List<ValidationFailure<T>>>
+    {
+        private final List<T> objects;
+        private final Validator<T> validator;
+        private final int from;
+        private final int to;
+
+        private ValidateTask(List<T> objects, Validator<T> validator, int from, int to)
+        {
+            this.objects = objects;
+            this.validator = validator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ValidationFailure<T>> compute()
+        {
+            if (to - from <= THRESHOLD)
+            {
+                List<ValidationFailure<T>> failures = Collections.emptyList();
+                ValidationResult result = new ValidationResult();
+                for (int i = from; i < to; i++)
+                {
+                    T object = objects.get(i);
+                    result.reset();
+                    validator.validate(object, result);
+                    if (!result.isValid())
+                    {
+                        if (failures.isEmpty())
+                            failures = new ArrayList<>();
+                        failures.add(new ValidationFailure<>(i, object, result));
+                    }
+                }
+                return failures;
+            }
+
+            int middle = (from + to) >>> 1;
+            ValidateTask<T> left = new ValidateTask<>(objects, validator, from, middle);
+            left.fork();
+            List<ValidationFailure<T>> right = new ValidateTask<>(objects, validator, middle, to).compute();
+            List<ValidationFailure<T>> leftFailures = left.join();
+            if (right.isEmpty())
+                return leftFailures;
+            if (leftFailures.isEmpty())
+                return right;
+            List<ValidationFailure<T>> failures = new ArrayList<>(leftFailures);
+            failures.addAll(right);
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ro.ubb.springjpa.domain.validators;
+
+import java.util.List;
+
+/**
+ * An invalid object found by ValidationEngine.validateAll, with its position in the validated collection.
+ *
+ * @param <T> the type of the validated objects
+ */
+public final class ValidationFailure<T>
+{
+    private final int index;
+    private final T object;
+    private final List<Violation> violations;
+    private final String message;
+
+    ValidationFailure(int index, T object, ValidationResult result)
+    {
+        this.index = index;
+        this.object = object;
+        this.violations = result.getViolations();
+        this.message = result.getMessage();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public T getObject() {
+        return object;
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationFailure{" +
+                "index=" + index +
+                ", object=" + object +
+                ", violations=" + violations +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package ro.ubb.springjpa.domain.validators;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reusable collector of violations. The storage is allocated once and cleared with reset(),
+ * so validating a valid object allocates nothing; the error message is only built for invalid objects.
+ */
+public final class ValidationResult
+{
+    private static final ThreadLocal<ValidationResult> LOCAL = ThreadLocal.withInitial(ValidationResult::new);
+
+    private final Violation[] violations = new Violation[Violation.values().length];
+    private int count;
+
+    /**
+     * Gets the result owned by the current thread, cleared.
+     * @return the result of the current thread
+     */
+    public static ValidationResult local()
+    {
+        ValidationResult result = LOCAL.get();
+        result.reset();
+        return result;
+    }
+
+    /**
+     * Clears the violations, so the result can be used for the next object.
+     */
+    public void reset()
+    {
+        count = 0;
+    }
+
+    /**
+     * Records a violation. A violation is recorded only once per object.
+     * @param violation the rule which is not respected
+     */
+    public void add(Violation violation)
+    {
+        for (int i = 0; i < count; i++)
+            if (violations[i] == violation)
+                return;
+        violations[count++] = violation;
+    }
+
+    /**
+     * Checks if no violation was recorded.
+     * @return true if the object is valid
+     */
+    public boolean isValid()
+    {
+        return count == 0;
+    }
+
+    /**
+     * Gets the violations.
+     * @return a copy of the violations, in the order they were recorded
+     */
+    public List<Violation> getViolations()
+    {
+        return count == 0 ? Collections.emptyList() : Arrays.asList(Arrays.copyOf(violations, count));
+    }
+
+    /**
+     * Builds the message shown to the user, in the format the validators always used.
+     * @return the error message, or an empty string if the object is valid
+     */
+    public String getMessage()
+    {
+        if (count == 0)
+            return "";
+        StringBuilder message = new StringBuilder(violations[0].getEntity()).append(" Validation Error\n");
+        for (int i = 0; i < count; i++)
+            message.append(violations[i].getMessage()).append('\n');
+        return message.toString();
+    }
+
+    /**
+     * Throws the violations, if any.
+     * @throws ValidatorException if a violation was recorded
+     */
+    public void throwIfInvalid() throws ValidatorException
+    {
+        if (count != 0)
+            throw new ValidatorException(getMessage());
+    }
+}
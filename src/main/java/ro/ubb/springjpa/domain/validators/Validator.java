@@ -7,10 +7,22 @@ package ro.ubb.springjpa.domain.validators;
  */
 public interface Validator<T>
 {
+    /**
+     * Checks an object of type T, recording every broken rule into the result.
+     * @param object object representing an instance of class T
+     * @param result the result collecting the violations
+     */
+    void validate(T object, ValidationResult result);
+
     /**
      * Validates an object of type T
      * @param object object representing an instance of class T
      * @throws ValidatorException exception thrown if the object cannot be validated
      */
-    void validate(T object) throws ValidatorException;
+    default void validate(T object) throws ValidatorException
+    {
+        ValidationResult result = ValidationResult.local();
+        validate(object, result);
+        result.throwIfInvalid();
+    }
 }
@@ -0,0 +1,47 @@
+package ro.ubb.springjpa.domain.validators;
+
+/**
+ * The rules checked by the validators. Violations are constants, so recording one does not allocate.
+ */
+public enum Violation
+{
+    BOOK_TITLE("Book", "Invalid title!"),
+    BOOK_AUTHOR("Book", "Invalid author!"),
+    BOOK_PUBLISHER("Book", "Invalid publisher!"),
+    BOOK_PUBLICATION_YEAR("Book", "Invalid publication date!"),
+    BOOK_PRICE("Book", "Invalid price!"),
+
+    CLIENT_FIRST_NAME("Client", "Invalid first name!"),
+    CLIENT_LAST_NAME("Client", "Invalid last name!"),
+    CLIENT_ADDRESS("Client", "Invalid address!"),
+
+    PURCHASE_CLIENT_ID("Purchase", "Invalid Client Id"),
+    PURCHASE_BOOK_ID("Purchase", "Invalid Book Id"),
+    PURCHASE_LIBRARY("Purchase", "Invalid library"),
+    PURCHASE_KEY("Purchase", "Invalid purchase key");
+
+    private final String entity;
+    private final String message;
+
+    Violation(String entity, String message)
+    {
+        this.entity = entity;
+        this.message = message;
+    }
+
+    /**
+     * Gets entity.
+     * @return the name of the validated type
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets message.
+     * @return the message shown to the user
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,32 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
+import ro.ubb.springjpa.domain.model.Book;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog queries of BookRepository, written with the Criteria API.
+ */
+public interface BookCatalogRepository {
+
+    /**
+     * Returns one page of books, with a single query and without counting the books matching.
+     * @param filter the books to return; combine it with BookSpecifications.after to continue a previous page
+     * @param sort the order, completed with the book id
+     * @param limit the maximum number of books
+     * @return the books, in the given order
+     */
+    List<Book> findPage(Specification<Book> filter, CatalogSort sort, int limit);
+
+    /**
+     * Counts the books of every value of an attribute.
+     * @param filter the books counted
+     * @param attribute the facet, a String attribute of Book such as publisher or author
+     * @param limit the maximum number of values
+     * @return the count of every value, in descending order of the count
+     */
+    Map<String, Long> countByFacet(Specification<Book> filter, String attribute, int limit);
+}
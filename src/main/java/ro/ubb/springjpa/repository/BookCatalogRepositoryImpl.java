@@ -0,0 +1,62 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
+import ro.ubb.springjpa.domain.model.Book;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the BookCatalogRepository fragment, picked up by Spring Data through its name.
+ */
+public class BookCatalogRepositoryImpl implements BookCatalogRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Book> findPage(Specification<Book> filter, CatalogSort sort, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(book);
+        this.where(query, filter, book, cb);
+        if (sort.isAscending())
+            query.orderBy(cb.asc(book.get(sort.getAttribute())), cb.asc(book.get("id")));
+        else
+            query.orderBy(cb.desc(book.get(sort.getAttribute())), cb.desc(book.get("id")));
+        return this.entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Map<String, Long> countByFacet(Specification<Book> filter, String attribute, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        Expression<String> facet = book.get(attribute);
+        Expression<Long> count = cb.count(book);
+        query.multiselect(facet, count).groupBy(facet).orderBy(cb.desc(count), cb.asc(facet));
+        this.where(query, filter, book, cb);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : this.entityManager.createQuery(query).setMaxResults(limit).getResultList())
+            counts.put(row.get(0, String.class), row.get(1, Long.class));
+        return counts;
+    }
+
+    private void where(CriteriaQuery<?> query, Specification<Book> filter, Root<Book> book, CriteriaBuilder cb) {
+        Predicate predicate = filter == null ? null : filter.toPredicate(book, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+    }
+}
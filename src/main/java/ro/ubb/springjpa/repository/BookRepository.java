@@ -1,6 +1,49 @@
 package ro.ubb.springjpa.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ro.ubb.springjpa.domain.model.Book;
 
-public interface BookRepository extends DatabaseRepository<Book, Integer> {
+public interface BookRepository extends DatabaseRepository<Book, Integer>, BookCatalogRepository {
+
+    /**
+     * Takes copies of a book in a single conditional statement, so concurrent buyers of the same book
+     * only queue on its row lock and can never drive the stock below zero.
+     * @return 1 if the copies were taken, 0 if the book has fewer copies left or its stock is not tracked
+     */
+    @Modifying
+    @Query(value = "update book set stock = stock - :quantity where id = :id and stock >= :quantity", nativeQuery = true)
+    int takeCopies(@Param("id") int id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query(value = "update book set stock = coalesce(stock, 0) + :quantity where id = :id", nativeQuery = true)
+    int addStock(@Param("id") int id, @Param("quantity") int quantity);
+
+    /**
+     * Puts back copies of a book taken by purchases, if its stock is tracked.
+     * @return 1 if the stock of the book is tracked, 0 otherwise
+     */
+    @Modifying
+    @Query(value = "update book set stock = stock + :quantity where id = :id and stock is not null", nativeQuery = true)
+    int returnCopies(@Param("id") int id, @Param("quantity") int quantity);
+
+    /**
+     * Puts back the copies taken by the purchases of a client. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = "update book b set stock = b.stock + s.copies from (" +
+            "select p.bookid, count(*) as copies from purchase p where p.clientid = :clientId group by p.bookid) s " +
+            "where b.id = s.bookid and b.stock is not null",
+            nativeQuery = true)
+    int returnCopiesOfClient(@Param("clientId") int clientId);
+
+    /**
+     * Puts back the copies taken by the purchases of a book. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = "update book set stock = stock + (select count(*) from purchase p where p.bookid = :id) " +
+            "where id = :id and stock is not null",
+            nativeQuery = true)
+    int returnCopiesOfBook(@Param("id") int id);
 }
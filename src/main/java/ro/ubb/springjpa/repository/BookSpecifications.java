@@ -0,0 +1,99 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ro.ubb.springjpa.domain.catalog.CatalogKey;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Money;
+
+import javax.persistence.criteria.Path;
+
+/**
+ * The filters of the catalog queries. A filter without bounds is null, which Specification.and ignores.
+ */
+public final class BookSpecifications
+{
+    private BookSpecifications() {}
+
+    /**
+     * Books with the price inside a range.
+     * @param min the lowest price, inclusive, or null
+     * @param max the highest price, inclusive, or null
+     * @return the filter, or null if both bounds are null
+     */
+    public static Specification<Book> priceBetween(Money min, Money max)
+    {
+        if (min == null && max == null)
+            return null;
+        return (book, query, cb) -> {
+            Path<Long> price = book.get("priceCents");
+            if (min == null)
+                return cb.lessThanOrEqualTo(price, max.getCents());
+            if (max == null)
+                return cb.greaterThanOrEqualTo(price, min.getCents());
+            return cb.and(cb.greaterThanOrEqualTo(price, min.getCents()), cb.lessThanOrEqualTo(price, max.getCents()));
+        };
+    }
+
+    /**
+     * Books published inside a range of years.
+     * @param from the first year, inclusive, or null
+     * @param to the last year, inclusive, or null
+     * @return the filter, or null if both bounds are null
+     */
+    public static Specification<Book> publishedBetween(Integer from, Integer to)
+    {
+        if (from == null && to == null)
+            return null;
+        return (book, query, cb) -> {
+            Path<Integer> year = book.get("publicationYear");
+            if (from == null)
+                return cb.lessThanOrEqualTo(year, to);
+            if (to == null)
+                return cb.greaterThanOrEqualTo(year, from);
+            return cb.and(cb.greaterThanOrEqualTo(year, from), cb.lessThanOrEqualTo(year, to));
+        };
+    }
+
+    /**
+     * Books of a publisher.
+     * @param publisher the publisher, or null
+     * @return the filter, or null if the publisher is null
+     */
+    public static Specification<Book> publisher(String publisher)
+    {
+        return publisher == null ? null : (book, query, cb) -> cb.equal(book.get("publisher"), publisher);
+    }
+
+    /**
+     * Books of an author.
+     * @param author the author, or null
+     * @return the filter, or null if the author is null
+     */
+    public static Specification<Book> author(String author)
+    {
+        return author == null ? null : (book, query, cb) -> cb.equal(book.get("author"), author);
+    }
+
+    /**
+     * Books placed after a key in a catalog order: (value, id) greater than the key for ascending orders
+     * and smaller for descending ones, which the (value, id) indexes answer with a range scan.
+     * @param sort the order
+     * @param key the key of the last book of the previous page, or null
+     * @return the filter, or null if the key is null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Book> after(CatalogSort sort, CatalogKey key)
+    {
+        if (key == null)
+            return null;
+        return (book, query, cb) -> {
+            Path attribute = book.get(sort.getAttribute());
+            Comparable value = key.getValue();
+            Path<Integer> id = book.get("id");
+            if (sort.isAscending())
+                return cb.or(cb.greaterThan(attribute, value), cb.and(cb.equal(attribute, value), cb.greaterThan(id, key.getId())));
+            return cb.or(cb.lessThan(attribute, value), cb.and(cb.equal(attribute, value), cb.lessThan(id, key.getId())));
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package ro.ubb.springjpa.repository;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk transfers between files and the book, client and purchase tables with the COPY protocol,
+ * bypassing JPA. Rows are streamed between a file channel and the connection through a buffer of BUFFER_SIZE bytes,
+ * so the heap used does not depend on the size of the transfer. Files ending in .gz are compressed.
+ */
+@Component
+public class BulkCopyRepository {
+
+    public static final Logger log = LoggerFactory.getLogger(BulkCopyRepository.class);
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Writes all the rows of a table to a file, ordered by id.
+     * @param table the table
+     * @param file the file written, replaced if it exists
+     * @param format the file format
+     * @return the number of rows written
+     */
+    public long exportTable(BulkTable table, Path file, CopyFormat format) throws IOException, SQLException {
+        log.trace("exportTable - method entered: table={}, file={}, format={}", table, file, format);
+        String sql = "copy (select " + table.getColumnList() + " from " + table.getTable() + " order by id) to stdout with " + format.getOptions();
+        long rows;
+        try (Connection connection = this.dataSource.getConnection();
+             OutputStream output = this.openOutput(file)) {
+            rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, output);
+        }
+        log.trace("exportTable - method finished: rows={}", rows);
+        return rows;
+    }
+
+    /**
+     * Loads a file into a table. The rows are copied into a temporary table first and then merged by primary key,
+     * so a row already in the table is overwritten instead of failing the whole load. Imported purchases get the
+     * partitions of their months first. The id sequence is moved
+     * past the imported ids. Runs in the caller's transaction, so the load is committed or rolled back as a whole.
+     * @param table the table
+     * @param file the file read, with the columns in BulkTable order
+     * @param format the file format
+     * @return the number of rows loaded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long importTable(BulkTable table, Path file, CopyFormat format) throws IOException, SQLException {
+        log.trace("importTable - method entered: table={}, file={}, format={}", table, file, format);
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        long rows;
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+            String staging = table.getTable() + "_staging";
+            jdbcTemplate.execute("create temporary table if not exists " + staging + " (like " + table.getTable() + ")");
+            jdbcTemplate.execute("truncate " + staging);
+
+            try (InputStream input = this.openInput(file)) {
+                rows = connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("copy " + staging + " (" + table.getColumnList() + ") from stdin with " + format.getOptions(), input, BUFFER_SIZE);
+            }
+            if (table == BulkTable.PURCHASE)
+                this.createPurchasePartitions(jdbcTemplate, staging);
+            jdbcTemplate.update("insert into " + table.getTable() + " (" + table.getColumnList() + ") " +
+                    "select " + table.getColumnList() + " from " + staging + " " +
+                    "on conflict (" + table.getKey() + ") do update set " + table.getUpdateList());
+            jdbcTemplate.queryForObject("select setval('hibernate_sequence', greatest(" +
+                    "(select coalesce(max(id), 1) from " + table.getTable() + "), (select last_value from hibernate_sequence)))", Long.class);
+            jdbcTemplate.execute("truncate " + staging);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+        log.trace("importTable - method finished: rows={}", rows);
+        return rows;
+    }
+
+    /**
+     * Creates the partitions of the months of the staged purchases, so they do not land in the default partition.
+     * Purchases without a date, stored at the epoch, stay in the default partition.
+     */
+    private void createPurchasePartitions(JdbcTemplate jdbcTemplate, String staging) {
+        List<String> partitions = jdbcTemplate.queryForList("select create_purchase_partition(cast(month as date)) from (" +
+                "select distinct date_trunc('month', purchasedate) as month from " + staging + " " +
+                "where purchasedate <> timestamp 'epoch') months", String.class);
+        log.debug("createPurchasePartitions - partitions={}", partitions);
+    }
+
+    private OutputStream openOutput(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null)
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)), BUFFER_SIZE);
+        return file.toString().endsWith(".gz") ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+    }
+
+    private InputStream openInput(Path file) throws IOException {
+        InputStream input = new BufferedInputStream(Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), BUFFER_SIZE);
+        return file.toString().endsWith(".gz") ? new GZIPInputStream(input, BUFFER_SIZE) : input;
+    }
+}
@@ -0,0 +1,64 @@
+package ro.ubb.springjpa.repository;
+
+import java.util.Arrays;
+
+/**
+ * The tables moved by the BulkCopyRepository, with their columns in file order.
+ */
+public enum BulkTable
+{
+    BOOK("book", "id", "id", "title", "author", "publisher", "publicationyear", "pricecents", "stock"),
+    CLIENT("client", "id", "id", "firstname", "lastname", "address"),
+    PURCHASE("purchase", "id, purchasedate", "id", "bookid", "clientid", "library", "purchasedate", "pricecents");
+
+    private final String table;
+    private final String key;
+    private final String[] columns;
+
+    BulkTable(String table, String key, String... columns)
+    {
+        this.table = table;
+        this.key = key;
+        this.columns = columns;
+    }
+
+    /**
+     * Gets table.
+     * @return the name of the table
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets key.
+     * @return the columns of the primary key, comma-separated
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the column list.
+     * @return the columns, comma-separated
+     */
+    public String getColumnList() {
+        return String.join(", ", columns);
+    }
+
+    /**
+     * Builds the SET clause which overwrites an existing row with the imported one.
+     * @return the assignments of every column outside the primary key
+     */
+    public String getUpdateList() {
+        StringBuilder updates = new StringBuilder();
+        for (String column : columns) {
+            if (Arrays.asList(key.split(", ")).contains(column))
+                continue;
+            if (updates.length() > 0)
+                updates.append(", ");
+            updates.append(column).append(" = excluded.").append(column);
+        }
+        return updates.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package ro.ubb.springjpa.repository;
+
+/**
+ * The file formats of the COPY protocol.
+ */
+public enum CopyFormat
+{
+    /** text with a header line, readable by spreadsheets and other databases */
+    CSV("(format csv, header)"),
+    /** PostgreSQL binary format, the fastest to write and parse, readable only by PostgreSQL */
+    BINARY("(format binary)");
+
+    private final String options;
+
+    CopyFormat(String options)
+    {
+        this.options = options;
+    }
+
+    /**
+     * Gets options.
+     * @return the WITH clause of the COPY statement
+     */
+    public String getOptions() {
+        return options;
+    }
+}
@@ -1,10 +1,17 @@
 package ro.ubb.springjpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.NoRepositoryBean;
 import ro.ubb.springjpa.domain.model.BaseEntity;
 
+import javax.persistence.QueryHint;
 import java.io.Serializable;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 
 /**
@@ -13,4 +20,13 @@ import java.io.Serializable;
 @NoRepositoryBean
 public interface DatabaseRepository<T extends BaseEntity<ID>, ID extends Serializable>
         extends JpaRepository<T, ID> {
+
+    /**
+     * Streams all the entities in the order of their id through a server-side cursor, fetching 1000 rows at a time.
+     * The entities are loaded read-only; the caller must be inside a transaction, close the stream
+     * and detach the entities it is done with so the persistence context does not grow with the table.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select e from #{#entityName} e order by e.id")
+    Stream<T> streamAllOrderById();
 }
@@ -0,0 +1,60 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ro.ubb.springjpa.domain.model.LibraryStock;
+
+public interface LibraryStockRepository extends DatabaseRepository<LibraryStock, Integer> {
+
+    /**
+     * Takes copies of a book from a library in a single conditional statement.
+     * @return 1 if the copies were taken, 0 if the library has fewer copies left or does not keep a stock of the book
+     */
+    @Modifying
+    @Query(value = "update librarystock set quantity = quantity - :quantity " +
+            "where bookid = :bookId and library = :library and quantity >= :quantity",
+            nativeQuery = true)
+    int takeCopies(@Param("bookId") int bookId, @Param("library") String library, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query(value = "insert into librarystock (id, bookid, library, quantity) " +
+            "values (nextval('hibernate_sequence'), :bookId, :library, :quantity) " +
+            "on conflict (bookid, library) do update set quantity = librarystock.quantity + excluded.quantity",
+            nativeQuery = true)
+    void addStock(@Param("bookId") int bookId, @Param("library") String library, @Param("quantity") int quantity);
+
+    /**
+     * Puts back copies of a book taken by purchases, if the library keeps a stock of the book.
+     */
+    @Modifying
+    @Query(value = "update librarystock set quantity = quantity + :quantity where bookid = :bookId and library = :library",
+            nativeQuery = true)
+    int returnCopies(@Param("bookId") int bookId, @Param("library") String library, @Param("quantity") int quantity);
+
+    /**
+     * Puts back the copies taken by the purchases of a client. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = "update librarystock l set quantity = l.quantity + s.copies from (" +
+            "select p.bookid, p.library, count(*) as copies from purchase p where p.clientid = :clientId " +
+            "group by p.bookid, p.library) s where l.bookid = s.bookid and l.library = s.library",
+            nativeQuery = true)
+    int returnCopiesOfClient(@Param("clientId") int clientId);
+
+    /**
+     * Puts back the copies taken by the purchases of a book. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = "update librarystock l set quantity = l.quantity + s.copies from (" +
+            "select p.library, count(*) as copies from purchase p where p.bookid = :bookId group by p.library) s " +
+            "where l.bookid = :bookId and l.library = s.library",
+            nativeQuery = true)
+    int returnCopiesOfBook(@Param("bookId") int bookId);
+
+    @Modifying
+    @Query("delete from LibraryStock s where s.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") int bookId);
+
+    boolean existsByBookIdAndLibrary(int bookId, String library);
+}
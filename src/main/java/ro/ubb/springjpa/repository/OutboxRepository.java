@@ -0,0 +1,36 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ro.ubb.springjpa.domain.model.OutboxEvent;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends DatabaseRepository<OutboxEvent, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from OutboxEvent e where e.publishedAt is null order by e.id")
+    List<OutboxEvent> findUnpublished(Pageable pageable);
+
+    /**
+     * Takes the next values of the publish order sequence.
+     * @param count the number of values
+     * @return the values, in ascending order
+     */
+    @Query(value = "select nextval('outboxpublishorder') from generate_series(1, :count) order by 1", nativeQuery = true)
+    List<Number> nextPublishOrders(@Param("count") int count);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Integer> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,27 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ro.ubb.springjpa.domain.model.PurchaseKey;
+
+import java.time.LocalDateTime;
+
+public interface PurchaseKeyRepository extends DatabaseRepository<PurchaseKey, Integer> {
+
+    /**
+     * Records the key of a purchase unless it was already used. A concurrent transaction inserting the same key
+     * makes this statement wait for its outcome: the key is claimed if that transaction rolls back and refused otherwise.
+     * @return 1 if the key was claimed, 0 if it belongs to a committed purchase
+     */
+    @Modifying
+    @Query(value = "insert into purchasekey (id, purchasekey, purchaseid, createdat) " +
+            "values (nextval('hibernate_sequence'), :purchaseKey, :purchaseId, :createdAt) " +
+            "on conflict (purchasekey) do nothing",
+            nativeQuery = true)
+    int claim(@Param("purchaseKey") String purchaseKey, @Param("purchaseId") int purchaseId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("delete from PurchaseKey k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,159 @@
+package ro.ubb.springjpa.repository;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of the purchase table: creates the partitions of the coming months ahead of time,
+ * at the startup and then daily, and archives the partitions older than purchase.archive.afterMonths into
+ * gzip-compressed CSV files, detaching and dropping them from the database afterwards. The archived months are
+ * recorded in the purchasearchive table.
+ */
+@Component
+@Lazy(false)
+public class PurchasePartitionMaintenance implements InitializingBean {
+
+    public static final Logger log = LoggerFactory.getLogger(PurchasePartitionMaintenance.class);
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'purchase_'yyyy_MM");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${purchase.partitions.monthsAhead}")
+    private int monthsAhead;
+
+    @Value("${purchase.archive.afterMonths}")
+    private int archiveAfterMonths;
+
+    @Value("${purchase.archive.directory}")
+    private String archiveDirectory;
+
+    /**
+     * Creates the partitions of the coming months before the context accepts any purchase, so none of them
+     * lands in the default partition.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        this.createPartitions();
+    }
+
+    /**
+     * Runs the daily partition maintenance.
+     */
+    @Scheduled(cron = "${purchase.partitions.cron}")
+    public void maintain() {
+        log.trace("maintain - method entered");
+        try {
+            this.createPartitions();
+            // the export of a partition takes longer than the statement timeout of the checkouts
+            WorkloadType.run(WorkloadType.REPORTING, () -> {
+                this.archivePartitions();
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("maintain - partition maintenance failed", e);
+        }
+        log.trace("maintain - method finished");
+    }
+
+    /**
+     * Makes sure the partitions of the current month and of the following months exist.
+     * A month which cannot be created is logged and skipped, the following months are still created.
+     * @return the number of months which could not be created
+     */
+    public int createPartitions() {
+        log.trace("createPartitions - method entered");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        int failed = 0;
+        for (int i = 0; i <= this.monthsAhead; i++) {
+            try {
+                String partition = jdbcTemplate.queryForObject("select create_purchase_partition(?)", String.class, month.plusMonths(i));
+                log.debug("createPartitions - partition ready: {}", partition);
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("createPartitions - partition of {} could not be created", YearMonth.from(month.plusMonths(i)), e);
+            }
+        }
+        log.trace("createPartitions - method finished: failed={}", failed);
+        return failed;
+    }
+
+    /**
+     * Moves the partitions older than purchase.archive.afterMonths to compressed files.
+     * Each partition is exported first, so a failure leaves it attached and it is retried on the next run.
+     * The partition is dropped and recorded as archived in a single transaction.
+     */
+    public void archivePartitions() throws IOException, SQLException {
+        log.trace("archivePartitions - method entered");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+        YearMonth oldestKept = YearMonth.now().minusMonths(this.archiveAfterMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select c.relname from pg_inherits i " +
+                        "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent " +
+                        "where p.relname = 'purchase' and c.relname ~ '^purchase_[0-9]{4}_[0-9]{2}$' order by c.relname",
+                String.class);
+
+        Path directory = Paths.get(this.archiveDirectory);
+        Files.createDirectories(directory);
+        for (String partition : partitions) {
+            if (!YearMonth.parse(partition, PARTITION_NAME).isBefore(oldestKept))
+                continue;
+
+            Path file = directory.resolve(partition + ".csv.gz");
+            long rows = this.export(partition, file);
+            YearMonth month = YearMonth.parse(partition, PARTITION_NAME);
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("alter table purchase detach partition " + partition);
+                jdbcTemplate.execute("drop table " + partition);
+                jdbcTemplate.update("insert into purchasearchive (month, file, rowscount, archivedat) values (?, ?, ?, ?)",
+                        month.atDay(1), file.toString(), rows, LocalDateTime.now());
+                return null;
+            });
+            log.info("archivePartitions - archived {} rows of {} to {}", rows, partition, file);
+        }
+        log.trace("archivePartitions - method finished");
+    }
+
+    /**
+     * Copies a partition into a gzip-compressed CSV file with the COPY protocol.
+     * @param partition the name of the partition
+     * @param file the file written
+     * @return the number of rows copied
+     */
+    private long export(String partition, Path file) throws IOException, SQLException {
+        try (Connection connection = this.dataSource.getConnection();
+             OutputStream output = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            return connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyOut("copy " + partition + " to stdout with (format csv, header)", output);
+        }
+    }
+}
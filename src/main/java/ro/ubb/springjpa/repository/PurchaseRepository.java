@@ -1,9 +1,120 @@
 package ro.ubb.springjpa.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface PurchaseRepository extends DatabaseRepository<Purchase, Integer> {
     void deleteByClientId(int clientId);
     void deleteByBookId(int bookId);
     Long countByBookId(int bookId);
+
+    @Query("select p.bookId from Purchase p group by p.bookId order by count(p) desc")
+    List<Integer> findBestSellingBookIds(Pageable pageable);
+
+    @Query("select p.clientId from Purchase p group by p.clientId order by count(p) desc")
+    List<Integer> findMostActiveClientIds(Pageable pageable);
+
+    /**
+     * Returns the ids, among the given ones, of the purchases the current transaction sees.
+     */
+    @Query("select p.id from Purchase p where p.id in :ids")
+    List<Integer> findVisibleIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Returns (book id, purchases) rows for every book with purchases.
+     */
+    @Query("select p.bookId, count(p) from Purchase p group by p.bookId")
+    List<Object[]> countPerBook();
+
+    /**
+     * Returns (client id, purchases) rows for every client with purchases.
+     */
+    @Query("select p.clientId, count(p) from Purchase p group by p.clientId")
+    List<Object[]> countPerClient();
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(b.author, count(p), sum(p.priceCents)) " +
+            "from Purchase p, Book b where b.id = p.bookId group by b.author order by sum(p.priceCents) desc")
+    List<SalesReport> salesPerAuthor();
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(b.publisher, count(p), sum(p.priceCents)) " +
+            "from Purchase p, Book b where b.id = p.bookId group by b.publisher order by sum(p.priceCents) desc")
+    List<SalesReport> salesPerPublisher();
+
+    @Query("select coalesce(sum(p.priceCents), 0) from Purchase p where p.clientId = :clientId")
+    long sumPriceCentsByClientId(@Param("clientId") int clientId);
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(p.library, count(p), sum(p.priceCents)) " +
+            "from Purchase p where p.purchaseDate >= :from and p.purchaseDate < :to " +
+            "group by p.library order by sum(p.priceCents) desc")
+    List<SalesReport> salesPerLibrary(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(b.author, count(p), sum(p.priceCents)) " +
+            "from Purchase p, Book b where b.id = p.bookId and p.purchaseDate >= :from and p.purchaseDate < :to " +
+            "group by b.author order by sum(p.priceCents) desc")
+    List<SalesReport> salesPerAuthor(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(b.publisher, count(p), sum(p.priceCents)) " +
+            "from Purchase p, Book b where b.id = p.bookId and p.purchaseDate >= :from and p.purchaseDate < :to " +
+            "group by b.publisher order by sum(p.priceCents) desc")
+    List<SalesReport> salesPerPublisher(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Returns (client id, money spent in cents) rows over all the purchases, in descending order of the money spent.
+     */
+    @Query("select p.clientId, sum(p.priceCents) from Purchase p group by p.clientId order by sum(p.priceCents) desc")
+    List<Object[]> moneySpentPerClient(Pageable pageable);
+
+    /**
+     * Returns (book id, sales) rows over all the purchases, in descending order of the sales.
+     */
+    @Query("select p.bookId, count(p) from Purchase p group by p.bookId order by count(p) desc")
+    List<Object[]> salesPerBook(Pageable pageable);
+
+    /**
+     * Returns (client id, money spent in cents) rows, in descending order of the money spent.
+     */
+    @Query("select p.clientId, sum(p.priceCents) from Purchase p " +
+            "where p.purchaseDate >= :from and p.purchaseDate < :to " +
+            "group by p.clientId order by sum(p.priceCents) desc")
+    List<Object[]> moneySpentPerClient(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    /**
+     * Returns (book id, sales) rows, in descending order of the sales.
+     */
+    @Query("select p.bookId, count(p) from Purchase p where p.purchaseDate >= :from and p.purchaseDate < :to " +
+            "group by p.bookId order by count(p) desc")
+    List<Object[]> salesPerBook(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    /**
+     * Streams the distinct (client id, book id) rows, ordered by client, through a server-side cursor.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select distinct p.clientId, p.bookId from Purchase p order by p.clientId, p.bookId")
+    Stream<Object[]> streamClientBookPairs();
+
+    /**
+     * Streams the (client id, book id, library) rows of all the purchases through a server-side cursor.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.clientId, p.bookId, p.library from Purchase p")
+    Stream<Object[]> streamClientBookLibrary();
+
+    /**
+     * Streams the (client id, book id, price in cents, library) rows of all the purchases through a server-side cursor.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.clientId, p.bookId, p.priceCents, p.library from Purchase p")
+    Stream<Object[]> streamSnapshotRows();
 }
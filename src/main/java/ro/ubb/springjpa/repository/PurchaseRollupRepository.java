@@ -0,0 +1,95 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ro.ubb.springjpa.domain.model.PurchaseRollup;
+import ro.ubb.springjpa.domain.report.SalesReport;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PurchaseRollupRepository extends DatabaseRepository<PurchaseRollup, Integer> {
+
+    /**
+     * Subtracts the units and the revenue of the purchases selected by the where clause following it
+     * from the rows of their days and libraries.
+     */
+    String SUBTRACT = "update purchaserollup r set units = r.units - s.units, revenuecents = r.revenuecents - s.revenuecents from (" +
+            "select cast(p.purchasedate as date) as saledate, p.library, count(*) as units, sum(p.pricecents) as revenuecents " +
+            "from purchase p ";
+    String SUBTRACT_GROUPS = " and p.purchasedate is not null group by cast(p.purchasedate as date), p.library) s " +
+            "where r.saledate = s.saledate and r.library = s.library";
+
+    /**
+     * Selects the archived month of the date following it, which must be closed with a parenthesis.
+     */
+    String ARCHIVED = "select 1 from purchasearchive a where a.month = date_trunc('month', ";
+
+    @Modifying
+    @Query(value = "insert into purchaserollup (id, saledate, library, units, revenuecents) " +
+            "values (nextval('hibernate_sequence'), :saleDate, :library, :units, :revenueCents) " +
+            "on conflict (saledate, library) do update " +
+            "set units = purchaserollup.units + excluded.units, revenuecents = purchaserollup.revenuecents + excluded.revenuecents",
+            nativeQuery = true)
+    void increment(@Param("saleDate") LocalDate saleDate, @Param("library") String library,
+                   @Param("units") long units, @Param("revenueCents") long revenueCents);
+
+    @Modifying
+    @Query(value = "update purchaserollup set units = units - 1, revenuecents = revenuecents - :priceCents " +
+            "where saledate = :saleDate and library = :library",
+            nativeQuery = true)
+    void decrement(@Param("saleDate") LocalDate saleDate, @Param("library") String library, @Param("priceCents") long priceCents);
+
+    /**
+     * Takes the purchases of a client out of the rollup. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = SUBTRACT + "where p.clientid = :clientId" + SUBTRACT_GROUPS, nativeQuery = true)
+    void subtractPurchasesOfClient(@Param("clientId") int clientId);
+
+    /**
+     * Takes the purchases of a book out of the rollup. Runs before they are deleted, in the same transaction.
+     */
+    @Modifying
+    @Query(value = SUBTRACT + "where p.bookid = :bookId" + SUBTRACT_GROUPS, nativeQuery = true)
+    void subtractPurchasesOfBook(@Param("bookId") int bookId);
+
+    /**
+     * Removes the days and libraries left without sales.
+     */
+    @Modifying
+    @Query("delete from PurchaseRollup r where r.units <= 0")
+    void deleteEmpty();
+
+    /**
+     * Removes the rows of every month which was not archived, whose purchases are still in the database.
+     */
+    @Modifying
+    @Query(value = "delete from purchaserollup r where not exists (" + ARCHIVED + "r.saledate))", nativeQuery = true)
+    void deleteUnarchived();
+
+    /**
+     * Recomputes the rows of the purchases in the database, outside the archived months.
+     */
+    @Modifying
+    @Query(value = "insert into purchaserollup (id, saledate, library, units, revenuecents) " +
+            "select nextval('hibernate_sequence'), s.saledate, s.library, s.units, s.revenuecents from (" +
+            "select cast(p.purchasedate as date) as saledate, p.library, count(*) as units, sum(p.pricecents) as revenuecents " +
+            "from purchase p where p.purchasedate is not null and not exists (" + ARCHIVED + "p.purchasedate)) " +
+            "group by cast(p.purchasedate as date), p.library) s",
+            nativeQuery = true)
+    void rebuildFromPurchases();
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(r.library, sum(r.units), sum(r.revenueCents)) " +
+            "from PurchaseRollup r group by r.library order by sum(r.revenueCents) desc")
+    List<SalesReport> salesPerLibrary();
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(str(r.saleDate), sum(r.units), sum(r.revenueCents)) " +
+            "from PurchaseRollup r group by r.saleDate order by r.saleDate")
+    List<SalesReport> salesPerDay();
+
+    @Query("select new ro.ubb.springjpa.domain.report.SalesReport(year(r.saleDate), month(r.saleDate), sum(r.units), sum(r.revenueCents)) " +
+            "from PurchaseRollup r group by year(r.saleDate), month(r.saleDate) order by year(r.saleDate), month(r.saleDate)")
+    List<SalesReport> salesPerMonth();
+}
@@ -0,0 +1,16 @@
+package ro.ubb.springjpa.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source handing out the connections of the pool of the current WorkloadType.
+ * It must be wrapped in a LazyConnectionDataSourceProxy: the transaction managers ask for a connection as soon as
+ * a transaction begins, the proxy only asks this data source for one at the first statement.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadType.current();
+    }
+}
@@ -0,0 +1,52 @@
+package ro.ubb.springjpa.repository;
+
+/**
+ * The kind of work the current thread does, deciding which connection pool its next connection comes from.
+ * Short transactions of the checkouts run as OLTP; reports, exports and rebuilds run as REPORTING,
+ * on a pool of their own with a longer statement timeout, so they can never take the connections of the checkouts.
+ */
+public enum WorkloadType
+{
+    OLTP,
+    REPORTING;
+
+    private static final ThreadLocal<WorkloadType> CURRENT = ThreadLocal.withInitial(() -> OLTP);
+
+    /**
+     * Gets the workload of the current thread.
+     * @return the workload, OLTP unless the thread is inside run
+     */
+    public static WorkloadType current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs some work as the given workload on the current thread. The pool is chosen when a transaction issues
+     * its first statement, so a transaction started inside the work, or started just before it by a proxy,
+     * uses the pool of the workload; a transaction which already holds a connection keeps it.
+     * @param workload the workload of the work
+     * @param work the work
+     * @return the result of the work
+     * @throws E the exception of the work
+     */
+    public static <V, E extends Exception> V run(WorkloadType workload, Work<V, E> work) throws E
+    {
+        WorkloadType previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return work.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Work run by run.
+     */
+    @FunctionalInterface
+    public interface Work<V, E extends Exception>
+    {
+        V run() throws E;
+    }
+}
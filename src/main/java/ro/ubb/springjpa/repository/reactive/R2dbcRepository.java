@@ -0,0 +1,70 @@
+package ro.ubb.springjpa.repository.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiFunction;
+
+/**
+ * Base of the reactive repositories: runs a query on a pooled R2DBC connection and streams the mapped rows,
+ * releasing the connection when the stream completes, fails or is cancelled.
+ *
+ * @param <T> the type of the entities
+ */
+public abstract class R2dbcRepository<T> {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    /**
+     * Maps a row of the entity table.
+     * @param row the row
+     * @return the entity
+     */
+    protected abstract T map(Row row);
+
+    /**
+     * Streams the entities returned by a query.
+     * @param sql the query, with the parameters written as $1, $2...
+     * @param parameters the values of the parameters
+     * @return the entities
+     */
+    protected Flux<T> query(String sql, Object... parameters) {
+        return this.select(sql, (row, metadata) -> this.map(row), parameters);
+    }
+
+    /**
+     * Returns the first entity returned by a query.
+     * @param sql the query, with the parameters written as $1, $2...
+     * @param parameters the values of the parameters
+     * @return the entity, or an empty Mono if there is none
+     */
+    protected Mono<T> queryOne(String sql, Object... parameters) {
+        return this.query(sql, parameters).next();
+    }
+
+    /**
+     * Streams the rows returned by a query.
+     * @param sql the query, with the parameters written as $1, $2...
+     * @param mapper maps every row
+     * @param parameters the values of the parameters
+     * @param <R> the type of the mapped rows
+     * @return the mapped rows
+     */
+    protected <R> Flux<R> select(String sql, BiFunction<Row, RowMetadata, R> mapper, Object... parameters) {
+        return Flux.usingWhen(this.connectionFactory.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < parameters.length; i++)
+                        statement.bind(i, parameters[i]);
+                    return Flux.from(statement.execute()).flatMap(result -> result.map(mapper));
+                },
+                Connection::close);
+    }
+}
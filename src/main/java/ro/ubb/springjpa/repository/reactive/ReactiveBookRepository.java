@@ -0,0 +1,31 @@
+package ro.ubb.springjpa.repository.reactive;
+
+import io.r2dbc.spi.Row;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Money;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ReactiveBookRepository extends R2dbcRepository<Book> {
+
+    private static final String COLUMNS = "select id, title, author, publisher, publicationyear, pricecents, stock from book";
+
+    public Mono<Book> findById(int id) {
+        return this.queryOne(COLUMNS + " where id = $1", id);
+    }
+
+    public Flux<Book> findAll() {
+        return this.query(COLUMNS + " order by id");
+    }
+
+    @Override
+    protected Book map(Row row) {
+        Book book = new Book(row.get("title", String.class), row.get("author", String.class), row.get("publisher", String.class),
+                row.get("publicationyear", Integer.class), Money.ofCents(row.get("pricecents", Long.class)));
+        book.setId(row.get("id", Integer.class));
+        book.setStock(row.get("stock", Integer.class));
+        return book;
+    }
+}
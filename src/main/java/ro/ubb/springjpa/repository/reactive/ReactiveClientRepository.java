@@ -0,0 +1,28 @@
+package ro.ubb.springjpa.repository.reactive;
+
+import io.r2dbc.spi.Row;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.model.Client;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ReactiveClientRepository extends R2dbcRepository<Client> {
+
+    private static final String COLUMNS = "select id, firstname, lastname, address from client";
+
+    public Mono<Client> findById(int id) {
+        return this.queryOne(COLUMNS + " where id = $1", id);
+    }
+
+    public Flux<Client> findAll() {
+        return this.query(COLUMNS + " order by id");
+    }
+
+    @Override
+    protected Client map(Row row) {
+        Client client = new Client(row.get("firstname", String.class), row.get("lastname", String.class), row.get("address", String.class));
+        client.setId(row.get("id", Integer.class));
+        return client;
+    }
+}
@@ -0,0 +1,82 @@
+package ro.ubb.springjpa.repository.reactive;
+
+import io.r2dbc.spi.Row;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.Map;
+
+/**
+ * Reactive reads of the purchases and the sales reports. The aggregations run in the database,
+ * the same way as in PurchaseRepository and PurchaseRollupRepository.
+ */
+@Component
+public class ReactivePurchaseRepository extends R2dbcRepository<Purchase> {
+
+    private static final String COLUMNS = "select id, clientid, bookid, library, purchasedate, pricecents from purchase";
+
+    public Mono<Purchase> findById(int id) {
+        return this.queryOne(COLUMNS + " where id = $1", id);
+    }
+
+    public Flux<Purchase> findAll() {
+        return this.query(COLUMNS + " order by id");
+    }
+
+    public Flux<Purchase> findByClientId(int clientId) {
+        return this.query(COLUMNS + " where clientid = $1 order by purchasedate", clientId);
+    }
+
+    public Mono<Money> sumPriceCentsByClientId(int clientId) {
+        return this.select("select cast(coalesce(sum(pricecents), 0) as bigint) as total from purchase where clientid = $1",
+                (row, metadata) -> Money.ofCents(row.get("total", Long.class)), clientId)
+                .next();
+    }
+
+    /**
+     * Ranks the clients by the money they spent.
+     * @param limit the number of clients
+     * @return pairs of client id and money spent, in descending order of the money spent
+     */
+    public Flux<Map.Entry<Integer, Money>> moneySpentPerClient(int limit) {
+        return this.select("select clientid, cast(sum(pricecents) as bigint) as total " +
+                        "from purchase group by clientid order by total desc limit $1",
+                (row, metadata) -> new AbstractMap.SimpleImmutableEntry<>(row.get("clientid", Integer.class), Money.ofCents(row.get("total", Long.class))),
+                limit);
+    }
+
+    public Flux<SalesReport> salesPerLibrary() {
+        return this.report("select library as grp, cast(sum(units) as bigint) as units, cast(sum(revenuecents) as bigint) as revenue " +
+                "from purchaserollup group by library order by revenue desc");
+    }
+
+    public Flux<SalesReport> salesPerAuthor() {
+        return this.report("select b.author as grp, count(*) as units, cast(sum(p.pricecents) as bigint) as revenue " +
+                "from purchase p join book b on b.id = p.bookid group by b.author order by revenue desc");
+    }
+
+    public Flux<SalesReport> salesPerPublisher() {
+        return this.report("select b.publisher as grp, count(*) as units, cast(sum(p.pricecents) as bigint) as revenue " +
+                "from purchase p join book b on b.id = p.bookid group by b.publisher order by revenue desc");
+    }
+
+    private Flux<SalesReport> report(String sql) {
+        return this.select(sql, (row, metadata) ->
+                new SalesReport(row.get("grp", String.class), row.get("units", Long.class), row.get("revenue", Long.class)));
+    }
+
+    @Override
+    protected Purchase map(Row row) {
+        Purchase purchase = new Purchase(row.get("clientid", Integer.class), row.get("bookid", Integer.class), row.get("library", String.class));
+        purchase.setId(row.get("id", Integer.class));
+        purchase.setPurchaseDate(row.get("purchasedate", LocalDateTime.class));
+        purchase.setPriceCents(row.get("pricecents", Long.class));
+        return purchase;
+    }
+}
@@ -1,10 +1,13 @@
 package ro.ubb.springjpa.service;
 
+import ro.ubb.springjpa.domain.catalog.CatalogPage;
+import ro.ubb.springjpa.domain.catalog.CatalogQuery;
 import ro.ubb.springjpa.domain.model.Book;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -12,6 +15,13 @@ public interface BookService
 {
     public void addBook(Book book) throws ValidatorException, BookstoreException, SQLException;
 
+    /**
+     * Adds several books at once, validating them in parallel first. Either all of them are added or none.
+     * @param books the books to add
+     * @throws ValidatorException if some books are not valid, listing each of them
+     */
+    public void addBooks(List<Book> books) throws ValidatorException, BookstoreException;
+
     /**
      * Get book list set.
      * @return the set containing all the books inside the book repository
@@ -26,7 +36,7 @@ public interface BookService
     public void updateBook(Book book) throws ValidatorException, BookstoreException;
 
     /**
-     * Deletes a book from the client repository
+     * Deletes a book from the client repository, together with its stock in the libraries
      * @param id integer representing the id of the book to be deleted
      */
     public void deleteBook(Integer id) throws BookstoreException;
@@ -39,4 +49,22 @@ public interface BookService
     public Set<Book> filter(String searchString) throws BookstoreException;
 
     public Optional<Book> findOne(Integer id) throws BookstoreException;
+
+    /**
+     * Returns one page of the catalog: the books matching the price, year, publisher and author filters of the query,
+     * in its order and starting after its key, together with the publisher and author facets of the query.
+     * @param query the filters, order and position of the page
+     * @return the page
+     * @throws BookstoreException if the key does not belong to the order of the query
+     */
+    public CatalogPage browse(CatalogQuery query) throws BookstoreException;
+
+    /**
+     * Adds copies to the stock of a book. A book sold without a limit starts having its stock tracked.
+     * @param bookId integer representing the id of the book
+     * @param library the library receiving the copies, or null if they are not kept by a single library
+     * @param quantity the number of copies added
+     * @throws BookstoreException if the quantity is not positive or the book does not exist
+     */
+    public void restock(int bookId, String library, int quantity) throws BookstoreException;
 }
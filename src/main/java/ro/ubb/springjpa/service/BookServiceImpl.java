@@ -3,16 +3,31 @@ package ro.ubb.springjpa.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ro.ubb.springjpa.domain.catalog.CatalogKey;
+import ro.ubb.springjpa.domain.catalog.CatalogPage;
+import ro.ubb.springjpa.domain.catalog.CatalogQuery;
 import ro.ubb.springjpa.domain.model.Book;
 import ro.ubb.springjpa.domain.validators.BookValidator;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.domain.validators.ValidationEngine;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.BookSpecifications;
+import ro.ubb.springjpa.repository.LibraryStockRepository;
+import ro.ubb.springjpa.service.events.ChangeEvent;
+import ro.ubb.springjpa.service.events.Outbox;
+import ro.ubb.springjpa.service.invalidation.Invalidation;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,24 +38,60 @@ public class BookServiceImpl implements BookService {
 
     public static final Logger log = LoggerFactory.getLogger(ClientServiceImpl.class);
 
+    private static final int FACET_SIZE = 20;
+
+    private static final String BOOKS = "books";
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private LibraryStockRepository libraryStockRepository;
+
     @Autowired
     private BookValidator bookValidator;
 
+    @Autowired
+    private ValidationEngine validationEngine;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     /**
      * Add a book to the book repository.
      * @param book instance of class Book
      * @throws ValidatorException if the book is not valid
      */
+    @Transactional
+    @CacheEvict(value = "books", key = "#book.id")
     public void addBook(Book book) throws ValidatorException, BookstoreException, SQLException {
         log.trace("addBook - method entered: book={}", book);
         bookValidator.validate(book);
         this.bookRepository.save(book);
+        this.outbox.bookChanged(ChangeEvent.CREATED, book);
+        this.invalidationBus.publish(Invalidation.of(BOOKS, book.getId()));
         log.trace("addBook - method finished");
     }
 
+    /**
+     * Adds several books at once, validating them in parallel first. Either all of them are added or none.
+     * @param books the books to add
+     * @throws ValidatorException if some books are not valid, listing each of them
+     */
+    @Transactional
+    @CacheEvict(value = "books", allEntries = true)
+    public void addBooks(List<Book> books) throws ValidatorException, BookstoreException {
+        log.trace("addBooks - method entered: books={}", books.size());
+        validationEngine.requireAllValid(books, bookValidator);
+        this.bookRepository.saveAll(books);
+        books.forEach(book -> this.outbox.bookChanged(ChangeEvent.CREATED, book));
+        this.invalidationBus.publish(Invalidation.allOf(BOOKS));
+        log.trace("addBooks - method finished");
+    }
+
     /**
      * Get book list set.
      * @return the set containing all the books inside the book repository
@@ -59,6 +110,7 @@ public class BookServiceImpl implements BookService {
      * @throws ValidatorException if the book is not valid
      */
     @Transactional
+    @CacheEvict(value = "books", key = "#book.id")
     public void updateBook(Book book) throws ValidatorException, BookstoreException {
         log.trace("updateBook - method entered: book={}", book);
         bookValidator.validate(book);
@@ -70,18 +122,25 @@ public class BookServiceImpl implements BookService {
                     b.setPublicationYear(book.getPublicationYear());
                     b.setPublisher(book.getPublisher());
                     b.setTitle(book.getTitle());
+                    this.outbox.bookChanged(ChangeEvent.UPDATED, b);
                     log.debug("updateClient - updated: b={}", b);
                 });
+        this.invalidationBus.publish(Invalidation.of(BOOKS, book.getId()));
         log.trace("updateBook - method finished");
     }
 
     /**
-     * Deletes a book from the client repository
+     * Deletes a book from the client repository, together with its stock in the libraries
      * @param id integer representing the id of the book to be deleted
      */
+    @Transactional
+    @CacheEvict(value = "books", key = "#id")
     public void deleteBook(Integer id) throws BookstoreException {
         log.trace("deleteBook - method entered: id={}", id);
+        this.libraryStockRepository.deleteByBookId(id);
         this.bookRepository.deleteById(id);
+        this.outbox.deleted("Book", id);
+        this.invalidationBus.publish(Invalidation.of(BOOKS, id));
         log.trace("deleteBook - method finished");
     }
 
@@ -105,8 +164,67 @@ public class BookServiceImpl implements BookService {
         return filteredBooks;
     }
 
+    @Cacheable(value = "books", key = "#id")
     public Optional<Book> findOne(Integer id) throws BookstoreException {
         return this.bookRepository.findById(id);
     }
 
+    /**
+     * Returns one page of the catalog. The page is read with one keyset query, asking for one book more than
+     * the page size to know whether a next page exists; each facet is counted with one more query.
+     * @param query the filters, order and position of the page
+     * @return the page
+     * @throws BookstoreException if the key does not belong to the order of the query
+     */
+    @Transactional(readOnly = true)
+    public CatalogPage browse(CatalogQuery query) throws BookstoreException {
+        log.trace("browse - method entered: sort={}, after={}", query.getSort(), query.getAfter());
+        CatalogKey after;
+        try {
+            after = query.getAfter() == null ? null : CatalogKey.parse(query.getSort(), query.getAfter());
+        } catch (IllegalArgumentException e) {
+            throw new BookstoreException("Invalid page key: " + query.getAfter() + "\n");
+        }
+
+        Specification<Book> ranges = Specification.where(BookSpecifications.priceBetween(query.getMinPrice(), query.getMaxPrice()))
+                .and(BookSpecifications.publishedBetween(query.getFromYear(), query.getToYear()));
+        Specification<Book> publisher = BookSpecifications.publisher(query.getPublisher());
+        Specification<Book> author = BookSpecifications.author(query.getAuthor());
+
+        List<Book> books = this.bookRepository.findPage(ranges.and(publisher).and(author).and(BookSpecifications.after(query.getSort(), after)),
+                query.getSort(), query.getPageSize() + 1);
+        String nextKey = null;
+        if (books.size() > query.getPageSize()) {
+            books = new ArrayList<>(books.subList(0, query.getPageSize()));
+            nextKey = CatalogKey.of(query.getSort(), books.get(books.size() - 1)).toString();
+        }
+
+        CatalogPage page = new CatalogPage(books, nextKey,
+                this.bookRepository.countByFacet(ranges.and(author), "publisher", FACET_SIZE),
+                this.bookRepository.countByFacet(ranges.and(publisher), "author", FACET_SIZE));
+        log.trace("browse - method finished: books={}, nextKey={}", books.size(), nextKey);
+        return page;
+    }
+
+    /**
+     * Adds copies to the stock of a book. The library row is updated before the book row,
+     * in the same order as the purchases take copies, so the two cannot deadlock.
+     * @param bookId integer representing the id of the book
+     * @param library the library receiving the copies, or null if they are not kept by a single library
+     * @param quantity the number of copies added
+     * @throws BookstoreException if the quantity is not positive or the book does not exist
+     */
+    @Transactional(rollbackFor = BookstoreException.class)
+    @CacheEvict(value = "books", key = "#bookId")
+    public void restock(int bookId, String library, int quantity) throws BookstoreException {
+        log.trace("restock - method entered: bookId={}, library={}, quantity={}", bookId, library, quantity);
+        if (quantity <= 0)
+            throw new BookstoreException("Invalid quantity!\n");
+        if (library != null)
+            this.libraryStockRepository.addStock(bookId, library, quantity);
+        if (this.bookRepository.addStock(bookId, quantity) == 0)
+            throw new BookstoreException("Invalid book id!\n");
+        this.invalidationBus.publish(Invalidation.of(BOOKS, bookId));
+        log.trace("restock - method finished");
+    }
 }
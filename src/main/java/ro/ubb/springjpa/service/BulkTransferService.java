@@ -0,0 +1,35 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.BulkTable;
+import ro.ubb.springjpa.repository.CopyFormat;
+
+import java.nio.file.Path;
+
+public interface BulkTransferService
+{
+    /**
+     * Exports a whole table to a file with the COPY protocol, on the reporting connection pool and inside
+     * the ReportingBulkhead.
+     * @param table the table (books, clients or purchases)
+     * @param file the file written; compressed if its name ends in .gz
+     * @param format CSV or BINARY
+     * @return the number of rows exported
+     * @throws BookstoreException if the file or the database cannot be accessed, or if too many reports are running
+     */
+    public long export(BulkTable table, Path file, CopyFormat format) throws BookstoreException;
+
+    /**
+     * Imports a file into a table with the COPY protocol, overwriting the rows with the same id.
+     * The import is recorded in the outbox and, for purchases, the daily sales rollup is rebuilt, all in the
+     * transaction of the import; the cached books or clients of every instance are dropped once it commits.
+     * The import runs on the reporting connection pool and inside the ReportingBulkhead like an export.
+     * @param table the table (books, clients or purchases)
+     * @param file the file read; decompressed if its name ends in .gz
+     * @param format CSV or BINARY
+     * @return the number of rows imported
+     * @throws BookstoreException if the file or the database cannot be accessed, or if too many reports are running;
+     * nothing is imported then
+     */
+    public long importFile(BulkTable table, Path file, CopyFormat format) throws BookstoreException;
+}
@@ -0,0 +1,91 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.BulkCopyRepository;
+import ro.ubb.springjpa.repository.BulkTable;
+import ro.ubb.springjpa.repository.CopyFormat;
+import ro.ubb.springjpa.service.events.Outbox;
+import ro.ubb.springjpa.service.invalidation.Invalidation;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+@Service
+public class BulkTransferServiceImpl implements BulkTransferService {
+
+    public static final Logger log = LoggerFactory.getLogger(BulkTransferServiceImpl.class);
+
+    @Autowired
+    private BulkCopyRepository bulkCopyRepository;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private ReportingBulkhead reportingBulkhead;
+
+    public long export(BulkTable table, Path file, CopyFormat format) throws BookstoreException {
+        log.trace("export - method entered: table={}, file={}", table, file);
+        long rows = this.reportingBulkhead.call(() -> {
+            try {
+                return this.bulkCopyRepository.exportTable(table, file, format);
+            } catch (IOException | SQLException e) {
+                log.error("export - export of {} failed", table.getTable(), e);
+                throw new BookstoreException("Export failed: " + e.getMessage() + "\n");
+            }
+        });
+        log.info("export - {} rows of {} written to {}", rows, table.getTable(), file);
+        return rows;
+    }
+
+    @Transactional(rollbackFor = BookstoreException.class)
+    public long importFile(BulkTable table, Path file, CopyFormat format) throws BookstoreException {
+        log.trace("importFile - method entered: table={}, file={}", table, file);
+        long rows = this.reportingBulkhead.call(() -> this.load(table, file, format));
+        log.info("importFile - {} rows of {} loaded into {}", rows, file, table.getTable());
+        return rows;
+    }
+
+    /**
+     * Copies the file in and records it. Runs inside the bulkhead, so the rollup rebuild of a purchase import
+     * shares the permit and the reporting connection of the copy.
+     */
+    private long load(BulkTable table, Path file, CopyFormat format) throws BookstoreException {
+        long rows;
+        try {
+            rows = this.bulkCopyRepository.importTable(table, file, format);
+        } catch (IOException | SQLException e) {
+            log.error("importFile - import of {} failed", file, e);
+            throw new BookstoreException("Import failed: " + e.getMessage() + "\n");
+        }
+
+        switch (table) {
+            case BOOK:
+                this.outbox.imported("Book", rows);
+                this.invalidationBus.publish(Invalidation.allOf("books"));
+                break;
+            case CLIENT:
+                this.outbox.imported("Client", rows);
+                this.invalidationBus.publish(Invalidation.allOf("clients"));
+                break;
+            case PURCHASE:
+                this.outbox.imported("Purchase", rows);
+                this.purchaseService.rebuildSalesRollup();
+                break;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,158 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.model.BaseEntity;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.ClientRepository;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fills the "books" and "clients" caches once the context is started, with the warmup.topBooks best selling books
+ * and the warmup.topClients most active clients, loaded in parallel chunks. The warm-up stops after
+ * warmup.budgetMillis milliseconds whatever it loaded; the application is ready as soon as it finished or its budget
+ * ran out, even while the queries picking the entities to load still run.
+ */
+@Component
+@Lazy(false)
+public class CacheWarmup implements ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private static final int CHUNK_SIZE = 100;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${warmup.enabled}")
+    private boolean enabled;
+
+    @Value("${warmup.topBooks}")
+    private int topBooks;
+
+    @Value("${warmup.topClients}")
+    private int topClients;
+
+    @Value("${warmup.budgetMillis}")
+    private long budgetMillis;
+
+    @Value("${warmup.parallelism}")
+    private int parallelism;
+
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private volatile boolean started;
+    private volatile long startedAt;
+
+    /**
+     * Starts the warm-up in the background when the context is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (this.started)
+            return;
+        this.started = true;
+        this.startedAt = System.nanoTime();
+        if (!this.enabled) {
+            this.ready.countDown();
+            return;
+        }
+        Thread warmup = new Thread(this::warmUp, "cache-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    /**
+     * Checks if the warm-up is over.
+     * @return true if the caches were warmed up or the warm-up budget ran out
+     */
+    public boolean isReady() {
+        return this.started && (this.ready.getCount() == 0 || this.remainingNanos() <= 0);
+    }
+
+    /**
+     * Waits for the end of the warm-up, at most until its budget runs out.
+     * @return true if the caches were warmed up, false if the budget ran out first
+     */
+    public boolean awaitReady() throws InterruptedException {
+        if (!this.started)
+            throw new IllegalStateException("The cache warm-up starts with the context");
+        return this.ready.await(Math.max(0, this.remainingNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    private long remainingNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(this.budgetMillis) - (System.nanoTime() - this.startedAt);
+    }
+
+    private void warmUp() {
+        log.trace("warmUp - method entered");
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, new CustomizableThreadFactory("cache-warmup-"));
+        AtomicInteger books = new AtomicInteger();
+        AtomicInteger clients = new AtomicInteger();
+        try {
+            List<CompletableFuture<Void>> loads = new ArrayList<>();
+            List<Integer> bookIds = this.purchaseRepository.findBestSellingBookIds(PageRequest.of(0, this.topBooks));
+            loads.addAll(this.load(bookIds, this.bookRepository::findAllById, this.cacheManager.getCache("books"), books, executor));
+            List<Integer> clientIds = this.purchaseRepository.findMostActiveClientIds(PageRequest.of(0, this.topClients));
+            loads.addAll(this.load(clientIds, this.clientRepository::findAllById, this.cacheManager.getCache("clients"), clients, executor));
+
+            CompletableFuture.allOf(loads.toArray(CompletableFuture<?>[]::new)).get(Math.max(0, this.remainingNanos()), TimeUnit.NANOSECONDS);
+            log.info("warmUp - {} books and {} clients cached in {} ms", books.get(), clients.get(), (System.nanoTime() - start) / 1_000_000);
+        } catch (TimeoutException e) {
+            log.warn("warmUp - budget of {} ms exceeded, {} books and {} clients cached", this.budgetMillis, books.get(), clients.get());
+        } catch (Exception e) {
+            log.error("warmUp - warm-up failed, starting with cold caches", e);
+        } finally {
+            executor.shutdownNow();
+            this.ready.countDown();
+        }
+        log.trace("warmUp - method finished");
+    }
+
+    /**
+     * Loads the entities chunk by chunk on the executor and puts them into the cache under their id,
+     * the key used by the @Cacheable findOne methods.
+     */
+    private <T extends BaseEntity<Integer>> List<CompletableFuture<Void>> load(List<Integer> ids, Function<List<Integer>, List<T>> finder,
+                                                                              Cache cache, AtomicInteger loaded, ExecutorService executor) {
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE));
+            loads.add(CompletableFuture.runAsync(() -> finder.apply(chunk).forEach(entity -> {
+                cache.putIfAbsent(entity.getId(), entity);
+                loaded.incrementAndGet();
+            }), executor));
+        }
+        return loads;
+    }
+}
@@ -5,6 +5,7 @@ import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -17,6 +18,13 @@ public interface ClientService
      */
     public void addClient(Client client) throws ValidatorException, BookstoreException, SQLException;
 
+    /**
+     * Adds several clients at once, validating them in parallel first. Either all of them are added or none.
+     * @param clients the clients to add
+     * @throws ValidatorException if some clients are not valid, listing each of them
+     */
+    public void addClients(List<Client> clients) throws ValidatorException, BookstoreException;
+
     /**
      * Get client list set.
      * @return the set containing all the clients inside the client repository
@@ -3,16 +3,24 @@ package ro.ubb.springjpa.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ro.ubb.springjpa.domain.model.Client;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.ClientValidator;
+import ro.ubb.springjpa.domain.validators.ValidationEngine;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 import ro.ubb.springjpa.repository.ClientRepository;
+import ro.ubb.springjpa.service.events.ChangeEvent;
+import ro.ubb.springjpa.service.events.Outbox;
+import ro.ubb.springjpa.service.invalidation.Invalidation;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
 
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,25 +31,56 @@ public class ClientServiceImpl implements ClientService {
 
     public static final Logger log = LoggerFactory.getLogger(ClientServiceImpl.class);
 
+    private static final String CLIENTS = "clients";
+
     @Autowired
     private ClientRepository clientRepository;
 
     @Autowired
     private ClientValidator clientValidator;
 
+    @Autowired
+    private ValidationEngine validationEngine;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
 
     /**
      * Add a client to the client repository.
      * @param client instance of class Client
      * @throws ValidatorException if the entity is not valid
      */
+    @Transactional
+    @CacheEvict(value = "clients", key = "#client.id")
     public void addClient(Client client) throws ValidatorException, BookstoreException, SQLException {
         log.trace("addClient - method entered: client = {}", client);
         clientValidator.validate(client);
         this.clientRepository.save(client);
+        this.outbox.clientChanged(ChangeEvent.CREATED, client);
+        this.invalidationBus.publish(Invalidation.of(CLIENTS, client.getId()));
         log.trace("addClient - method finished");
     }
 
+    /**
+     * Adds several clients at once, validating them in parallel first. Either all of them are added or none.
+     * @param clients the clients to add
+     * @throws ValidatorException if some clients are not valid, listing each of them
+     */
+    @Transactional
+    @CacheEvict(value = "clients", allEntries = true)
+    public void addClients(List<Client> clients) throws ValidatorException, BookstoreException {
+        log.trace("addClients - method entered: clients={}", clients.size());
+        validationEngine.requireAllValid(clients, clientValidator);
+        this.clientRepository.saveAll(clients);
+        clients.forEach(client -> this.outbox.clientChanged(ChangeEvent.CREATED, client));
+        this.invalidationBus.publish(Invalidation.allOf(CLIENTS));
+        log.trace("addClients - method finished");
+    }
+
     /**
      * Get client list set.
      * @return the set containing all the clients inside the client repository
@@ -58,9 +97,13 @@ public class ClientServiceImpl implements ClientService {
      * Delete a client from the client repository
      * @param id integer representing the id of a client
      */
+    @Transactional
+    @CacheEvict(value = "clients", key = "#id")
     public void deleteClient(Integer id) throws BookstoreException {
         log.trace("deleteClient - method entered: id={}", id);
         this.clientRepository.deleteById(id);
+        this.outbox.deleted("Client", id);
+        this.invalidationBus.publish(Invalidation.of(CLIENTS, id));
         log.trace("deleteClient - method finished");
     }
 
@@ -70,6 +113,7 @@ public class ClientServiceImpl implements ClientService {
      * @throws ValidatorException if the client is not valid
      */
     @Transactional
+    @CacheEvict(value = "clients", key = "#client.id")
     public void updateClient(Client client) throws ValidatorException, BookstoreException {
         log.trace("updateClient - method entered: client={}", client);
         clientValidator.validate(client);
@@ -78,8 +122,10 @@ public class ClientServiceImpl implements ClientService {
                     c.setFirstName(client.getFirstName());
                     c.setLastName(client.getLastName());
                     c.setAddress(client.getAddress());
+                    this.outbox.clientChanged(ChangeEvent.UPDATED, c);
                     log.debug("updateClient - updated: c={}", c);
                 });
+        this.invalidationBus.publish(Invalidation.of(CLIENTS, client.getId()));
         log.trace("updateClient - method finished");
     }
 
@@ -103,6 +149,7 @@ public class ClientServiceImpl implements ClientService {
         return filteredClients;
     }
 
+    @Cacheable(value = "clients", key = "#id")
     public Optional<Client> findOne(Integer id) throws BookstoreException {
         return this.clientRepository.findById(id);
     }
@@ -0,0 +1,226 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sparse symmetric book-to-book matrix counting, for every pair of books, the clients who bought both.
+ * Every row is a primitive int-to-int hash map, so only the pairs which were bought together take memory.
+ * The books bought by every client are kept as well, so single purchases can be added incrementally.
+ */
+public final class CoPurchaseMatrix
+{
+    private static final int BUILD_THRESHOLD = 1024;
+
+    private final Int2ObjectOpenHashMap<Int2IntOpenHashMap> rows;
+    private final Int2ObjectOpenHashMap<IntOpenHashSet> booksPerClient;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CoPurchaseMatrix(Int2ObjectOpenHashMap<Int2IntOpenHashMap> rows, Int2ObjectOpenHashMap<IntOpenHashSet> booksPerClient)
+    {
+        this.rows = rows;
+        this.booksPerClient = booksPerClient;
+    }
+
+    /**
+     * Builds the matrix out of the purchase histories of the clients, counting the pairs of separate ranges
+     * of clients in parallel with fork-join and merging the partial matrices.
+     * @param clientIds the id of every client with purchases, without duplicates
+     * @param histories the distinct books bought by the client with the same index
+     * @return the matrix
+     */
+    public static CoPurchaseMatrix build(int[] clientIds, int[][] histories)
+    {
+        Int2ObjectOpenHashMap<IntOpenHashSet> booksPerClient = new Int2ObjectOpenHashMap<>(clientIds.length);
+        for (int client = 0; client < clientIds.length; client++)
+        {
+            IntOpenHashSet books = new IntOpenHashSet(histories[client].length);
+            for (int book : histories[client])
+                books.add(book);
+            booksPerClient.put(clientIds[client], books);
+        }
+        return new CoPurchaseMatrix(ForkJoinPool.commonPool().invoke(new BuildTask(histories, 0, histories.length)), booksPerClient);
+    }
+
+    /**
+     * Adds a purchase. Buying a book the client already bought changes nothing.
+     * @param clientId the id of the client
+     * @param bookId the id of the book
+     * @return true if the purchase changed the matrix, false otherwise
+     */
+    public boolean add(int clientId, int bookId)
+    {
+        this.lock.writeLock().lock();
+        try {
+            IntOpenHashSet books = this.booksPerClient.get(clientId);
+            if (books == null)
+            {
+                books = new IntOpenHashSet();
+                this.booksPerClient.put(clientId, books);
+            }
+            if (!books.add(bookId))
+                return false;
+            for (IntIterator iterator = books.iterator(); iterator.hasNext(); )
+            {
+                int other = iterator.nextInt();
+                if (other != bookId)
+                {
+                    increment(this.rows, bookId, other, 1);
+                    increment(this.rows, other, bookId, 1);
+                }
+            }
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the books bought most often by the clients who bought the given book.
+     * Only the row of the book is scanned, with a heap of k entries.
+     * @param bookId the id of the book
+     * @param k maximum number of books
+     * @return a list of (book id, clients who bought both books) entries, in descending order of the clients
+     */
+    public List<Map.Entry<Integer, Integer>> related(int bookId, int k)
+    {
+        PriorityQueue<Cell> heap = new PriorityQueue<>(Math.max(1, k), Comparator.comparingInt(cell -> cell.clients));
+        this.lock.readLock().lock();
+        try {
+            Int2IntOpenHashMap row = this.rows.get(bookId);
+            if (row != null && k > 0)
+            {
+                for (Int2IntMap.Entry entry : row.int2IntEntrySet())
+                {
+                    if (heap.size() < k)
+                        heap.add(new Cell(entry.getIntKey(), entry.getIntValue()));
+                    else if (entry.getIntValue() > heap.peek().clients)
+                    {
+                        heap.poll();
+                        heap.add(new Cell(entry.getIntKey(), entry.getIntValue()));
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Integer, Integer>> related = new ArrayList<>(heap.size());
+        while (!heap.isEmpty())
+        {
+            Cell cell = heap.poll();
+            related.add(new AbstractMap.SimpleImmutableEntry<>(cell.book, cell.clients));
+        }
+        Collections.reverse(related);
+        return related;
+    }
+
+    /**
+     * Gets the number of books with at least one co-purchase.
+     * @return the number of non-empty rows
+     */
+    public int size()
+    {
+        this.lock.readLock().lock();
+        try {
+            return this.rows.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private static void increment(Int2ObjectMap<Int2IntOpenHashMap> rows, int book, int other, int count)
+    {
+        Int2IntOpenHashMap row = rows.get(book);
+        if (row == null)
+        {
+            row = new Int2IntOpenHashMap();
+            rows.put(book, row);
+        }
+        row.addTo(other, count);
+    }
+
+    /**
+     * Copy of a cell of a row, since the entries of a fastutil map may be reused while iterating.
+     */
+    private static final class Cell
+    {
+        private final int book;
+        private final int clients;
+
+        private Cell(int book, int clients)
+        {
+            this.book = book;
+            this.clients = clients;
+        }
+    }
+
+    /**
+     * Fork-join task which counts the pairs of a range of purchase histories.
+     */
+    private static final class BuildTask extends RecursiveTask<Int2ObjectOpenHashMap<Int2IntOpenHashMap>>
+    {
+        private final int[][] histories;
+        private final int from;
+        private final int to;
+
+        private BuildTask(int[][] histories, int from, int to)
+        {
+            this.histories = histories;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Int2ObjectOpenHashMap<Int2IntOpenHashMap> compute()
+        {
+            if (to - from <= BUILD_THRESHOLD)
+            {
+                Int2ObjectOpenHashMap<Int2IntOpenHashMap> rows = new Int2ObjectOpenHashMap<>();
+                for (int client = from; client < to; client++)
+                {
+                    int[] books = histories[client];
+                    for (int i = 0; i < books.length; i++)
+                        for (int j = i + 1; j < books.length; j++)
+                        {
+                            increment(rows, books[i], books[j], 1);
+                            increment(rows, books[j], books[i], 1);
+                        }
+                }
+                return rows;
+            }
+
+            int middle = (from + to) >>> 1;
+            BuildTask left = new BuildTask(histories, from, middle);
+            left.fork();
+            Int2ObjectOpenHashMap<Int2IntOpenHashMap> rows = new BuildTask(histories, middle, to).compute();
+            Int2ObjectOpenHashMap<Int2IntOpenHashMap> leftRows = left.join();
+            if (leftRows.size() > rows.size())
+            {
+                Int2ObjectOpenHashMap<Int2IntOpenHashMap> smaller = rows;
+                rows = leftRows;
+                leftRows = smaller;
+            }
+            for (Int2ObjectMap.Entry<Int2IntOpenHashMap> row : leftRows.int2ObjectEntrySet())
+                for (Int2IntMap.Entry cell : row.getValue().int2IntEntrySet())
+                    increment(rows, row.getIntKey(), cell.getIntKey(), cell.getIntValue());
+            return rows;
+        }
+    }
+}
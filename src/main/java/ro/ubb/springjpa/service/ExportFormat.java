@@ -0,0 +1,12 @@
+package ro.ubb.springjpa.service;
+
+/**
+ * The file formats of the exports.
+ */
+public enum ExportFormat
+{
+    /** comma separated values with a header line, quoted as in RFC 4180 */
+    CSV,
+    /** one flat JSON object per line */
+    JSONL
+}
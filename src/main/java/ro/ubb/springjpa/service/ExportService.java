@@ -0,0 +1,47 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.domain.report.SalesReportType;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.nio.file.Path;
+
+public interface ExportService
+{
+    /**
+     * Exports all the books, in the order of their id. A book sold without a limit has no stock.
+     * @param file the file written; compressed if its name ends in .gz
+     * @param format CSV or JSONL
+     * @return the number of books exported
+     * @throws BookstoreException if the file or the database cannot be accessed
+     */
+    public long exportBooks(Path file, ExportFormat format) throws BookstoreException;
+
+    /**
+     * Exports all the clients, in the order of their id.
+     * @param file the file written; compressed if its name ends in .gz
+     * @param format CSV or JSONL
+     * @return the number of clients exported
+     * @throws BookstoreException if the file or the database cannot be accessed
+     */
+    public long exportClients(Path file, ExportFormat format) throws BookstoreException;
+
+    /**
+     * Exports all the purchases, in the order of their id. The purchases are read through a database cursor
+     * and written one at a time, so the memory used does not depend on the number of purchases.
+     * @param file the file written; compressed if its name ends in .gz
+     * @param format CSV or JSONL
+     * @return the number of purchases exported
+     * @throws BookstoreException if the file or the database cannot be accessed
+     */
+    public long exportPurchases(Path file, ExportFormat format) throws BookstoreException;
+
+    /**
+     * Exports a grouped sales report.
+     * @param report the report
+     * @param file the file written; compressed if its name ends in .gz
+     * @param format CSV or JSONL
+     * @return the number of rows exported
+     * @throws BookstoreException if the file or the database cannot be accessed
+     */
+    public long exportReport(SalesReportType report, Path file, ExportFormat format) throws BookstoreException;
+}
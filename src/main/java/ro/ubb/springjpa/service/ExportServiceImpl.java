@@ -0,0 +1,129 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ro.ubb.springjpa.domain.report.SalesReport;
+import ro.ubb.springjpa.domain.report.SalesReportType;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.ClientRepository;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    public static final Logger log = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private ReportingBulkhead reportingBulkhead;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true, rollbackFor = BookstoreException.class)
+    public long exportBooks(Path file, ExportFormat format) throws BookstoreException {
+        log.trace("exportBooks - method entered: file={}, format={}", file, format);
+        long rows = this.reportingBulkhead.call(() -> this.export(this.bookRepository.streamAllOrderById(), true, file, format,
+                new String[]{"id", "title", "author", "publisher", "publicationYear", "price", "stock"},
+                book -> new Object[]{book.getId(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+                        book.getPublicationYear(), BigDecimal.valueOf(book.getPriceCents(), 2), book.getStock()}));
+        log.trace("exportBooks - method finished: rows={}", rows);
+        return rows;
+    }
+
+    @Transactional(readOnly = true, rollbackFor = BookstoreException.class)
+    public long exportClients(Path file, ExportFormat format) throws BookstoreException {
+        log.trace("exportClients - method entered: file={}, format={}", file, format);
+        long rows = this.reportingBulkhead.call(() -> this.export(this.clientRepository.streamAllOrderById(), true, file, format,
+                new String[]{"id", "firstName", "lastName", "address"},
+                client -> new Object[]{client.getId(), client.getFirstName(), client.getLastName(), client.getAddress()}));
+        log.trace("exportClients - method finished: rows={}", rows);
+        return rows;
+    }
+
+    @Transactional(readOnly = true, rollbackFor = BookstoreException.class)
+    public long exportPurchases(Path file, ExportFormat format) throws BookstoreException {
+        log.trace("exportPurchases - method entered: file={}, format={}", file, format);
+        long rows = this.reportingBulkhead.call(() -> this.export(this.purchaseRepository.streamAllOrderById(), true, file, format,
+                new String[]{"id", "clientId", "bookId", "library", "purchaseDate", "price"},
+                purchase -> new Object[]{purchase.getId(), purchase.getClientId(), purchase.getBookId(),
+                        purchase.getLibrary(), purchase.getPurchaseDate(), BigDecimal.valueOf(purchase.getPriceCents(), 2)}));
+        log.trace("exportPurchases - method finished: rows={}", rows);
+        return rows;
+    }
+
+    public long exportReport(SalesReportType report, Path file, ExportFormat format) throws BookstoreException {
+        log.trace("exportReport - method entered: report={}, file={}, format={}", report, file, format);
+        List<SalesReport> reports;
+        switch (report) {
+            case LIBRARY:
+                reports = this.purchaseService.reportSalesPerLibrary();
+                break;
+            case DAY:
+                reports = this.purchaseService.reportSalesPerDay();
+                break;
+            case MONTH:
+                reports = this.purchaseService.reportSalesPerMonth();
+                break;
+            case AUTHOR:
+                reports = this.purchaseService.reportSalesPerAuthor();
+                break;
+            default:
+                reports = this.purchaseService.reportSalesPerPublisher();
+        }
+
+        long rows = this.export(reports.stream(), false, file, format,
+                new String[]{report.getGroup(), "units", "revenue"},
+                row -> new Object[]{row.getGroup(), row.getUnits(), BigDecimal.valueOf(row.getRevenue().getCents(), 2)});
+        log.trace("exportReport - method finished: rows={}", rows);
+        return rows;
+    }
+
+    /**
+     * Writes the elements of a stream to a file and closes the stream. Entities are detached as soon as
+     * they are written, so neither the persistence context nor the heap grows with the export.
+     */
+    private <T> long export(Stream<T> elements, boolean entities, Path file, ExportFormat format, String[] columns,
+                            Function<T, Object[]> row) throws BookstoreException {
+        try (Stream<T> stream = elements;
+             ExportWriter writer = new ExportWriter(file, format, columns)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                T element = iterator.next();
+                writer.write(row.apply(element));
+                if (entities)
+                    this.entityManager.detach(element);
+            }
+            log.info("export - {} rows written to {}", writer.getRows(), file);
+            return writer.getRows();
+        } catch (IOException e) {
+            log.error("export - export to {} failed", file, e);
+            throw new BookstoreException("Export failed: " + e.getMessage() + "\n");
+        }
+    }
+}
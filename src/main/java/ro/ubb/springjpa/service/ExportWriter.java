@@ -0,0 +1,141 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.service.events.Json;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows to a CSV or JSONL file through a file channel, one row at a time, so the heap used
+ * is bounded by the buffers and does not depend on the number of rows. Files ending in .gz are compressed.
+ */
+final class ExportWriter implements Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int CHAR_BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final String[] columns;
+    private final StringBuilder line = new StringBuilder(256);
+    private long rows;
+
+    /**
+     * Opens the file, replacing it if it exists, and writes the header line of a CSV file.
+     * @param file the file written
+     * @param format the file format
+     * @param columns the names of the columns
+     */
+    ExportWriter(Path file, ExportFormat format, String... columns) throws IOException
+    {
+        if (file.toAbsolutePath().getParent() != null)
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)), BUFFER_SIZE);
+        if (file.toString().endsWith(".gz"))
+            output = new GZIPOutputStream(output, BUFFER_SIZE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), CHAR_BUFFER_SIZE);
+        this.format = format;
+        this.columns = columns;
+
+        if (format == ExportFormat.CSV)
+        {
+            for (int i = 0; i < columns.length; i++)
+            {
+                if (i > 0)
+                    this.line.append(',');
+                this.appendCsv(columns[i]);
+            }
+            this.writer.append(this.line).append('\n');
+        }
+    }
+
+    /**
+     * Writes a row. Numbers are written as they are, null as an empty CSV field or a JSON null and everything else
+     * through its string representation.
+     * @param values the values of the row, in the order of the columns
+     */
+    void write(Object... values) throws IOException
+    {
+        this.line.setLength(0);
+        if (this.format == ExportFormat.CSV)
+        {
+            for (int i = 0; i < values.length; i++)
+            {
+                if (i > 0)
+                    this.line.append(',');
+                if (values[i] instanceof Number)
+                    this.line.append(values[i]);
+                else if (values[i] != null)
+                    this.appendCsv(values[i].toString());
+            }
+        }
+        else
+        {
+            this.line.append('{');
+            for (int i = 0; i < values.length; i++)
+            {
+                if (i > 0)
+                    this.line.append(',');
+                this.line.append(Json.string(this.columns[i])).append(':');
+                if (values[i] == null || values[i] instanceof Number)
+                    this.line.append(values[i]);
+                else
+                    this.line.append(Json.string(values[i].toString()));
+            }
+            this.line.append('}');
+        }
+        this.writer.append(this.line).append('\n');
+        this.rows++;
+    }
+
+    /**
+     * Gets rows.
+     * @return the number of rows written, without the header
+     */
+    long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.writer.close();
+    }
+
+    private void appendCsv(String value)
+    {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++)
+        {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted)
+        {
+            this.line.append(value);
+            return;
+        }
+        this.line.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"')
+                this.line.append('"');
+            this.line.append(c);
+        }
+        this.line.append('"');
+    }
+}
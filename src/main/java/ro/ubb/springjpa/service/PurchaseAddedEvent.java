@@ -0,0 +1,84 @@
+package ro.ubb.springjpa.service;
+
+/**
+ * Application event published by PurchaseWriter for every stored purchase.
+ * Listeners interested only in committed purchases use a transactional event listener.
+ */
+public final class PurchaseAddedEvent
+{
+    private final int purchaseId;
+    private final int clientId;
+    private final int bookId;
+    private final String library;
+    private final String purchaseKey;
+
+    /**
+     * Instantiates a new PurchaseAddedEvent.
+     *
+     * @param purchaseId int representing the id of the purchase
+     * @param clientId   int representing the id of the client
+     * @param bookId     int representing the id of the book
+     * @param library    String representing the library the book was bought from
+     * @param purchaseKey String representing the idempotency key of the purchase, or null
+     */
+    public PurchaseAddedEvent(int purchaseId, int clientId, int bookId, String library, String purchaseKey)
+    {
+        this.purchaseId = purchaseId;
+        this.clientId = clientId;
+        this.bookId = bookId;
+        this.library = library;
+        this.purchaseKey = purchaseKey;
+    }
+
+    /**
+     * Gets purchase id.
+     * @return the id of the purchase
+     */
+    public int getPurchaseId() {
+        return purchaseId;
+    }
+
+    /**
+     * Gets client id.
+     * @return the id of the client
+     */
+    public int getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Gets book id.
+     * @return the id of the book
+     */
+    public int getBookId() {
+        return bookId;
+    }
+
+    /**
+     * Gets library.
+     * @return the library the book was bought from
+     */
+    public String getLibrary() {
+        return library;
+    }
+
+    /**
+     * Gets purchase key.
+     * @return the idempotency key the purchase was submitted with, or null
+     */
+    public String getPurchaseKey() {
+        return purchaseKey;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PurchaseAddedEvent{" +
+                "purchaseId=" + this.purchaseId +
+                ", clientId=" + this.clientId +
+                ", bookId=" + this.bookId +
+                ", library='" + this.library + '\'' +
+                ", purchaseKey='" + this.purchaseKey + '\'' +
+                "}";
+    }
+}
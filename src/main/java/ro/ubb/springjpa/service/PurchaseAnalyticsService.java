@@ -0,0 +1,69 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales analytics answered from an in-memory {@link PurchaseSnapshot}, without querying the database.
+ */
+public interface PurchaseAnalyticsService
+{
+    /**
+     * Replaces the current snapshot with a fresh copy of the purchases.
+     */
+    public void refresh();
+
+    /**
+     * Checks if the first snapshot was taken, which happens in the background after the startup.
+     * @return true if analytics can be asked for
+     */
+    public boolean isReady();
+
+    /**
+     * Gets the moment the data used by the analytics was read.
+     * @return the creation time of the current snapshot in milliseconds since the epoch
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public long getSnapshotTime() throws BookstoreException;
+
+    /**
+     * Returns the amount of money spent by every client that made a purchase.
+     * @return a map from client id to money spent, in cents
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public Int2LongMap getSpendPerClient() throws BookstoreException;
+
+    /**
+     * Returns how many times every book was sold.
+     * @return a map from book id to number of sales
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public Int2LongMap getSalesPerBook() throws BookstoreException;
+
+    /**
+     * Returns the money earned by every library.
+     * @return a map from library name to revenue
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public Map<String, Money> getRevenuePerLibrary() throws BookstoreException;
+
+    /**
+     * Returns the clients who spent the most.
+     * @param n maximum number of clients
+     * @return a list of (client id, money spent) entries, in descending order of the money spent
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public List<Map.Entry<Integer, Money>> getTopClientsBySpend(int n) throws BookstoreException;
+
+    /**
+     * Returns the best-selling books.
+     * @param n maximum number of books
+     * @return a list of (book id, sales) entries, in descending order of the sales
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    public List<Map.Entry<Integer, Long>> getTopBooksBySales(int n) throws BookstoreException;
+}
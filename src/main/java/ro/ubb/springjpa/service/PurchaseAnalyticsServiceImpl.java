@@ -0,0 +1,156 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.WorkloadType;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+@Lazy(false)
+public class PurchaseAnalyticsServiceImpl implements PurchaseAnalyticsService, InitializingBean, ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(PurchaseAnalyticsServiceImpl.class);
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final StartupBuild startupBuild = new StartupBuild("analytics-snapshot");
+
+    private volatile PurchaseSnapshot snapshot;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Takes the first snapshot in the background when the context is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        this.startupBuild.start(this::refresh);
+    }
+
+    public boolean isReady() {
+        return this.snapshot != null;
+    }
+
+    /**
+     * Replaces the current snapshot with a fresh copy of the purchases.
+     * Runs periodically, every analytics.refreshMillis milliseconds after the startup snapshot.
+     */
+    @Scheduled(fixedDelayString = "${analytics.refreshMillis}", initialDelayString = "${analytics.refreshMillis}")
+    public synchronized void refresh() {
+        log.trace("refresh - method entered");
+        long start = System.nanoTime();
+        PurchaseSnapshot newSnapshot = WorkloadType.run(WorkloadType.REPORTING,
+                () -> this.transactionTemplate.execute(status -> this.load()));
+        this.snapshot = newSnapshot;
+        log.info("refresh - snapshot of {} purchases taken in {} ms", newSnapshot.size(), (System.nanoTime() - start) / 1_000_000);
+        log.trace("refresh - method finished");
+    }
+
+    /**
+     * Streams the purchases of the existing books into a new snapshot.
+     */
+    private PurchaseSnapshot load() {
+        PurchaseSnapshot.Builder builder = PurchaseSnapshot.builder();
+        try (Stream<Object[]> rows = this.purchaseRepository.streamSnapshotRows()) {
+            rows.forEach(row -> builder.add(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).longValue(), (String) row[3]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the current snapshot.
+     * @throws BookstoreException if the first snapshot is not taken yet
+     */
+    private PurchaseSnapshot current() throws BookstoreException {
+        PurchaseSnapshot current = this.snapshot;
+        if (current == null)
+            throw new BookstoreException("The analytics snapshot is still being taken, try again later\n");
+        return current;
+    }
+
+    public long getSnapshotTime() throws BookstoreException {
+        return this.current().getCreatedAt();
+    }
+
+    public Int2LongMap getSpendPerClient() throws BookstoreException {
+        log.trace("getSpendPerClient - method entered");
+        PurchaseSnapshot current = this.current();
+        long[] spend = current.spendPerClient();
+        Int2LongMap spendPerClient = new Int2LongOpenHashMap(spend.length);
+        for (int code = 0; code < spend.length; code++)
+            spendPerClient.put(current.clientAt(code), spend[code]);
+        log.trace("getSpendPerClient - method finished: clients={}", spendPerClient.size());
+        return spendPerClient;
+    }
+
+    public Int2LongMap getSalesPerBook() throws BookstoreException {
+        log.trace("getSalesPerBook - method entered");
+        PurchaseSnapshot current = this.current();
+        long[] sales = current.salesPerBook();
+        Int2LongMap salesPerBook = new Int2LongOpenHashMap(sales.length);
+        for (int code = 0; code < sales.length; code++)
+            salesPerBook.put(current.bookAt(code), sales[code]);
+        log.trace("getSalesPerBook - method finished: books={}", salesPerBook.size());
+        return salesPerBook;
+    }
+
+    public Map<String, Money> getRevenuePerLibrary() throws BookstoreException {
+        log.trace("getRevenuePerLibrary - method entered");
+        PurchaseSnapshot current = this.current();
+        long[] revenue = current.revenuePerLibrary();
+        Map<String, Money> revenuePerLibrary = new HashMap<>(revenue.length * 2);
+        for (int code = 0; code < revenue.length; code++)
+            revenuePerLibrary.put(current.libraryAt(code), Money.ofCents(revenue[code]));
+        log.trace("getRevenuePerLibrary - method finished: revenuePerLibrary={}", revenuePerLibrary);
+        return revenuePerLibrary;
+    }
+
+    public List<Map.Entry<Integer, Money>> getTopClientsBySpend(int n) throws BookstoreException {
+        log.trace("getTopClientsBySpend - method entered: n={}", n);
+        PurchaseSnapshot current = this.current();
+        long[] spend = current.spendPerClient();
+        List<Map.Entry<Integer, Money>> topClients = new ArrayList<>();
+        for (int code : PurchaseSnapshot.topN(spend, n))
+            topClients.add(new AbstractMap.SimpleEntry<>(current.clientAt(code), Money.ofCents(spend[code])));
+        log.trace("getTopClientsBySpend - method finished: topClients={}", topClients);
+        return topClients;
+    }
+
+    public List<Map.Entry<Integer, Long>> getTopBooksBySales(int n) throws BookstoreException {
+        log.trace("getTopBooksBySales - method entered: n={}", n);
+        PurchaseSnapshot current = this.current();
+        long[] sales = current.salesPerBook();
+        List<Map.Entry<Integer, Long>> topBooks = new ArrayList<>();
+        for (int code : PurchaseSnapshot.topN(sales, n))
+            topBooks.add(new AbstractMap.SimpleEntry<>(current.bookAt(code), sales[code]));
+        log.trace("getTopBooksBySales - method finished: topBooks={}", topBooks);
+        return topBooks;
+    }
+}
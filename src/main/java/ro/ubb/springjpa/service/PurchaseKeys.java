@@ -0,0 +1,137 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.model.PurchaseKey;
+import ro.ubb.springjpa.repository.PurchaseKeyRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Idempotency keys of the purchases. The purchasekey table is the authority: a key is claimed in the transaction
+ * of its purchase and its unique constraint refuses a second claim, even from a concurrent retry.
+ * In front of it, the last purchase.keys.cacheSize committed keys are remembered in memory,
+ * so a retry of a recent purchase is rejected without going to the database.
+ */
+@Component
+@Lazy(false)
+public class PurchaseKeys implements InitializingBean {
+
+    public static final Logger log = LoggerFactory.getLogger(PurchaseKeys.class);
+
+    @Autowired
+    private PurchaseKeyRepository purchaseKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${purchase.keys.cacheSize}")
+    private int cacheSize;
+
+    @Value("${purchase.keys.retentionDays}")
+    private int retentionDays;
+
+    private Map<String, Boolean> recent;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.recent = new LinkedHashMap<String, Boolean>(this.cacheSize * 4 / 3 + 1) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return this.size() > PurchaseKeys.this.cacheSize;
+            }
+        };
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+    }
+
+    /**
+     * Checks if a key belongs to a recently committed purchase. A miss proves nothing, the key is then checked by claim.
+     * @param purchaseKey the key, or null
+     * @return true if the key was used by one of the last purchase.keys.cacheSize purchases
+     */
+    public synchronized boolean isRecent(String purchaseKey) {
+        return purchaseKey != null && this.recent.containsKey(purchaseKey);
+    }
+
+    /**
+     * Claims the key of a saved purchase in the caller's transaction.
+     * @param purchase the purchase, with an id and a key
+     * @return true if the key was claimed, false if another committed purchase already used it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(Purchase purchase) {
+        log.trace("claim - method entered: purchaseKey={}", purchase.getPurchaseKey());
+        boolean claimed = this.purchaseKeyRepository.claim(purchase.getPurchaseKey(), purchase.getId(), LocalDateTime.now()) == 1;
+        if (!claimed)
+            this.remember(purchase.getPurchaseKey());
+        log.trace("claim - method finished: claimed={}", claimed);
+        return claimed;
+    }
+
+    /**
+     * Claims the keys of saved purchases in the caller's transaction, as entities inserted with the next flush in one
+     * JDBC batch. A key already used, or claimed by a concurrent transaction which then commits, fails the flush and
+     * so the caller's transaction; the caller then claims the keys one by one to find the duplicates.
+     * @param purchases the purchases, with an id and possibly a key
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claimAll(List<Purchase> purchases) {
+        log.trace("claimAll - method entered: size={}", purchases.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<PurchaseKey> keys = new ArrayList<>(purchases.size());
+        for (Purchase purchase : purchases) {
+            if (purchase.getPurchaseKey() == null)
+                continue;
+            PurchaseKey key = new PurchaseKey();
+            key.setPurchaseKey(purchase.getPurchaseKey());
+            key.setPurchaseId(purchase.getId());
+            key.setCreatedAt(now);
+            keys.add(key);
+        }
+        this.purchaseKeyRepository.saveAll(keys);
+        log.trace("claimAll - method finished: keys={}", keys.size());
+    }
+
+    /**
+     * Remembers the key of a purchase once its transaction committed; a rolled back purchase may be retried with it.
+     * @param event the event of the committed purchase
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPurchaseAdded(PurchaseAddedEvent event) {
+        if (event.getPurchaseKey() != null)
+            this.remember(event.getPurchaseKey());
+    }
+
+    private synchronized void remember(String purchaseKey) {
+        this.recent.put(purchaseKey, Boolean.TRUE);
+    }
+
+    /**
+     * Deletes the keys older than purchase.keys.retentionDays days; a till retrying later than that is not recognized.
+     */
+    @Scheduled(cron = "${purchase.keys.purge.cron}")
+    public void purge() {
+        log.trace("purge - method entered");
+        Integer deleted = this.transactionTemplate.execute(status ->
+                this.purchaseKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(this.retentionDays)));
+        log.trace("purge - method finished: deleted={}", deleted);
+    }
+}
@@ -2,23 +2,39 @@ package ro.ubb.springjpa.service;
 
 import ro.ubb.springjpa.domain.model.Book;
 import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
 import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public interface PurchaseService
 {
     /**
-     * Adds a purchase from the purchase repository
+     * Adds a purchase from the purchase repository.
+     * A purchase with a key is stored at most once: submitting it again with the same key is rejected.
      * @param purchase instance of the class Purchase
      * @throws ValidatorException if the purchase is not valid
-     * @throws BookstoreException if the book or client doesnt exist
+     * @throws BookstoreException if the book or client doesnt exist, if the key was already used or if the book is sold out
      */
     public void add(Purchase purchase) throws BookstoreException, ValidatorException, SQLException;
 
+    /**
+     * Adds a purchase through the write-behind queue, or synchronously if the write-behind mode is disabled.
+     * The purchase is validated before this method returns; it is stored when the returned future completes.
+     * @param purchase instance of the class Purchase
+     * @return a future completed once the purchase is committed to the database
+     * @throws ValidatorException if the purchase is not valid
+     * @throws BookstoreException if the book or client doesnt exist, if the key was recently used or if the queue is full;
+     * through the queue, an older duplicate key or a sold out book completes the future exceptionally instead
+     */
+    public CompletableFuture<Purchase> submit(Purchase purchase) throws BookstoreException, ValidatorException, SQLException;
+
     /**
      * Get purchase list set
      * @return the set containing all the purchases inside the purchase repository
@@ -29,24 +45,25 @@ public interface PurchaseService
      * Updates a purchase from the purchase repository
      * @param purchase instance of the class Purchase
      * @throws ValidatorException if the purchase is not valid
-     * @throws BookstoreException if the book or client doesnt exist
+     * @throws BookstoreException if the book or client doesnt exist, or if the purchase is moved to a book or library
+     * which is sold out
      */
     public void updatePurchase(Purchase purchase) throws ValidatorException, BookstoreException;
 
     /**
-     * Deletes a purchase from the purchase repository
+     * Deletes a purchase from the purchase repository and puts its copy back in stock
      * @param id integer representing the id of the purchase to be deleted
      */
     public void deletePurchase(Integer id) throws BookstoreException;
 
     /**
-     * Function takes a clientId and deletes the purchase having the respective clientId
+     * Function takes a clientId and deletes the purchase having the respective clientId, putting their copies back in stock
      * @param clientId integer representing the id of the client to be deleted
      */
     public void deletePurchaseWithClientID(int clientId) throws BookstoreException;
 
     /**
-     * Function takes a bookId and deletes the purchase having the respective bookId
+     * Function takes a bookId and deletes the purchase having the respective bookId, putting their copies back in stock
      * @param bookId integer representing the id of the book to be deleted
      */
     public void deletePurchaseWithBookID(int bookId) throws BookstoreException;
@@ -54,15 +71,18 @@ public interface PurchaseService
     /**
      * Returns the total amount of money a client has spent on books
      * @param clientId integer
-     * @return a double representing the amount of money the client with clientId has spent
+     * @return the amount of money the client with clientId has spent
      */
-    public double getMoneySpentForClient(int clientId) throws BookstoreException;
+    public Money getMoneySpentForClient(int clientId) throws BookstoreException;
 
     /**
      * Returns top 3 clients, sorted based on amount of money spent.
-     * @return a list containing 3 clients or less than 3 if there are less than 3 clients
+     * The clients are ranked from the analytics snapshot, so the result may be up to analytics.refreshMillis old,
+     * and in the database until the first snapshot is taken.
+     * Concurrent calls share one computation through SingleFlight, so the result may be up to reports.staleMillis old.
+     * @return a list containing 3 clients or less than 3 if less than 3 clients made purchases
      */
-    public List<Map.Entry<Client, Double>> reportTop3ClientsBasedOnMoneySpent() throws BookstoreException;
+    public List<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent() throws BookstoreException;
 
     /**
      * Returns how many times a book was sold.
@@ -73,10 +93,91 @@ public interface PurchaseService
 
     /**
      * Returns top 3 books, sorted based on sales.
-     * @return a list containing 3 books or less than 3 if there are less than 3 books
+     * The books are ranked from the analytics snapshot, so the result may be up to analytics.refreshMillis old,
+     * and in the database until the first snapshot is taken.
+     * Concurrent calls share one computation through SingleFlight, so the result may be up to reports.staleMillis old.
+     * @return a list containing 3 books or less than 3 if less than 3 books were sold
      */
     public List<Map.Entry<Book, Long>> reportTop3BestSellingBooks() throws BookstoreException;
 
+    /**
+     * Returns the units sold and the revenue of every library.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerLibrary() throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue for every day with sales.
+     * @return a list of reports grouped by day (yyyy-MM-dd), in chronological order
+     */
+    public List<SalesReport> reportSalesPerDay() throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue for every month with sales.
+     * @return a list of reports grouped by month (yyyy-MM), in chronological order
+     */
+    public List<SalesReport> reportSalesPerMonth() throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue of the books of every author.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerAuthor() throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue of the books of every publisher.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerPublisher() throws BookstoreException;
+
+    /**
+     * Returns top 3 clients of a period, sorted based on amount of money spent.
+     * Concurrent calls share one computation through SingleFlight, so the result may be up to reports.staleMillis old.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list containing 3 clients or less than 3 if less than 3 clients made purchases in the period
+     */
+    public List<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent(LocalDate from, LocalDate to) throws BookstoreException;
+
+    /**
+     * Returns top 3 books of a period, sorted based on sales.
+     * Concurrent calls share one computation through SingleFlight, so the result may be up to reports.staleMillis old.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list containing 3 books or less than 3 if less than 3 books were sold in the period
+     */
+    public List<Map.Entry<Book, Long>> reportTop3BestSellingBooks(LocalDate from, LocalDate to) throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue of every library in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerLibrary(LocalDate from, LocalDate to) throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue of the books of every author in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerAuthor(LocalDate from, LocalDate to) throws BookstoreException;
+
+    /**
+     * Returns the units sold and the revenue of the books of every publisher in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerPublisher(LocalDate from, LocalDate to) throws BookstoreException;
+
+    /**
+     * Recomputes the daily sales rollup out of the purchases.
+     * The months archived by the partition maintenance keep their rollup rows, their purchases are gone.
+     */
+    public void rebuildSalesRollup() throws BookstoreException;
+
     void cascadeDeleteBook(int bookId) throws BookstoreException;
 
     void cascadeDeleteClient(int clientId) throws BookstoreException;
@@ -3,18 +3,30 @@ package ro.ubb.springjpa.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ro.ubb.springjpa.domain.model.Book;
 import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
 import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.PurchaseValidator;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.LibraryStockRepository;
 import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.PurchaseRollupRepository;
+import ro.ubb.springjpa.service.events.ChangeEvent;
+import ro.ubb.springjpa.service.events.Outbox;
+import ro.ubb.springjpa.service.invalidation.Invalidation;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -29,12 +41,58 @@ public class PurchaseServiceImpl implements PurchaseService{
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LibraryStockRepository libraryStockRepository;
+
     @Autowired
     private PurchaseRepository purchaseRepository;
 
+    @Autowired
+    private PurchaseRollupRepository purchaseRollupRepository;
+
+    @Autowired
+    private PurchaseAnalyticsService purchaseAnalyticsService;
+
     @Autowired
     private PurchaseValidator purchaseValidator;
 
+    @Autowired
+    private PurchaseWriter purchaseWriter;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private PurchaseWriteBehindQueue purchaseWriteBehindQueue;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Autowired
+    private PurchaseKeys purchaseKeys;
+
+    @Autowired
+    private ReportingBulkhead reportingBulkhead;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Rejects a retry of a recently committed purchase without going to the database.
+     * Older or concurrent retries are rejected by PurchaseWriter, when the key is claimed.
+     * @param purchase instance of the class Purchase
+     * @throws BookstoreException if the key of the purchase was recently used
+     */
+    private void checkRecentKey(Purchase purchase) throws BookstoreException {
+        if (this.purchaseKeys.isRecent(purchase.getPurchaseKey())) {
+            log.trace("checkRecentKey - throw BookstoreException (duplicate key)");
+            throw new BookstoreException("Duplicate purchase, key " + purchase.getPurchaseKey() + " was already used!\n");
+        }
+    }
+
     /**
      * Checks if the book and client ids related to the purchase exist
      * @param purchase instance of the class Purchase
@@ -53,14 +111,16 @@ public class PurchaseServiceImpl implements PurchaseService{
      * Adds a purchase from the purchase repository
      * @param purchase instance of the class Purchase
      * @throws ValidatorException if the purchase is not valid
-     * @throws BookstoreException if the book or client doesnt exist
+     * @throws BookstoreException if the book or client doesnt exist, if the key was already used or if the book is sold out
      */
+    @Transactional(rollbackFor = BookstoreException.class)
     public void add(Purchase purchase) throws BookstoreException, ValidatorException, SQLException
     {
         log.trace("add (Purchase) - method entered: purchase={}", purchase);
+        checkRecentKey(purchase);
         if(checkBookClientAvailability(purchase)) {
             purchaseValidator.validate(purchase);
-            this.purchaseRepository.save(purchase);
+            this.purchaseWriter.write(purchase);
             log.trace("add (Purchase) - method finished");
         }
         else {
@@ -69,6 +129,37 @@ public class PurchaseServiceImpl implements PurchaseService{
         }
     }
 
+    /**
+     * Adds a purchase through the write-behind queue, or synchronously if the write-behind mode is disabled.
+     * @param purchase instance of the class Purchase
+     * @return a future completed once the purchase is committed to the database
+     * @throws ValidatorException if the purchase is not valid
+     * @throws BookstoreException if the book or client doesnt exist, if the key was already used,
+     * if the book is sold out or if the queue is full
+     */
+    @Transactional(rollbackFor = BookstoreException.class)
+    public CompletableFuture<Purchase> submit(Purchase purchase) throws BookstoreException, ValidatorException, SQLException
+    {
+        log.trace("submit (Purchase) - method entered: purchase={}", purchase);
+        checkRecentKey(purchase);
+        if(!checkBookClientAvailability(purchase)) {
+            log.trace("submit (Purchase) - throw BookstoreException (invalid book id/client id)");
+            throw new BookstoreException("Invalid book id and/or client id!\n");
+        }
+        purchaseValidator.validate(purchase);
+
+        CompletableFuture<Purchase> written;
+        if (this.purchaseWriteBehindQueue.isEnabled()) {
+            written = this.purchaseWriteBehindQueue.submit(purchase);
+        }
+        else {
+            this.purchaseWriter.write(purchase);
+            written = CompletableFuture.completedFuture(purchase);
+        }
+        log.trace("submit (Purchase) - method finished");
+        return written;
+    }
+
     /**
      * Get purchase list set
      * @return the set containing all the purchases inside the purchase repository
@@ -85,21 +176,34 @@ public class PurchaseServiceImpl implements PurchaseService{
      * Updates a purchase from the purchase repository
      * @param purchase instance of the class Purchase
      * @throws ValidatorException if the purchase is not valid
-     * @throws BookstoreException if the book or client doesnt exist
+     * @throws BookstoreException if the book or client doesnt exist, or if the purchase is moved to a book or library
+     * which is sold out, in which case the transaction is rolled back
      */
-    @Transactional
+    @Transactional(rollbackFor = BookstoreException.class)
     public void updatePurchase(Purchase purchase) throws ValidatorException, BookstoreException {
         log.trace("updatePurchase - method entered: purchase={}", purchase);
         if(checkBookClientAvailability(purchase)) {
             purchaseValidator.validate(purchase);
-            purchaseRepository.findById(purchase.getId())
-                    .ifPresent(p ->
-                    {
-                    p.setBookId(purchase.getBookId());
-                    p.setClientId(purchase.getBookId());
-                    p.setLibrary(purchase.getLibrary());
-                    log.trace("updatePurchase - updated: p={}", p);
-                    });
+            Optional<Purchase> stored = purchaseRepository.findById(purchase.getId());
+            if (stored.isPresent()) {
+                Purchase p = stored.get();
+                this.subtractFromRollup(p);
+                boolean moved = p.getBookId() != purchase.getBookId() || !Objects.equals(p.getLibrary(), purchase.getLibrary());
+                if (moved)
+                    this.returnCopy(p);
+                // a purchase moved to another book is sold at the current price of that book
+                if (p.getBookId() != purchase.getBookId())
+                    p.setPriceCents(this.bookService.findOne(purchase.getBookId()).get().getPriceCents());
+                p.setBookId(purchase.getBookId());
+                p.setClientId(purchase.getClientId());
+                p.setLibrary(purchase.getLibrary());
+                if (moved)
+                    this.purchaseWriter.takeCopy(p.getBookId(), p.getLibrary());
+                this.addToRollup(p);
+                this.purchaseRollupRepository.deleteEmpty();
+                this.outbox.purchaseChanged(ChangeEvent.UPDATED, p);
+                log.trace("updatePurchase - updated: p={}", p);
+            }
             log.trace("updatePurchase - method finished");
         }
         else {
@@ -109,93 +213,121 @@ public class PurchaseServiceImpl implements PurchaseService{
     }
 
     /**
-     * Deletes a purchase from the purchase repository
+     * Deletes a purchase from the purchase repository and puts its copy back in stock
      * @param id integer representing the id of the purchase to be deleted
      */
+    @Transactional
     public void deletePurchase(Integer id) throws BookstoreException {
         log.trace("deletePurchase - method entered: id={}", id);
+        Optional<Purchase> purchase = this.purchaseRepository.findById(id);
+        if (purchase.isPresent()) {
+            this.returnCopy(purchase.get());
+            this.subtractFromRollup(purchase.get());
+            this.purchaseRollupRepository.deleteEmpty();
+        }
         this.purchaseRepository.deleteById(id);
+        this.outbox.deleted("Purchase", id);
         log.trace("deletePurchase - method finished");
     }
 
     /**
-     * Function takes a clientId and deletes the purchase having the respective clientId
+     * Function takes a clientId and deletes the purchase having the respective clientId, putting their copies back in stock
      * @param clientId integer representing the id of the client to be deleted
      */
+    @Transactional
     public void deletePurchaseWithClientID(int clientId) throws BookstoreException {
         log.trace("deletePurchaseWithClientID - method entered: clientId={}", clientId);
+        this.libraryStockRepository.returnCopiesOfClient(clientId);
+        if (this.bookRepository.returnCopiesOfClient(clientId) > 0)
+            this.invalidationBus.publish(Invalidation.allOf("books"));
+        this.purchaseRollupRepository.subtractPurchasesOfClient(clientId);
+        this.purchaseRollupRepository.deleteEmpty();
         this.purchaseRepository.deleteByClientId(clientId);
+        this.outbox.purchasesDeleted(ChangeEvent.DELETED_FOR_CLIENT, clientId);
         log.trace("deletePurchaseWithClientID - method finished");
     }
 
     /**
-     * Function takes a bookId and deletes the purchase having the respective bookId
+     * Function takes a bookId and deletes the purchase having the respective bookId, putting their copies back in stock
      * @param bookId integer representing the id of the book to be deleted
      */
+    @Transactional
     public void deletePurchaseWithBookID(int bookId) throws BookstoreException {
         log.trace("deletePurchaseWithBookID - method entered: bookId={}", bookId);
+        this.libraryStockRepository.returnCopiesOfBook(bookId);
+        if (this.bookRepository.returnCopiesOfBook(bookId) > 0)
+            this.invalidationBus.publish(Invalidation.of("books", bookId));
+        this.purchaseRollupRepository.subtractPurchasesOfBook(bookId);
+        this.purchaseRollupRepository.deleteEmpty();
         this.purchaseRepository.deleteByBookId(bookId);
+        this.outbox.purchasesDeleted(ChangeEvent.DELETED_FOR_BOOK, bookId);
         log.trace("deletePurchaseWithBookID - method finished");
     }
 
+    /**
+     * Puts the copy taken by a purchase back in the stock of its library and of its book, in the lock order of
+     * PurchaseWriter. Books and libraries whose stock is not tracked are left untouched.
+     */
+    private void returnCopy(Purchase purchase) {
+        this.libraryStockRepository.returnCopies(purchase.getBookId(), purchase.getLibrary(), 1);
+        if (this.bookRepository.returnCopies(purchase.getBookId(), 1) > 0)
+            this.invalidationBus.publish(Invalidation.of("books", purchase.getBookId()));
+    }
+
+    /**
+     * Adds a purchase to the daily sales rollup, at the price it was sold at.
+     */
+    private void addToRollup(Purchase purchase) {
+        if (purchase.getPurchaseDate() != null)
+            this.purchaseRollupRepository.increment(purchase.getPurchaseDate().toLocalDate(), purchase.getLibrary(), 1, purchase.getPriceCents());
+    }
+
+    /**
+     * Takes a purchase out of the daily sales rollup, at the price it was sold at like rebuildSalesRollup.
+     */
+    private void subtractFromRollup(Purchase purchase) {
+        if (purchase.getPurchaseDate() != null)
+            this.purchaseRollupRepository.decrement(purchase.getPurchaseDate().toLocalDate(), purchase.getLibrary(), purchase.getPriceCents());
+    }
+
     /**
      * Returns the total amount of money a client has spent on books
      * @param clientId integer
-     * @return a double representing the amount of money the client with clientId has spent
+     * @return the amount of money the client with clientId has spent
      */
-    public double getMoneySpentForClient(int clientId) throws BookstoreException {
+    public Money getMoneySpentForClient(int clientId) throws BookstoreException {
         log.trace("getMoneySpentForClient - method entered: clientId={}", clientId);
-        double sum = this.purchaseRepository.findAll().stream()
-                .filter(purchase -> purchase.getClientId() == clientId)
-                .map(purchase -> purchase.getBookId())
-                .map(bookId -> {
-                    try {
-                        return this.bookService.findOne(bookId);
-                    } catch (BookstoreException e) {
-                        e.printStackTrace();
-                    }
-                    return Optional.<Book>empty();
-                })
-                .map(bookOptional -> bookOptional.orElse(null))
-                .filter(Objects::nonNull)
-                .map(book -> book.getPrice())
-                .mapToDouble(floatPrice -> Double.parseDouble(((Number) floatPrice).toString()))
-                .sum();
+        Money sum = Money.ofCents(this.purchaseRepository.sumPriceCentsByClientId(clientId));
         log.trace("getMoneySpentForClient - method finished: sum={}", sum);
         return sum;
     }
 
     /**
      * Returns top 3 clients, sorted based on amount of money spent.
-     * @return a list containing 3 clients or less than 3 if there are less than 3 clients
+     * @return a list containing 3 clients or less than 3 if less than 3 clients made purchases
      */
-    public List<Map.Entry<Client, Double>> reportTop3ClientsBasedOnMoneySpent() throws BookstoreException {
+    public List<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent() throws BookstoreException {
         log.trace("reportTop3ClientsBasedOnMoneySpent - method entered");
-        List<Map.Entry<Client, Double>> sortedClientsBasedOnMoneySpent = this.clientService.getClientList().stream()
-                .map(client -> {
-                    try {
-                        return new AbstractMap.SimpleEntry<Client, Double> (client, getMoneySpentForClient(client.getId()));
-                    } catch (BookstoreException e) {
-                        e.printStackTrace();
-                    }
-                    return null;
-                })
-                .sorted(Comparator.comparingDouble(entry ->  entry.getValue()))
-                .collect(Collectors.toList());
-
-        Collections.reverse(sortedClientsBasedOnMoneySpent);
-
-        if(sortedClientsBasedOnMoneySpent.size() > 3)
-        {
-            List<Map.Entry<Client, Double>> sortedClients = sortedClientsBasedOnMoneySpent.subList(0,3);
-            log.trace("reportTop3ClientsBasedOnMoneySpent - method finished: sortedClients={}", sortedClients);
-            return sortedClients;
-        }
-        else
-        {
-            log.trace("reportTop3ClientsBasedOnMoneySpent - method finished: sortedClients={}", sortedClientsBasedOnMoneySpent);
-            return sortedClientsBasedOnMoneySpent;
+        List<Map.Entry<Client, Money>> sortedClients = this.singleFlight.get("reportTop3ClientsBasedOnMoneySpent",
+                () -> this.reportingBulkhead.call(this::computeTop3ClientsBasedOnMoneySpent));
+        log.trace("reportTop3ClientsBasedOnMoneySpent - method finished: sortedClients={}", sortedClients);
+        return sortedClients;
+    }
+
+    /**
+     * Ranks the clients of the analytics snapshot, or in the database until the first snapshot is taken.
+     * Twice as many clients are read from the snapshot, in case some were deleted since it was taken.
+     */
+    private List<Map.Entry<Client, Money>> computeTop3ClientsBasedOnMoneySpent() throws BookstoreException {
+        if (!this.purchaseAnalyticsService.isReady())
+            return this.toClientsAndMoneySpent(this.purchaseRepository.moneySpentPerClient(PageRequest.of(0, 3)));
+        List<Map.Entry<Client, Money>> sortedClients = new ArrayList<>(3);
+        for (Map.Entry<Integer, Money> entry : this.purchaseAnalyticsService.getTopClientsBySpend(6)) {
+            Optional<Client> client = this.clientService.findOne(entry.getKey());
+            if (client.isPresent() && sortedClients.size() < 3)
+                sortedClients.add(new AbstractMap.SimpleEntry<>(client.get(), entry.getValue()));
         }
+        return Collections.unmodifiableList(sortedClients);
     }
 
     /**
@@ -212,33 +344,205 @@ public class PurchaseServiceImpl implements PurchaseService{
 
     /**
      * Returns top 3 books, sorted based on sales.
-     * @return a list containing 3 books or less than 3 if there are less than 3 books
+     * @return a list containing 3 books or less than 3 if less than 3 books were sold
      */
     public List<Map.Entry<Book, Long>> reportTop3BestSellingBooks() throws BookstoreException {
         log.trace("reportTop3BestSellingBooks - method entered");
-        List<Map.Entry<Book, Long>> sortedBooksBasedOnSales = this.bookService.getBookList().stream()
-                .map(book -> {
-                    try {
-                        return new AbstractMap.SimpleEntry<Book, Long> (book, getBookSales(book.getId()));
-                    } catch (BookstoreException e) {
-                        e.printStackTrace();
-                    }
-                    return null;
-                })
-                .sorted(Comparator.comparingLong(entry -> entry.getValue()))
-                .collect(Collectors.toList());
-
-        Collections.reverse(sortedBooksBasedOnSales);
-
-        if(sortedBooksBasedOnSales.size() > 3) {
-            List<Map.Entry<Book, Long>> sortedBooks = sortedBooksBasedOnSales.subList(0, 3);
-            log.trace("reportTop3BestSellingBooks - method finished: sortedBooks={}", sortedBooks);
-            return sortedBooks;
+        List<Map.Entry<Book, Long>> sortedBooks = this.singleFlight.get("reportTop3BestSellingBooks",
+                () -> this.reportingBulkhead.call(this::computeTop3BestSellingBooks));
+        log.trace("reportTop3BestSellingBooks - method finished: sortedBooks={}", sortedBooks);
+        return sortedBooks;
+    }
+
+    /**
+     * Ranks the books of the analytics snapshot, or in the database until the first snapshot is taken.
+     * Twice as many books are read from the snapshot, in case some were deleted since it was taken.
+     */
+    private List<Map.Entry<Book, Long>> computeTop3BestSellingBooks() throws BookstoreException {
+        if (!this.purchaseAnalyticsService.isReady())
+            return this.toBooksAndSales(this.purchaseRepository.salesPerBook(PageRequest.of(0, 3)));
+        List<Map.Entry<Book, Long>> sortedBooks = new ArrayList<>(3);
+        for (Map.Entry<Integer, Long> entry : this.purchaseAnalyticsService.getTopBooksBySales(6)) {
+            Optional<Book> book = this.bookService.findOne(entry.getKey());
+            if (book.isPresent() && sortedBooks.size() < 3)
+                sortedBooks.add(new AbstractMap.SimpleEntry<>(book.get(), entry.getValue()));
         }
-        else {
-            log.trace("reportTop3BestSellingBooks - method finished: sortedBooks={}", sortedBooksBasedOnSales);
-            return sortedBooksBasedOnSales;
+        return Collections.unmodifiableList(sortedBooks);
+    }
+
+    /**
+     * Returns the units sold and the revenue of every library.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerLibrary() throws BookstoreException {
+        log.trace("reportSalesPerLibrary - method entered");
+        List<SalesReport> reports = this.reportingBulkhead.call(this.purchaseRollupRepository::salesPerLibrary);
+        log.trace("reportSalesPerLibrary - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue for every day with sales.
+     * @return a list of reports grouped by day (yyyy-MM-dd), in chronological order
+     */
+    public List<SalesReport> reportSalesPerDay() throws BookstoreException {
+        log.trace("reportSalesPerDay - method entered");
+        List<SalesReport> reports = this.reportingBulkhead.call(this.purchaseRollupRepository::salesPerDay);
+        log.trace("reportSalesPerDay - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue for every month with sales.
+     * @return a list of reports grouped by month (yyyy-MM), in chronological order
+     */
+    public List<SalesReport> reportSalesPerMonth() throws BookstoreException {
+        log.trace("reportSalesPerMonth - method entered");
+        List<SalesReport> reports = this.reportingBulkhead.call(this.purchaseRollupRepository::salesPerMonth);
+        log.trace("reportSalesPerMonth - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue of the books of every author.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerAuthor() throws BookstoreException {
+        log.trace("reportSalesPerAuthor - method entered");
+        List<SalesReport> reports = this.reportingBulkhead.call(this.purchaseRepository::salesPerAuthor);
+        log.trace("reportSalesPerAuthor - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue of the books of every publisher.
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerPublisher() throws BookstoreException {
+        log.trace("reportSalesPerPublisher - method entered");
+        List<SalesReport> reports = this.reportingBulkhead.call(this.purchaseRepository::salesPerPublisher);
+        log.trace("reportSalesPerPublisher - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Recomputes the daily sales rollup out of the purchases, except for the archived months.
+     */
+    @Transactional
+    public void rebuildSalesRollup() throws BookstoreException {
+        log.trace("rebuildSalesRollup - method entered");
+        this.reportingBulkhead.call(() -> {
+            this.purchaseRollupRepository.deleteUnarchived();
+            this.purchaseRollupRepository.rebuildFromPurchases();
+            return null;
+        });
+        log.trace("rebuildSalesRollup - method finished");
+    }
+
+    /**
+     * Returns top 3 clients of a period, sorted based on amount of money spent.
+     * Only the partitions of the purchase table covering the period are read.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list containing 3 clients or less than 3 if less than 3 clients made purchases in the period
+     */
+    public List<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent(LocalDate from, LocalDate to) throws BookstoreException {
+        log.trace("reportTop3ClientsBasedOnMoneySpent - method entered: from={}, to={}", from, to);
+        List<Map.Entry<Client, Money>> sortedClients = this.singleFlight.get(Arrays.asList("reportTop3ClientsBasedOnMoneySpent", from, to),
+                () -> this.reportingBulkhead.call(() -> this.computeTop3ClientsBasedOnMoneySpent(from, to)));
+        log.trace("reportTop3ClientsBasedOnMoneySpent - method finished: sortedClients={}", sortedClients);
+        return sortedClients;
+    }
+
+    private List<Map.Entry<Client, Money>> computeTop3ClientsBasedOnMoneySpent(LocalDate from, LocalDate to) throws BookstoreException {
+        return this.toClientsAndMoneySpent(this.purchaseRepository.moneySpentPerClient(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), PageRequest.of(0, 3)));
+    }
+
+    /**
+     * Replaces the client ids of (client id, money spent in cents) rows with the clients, skipping deleted clients.
+     */
+    private List<Map.Entry<Client, Money>> toClientsAndMoneySpent(List<Object[]> rows) throws BookstoreException {
+        List<Map.Entry<Client, Money>> sortedClients = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Optional<Client> client = this.clientService.findOne(((Number) row[0]).intValue());
+            if (client.isPresent())
+                sortedClients.add(new AbstractMap.SimpleEntry<>(client.get(), Money.ofCents(((Number) row[1]).longValue())));
         }
+        return Collections.unmodifiableList(sortedClients);
+    }
+
+    /**
+     * Returns top 3 books of a period, sorted based on sales.
+     * Only the partitions of the purchase table covering the period are read.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list containing 3 books or less than 3 if less than 3 books were sold in the period
+     */
+    public List<Map.Entry<Book, Long>> reportTop3BestSellingBooks(LocalDate from, LocalDate to) throws BookstoreException {
+        log.trace("reportTop3BestSellingBooks - method entered: from={}, to={}", from, to);
+        List<Map.Entry<Book, Long>> sortedBooks = this.singleFlight.get(Arrays.asList("reportTop3BestSellingBooks", from, to),
+                () -> this.reportingBulkhead.call(() -> this.computeTop3BestSellingBooks(from, to)));
+        log.trace("reportTop3BestSellingBooks - method finished: sortedBooks={}", sortedBooks);
+        return sortedBooks;
+    }
+
+    private List<Map.Entry<Book, Long>> computeTop3BestSellingBooks(LocalDate from, LocalDate to) throws BookstoreException {
+        return this.toBooksAndSales(this.purchaseRepository.salesPerBook(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), PageRequest.of(0, 3)));
+    }
+
+    /**
+     * Replaces the book ids of (book id, sales) rows with the books, skipping deleted books.
+     */
+    private List<Map.Entry<Book, Long>> toBooksAndSales(List<Object[]> rows) throws BookstoreException {
+        List<Map.Entry<Book, Long>> sortedBooks = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Optional<Book> book = this.bookService.findOne(((Number) row[0]).intValue());
+            if (book.isPresent())
+                sortedBooks.add(new AbstractMap.SimpleEntry<>(book.get(), ((Number) row[1]).longValue()));
+        }
+        return Collections.unmodifiableList(sortedBooks);
+    }
+
+    /**
+     * Returns the units sold and the revenue of every library in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerLibrary(LocalDate from, LocalDate to) throws BookstoreException {
+        log.trace("reportSalesPerLibrary - method entered: from={}, to={}", from, to);
+        List<SalesReport> reports = this.reportingBulkhead.call(() ->
+                this.purchaseRepository.salesPerLibrary(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        log.trace("reportSalesPerLibrary - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue of the books of every author in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerAuthor(LocalDate from, LocalDate to) throws BookstoreException {
+        log.trace("reportSalesPerAuthor - method entered: from={}, to={}", from, to);
+        List<SalesReport> reports = this.reportingBulkhead.call(() ->
+                this.purchaseRepository.salesPerAuthor(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        log.trace("reportSalesPerAuthor - method finished: reports={}", reports);
+        return reports;
+    }
+
+    /**
+     * Returns the units sold and the revenue of the books of every publisher in a period.
+     * @param from the first day of the period
+     * @param to the last day of the period
+     * @return a list of reports, in descending order of the revenue
+     */
+    public List<SalesReport> reportSalesPerPublisher(LocalDate from, LocalDate to) throws BookstoreException {
+        log.trace("reportSalesPerPublisher - method entered: from={}, to={}", from, to);
+        List<SalesReport> reports = this.reportingBulkhead.call(() ->
+                this.purchaseRepository.salesPerPublisher(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        log.trace("reportSalesPerPublisher - method finished: reports={}", reports);
+        return reports;
     }
 
     @Override
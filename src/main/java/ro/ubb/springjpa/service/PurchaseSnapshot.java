@@ -0,0 +1,304 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Read-only columnar copy of the purchases with the price (in cents) their book was sold at.
+ * Clients, books and libraries are dictionary-encoded, so every row is stored as primitive codes
+ * and the aggregations run over dense arrays with fork-join scans.
+ */
+public final class PurchaseSnapshot
+{
+    private static final int SCAN_THRESHOLD = 8192;
+
+    private final long createdAt;
+    private final int size;
+
+    private final int[] clientId;
+    private final int[] bookId;
+    private final long[] price;
+    private final int[] library;
+
+    private final int[] clientDictionary;
+    private final int[] bookDictionary;
+    private final String[] libraryDictionary;
+
+    private PurchaseSnapshot(int size, int[] clientId, int[] bookId, long[] price, int[] library,
+                             int[] clientDictionary, int[] bookDictionary, String[] libraryDictionary)
+    {
+        this.createdAt = System.currentTimeMillis();
+        this.size = size;
+        this.clientId = clientId;
+        this.bookId = bookId;
+        this.price = price;
+        this.library = library;
+        this.clientDictionary = clientDictionary;
+        this.bookDictionary = bookDictionary;
+        this.libraryDictionary = libraryDictionary;
+    }
+
+    /**
+     * Starts an empty snapshot, filled one purchase at a time.
+     * @return the builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Gets the moment the snapshot was taken.
+     * @return the creation time in milliseconds since the epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the number of rows.
+     * @return the number of purchases inside the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sums the price of the purchased books for every client.
+     * @return the money spent in cents, indexed by client code
+     */
+    public long[] spendPerClient()
+    {
+        return scan(clientId, price, clientDictionary.length);
+    }
+
+    /**
+     * Counts the purchases of every book.
+     * @return the number of sales, indexed by book code
+     */
+    public long[] salesPerBook()
+    {
+        return scan(bookId, null, bookDictionary.length);
+    }
+
+    /**
+     * Sums the price of the purchased books for every library.
+     * @return the revenue in cents, indexed by library code
+     */
+    public long[] revenuePerLibrary()
+    {
+        return scan(library, price, libraryDictionary.length);
+    }
+
+    /**
+     * Splits the rows into no more chunks than the pool has threads to keep busy, since every chunk allocates
+     * one partial result per group.
+     */
+    private long[] scan(int[] codes, long[] weights, int groups)
+    {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int threshold = Math.max(SCAN_THRESHOLD, size / (4 * pool.getParallelism()) + 1);
+        return pool.invoke(new ScanTask(codes, weights, groups, threshold, 0, size));
+    }
+
+    /**
+     * Gets the number of distinct clients.
+     * @return the number of client codes
+     */
+    public int clients() {
+        return clientDictionary.length;
+    }
+
+    /**
+     * Gets the number of distinct books.
+     * @return the number of book codes
+     */
+    public int books() {
+        return bookDictionary.length;
+    }
+
+    /**
+     * Gets the number of distinct libraries.
+     * @return the number of library codes
+     */
+    public int libraries() {
+        return libraryDictionary.length;
+    }
+
+    /**
+     * Decodes a client code.
+     * @param code the client code
+     * @return the id of the client
+     */
+    public int clientAt(int code) {
+        return clientDictionary[code];
+    }
+
+    /**
+     * Decodes a book code.
+     * @param code the book code
+     * @return the id of the book
+     */
+    public int bookAt(int code) {
+        return bookDictionary[code];
+    }
+
+    /**
+     * Decodes a library code.
+     * @param code the library code
+     * @return the name of the library
+     */
+    public String libraryAt(int code) {
+        return libraryDictionary[code];
+    }
+
+    /**
+     * Selects the codes with the highest values, without sorting the whole array.
+     * Equal values are ranked by code, so the result does not depend on the order of the scan.
+     * @param values aggregated values indexed by code
+     * @param n the maximum number of codes returned
+     * @return the codes of the n highest values, in descending order of their value
+     */
+    public static int[] topN(long[] values, int n)
+    {
+        Comparator<Integer> ascending = Comparator.<Integer>comparingLong(code -> values[code])
+                .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, Math.min(n, values.length)), ascending);
+        for (int code = 0; code < values.length && n > 0; code++)
+        {
+            if (heap.size() < n)
+                heap.add(code);
+            else if (values[code] > values[heap.peek()])
+            {
+                heap.poll();
+                heap.add(code);
+            }
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--)
+            top[i] = heap.poll();
+        return top;
+    }
+
+    /**
+     * Collects the rows of a snapshot into growing primitive columns, encoding the clients, books and libraries
+     * in the order they are first seen.
+     */
+    public static final class Builder
+    {
+        private final IntArrayList clientId = new IntArrayList();
+        private final IntArrayList bookId = new IntArrayList();
+        private final LongArrayList price = new LongArrayList();
+        private final IntArrayList library = new IntArrayList();
+
+        private final Int2IntOpenHashMap clientCodes = new Int2IntOpenHashMap();
+        private final Int2IntOpenHashMap bookCodes = new Int2IntOpenHashMap();
+        private final Object2IntLinkedOpenHashMap<String> libraryCodes = new Object2IntLinkedOpenHashMap<>();
+        private final IntArrayList clientDictionary = new IntArrayList();
+        private final IntArrayList bookDictionary = new IntArrayList();
+
+        private Builder()
+        {
+            clientCodes.defaultReturnValue(-1);
+            bookCodes.defaultReturnValue(-1);
+            libraryCodes.defaultReturnValue(-1);
+        }
+
+        /**
+         * Adds a purchase.
+         * @param clientId the id of the client
+         * @param bookId the id of the book
+         * @param priceCents the price of the book, in cents
+         * @param library the library the book was bought from
+         * @return this builder
+         */
+        public Builder add(int clientId, int bookId, long priceCents, String library)
+        {
+            this.clientId.add(encode(clientCodes, clientDictionary, clientId));
+            this.bookId.add(encode(bookCodes, bookDictionary, bookId));
+            this.price.add(priceCents);
+            int code = libraryCodes.getInt(library);
+            if (code < 0)
+            {
+                code = libraryCodes.size();
+                libraryCodes.put(library, code);
+            }
+            this.library.add(code);
+            return this;
+        }
+
+        private static int encode(Int2IntOpenHashMap codes, IntArrayList dictionary, int id)
+        {
+            int code = codes.get(id);
+            if (code < 0)
+            {
+                code = dictionary.size();
+                codes.put(id, code);
+                dictionary.add(id);
+            }
+            return code;
+        }
+
+        /**
+         * Freezes the rows added so far into a snapshot.
+         * @return the snapshot
+         */
+        public PurchaseSnapshot build()
+        {
+            return new PurchaseSnapshot(clientId.size(), clientId.toIntArray(), bookId.toIntArray(),
+                    price.toLongArray(), library.toIntArray(), clientDictionary.toIntArray(),
+                    bookDictionary.toIntArray(), libraryCodes.keySet().toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Fork-join scan which groups a column by code and sums a weight (or counts the rows when there is no weight).
+     */
+    private static final class ScanTask extends RecursiveTask<long[]>
+    {
+        private final int[] codes;
+        private final long[] weights;
+        private final int groups;
+        private final int threshold;
+        private final int from;
+        private final int to;
+
+        private ScanTask(int[] codes, long[] weights, int groups, int threshold, int from, int to)
+        {
+            this.codes = codes;
+            this.weights = weights;
+            this.groups = groups;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute()
+        {
+            if (to - from <= threshold)
+            {
+                long[] result = new long[groups];
+                for (int row = from; row < to; row++)
+                    result[codes[row]] += weights == null ? 1 : weights[row];
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(codes, weights, groups, threshold, from, middle);
+            left.fork();
+            long[] result = new ScanTask(codes, weights, groups, threshold, middle, to).compute();
+            long[] leftResult = left.join();
+            for (int group = 0; group < groups; group++)
+                result[group] += leftResult[group];
+            return result;
+        }
+    }
+}
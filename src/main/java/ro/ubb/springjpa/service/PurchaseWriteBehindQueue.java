@@ -0,0 +1,237 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind queue for purchases. Validated purchases are queued and a single writer thread stores them in batches
+ * of up to purchase.writeBehind.batchSize purchases or purchase.writeBehind.maxDelayMillis milliseconds,
+ * with one commit and one statement of each kind per batch (see PurchaseWriter.writeAll). The queue holds at most
+ * purchase.writeBehind.capacity purchases; when it is full, callers wait up to purchase.writeBehind.enqueueTimeoutMillis
+ * and are then rejected.
+ */
+@Component
+public class PurchaseWriteBehindQueue implements InitializingBean, DisposableBean {
+
+    public static final Logger log = LoggerFactory.getLogger(PurchaseWriteBehindQueue.class);
+
+    @Autowired
+    private PurchaseWriter purchaseWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${purchase.writeBehind.enabled}")
+    private boolean enabled;
+
+    @Value("${purchase.writeBehind.capacity}")
+    private int capacity;
+
+    @Value("${purchase.writeBehind.batchSize}")
+    private int batchSize;
+
+    @Value("${purchase.writeBehind.maxDelayMillis}")
+    private long maxDelayMillis;
+
+    @Value("${purchase.writeBehind.enqueueTimeoutMillis}")
+    private long enqueueTimeoutMillis;
+
+    private final Queue<PendingPurchase> queue = new ConcurrentLinkedQueue<>();
+    /** Guards running against submit, so no purchase is queued once the writer may have stopped */
+    private final Object lifecycle = new Object();
+    private Semaphore freeSlots;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    /**
+     * Starts the writer thread if the write-behind mode is enabled.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!this.enabled)
+            return;
+        this.freeSlots = new Semaphore(this.capacity);
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.running = true;
+        this.writer = new Thread(this::drain, "purchase-writer");
+        this.writer.start();
+        log.info("start - write-behind enabled: capacity={}, batchSize={}, maxDelayMillis={}", this.capacity, this.batchSize, this.maxDelayMillis);
+    }
+
+    /**
+     * Stops the writer thread after every queued purchase was written. A purchase the writer could not take,
+     * because it died, fails instead of leaving its caller waiting.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (this.writer == null)
+            return;
+        synchronized (this.lifecycle) {
+            this.running = false;
+        }
+        LockSupport.unpark(this.writer);
+        this.writer.join();
+        for (PendingPurchase pending = this.queue.poll(); pending != null; pending = this.queue.poll())
+            pending.future.completeExceptionally(new BookstoreException("Purchase queue is not running!\n"));
+    }
+
+    /**
+     * Checks if purchases should be queued instead of written synchronously.
+     * @return true if the write-behind mode is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Queues a validated purchase.
+     * @param purchase instance of the class Purchase
+     * @return a future completed once the purchase is committed to the database
+     * @throws BookstoreException if the queue stays full for longer than the enqueue timeout
+     */
+    public CompletableFuture<Purchase> submit(Purchase purchase) throws BookstoreException {
+        log.trace("submit - method entered: purchase={}", purchase);
+        if (!this.running)
+            throw new BookstoreException("Purchase queue is not running!\n");
+        try {
+            if (!this.freeSlots.tryAcquire(this.enqueueTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new BookstoreException("Purchase queue is full, try again later!\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookstoreException("Interrupted while waiting for the purchase queue!\n");
+        }
+
+        PendingPurchase pending = new PendingPurchase(purchase);
+        synchronized (this.lifecycle) {
+            if (!this.running) {
+                this.freeSlots.release();
+                throw new BookstoreException("Purchase queue is not running!\n");
+            }
+            this.queue.offer(pending);
+        }
+        LockSupport.unpark(this.writer);
+        log.trace("submit - method finished");
+        return pending.future;
+    }
+
+    /**
+     * Loop of the writer thread: waits for purchases, collects a batch and writes it.
+     */
+    private void drain() {
+        List<PendingPurchase> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            PendingPurchase first = this.queue.poll();
+            if (first == null) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(this.maxDelayMillis));
+                continue;
+            }
+
+            batch.add(first);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxDelayMillis);
+            while (batch.size() < this.batchSize) {
+                PendingPurchase next = this.queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !this.running)
+                    break;
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            this.flush(batch);
+            this.freeSlots.release(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. If the transaction fails, the purchases are written one by one,
+     * so only the failing purchases are rejected.
+     * @param batch the purchases to write
+     */
+    private void flush(List<PendingPurchase> batch) {
+        log.trace("flush - method entered: size={}", batch.size());
+        try {
+            List<Purchase> purchases = new ArrayList<>(batch.size());
+            batch.forEach(pending -> purchases.add(pending.purchase));
+            this.transactionTemplate.execute(status -> {
+                this.writeAll(purchases);
+                return null;
+            });
+            batch.forEach(pending -> pending.future.complete(pending.purchase));
+        } catch (RuntimeException batchFailure) {
+            log.warn("flush - batch of {} purchases failed, writing them one by one", batch.size(), batchFailure);
+            for (PendingPurchase pending : batch) {
+                pending.purchase.setId(null);
+                try {
+                    this.transactionTemplate.execute(status -> {
+                        this.write(pending.purchase);
+                        return null;
+                    });
+                    pending.future.complete(pending.purchase);
+                } catch (RuntimeException failure) {
+                    pending.future.completeExceptionally(failure instanceof WriteFailure ? failure.getCause() : failure);
+                }
+            }
+        }
+        log.trace("flush - method finished");
+    }
+
+    private void writeAll(List<Purchase> purchases) {
+        try {
+            this.purchaseWriter.writeAll(purchases);
+        } catch (BookstoreException e) {
+            throw new WriteFailure(e);
+        }
+    }
+
+    private void write(Purchase purchase) {
+        try {
+            this.purchaseWriter.write(purchase);
+        } catch (BookstoreException e) {
+            throw new WriteFailure(e);
+        }
+    }
+
+    /**
+     * Carries a checked exception of the PurchaseWriter out of the transaction callback.
+     */
+    private static final class WriteFailure extends RuntimeException {
+        private WriteFailure(BookstoreException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * A queued purchase and the future of its caller.
+     */
+    private static final class PendingPurchase {
+        private final Purchase purchase;
+        private final CompletableFuture<Purchase> future = new CompletableFuture<>();
+
+        private PendingPurchase(Purchase purchase) {
+            this.purchase = purchase;
+        }
+    }
+}
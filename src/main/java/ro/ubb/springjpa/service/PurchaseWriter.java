@@ -0,0 +1,210 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.LibraryStockRepository;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.PurchaseRollupRepository;
+import ro.ubb.springjpa.service.events.ChangeEvent;
+import ro.ubb.springjpa.service.events.Outbox;
+import ro.ubb.springjpa.service.invalidation.Invalidation;
+import ro.ubb.springjpa.service.invalidation.InvalidationBus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Stores a validated purchase together with everything that has to change with it, inside the caller's transaction.
+ * Used both by the synchronous PurchaseService.add and by the write-behind queue.
+ */
+@Component
+public class PurchaseWriter {
+
+    public static final Logger log = LoggerFactory.getLogger(PurchaseWriter.class);
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LibraryStockRepository libraryStockRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PurchaseRollupRepository purchaseRollupRepository;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private PurchaseKeys purchaseKeys;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    /**
+     * Saves a purchase at the current price of its book, claims its idempotency key, adds it to the daily sales rollup, records it in the outbox, takes a copy of the book
+     * out of the stock, drops the cached book whose stock changed and publishes a PurchaseAddedEvent to the listeners of the transaction.
+     * @param purchase instance of the class Purchase, already validated
+     * @throws BookstoreException if the key was already used or the book is sold out, in which case the transaction is rolled back
+     */
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = BookstoreException.class)
+    public void write(Purchase purchase) throws BookstoreException {
+        log.trace("write - method entered: purchase={}", purchase);
+        if (purchase.getPurchaseDate() == null)
+            purchase.setPurchaseDate(LocalDateTime.now());
+        Optional<Book> book = this.bookService.findOne(purchase.getBookId());
+        if (book.isPresent())
+            purchase.setPriceCents(book.get().getPriceCents());
+        this.purchaseRepository.save(purchase);
+        // claimed before any row shared with other purchases is locked, since a concurrent retry waits here
+        if (purchase.getPurchaseKey() != null && !this.purchaseKeys.claim(purchase))
+            throw new BookstoreException("Duplicate purchase, key " + purchase.getPurchaseKey() + " was already used!\n");
+        if (book.isPresent())
+            this.purchaseRollupRepository.increment(purchase.getPurchaseDate().toLocalDate(), purchase.getLibrary(), 1, purchase.getPriceCents());
+        this.outbox.purchaseChanged(ChangeEvent.CREATED, purchase);
+        if (book.isPresent() && book.get().getStock() != null) {
+            this.takeCopies(book.get(), purchase.getLibrary(), 1);
+            this.takeCopies(book.get(), 1);
+            this.invalidationBus.publish(Invalidation.of("books", book.get().getId()));
+        }
+        this.publishAdded(purchase);
+        log.trace("write - method finished");
+    }
+
+    /**
+     * Stores a batch of validated purchases like write, issuing each kind of statement once for the whole batch
+     * instead of once per purchase. The purchases, their keys and their outbox events are inserted by a single
+     * flush, which Hibernate sends as one JDBC batch per table; the rollup is then incremented once per day and
+     * library, and the copies are taken once per library and book. The shared rows are locked in the order of their
+     * keys, rollup first, then the libraries and the book of each book in the order of the ids, so batches and
+     * single purchases cannot deadlock.
+     * A duplicate key or a book without enough copies fails the whole batch, which the caller then writes
+     * purchase by purchase to reject only the failing ones.
+     * @param purchases instances of the class Purchase, already validated
+     * @throws BookstoreException if a library or a book has fewer copies left than the batch buys
+     */
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = BookstoreException.class)
+    public void writeAll(List<Purchase> purchases) throws BookstoreException {
+        log.trace("writeAll - method entered: size={}", purchases.size());
+        LocalDateTime now = LocalDateTime.now();
+        // sorted maps, so the shared rows are always locked in the same order
+        Map<Integer, Book> books = new TreeMap<>();
+        for (Purchase purchase : purchases) {
+            if (purchase.getPurchaseDate() == null)
+                purchase.setPurchaseDate(now);
+            Book book = books.get(purchase.getBookId());
+            if (book == null) {
+                Optional<Book> found = this.bookService.findOne(purchase.getBookId());
+                if (!found.isPresent())
+                    continue;
+                book = found.get();
+                books.put(book.getId(), book);
+            }
+            purchase.setPriceCents(book.getPriceCents());
+        }
+        this.purchaseRepository.saveAll(purchases);
+        this.purchaseKeys.claimAll(purchases);
+        for (Purchase purchase : purchases)
+            this.outbox.purchaseChanged(ChangeEvent.CREATED, purchase);
+        this.purchaseRepository.flush();
+
+        Map<LocalDate, Map<String, long[]>> rollup = new TreeMap<>();
+        Map<Integer, Map<String, Integer>> copies = new TreeMap<>();
+        for (Purchase purchase : purchases) {
+            Book book = books.get(purchase.getBookId());
+            if (book == null)
+                continue;
+            long[] sales = rollup.computeIfAbsent(purchase.getPurchaseDate().toLocalDate(), date -> new TreeMap<>())
+                    .computeIfAbsent(purchase.getLibrary(), library -> new long[2]);
+            sales[0]++;
+            sales[1] += purchase.getPriceCents();
+            if (book.getStock() != null)
+                copies.computeIfAbsent(book.getId(), id -> new TreeMap<>()).merge(purchase.getLibrary(), 1, Integer::sum);
+        }
+        for (Map.Entry<LocalDate, Map<String, long[]>> day : rollup.entrySet())
+            for (Map.Entry<String, long[]> library : day.getValue().entrySet())
+                this.purchaseRollupRepository.increment(day.getKey(), library.getKey(), library.getValue()[0], library.getValue()[1]);
+        for (Map.Entry<Integer, Map<String, Integer>> book : copies.entrySet()) {
+            int quantity = 0;
+            for (Map.Entry<String, Integer> library : book.getValue().entrySet()) {
+                this.takeCopies(books.get(book.getKey()), library.getKey(), library.getValue());
+                quantity += library.getValue();
+            }
+            this.takeCopies(books.get(book.getKey()), quantity);
+            this.invalidationBus.publish(Invalidation.of("books", book.getKey()));
+        }
+
+        purchases.forEach(this::publishAdded);
+        log.trace("writeAll - method finished");
+    }
+
+    /**
+     * Takes a copy of a book for a purchase moved to it or to another library, if the stock of the book is tracked.
+     * @param bookId the id of the book the purchase is moved to
+     * @param library the library the purchase is moved to
+     * @throws BookstoreException if the library or the book is sold out
+     */
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = BookstoreException.class)
+    public void takeCopy(int bookId, String library) throws BookstoreException {
+        log.trace("takeCopy - method entered: bookId={}, library={}", bookId, library);
+        Optional<Book> book = this.bookService.findOne(bookId);
+        if (book.isPresent() && book.get().getStock() != null) {
+            this.takeCopies(book.get(), library, 1);
+            this.takeCopies(book.get(), 1);
+            this.invalidationBus.publish(Invalidation.of("books", bookId));
+        }
+        log.trace("takeCopy - method finished");
+    }
+
+    private void publishAdded(Purchase purchase) {
+        this.eventPublisher.publishEvent(new PurchaseAddedEvent(purchase.getId(), purchase.getClientId(), purchase.getBookId(),
+                purchase.getLibrary(), purchase.getPurchaseKey()));
+    }
+
+    /**
+     * Takes copies of a book from the library of the purchases, if it keeps a stock of the book.
+     * The library row is always locked before the book row, so concurrent purchases cannot deadlock.
+     * @param book the purchased book, whose stock is tracked
+     * @param library the library of the purchases
+     * @param quantity the number of copies
+     * @throws BookstoreException if the library has fewer copies left
+     */
+    private void takeCopies(Book book, String library, int quantity) throws BookstoreException {
+        if (this.libraryStockRepository.takeCopies(book.getId(), library, quantity) == 0
+                && this.libraryStockRepository.existsByBookIdAndLibrary(book.getId(), library))
+            throw new BookstoreException("Book " + book.getId() + " is sold out in library " + library + "!\n");
+    }
+
+    /**
+     * Takes copies of a book whose stock is tracked. It is the last statement of the purchases, so the row lock
+     * of a hot book is only held until the commit.
+     * @param book the purchased book, whose stock is tracked
+     * @param quantity the number of copies
+     * @throws BookstoreException if the book has fewer copies left
+     */
+    private void takeCopies(Book book, int quantity) throws BookstoreException {
+        if (this.bookRepository.takeCopies(book.getId(), quantity) == 0)
+            throw new BookstoreException("Book " + book.getId() + " is sold out!\n");
+    }
+}
@@ -0,0 +1,32 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Clients who bought this also bought" recommendations answered from an in-memory {@link CoPurchaseMatrix}.
+ */
+public interface RecommendationService
+{
+    /**
+     * Replaces the matrix with one built from all the purchases.
+     */
+    public void rebuild();
+
+    /**
+     * Checks if the first matrix was built, which happens in the background after the startup.
+     * @return true if recommendations can be asked for
+     */
+    public boolean isReady();
+
+    /**
+     * Returns the books bought most often by the clients who bought the given book.
+     * @param bookId the id of the book
+     * @param k maximum number of books
+     * @return a list of (book id, clients who bought both books) entries, in descending order of the clients
+     * @throws BookstoreException if the first matrix is not built yet
+     */
+    public List<Map.Entry<Integer, Integer>> getRelatedBooks(int bookId, int k) throws BookstoreException;
+}
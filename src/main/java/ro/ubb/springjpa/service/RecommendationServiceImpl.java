@@ -0,0 +1,152 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.WorkloadType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+@Lazy(false)
+public class RecommendationServiceImpl implements RecommendationService, InitializingBean, ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Object rebuildLock = new Object();
+
+    private final StartupBuild startupBuild = new StartupBuild("recommendations-build");
+
+    private volatile CoPurchaseMatrix matrix;
+
+    /**
+     * Purchases committed while a rebuild reads the database, replayed on the new matrix; null when no rebuild runs.
+     */
+    private List<PurchaseAddedEvent> pending;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Builds the first matrix in the background when the context is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        this.startupBuild.start(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return this.matrix != null;
+    }
+
+    /**
+     * Replaces the matrix with one built from all the purchases. Runs periodically, every
+     * recommendations.rebuildMillis milliseconds after the startup build, to drop the purchases which were updated
+     * or deleted since.
+     */
+    @Scheduled(fixedDelayString = "${recommendations.rebuildMillis}", initialDelayString = "${recommendations.rebuildMillis}")
+    public void rebuild() {
+        log.trace("rebuild - method entered");
+        synchronized (this.rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                this.pending = new ArrayList<>();
+            }
+            CoPurchaseMatrix built;
+            try {
+                built = WorkloadType.run(WorkloadType.REPORTING, () -> this.transactionTemplate.execute(status -> this.load()));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    this.pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (PurchaseAddedEvent event : this.pending)
+                    built.add(event.getClientId(), event.getBookId());
+                this.pending = null;
+                this.matrix = built;
+            }
+            log.info("rebuild - {} books with co-purchases, built in {} ms", built.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        log.trace("rebuild - method finished");
+    }
+
+    /**
+     * Adds a committed purchase to the matrix.
+     * @param event the purchase
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onPurchaseAdded(PurchaseAddedEvent event) {
+        log.trace("onPurchaseAdded - method entered: event={}", event);
+        if (this.pending != null)
+            this.pending.add(event);
+        if (this.matrix != null)
+            this.matrix.add(event.getClientId(), event.getBookId());
+        log.trace("onPurchaseAdded - method finished");
+    }
+
+    public List<Map.Entry<Integer, Integer>> getRelatedBooks(int bookId, int k) throws BookstoreException {
+        log.trace("getRelatedBooks - method entered: bookId={}, k={}", bookId, k);
+        CoPurchaseMatrix current = this.matrix;
+        if (current == null)
+            throw new BookstoreException("The recommendations are still being built, try again later\n");
+        List<Map.Entry<Integer, Integer>> related = current.related(bookId, k);
+        log.trace("getRelatedBooks - method finished: related={}", related);
+        return related;
+    }
+
+    /**
+     * Reads the purchase history of every client and builds the matrix out of it.
+     */
+    private CoPurchaseMatrix load() {
+        IntArrayList clientIds = new IntArrayList();
+        List<int[]> histories = new ArrayList<>();
+        IntArrayList history = new IntArrayList();
+        try (Stream<Object[]> pairs = this.purchaseRepository.streamClientBookPairs()) {
+            Iterator<Object[]> iterator = pairs.iterator();
+            while (iterator.hasNext()) {
+                Object[] pair = iterator.next();
+                int clientId = ((Number) pair[0]).intValue();
+                if (clientIds.size() == 0 || clientIds.getInt(clientIds.size() - 1) != clientId) {
+                    if (clientIds.size() > 0)
+                        histories.add(history.toIntArray());
+                    clientIds.add(clientId);
+                    history.clear();
+                }
+                history.add(((Number) pair[1]).intValue());
+            }
+        }
+        if (clientIds.size() > 0)
+            histories.add(history.toIntArray());
+        return CoPurchaseMatrix.build(clientIds.toIntArray(), histories.toArray(new int[0][]));
+    }
+}
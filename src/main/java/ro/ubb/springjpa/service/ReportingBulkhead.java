@@ -0,0 +1,63 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.WorkloadType;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the reports and exports on the reporting connection pool, at most reports.maxConcurrent at a time.
+ * A report which cannot start within reports.queueTimeoutMillis is rejected instead of queueing without a bound.
+ * Calls nested in a report, such as the report behind an export, run inside the permit of their caller.
+ */
+@Component
+public class ReportingBulkhead implements InitializingBean {
+
+    public static final Logger log = LoggerFactory.getLogger(ReportingBulkhead.class);
+
+    @Value("${reports.maxConcurrent}")
+    private int maxConcurrent;
+
+    @Value("${reports.queueTimeoutMillis}")
+    private long queueTimeoutMillis;
+
+    private Semaphore permits;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    /**
+     * Runs a report inside the bulkhead.
+     * @param report the report
+     * @param <V> the type of the result
+     * @return the result of the report
+     * @throws BookstoreException if the report failed, or if too many reports are running
+     */
+    public <V> V call(SingleFlight.Loader<V> report) throws BookstoreException {
+        if (WorkloadType.current() == WorkloadType.REPORTING)
+            return report.load();
+
+        try {
+            if (!this.permits.tryAcquire(this.queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("call - rejected, {} reports are running", this.maxConcurrent);
+                throw new BookstoreException("Too many reports are running, try again later!\n");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookstoreException("Interrupted while waiting to run a report!\n");
+        }
+        try {
+            return WorkloadType.run(WorkloadType.REPORTING, report::load);
+        } finally {
+            this.permits.release();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent identical calls of expensive reports into one computation and keeps its result briefly.
+ * A result younger than reports.freshMillis is returned as it is; a result younger than reports.staleMillis
+ * is returned as well while a single background refresh replaces it. Older results are recomputed by the first
+ * caller and every caller arriving meanwhile waits for that computation instead of starting its own.
+ */
+@Component
+@Lazy(false)
+public class SingleFlight implements InitializingBean, DisposableBean {
+
+    public static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+    @Value("${reports.freshMillis}")
+    private long freshMillis;
+
+    @Value("${reports.staleMillis}")
+    private long staleMillis;
+
+    private final ConcurrentHashMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedCallers = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+
+    private ExecutorService refresher;
+
+    /**
+     * A computation which may fail with a BookstoreException.
+     * @param <V> the type of the result
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws BookstoreException;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        this.refresher.shutdownNow();
+        this.refresher.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the result of a computation, sharing it with the identical calls running at the same time.
+     * The result is shared between callers, so it must not be modified.
+     * @param key identifies the computation and its arguments
+     * @param loader the computation
+     * @param <V> the type of the result
+     * @return the fresh, stale or just computed result
+     * @throws BookstoreException if the computation failed; every caller which waited for it gets the failure
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Object key, Loader<V> loader) throws BookstoreException {
+        Flight flight = this.flights.computeIfAbsent(key, k -> new Flight());
+        CompletableFuture<Object> result;
+        boolean leader = false;
+        synchronized (flight) {
+            long age = System.currentTimeMillis() - flight.loadedAt;
+            if (flight.loaded && age < this.freshMillis)
+                return (V) flight.value;
+            if (flight.loaded && age < this.staleMillis) {
+                this.staleHits.increment();
+                if (flight.inFlight == null) {
+                    flight.inFlight = new CompletableFuture<>();
+                    try {
+                        this.refresher.execute(() -> this.load(key, flight, loader));
+                    } catch (RejectedExecutionException e) {
+                        // shutting down: the stale result is still returned, but nothing is left in flight
+                        flight.inFlight.completeExceptionally(e);
+                        flight.inFlight = null;
+                    }
+                }
+                return (V) flight.value;
+            }
+            if (flight.inFlight == null) {
+                flight.inFlight = new CompletableFuture<>();
+                leader = true;
+            } else {
+                this.coalescedCallers.increment();
+            }
+            result = flight.inFlight;
+        }
+
+        if (leader)
+            this.load(key, flight, loader);
+        try {
+            return (V) result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BookstoreException)
+                throw (BookstoreException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of computations run.
+     * @return the computations run since startup, foreground and background
+     */
+    public long getLoads() {
+        return this.loads.sum();
+    }
+
+    /**
+     * Gets the number of coalesced callers.
+     * @return the callers since startup which waited for a computation started by another caller
+     */
+    public long getCoalescedCallers() {
+        return this.coalescedCallers.sum();
+    }
+
+    /**
+     * Gets the number of stale hits.
+     * @return the callers since startup which got a stale result while it was being refreshed
+     */
+    public long getStaleHits() {
+        return this.staleHits.sum();
+    }
+
+    /**
+     * Logs the counters and forgets the results too old to be returned. Runs every reports.metrics.logMillis
+     * milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${reports.metrics.logMillis}")
+    public void reportMetrics() {
+        long now = System.currentTimeMillis();
+        this.flights.forEach((key, flight) -> {
+            synchronized (flight) {
+                if (flight.inFlight == null && now - flight.loadedAt >= this.staleMillis)
+                    this.flights.remove(key, flight);
+            }
+        });
+        log.info("reportMetrics - loads={}, coalescedCallers={}, staleHits={}, cachedResults={}",
+                this.getLoads(), this.getCoalescedCallers(), this.getStaleHits(), this.flights.size());
+    }
+
+    /**
+     * Forgets every result, so the next call of each computation runs it again. A computation running meanwhile
+     * still stores its result, which may predate the invalidation and lives at most reports.staleMillis.
+     */
+    public void invalidateAll() {
+        this.flights.forEach((key, flight) -> {
+            synchronized (flight) {
+                flight.loaded = false;
+                if (flight.inFlight == null)
+                    this.flights.remove(key, flight);
+            }
+        });
+    }
+
+    private void load(Object key, Flight flight, Loader<?> loader) {
+        log.trace("load - method entered: key={}", key);
+        this.loads.increment();
+        CompletableFuture<Object> inFlight;
+        synchronized (flight) {
+            inFlight = flight.inFlight;
+        }
+        try {
+            Object value = loader.load();
+            synchronized (flight) {
+                flight.value = value;
+                flight.loaded = true;
+                flight.loadedAt = System.currentTimeMillis();
+                flight.inFlight = null;
+            }
+            inFlight.complete(value);
+        } catch (Throwable e) {
+            // an Error too, or the callers waiting for the computation would wait forever
+            log.warn("load - computation of {} failed", key, e);
+            synchronized (flight) {
+                flight.inFlight = null;
+            }
+            inFlight.completeExceptionally(e);
+        }
+        log.trace("load - method finished: key={}", key);
+    }
+
+    /**
+     * The last result of a computation and the computation running, if any. Guarded by its own monitor.
+     */
+    private static final class Flight {
+        private Object value;
+        private boolean loaded;
+        private long loadedAt;
+        private CompletableFuture<Object> inFlight;
+    }
+}
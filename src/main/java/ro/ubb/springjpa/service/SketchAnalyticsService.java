@@ -0,0 +1,64 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate sales analytics answered from sketches updated on every purchase, in constant time
+ * and in memory which does not grow with the number of purchases. Deleted purchases, and the purchases other
+ * instances store, are counted from the next rebuild on.
+ */
+public interface SketchAnalyticsService
+{
+    /**
+     * Estimates the number of distinct clients who bought a book.
+     * @param bookId the id of the book
+     * @return the estimate, within a few percent
+     * @throws BookstoreException if the first sketches are not ready yet
+     */
+    public long getDistinctClients(int bookId) throws BookstoreException;
+
+    /**
+     * Estimates the number of distinct clients who bought from a library.
+     * @param library the name of the library
+     * @return the estimate, within a few percent
+     * @throws BookstoreException if the first sketches are not ready yet
+     */
+    public long getDistinctClients(String library) throws BookstoreException;
+
+    /**
+     * Estimates the sales of a book.
+     * @param bookId the id of the book
+     * @return the estimate, never below the real sales
+     * @throws BookstoreException if the first sketches are not ready yet
+     */
+    public long getEstimatedSales(int bookId) throws BookstoreException;
+
+    /**
+     * Returns the best-selling books.
+     * @param k maximum number of books, at most 256
+     * @return a list of (book id, estimated sales) entries, in descending order of the sales
+     * @throws BookstoreException if the first sketches are not ready yet
+     */
+    public List<Map.Entry<Integer, Long>> getBestSellingBooks(int k) throws BookstoreException;
+
+    /**
+     * Checks if the first sketches were loaded or built, which happens in the background after the startup.
+     * @return true if estimates can be asked for
+     */
+    public boolean isReady();
+
+    /**
+     * Saves the sketches to the sketches.file file.
+     * @throws BookstoreException if the file cannot be written
+     */
+    public void save() throws BookstoreException;
+
+    /**
+     * Replaces the sketches with ones counting every purchase of the database, those stored by other instances
+     * included. Each purchase is counted once, also those committed while the purchases are read.
+     */
+    public void rebuild();
+}
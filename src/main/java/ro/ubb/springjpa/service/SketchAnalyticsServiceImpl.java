@@ -0,0 +1,244 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.WorkloadType;
+import ro.ubb.springjpa.service.sketch.SalesSketches;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+@Lazy(false)
+public class SketchAnalyticsServiceImpl implements SketchAnalyticsService, InitializingBean, DisposableBean,
+        ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(SketchAnalyticsServiceImpl.class);
+
+    /** Ids looked up per query, well below the bind parameter limit of PostgreSQL */
+    private static final int VISIBLE_IDS_BATCH = 1000;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${sketches.file}")
+    private String file;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Object rebuildLock = new Object();
+
+    private final StartupBuild startupBuild = new StartupBuild("sketches-build");
+
+    private volatile SalesSketches sketches;
+
+    /**
+     * Purchases committed while a rebuild reads the database, counted in the new sketches unless the rebuild saw them,
+     * or committed before the sketches of the previous run are loaded; null when no rebuild or load runs.
+     */
+    private List<PurchaseAddedEvent> pending = new ArrayList<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Loads or builds the first sketches in the background when the context is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        this.startupBuild.start(this::loadOrRebuild);
+    }
+
+    public boolean isReady() {
+        return this.sketches != null;
+    }
+
+    @Override
+    public void destroy() throws BookstoreException {
+        this.save();
+    }
+
+    /**
+     * Counts a committed purchase.
+     * @param event the purchase
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onPurchaseAdded(PurchaseAddedEvent event) {
+        log.trace("onPurchaseAdded - method entered: event={}", event);
+        if (this.pending != null)
+            this.pending.add(event);
+        if (this.sketches != null)
+            this.sketches.add(event.getClientId(), event.getBookId(), event.getLibrary());
+        log.trace("onPurchaseAdded - method finished");
+    }
+
+    public long getDistinctClients(int bookId) throws BookstoreException {
+        return this.ready().distinctClients(bookId);
+    }
+
+    public long getDistinctClients(String library) throws BookstoreException {
+        return this.ready().distinctClients(library);
+    }
+
+    public long getEstimatedSales(int bookId) throws BookstoreException {
+        return this.ready().sales(bookId);
+    }
+
+    public List<Map.Entry<Integer, Long>> getBestSellingBooks(int k) throws BookstoreException {
+        log.trace("getBestSellingBooks - method entered: k={}", k);
+        List<Map.Entry<Integer, Long>> bestsellers = this.ready().bestsellers(k);
+        log.trace("getBestSellingBooks - method finished: bestsellers={}", bestsellers);
+        return bestsellers;
+    }
+
+    /**
+     * Saves the sketches to the sketches.file file. Runs every sketches.saveMillis milliseconds and at shutdown,
+     * so a crash loses at most the purchases of the last interval. Does nothing before the first sketches are ready,
+     * which keeps the file of the previous run.
+     */
+    @Scheduled(fixedDelayString = "${sketches.saveMillis}", initialDelayString = "${sketches.saveMillis}")
+    public void save() throws BookstoreException {
+        log.trace("save - method entered");
+        SalesSketches current = this.sketches;
+        if (current == null) {
+            log.trace("save - method finished: no sketches yet");
+            return;
+        }
+        try {
+            current.writeTo(Paths.get(this.file));
+        } catch (IOException e) {
+            log.error("save - sketches could not be saved to {}", this.file, e);
+            throw new BookstoreException("Saving the sketches failed: " + e.getMessage() + "\n");
+        }
+        log.trace("save - method finished");
+    }
+
+    /**
+     * Replaces the sketches with ones built from all the purchases. Runs periodically, every sketches.rebuildMillis
+     * milliseconds after the startup build, to count the purchases of the other instances and to drop the deleted
+     * ones. The sketches of several instances are not merged instead: they count the same purchases of the shared
+     * database, which Count-Min and Space-Saving would count twice.
+     */
+    @Scheduled(fixedDelayString = "${sketches.rebuildMillis}", initialDelayString = "${sketches.rebuildMillis}")
+    public void rebuild() {
+        log.trace("rebuild - method entered");
+        synchronized (this.rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                this.pending = new ArrayList<>();
+            }
+            IntOpenHashSet counted = new IntOpenHashSet();
+            SalesSketches built;
+            try {
+                built = WorkloadType.run(WorkloadType.REPORTING, () -> this.transactionTemplate.execute(status -> this.load(counted)));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    this.pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (PurchaseAddedEvent event : this.pending)
+                    if (!counted.contains(event.getPurchaseId()))
+                        built.add(event.getClientId(), event.getBookId(), event.getLibrary());
+                this.pending = null;
+                this.sketches = built;
+            }
+            log.info("rebuild - sketches built from the purchases in {} ms", (System.nanoTime() - start) / 1_000_000);
+        }
+        log.trace("rebuild - method finished");
+    }
+
+    /**
+     * Loads the sketches saved by the previous run or, if there are none or they cannot be read, counts all the
+     * purchases into new ones. The purchases committed since the startup are added to the loaded sketches.
+     */
+    private void loadOrRebuild() {
+        log.trace("loadOrRebuild - method entered");
+        Path path = Paths.get(this.file);
+        if (Files.exists(path)) {
+            synchronized (this.rebuildLock) {
+                SalesSketches loaded = null;
+                try {
+                    loaded = SalesSketches.readFrom(path);
+                    log.info("loadOrRebuild - sketches loaded from {}", path);
+                } catch (IOException e) {
+                    log.warn("loadOrRebuild - sketches could not be read from {}, rebuilding them", path, e);
+                }
+                synchronized (this) {
+                    // a rebuild that ran first left either newer sketches or no record of the purchases since
+                    if (loaded != null && this.sketches == null && this.pending != null) {
+                        for (PurchaseAddedEvent event : this.pending)
+                            loaded.add(event.getClientId(), event.getBookId(), event.getLibrary());
+                        this.sketches = loaded;
+                        this.pending = null;
+                    }
+                }
+            }
+        }
+        if (this.sketches == null)
+            this.rebuild();
+        log.trace("loadOrRebuild - method finished");
+    }
+
+    private SalesSketches ready() throws BookstoreException {
+        SalesSketches current = this.sketches;
+        if (current == null)
+            throw new BookstoreException("The sales sketches are still being built, try again later\n");
+        return current;
+    }
+
+    /**
+     * Counts all the purchases into new sketches. Runs in a repeatable read transaction, so the purchases committed
+     * meanwhile which it counted are found with the same snapshot and added to the counted ones.
+     */
+    private SalesSketches load(IntOpenHashSet counted) {
+        SalesSketches loaded = new SalesSketches();
+        try (Stream<Object[]> purchases = this.purchaseRepository.streamClientBookLibrary()) {
+            Iterator<Object[]> iterator = purchases.iterator();
+            while (iterator.hasNext()) {
+                Object[] purchase = iterator.next();
+                loaded.add((Integer) purchase[0], (Integer) purchase[1], (String) purchase[2]);
+            }
+        }
+        List<Integer> committed = new ArrayList<>();
+        synchronized (this) {
+            for (PurchaseAddedEvent event : this.pending)
+                committed.add(event.getPurchaseId());
+        }
+        for (int from = 0; from < committed.size(); from += VISIBLE_IDS_BATCH)
+            counted.addAll(this.purchaseRepository.findVisibleIds(committed.subList(from, Math.min(from + VISIBLE_IDS_BATCH, committed.size()))));
+        return loaded;
+    }
+}
@@ -0,0 +1,46 @@
+package ro.ubb.springjpa.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the first build of an in-memory structure on a thread of its own once the context is refreshed, so neither
+ * the startup nor the first caller waits for it to read the purchases. Until the build is over the owner answers
+ * that it is not ready; a failed build is retried by the next scheduled rebuild of the owner.
+ */
+final class StartupBuild
+{
+    private static final Logger log = LoggerFactory.getLogger(StartupBuild.class);
+
+    private final String name;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * @param name the name of the thread running the build
+     */
+    StartupBuild(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Starts the build, unless it was already started by an earlier refresh of the context.
+     * @param build the build
+     */
+    void start(Runnable build)
+    {
+        if (!this.started.compareAndSet(false, true))
+            return;
+        Thread thread = new Thread(() -> {
+            try {
+                build.run();
+            } catch (RuntimeException e) {
+                log.error("{} - startup build failed, waiting for the next scheduled rebuild", this.name, e);
+            }
+        }, this.name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,47 @@
+package ro.ubb.springjpa.service;
+
+/**
+ * The type Suggestion, one completion of a typeahead prefix.
+ */
+public final class Suggestion
+{
+    private final String text;
+    private final long weight;
+
+    /**
+     * Instantiates a new Suggestion.
+     *
+     * @param text   String representing the completed text
+     * @param weight long representing the popularity of the text, the number of purchases behind it
+     */
+    public Suggestion(String text, long weight)
+    {
+        this.text = text;
+        this.weight = weight;
+    }
+
+    /**
+     * Gets text.
+     * @return the completed text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets weight.
+     * @return the popularity of the text
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Suggestion{" +
+                "text='" + this.text + '\'' +
+                ", weight=" + this.weight +
+                "}";
+    }
+}
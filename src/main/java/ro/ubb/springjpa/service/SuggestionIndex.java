@@ -0,0 +1,142 @@
+package ro.ubb.springjpa.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix index of weighted texts. The texts are kept in a sorted array of lower-case keys, so the texts
+ * starting with a prefix form one range found by binary search; a segment tree of the heaviest text of every range
+ * returns the k heaviest texts of that range in O(k log n), without looking at the other texts of the range.
+ */
+public final class SuggestionIndex
+{
+    private final String[] keys;
+    private final String[] texts;
+    private final long[] weights;
+    /** tree[size + i] = i, tree[node] = the heavier of tree[2 * node] and tree[2 * node + 1] */
+    private final int[] tree;
+
+    private SuggestionIndex(String[] keys, String[] texts, long[] weights)
+    {
+        this.keys = keys;
+        this.texts = texts;
+        this.weights = weights;
+        this.tree = new int[2 * keys.length];
+        for (int i = 0; i < keys.length; i++)
+            this.tree[keys.length + i] = i;
+        for (int node = keys.length - 1; node > 0; node--)
+            this.tree[node] = this.heavier(this.tree[2 * node], this.tree[2 * node + 1]);
+    }
+
+    /**
+     * Builds an index. Texts which differ only in case are merged, adding up their weights.
+     * @param weightsByText the weight of every text
+     * @return the index
+     */
+    public static SuggestionIndex of(Map<String, Long> weightsByText)
+    {
+        TreeMap<String, Suggestion> merged = new TreeMap<>();
+        weightsByText.forEach((text, weight) -> {
+            if (text == null || text.trim().isEmpty())
+                return;
+            String key = normalize(text);
+            Suggestion previous = merged.get(key);
+            merged.put(key, new Suggestion(previous == null ? text.trim() : previous.getText(),
+                    (previous == null ? 0 : previous.getWeight()) + weight));
+        });
+
+        String[] keys = new String[merged.size()];
+        String[] texts = new String[merged.size()];
+        long[] weights = new long[merged.size()];
+        int i = 0;
+        for (Map.Entry<String, Suggestion> entry : merged.entrySet())
+        {
+            keys[i] = entry.getKey();
+            texts[i] = entry.getValue().getText();
+            weights[i] = entry.getValue().getWeight();
+            i++;
+        }
+        return new SuggestionIndex(keys, texts, weights);
+    }
+
+    /**
+     * Normalizes a text or a prefix for matching.
+     * @param text the text
+     * @return the trimmed lower-case text
+     */
+    public static String normalize(String text)
+    {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the heaviest texts starting with a prefix, ignoring case.
+     * @param prefix the prefix
+     * @param k maximum number of texts
+     * @return the suggestions, in descending order of the weight
+     */
+    public List<Suggestion> suggest(String prefix, int k)
+    {
+        String key = normalize(prefix);
+        int from = this.lowerBound(key);
+        int to = this.lowerBound(key + Character.MAX_VALUE);
+        List<Suggestion> suggestions = new ArrayList<>(Math.max(0, Math.min(k, to - from)));
+        if (from >= to || k <= 0)
+            return suggestions;
+
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator.comparingLong((int[] range) -> this.weights[range[2]]).reversed());
+        ranges.add(new int[]{from, to, this.heaviest(from, to)});
+        while (!ranges.isEmpty() && suggestions.size() < k)
+        {
+            int[] range = ranges.poll();
+            int best = range[2];
+            suggestions.add(new Suggestion(this.texts[best], this.weights[best]));
+            if (range[0] < best)
+                ranges.add(new int[]{range[0], best, this.heaviest(range[0], best)});
+            if (best + 1 < range[1])
+                ranges.add(new int[]{best + 1, range[1], this.heaviest(best + 1, range[1])});
+        }
+        return suggestions;
+    }
+
+    /**
+     * Gets the number of texts.
+     * @return the number of distinct texts of the index
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private int lowerBound(String key)
+    {
+        int position = Arrays.binarySearch(this.keys, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Finds the heaviest text of the range [from, to), which must not be empty.
+     */
+    private int heaviest(int from, int to)
+    {
+        int best = from;
+        for (int left = from + this.keys.length, right = to + this.keys.length; left < right; left >>= 1, right >>= 1)
+        {
+            if ((left & 1) == 1)
+                best = this.heavier(best, this.tree[left++]);
+            if ((right & 1) == 1)
+                best = this.heavier(best, this.tree[--right]);
+        }
+        return best;
+    }
+
+    private int heavier(int first, int second)
+    {
+        return this.weights[second] > this.weights[first] || (this.weights[second] == this.weights[first] && second < first) ? second : first;
+    }
+}
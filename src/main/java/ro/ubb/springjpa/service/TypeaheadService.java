@@ -0,0 +1,49 @@
+package ro.ubb.springjpa.service;
+
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.List;
+
+/**
+ * Prefix completion of book titles, authors and client last names, ranked by the number of purchases behind them.
+ */
+public interface TypeaheadService
+{
+    /**
+     * Replaces the indexes with ones built from the current books, clients and purchases.
+     */
+    public void rebuild();
+
+    /**
+     * Checks if the first indexes were built, which happens in the background after the startup.
+     * @return true if suggestions can be asked for
+     */
+    public boolean isReady();
+
+    /**
+     * Completes a book title.
+     * @param prefix the start of the title, in any case
+     * @param k maximum number of suggestions
+     * @return the titles, in descending order of the sales of the book
+     * @throws BookstoreException if the first indexes are not built yet
+     */
+    public List<Suggestion> suggestTitles(String prefix, int k) throws BookstoreException;
+
+    /**
+     * Completes an author.
+     * @param prefix the start of the name, in any case
+     * @param k maximum number of suggestions
+     * @return the authors, in descending order of the sales of their books
+     * @throws BookstoreException if the first indexes are not built yet
+     */
+    public List<Suggestion> suggestAuthors(String prefix, int k) throws BookstoreException;
+
+    /**
+     * Completes a client last name.
+     * @param prefix the start of the last name, in any case
+     * @param k maximum number of suggestions
+     * @return the last names, in descending order of the purchases of the clients with that name
+     * @throws BookstoreException if the first indexes are not built yet
+     */
+    public List<Suggestion> suggestClientLastNames(String prefix, int k) throws BookstoreException;
+}
@@ -0,0 +1,232 @@
+package ro.ubb.springjpa.service;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+import ro.ubb.springjpa.repository.BookRepository;
+import ro.ubb.springjpa.repository.ClientRepository;
+import ro.ubb.springjpa.repository.PurchaseRepository;
+import ro.ubb.springjpa.repository.WorkloadType;
+import ro.ubb.springjpa.service.events.ChangeEvent;
+import ro.ubb.springjpa.service.events.ChangeEventConsumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+@Service
+@Lazy(false)
+public class TypeaheadServiceImpl implements TypeaheadService, ChangeEventConsumer, InitializingBean, ApplicationListener<ContextRefreshedEvent> {
+
+    public static final Logger log = LoggerFactory.getLogger(TypeaheadServiceImpl.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Field titles = new Field();
+    private final Field authors = new Field();
+    private final Field lastNames = new Field();
+
+    private final StartupBuild startupBuild = new StartupBuild("typeahead-build");
+
+    private volatile boolean built;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Builds the first indexes in the background when the context is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        this.startupBuild.start(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return this.built;
+    }
+
+    /**
+     * Replaces the indexes with ones built from the current books, clients and purchases, while the old ones
+     * keep answering. Runs every typeahead.rebuildMillis milliseconds after the startup build, which also drops
+     * deleted and renamed entries.
+     */
+    @Scheduled(fixedDelayString = "${typeahead.rebuildMillis}", initialDelayString = "${typeahead.rebuildMillis}")
+    public synchronized void rebuild() {
+        log.trace("rebuild - method entered");
+        long start = System.nanoTime();
+        int titlesAdded = this.titles.added.size();
+        int authorsAdded = this.authors.added.size();
+        int lastNamesAdded = this.lastNames.added.size();
+
+        Map<String, Long> titleWeights = new HashMap<>();
+        Map<String, Long> authorWeights = new HashMap<>();
+        Map<String, Long> lastNameWeights = new HashMap<>();
+        WorkloadType.run(WorkloadType.REPORTING, () -> this.transactionTemplate.execute(status -> {
+            Int2LongOpenHashMap sales = counts(this.purchaseRepository.countPerBook());
+            try (Stream<Book> books = this.bookRepository.streamAllOrderById()) {
+                Iterator<Book> iterator = books.iterator();
+                while (iterator.hasNext()) {
+                    Book book = iterator.next();
+                    weigh(titleWeights, book.getTitle(), sales.get(book.getId().intValue()));
+                    weigh(authorWeights, book.getAuthor(), sales.get(book.getId().intValue()));
+                    this.entityManager.detach(book);
+                }
+            }
+
+            Int2LongOpenHashMap purchases = counts(this.purchaseRepository.countPerClient());
+            try (Stream<Client> clients = this.clientRepository.streamAllOrderById()) {
+                Iterator<Client> iterator = clients.iterator();
+                while (iterator.hasNext()) {
+                    Client client = iterator.next();
+                    weigh(lastNameWeights, client.getLastName(), purchases.get(client.getId().intValue()));
+                    this.entityManager.detach(client);
+                }
+            }
+            return null;
+        }));
+
+        this.titles.replace(SuggestionIndex.of(titleWeights), titlesAdded);
+        this.authors.replace(SuggestionIndex.of(authorWeights), authorsAdded);
+        this.lastNames.replace(SuggestionIndex.of(lastNameWeights), lastNamesAdded);
+        this.built = true;
+        log.info("rebuild - {} titles, {} authors, {} last names indexed in {} ms", this.titles.index.size(),
+                this.authors.index.size(), this.lastNames.index.size(), (System.nanoTime() - start) / 1_000_000);
+        log.trace("rebuild - method finished");
+    }
+
+    /**
+     * Adds the books and clients created or updated since the last rebuild, until the next one indexes them.
+     * @param events the change events
+     */
+    @Override
+    public void onEvents(List<ChangeEvent> events) {
+        log.trace("onEvents - method entered: events={}", events.size());
+        for (ChangeEvent event : events) {
+            if (!ChangeEvent.CREATED.equals(event.getEventType()) && !ChangeEvent.UPDATED.equals(event.getEventType()))
+                continue;
+            try {
+                if ("Book".equals(event.getAggregateType())) {
+                    Optional<Book> book = this.bookService.findOne(event.getAggregateId());
+                    if (book.isPresent()) {
+                        this.titles.add(book.get().getTitle());
+                        this.authors.add(book.get().getAuthor());
+                    }
+                } else if ("Client".equals(event.getAggregateType())) {
+                    Optional<Client> client = this.clientService.findOne(event.getAggregateId());
+                    client.ifPresent(value -> this.lastNames.add(value.getLastName()));
+                }
+            } catch (BookstoreException e) {
+                log.warn("onEvents - {} left for the next rebuild", event, e);
+            }
+        }
+        log.trace("onEvents - method finished");
+    }
+
+    public List<Suggestion> suggestTitles(String prefix, int k) throws BookstoreException {
+        return this.ready().titles.suggest(prefix, k);
+    }
+
+    public List<Suggestion> suggestAuthors(String prefix, int k) throws BookstoreException {
+        return this.ready().authors.suggest(prefix, k);
+    }
+
+    public List<Suggestion> suggestClientLastNames(String prefix, int k) throws BookstoreException {
+        return this.ready().lastNames.suggest(prefix, k);
+    }
+
+    private TypeaheadServiceImpl ready() throws BookstoreException {
+        if (!this.built)
+            throw new BookstoreException("The suggestions are still being built, try again later\n");
+        return this;
+    }
+
+    private static Int2LongOpenHashMap counts(List<Object[]> rows) {
+        Int2LongOpenHashMap counts = new Int2LongOpenHashMap(rows.size());
+        for (Object[] row : rows)
+            counts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        return counts;
+    }
+
+    private static void weigh(Map<String, Long> weights, String text, long weight) {
+        if (text != null)
+            weights.merge(text, weight, Long::sum);
+    }
+
+    /**
+     * The index of one field, plus the texts added since it was built. The texts added are few and scanned
+     * on every query; the index is replaced as a whole.
+     */
+    private static final class Field {
+        private volatile SuggestionIndex index = SuggestionIndex.of(Collections.emptyMap());
+        private final List<Suggestion> added = new CopyOnWriteArrayList<>();
+
+        private void add(String text) {
+            if (text != null && !text.trim().isEmpty())
+                this.added.add(new Suggestion(text.trim(), 0));
+        }
+
+        /**
+         * Installs a new index and forgets the texts added before its build started, which it already contains.
+         */
+        private void replace(SuggestionIndex index, int indexed) {
+            this.index = index;
+            for (int i = 0; i < indexed; i++)
+                this.added.remove(0);
+        }
+
+        private List<Suggestion> suggest(String prefix, int k) {
+            List<Suggestion> suggestions = this.index.suggest(prefix, k);
+            if (this.added.isEmpty())
+                return suggestions;
+
+            String key = SuggestionIndex.normalize(prefix);
+            Set<String> seen = new HashSet<>();
+            suggestions.forEach(suggestion -> seen.add(SuggestionIndex.normalize(suggestion.getText())));
+            for (Suggestion suggestion : this.added) {
+                String text = SuggestionIndex.normalize(suggestion.getText());
+                if (text.startsWith(key) && seen.add(text))
+                    suggestions.add(suggestion);
+            }
+            suggestions.sort(Comparator.comparingLong(Suggestion::getWeight).reversed());
+            return suggestions.subList(0, Math.min(Math.max(k, 0), suggestions.size()));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ro.ubb.springjpa.service.events;
+
+import ro.ubb.springjpa.domain.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of an outbox row, handed to the EventPublishers and to the ChangeEventConsumers.
+ * The id identifies the event, so consumers can use it to skip events delivered twice. The ids are not taken in
+ * commit order, the events are delivered in their publish order instead, which grows with every published event.
+ */
+public final class ChangeEvent
+{
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String DELETED_FOR_BOOK = "DELETED_FOR_BOOK";
+    public static final String DELETED_FOR_CLIENT = "DELETED_FOR_CLIENT";
+    public static final String IMPORTED = "IMPORTED";
+
+    private final int id;
+    private final String aggregateType;
+    private final Integer aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+    private final long publishOrder;
+
+    private ChangeEvent(int id, String aggregateType, Integer aggregateId, String eventType, String payload,
+                        LocalDateTime createdAt, long publishOrder)
+    {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.publishOrder = publishOrder;
+    }
+
+    /**
+     * Copies an outbox row numbered by the relay.
+     * @param event the outbox row
+     * @return the change event
+     */
+    public static ChangeEvent of(OutboxEvent event)
+    {
+        return new ChangeEvent(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt(), event.getPublishOrder());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Integer getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getPublishOrder() {
+        return publishOrder;
+    }
+
+    /**
+     * Writes the event as a single JSON line, the payload being embedded as is.
+     * @return the event as JSON
+     */
+    public String toJson()
+    {
+        return "{\"id\":" + id +
+                ",\"aggregateType\":" + Json.string(aggregateType) +
+                ",\"aggregateId\":" + aggregateId +
+                ",\"eventType\":" + Json.string(eventType) +
+                ",\"createdAt\":" + Json.string(String.valueOf(createdAt)) +
+                ",\"publishOrder\":" + publishOrder +
+                ",\"payload\":" + (payload == null ? "null" : payload) + "}";
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "id=" + id +
+                ", aggregateType=" + aggregateType +
+                ", aggregateId=" + aggregateId +
+                ", eventType=" + eventType +
+                ", publishOrder=" + publishOrder +
+                '}';
+    }
+}
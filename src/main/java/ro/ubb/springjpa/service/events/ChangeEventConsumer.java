@@ -0,0 +1,15 @@
+package ro.ubb.springjpa.service.events;
+
+import java.util.List;
+
+/**
+ * In-process consumer of the change events, for caches and indexes kept up to date incrementally.
+ */
+public interface ChangeEventConsumer {
+
+    /**
+     * Handles a batch of events. The same event may be delivered more than once.
+     * @param events the events, in publish order
+     */
+    void onEvents(List<ChangeEvent> events);
+}
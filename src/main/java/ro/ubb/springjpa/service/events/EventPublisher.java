@@ -0,0 +1,18 @@
+package ro.ubb.springjpa.service.events;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the change events relayed from the outbox. Every EventPublisher bean receives every batch.
+ */
+public interface EventPublisher {
+
+    /**
+     * Publishes a batch of events, in order. The batch is marked as published only if every publisher succeeds,
+     * otherwise it is published again on the next run, so the events are delivered at least once.
+     * @param events the events, in publish order
+     * @throws IOException if the events could not be published
+     */
+    void publish(List<ChangeEvent> events) throws IOException;
+}
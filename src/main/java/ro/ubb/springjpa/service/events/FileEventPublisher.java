@@ -0,0 +1,49 @@
+package ro.ubb.springjpa.service.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Stand-in for a message broker: appends the change events as JSON lines to the file events.file
+ * and forces them to disk before the batch is acknowledged. Disabled when events.file is empty.
+ */
+@Component
+public class FileEventPublisher implements EventPublisher {
+
+    public static final Logger log = LoggerFactory.getLogger(FileEventPublisher.class);
+
+    @Value("${events.file}")
+    private String file;
+
+    @Override
+    public void publish(List<ChangeEvent> events) throws IOException {
+        if (file.isEmpty())
+            return;
+        log.trace("publish - method entered: events={}", events.size());
+        StringBuilder lines = new StringBuilder();
+        events.forEach(event -> lines.append(event.toJson()).append('\n'));
+
+        Path path = Paths.get(file);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        }
+        log.trace("publish - method finished");
+    }
+}
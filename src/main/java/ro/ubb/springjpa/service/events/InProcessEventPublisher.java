@@ -0,0 +1,29 @@
+package ro.ubb.springjpa.service.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hands the change events to every ChangeEventConsumer bean of the application.
+ */
+@Component
+public class InProcessEventPublisher implements EventPublisher {
+
+    public static final Logger log = LoggerFactory.getLogger(InProcessEventPublisher.class);
+
+    @Autowired(required = false)
+    private List<ChangeEventConsumer> consumers = Collections.emptyList();
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        log.trace("publish - method entered: events={}, consumers={}", events.size(), consumers.size());
+        for (ChangeEventConsumer consumer : consumers)
+            consumer.onEvents(events);
+        log.trace("publish - method finished");
+    }
+}
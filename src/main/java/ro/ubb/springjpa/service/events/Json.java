@@ -0,0 +1,62 @@
+package ro.ubb.springjpa.service.events;
+
+/**
+ * Minimal JSON writer for the flat payloads of the change events and the lines of the JSONL exports.
+ */
+public final class Json
+{
+    private Json() {}
+
+    /**
+     * Writes a flat JSON object out of alternating keys and values. Numbers and booleans are written as they are,
+     * null as null and everything else as a string.
+     * @param keysAndValues key1, value1, key2, value2...
+     * @return the JSON object
+     */
+    public static String object(Object... keysAndValues)
+    {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            if (i > 0)
+                json.append(',');
+            json.append(string(String.valueOf(keysAndValues[i]))).append(':');
+            Object value = keysAndValues[i + 1];
+            if (value == null || value instanceof Number || value instanceof Boolean)
+                json.append(value);
+            else
+                json.append(string(value.toString()));
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Writes a JSON string literal.
+     * @param value the string, or null
+     * @return the quoted and escaped string
+     */
+    public static String string(String value)
+    {
+        if (value == null)
+            return "null";
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        json.append(String.format("\\u%04x", (int) c));
+                    else
+                        json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,93 @@
+package ro.ubb.springjpa.service.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.OutboxEvent;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.repository.OutboxRepository;
+
+/**
+ * Records the changes of books, clients and purchases into the outbox table.
+ * Every method must run inside the transaction of the change, so the event is stored if and only if the change is.
+ */
+@Component
+public class Outbox {
+
+    public static final Logger log = LoggerFactory.getLogger(Outbox.class);
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookChanged(String eventType, Book book) {
+        this.record("Book", book.getId(), eventType, Json.object(
+                "id", book.getId(),
+                "title", book.getTitle(),
+                "author", book.getAuthor(),
+                "publisher", book.getPublisher(),
+                "publicationYear", book.getPublicationYear(),
+                "price", book.getPrice()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void clientChanged(String eventType, Client client) {
+        this.record("Client", client.getId(), eventType, Json.object(
+                "id", client.getId(),
+                "firstName", client.getFirstName(),
+                "lastName", client.getLastName(),
+                "address", client.getAddress()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void purchaseChanged(String eventType, Purchase purchase) {
+        this.record("Purchase", purchase.getId(), eventType, Json.object(
+                "id", purchase.getId(),
+                "clientId", purchase.getClientId(),
+                "bookId", purchase.getBookId(),
+                "library", purchase.getLibrary(),
+                "purchaseDate", purchase.getPurchaseDate(),
+                "price", purchase.getPrice()));
+    }
+
+    /**
+     * Records the deletion of an entity.
+     * @param aggregateType the type of the deleted entity (Book, Client or Purchase)
+     * @param id the id of the deleted entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(String aggregateType, Integer id) {
+        this.record(aggregateType, id, ChangeEvent.DELETED, Json.object("id", id));
+    }
+
+    /**
+     * Records the deletion of all the purchases of a book or of a client.
+     * @param eventType ChangeEvent.DELETED_FOR_BOOK or ChangeEvent.DELETED_FOR_CLIENT
+     * @param id the id of the book or of the client
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void purchasesDeleted(String eventType, int id) {
+        this.record("Purchase", null, eventType,
+                Json.object(ChangeEvent.DELETED_FOR_BOOK.equals(eventType) ? "bookId" : "clientId", id));
+    }
+
+    /**
+     * Records a bulk import, after which the consumers should reload the imported type.
+     * @param aggregateType the type of the imported entities (Book, Client or Purchase)
+     * @param rows the number of rows imported
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void imported(String aggregateType, long rows) {
+        this.record(aggregateType, null, ChangeEvent.IMPORTED, Json.object("rows", rows));
+    }
+
+    private void record(String aggregateType, Integer aggregateId, String eventType, String payload) {
+        OutboxEvent event = this.outboxRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, payload));
+        log.debug("record - event={}", event);
+    }
+}
@@ -0,0 +1,110 @@
+package ro.ubb.springjpa.service.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.domain.model.OutboxEvent;
+import ro.ubb.springjpa.repository.OutboxRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the outbox rows to every EventPublisher in batches of events.relay.batchSize, marking each batch as
+ * published in the transaction which read it. The rows are locked while they are published, so only one relay
+ * publishes at a time even with several application instances.
+ * Every run reads all the unpublished rows instead of continuing after the last id published: an id is taken before
+ * the commit, so a transaction committing late can hold a lower id than rows already published. The rows are
+ * numbered with their publish order as they are published, so the consumers see them in the order they committed.
+ */
+@Component
+@Lazy(false)
+public class OutboxRelay implements InitializingBean {
+
+    public static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private List<EventPublisher> publishers;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${events.relay.batchSize}")
+    private int batchSize;
+
+    @Value("${events.retentionDays}")
+    private int retentionDays;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+    }
+
+    /**
+     * Publishes every pending event. Runs every events.relay.delayMillis milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${events.relay.delayMillis}")
+    public void relay() {
+        log.trace("relay - method entered");
+        int published = 0;
+        try {
+            int batch;
+            do {
+                batch = this.transactionTemplate.execute(status -> this.relayBatch());
+                published += batch;
+            } while (batch == this.batchSize);
+        } catch (RuntimeException e) {
+            log.error("relay - publishing failed, the batch will be retried", e);
+        }
+        log.trace("relay - method finished: published={}", published);
+    }
+
+    /**
+     * Deletes the events published more than events.retentionDays days ago.
+     */
+    @Scheduled(cron = "${events.purge.cron}")
+    public void purge() {
+        log.trace("purge - method entered");
+        Integer deleted = this.transactionTemplate.execute(status ->
+                this.outboxRepository.deletePublishedBefore(LocalDateTime.now().minusDays(this.retentionDays)));
+        log.trace("purge - method finished: deleted={}", deleted);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> rows = this.outboxRepository.findUnpublished(PageRequest.of(0, this.batchSize));
+        if (rows.isEmpty())
+            return 0;
+
+        List<Number> publishOrders = this.outboxRepository.nextPublishOrders(rows.size());
+        for (int i = 0; i < rows.size(); i++)
+            rows.get(i).setPublishOrder(publishOrders.get(i).longValue());
+        List<ChangeEvent> events = rows.stream().map(ChangeEvent::of).collect(Collectors.toList());
+        for (EventPublisher publisher : this.publishers) {
+            try {
+                publisher.publish(events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        this.outboxRepository.markPublished(rows.stream().map(OutboxEvent::getId).collect(Collectors.toList()), LocalDateTime.now());
+        log.debug("relayBatch - published events {} to {} of the publish order", events.get(0).getPublishOrder(),
+                events.get(events.size() - 1).getPublishOrder());
+        return rows.size();
+    }
+}
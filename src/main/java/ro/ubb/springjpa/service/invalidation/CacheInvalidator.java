@@ -0,0 +1,44 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.service.SingleFlight;
+
+/**
+ * Applies the invalidations to the caches of this instance: the entries of the books and clients caches,
+ * and the report results of the SingleFlight, which embed books and clients.
+ */
+@Component
+public class CacheInvalidator implements InvalidationListener {
+
+    public static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SingleFlight singleFlight;
+
+    @Override
+    public void onInvalidation(Invalidation invalidation) {
+        log.trace("onInvalidation - method entered: invalidation={}", invalidation);
+        if (invalidation.getCache() == null) {
+            for (String name : this.cacheManager.getCacheNames())
+                this.cacheManager.getCache(name).clear();
+        } else {
+            Cache cache = this.cacheManager.getCache(invalidation.getCache());
+            if (cache != null) {
+                if (invalidation.getId() == null)
+                    cache.clear();
+                else
+                    cache.evict(invalidation.getId());
+            }
+        }
+        this.singleFlight.invalidateAll();
+        log.trace("onInvalidation - method finished");
+    }
+}
@@ -0,0 +1,95 @@
+package ro.ubb.springjpa.service.invalidation;
+
+/**
+ * A cache entry, a whole cache or every cache to drop on every instance of the application.
+ * It travels as text: "books:42", "books:*" or "*".
+ */
+public final class Invalidation
+{
+    private static final String ANY = "*";
+
+    private final String cache;
+    private final Integer id;
+
+    private Invalidation(String cache, Integer id)
+    {
+        this.cache = cache;
+        this.id = id;
+    }
+
+    /**
+     * Invalidates one entity.
+     * @param cache the name of the cache
+     * @param id the id of the entity
+     * @return the invalidation
+     */
+    public static Invalidation of(String cache, int id)
+    {
+        return new Invalidation(cache, id);
+    }
+
+    /**
+     * Invalidates every entry of a cache, for changes touching many entities.
+     * @param cache the name of the cache
+     * @return the invalidation
+     */
+    public static Invalidation allOf(String cache)
+    {
+        return new Invalidation(cache, null);
+    }
+
+    /**
+     * Invalidates every cache, for an instance which may have missed invalidations.
+     * @return the invalidation
+     */
+    public static Invalidation everything()
+    {
+        return new Invalidation(null, null);
+    }
+
+    /**
+     * Parses an invalidation written by toString.
+     * @param text the text
+     * @return the invalidation
+     * @throws IllegalArgumentException if the text is not an invalidation
+     */
+    public static Invalidation parse(String text)
+    {
+        if (ANY.equals(text))
+            return everything();
+        int separator = text.lastIndexOf(':');
+        if (separator <= 0)
+            throw new IllegalArgumentException("Not an invalidation: " + text);
+        String cache = text.substring(0, separator);
+        String id = text.substring(separator + 1);
+        try {
+            return ANY.equals(id) ? allOf(cache) : of(cache, Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an invalidation: " + text);
+        }
+    }
+
+    /**
+     * Gets cache.
+     * @return the name of the cache, or null for every cache
+     */
+    public String getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets id.
+     * @return the id of the entity, or null for the whole cache
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public String toString()
+    {
+        if (this.cache == null)
+            return ANY;
+        return this.cache + ":" + (this.id == null ? ANY : this.id.toString());
+    }
+}
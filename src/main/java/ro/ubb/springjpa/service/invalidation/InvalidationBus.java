@@ -0,0 +1,15 @@
+package ro.ubb.springjpa.service.invalidation;
+
+/**
+ * Broadcasts cache invalidations to every instance of the application, this one included.
+ * The implementation is chosen by cache.invalidation.bus.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Publishes an invalidation. Inside a transaction it is delivered only once the transaction commits,
+     * and not at all if it rolls back; outside of one it is delivered right away.
+     * @param invalidation the invalidation
+     */
+    void publish(Invalidation invalidation);
+}
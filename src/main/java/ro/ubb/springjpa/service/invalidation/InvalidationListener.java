@@ -0,0 +1,13 @@
+package ro.ubb.springjpa.service.invalidation;
+
+/**
+ * Receives the invalidations of every instance. Every InvalidationListener bean is called by the InvalidationBus.
+ */
+public interface InvalidationListener {
+
+    /**
+     * Drops what the invalidation covers. Called on the thread delivering the invalidation, which must not block.
+     * @param invalidation the invalidation
+     */
+    void onInvalidation(Invalidation invalidation);
+}
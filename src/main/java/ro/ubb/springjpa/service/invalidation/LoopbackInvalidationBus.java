@@ -0,0 +1,48 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Invalidation bus of a single instance: delivers the invalidations to the listeners of this JVM after the commit.
+ * Used when only one instance runs, and by tests which need the delivery without a database.
+ */
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+    public static final Logger log = LoggerFactory.getLogger(LoopbackInvalidationBus.class);
+
+    @Autowired(required = false)
+    private List<InvalidationListener> listeners = Collections.emptyList();
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        log.trace("publish - method entered: invalidation={}", invalidation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    deliver(invalidation);
+                }
+            });
+        } else {
+            this.deliver(invalidation);
+        }
+        log.trace("publish - method finished");
+    }
+
+    private void deliver(Invalidation invalidation) {
+        for (InvalidationListener listener : this.listeners) {
+            try {
+                listener.onInvalidation(invalidation);
+            } catch (RuntimeException e) {
+                log.error("deliver - listener failed on {}", invalidation, e);
+            }
+        }
+    }
+}
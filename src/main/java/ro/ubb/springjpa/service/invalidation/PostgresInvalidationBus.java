@@ -0,0 +1,138 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Invalidation bus of several instances sharing the database, over PostgreSQL LISTEN/NOTIFY.
+ * An invalidation is a pg_notify on the connection of the caller's transaction, so PostgreSQL sends it only
+ * if the transaction commits, and only after it did. Every instance listens on the channel
+ * cache.invalidation.channel with a connection of its own, outside of the pools, and delivers what it receives
+ * to its listeners, its own invalidations included. Notifications sent while the listening connection was down
+ * are lost, so after a reconnection every cache is dropped.
+ */
+public class PostgresInvalidationBus implements InvalidationBus, InitializingBean, DisposableBean {
+
+    public static final Logger log = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private List<InvalidationListener> listeners = Collections.emptyList();
+
+    @Value("${db.jdbcUrl}")
+    private String jdbcUrl;
+
+    @Value("${db.username}")
+    private String username;
+
+    @Value("${db.password}")
+    private String password;
+
+    @Value("${cache.invalidation.channel}")
+    private String channel;
+
+    @Value("${cache.invalidation.pollMillis}")
+    private int pollMillis;
+
+    private JdbcTemplate jdbcTemplate;
+    private Thread listener;
+    private volatile boolean running;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!this.channel.matches("[a-z_][a-z0-9_]*"))
+            throw new IllegalArgumentException("Invalid cache.invalidation.channel: " + this.channel);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.running = true;
+        this.listener = new Thread(this::listen, "cache-invalidation-listener");
+        this.listener.setDaemon(true);
+        this.listener.start();
+        log.info("start - listening for cache invalidations on channel {}", this.channel);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        this.running = false;
+        this.listener.interrupt();
+        this.listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        log.trace("publish - method entered: invalidation={}", invalidation);
+        this.jdbcTemplate.queryForList("select pg_notify(?, ?)", this.channel, invalidation.toString());
+        log.trace("publish - method finished");
+    }
+
+    /**
+     * Loop of the listener thread: listens on the channel, delivers the notifications and reconnects when the
+     * connection is lost.
+     */
+    private void listen() {
+        boolean connectedBefore = false;
+        while (this.running) {
+            try (Connection connection = DriverManager.getConnection(this.jdbcUrl, this.username, this.password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + this.channel);
+                }
+                if (connectedBefore) {
+                    log.warn("listen - reconnected, dropping every cache");
+                    this.deliver(Invalidation.everything());
+                }
+                connectedBefore = true;
+
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (this.running) {
+                    PGNotification[] received = notifications.getNotifications(this.pollMillis);
+                    if (received == null)
+                        continue;
+                    for (PGNotification notification : received)
+                        this.deliver(notification.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!this.running)
+                    break;
+                log.warn("listen - connection lost, reconnecting", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(this.pollMillis));
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            this.deliver(Invalidation.parse(payload));
+        } catch (IllegalArgumentException e) {
+            log.warn("deliver - ignoring notification {}", payload);
+        }
+    }
+
+    private void deliver(Invalidation invalidation) {
+        log.debug("deliver - invalidation={}", invalidation);
+        for (InvalidationListener listener : this.listeners) {
+            try {
+                listener.onInvalidation(invalidation);
+            } catch (RuntimeException e) {
+                log.error("deliver - listener failed on {}", invalidation, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ro.ubb.springjpa.service.reactive;
+
+import ro.ubb.springjpa.domain.model.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the catalog. Changes still go through BookService, which also records them in the outbox.
+ */
+public interface ReactiveBookService
+{
+    /**
+     * Streams all the books.
+     * @return the books, ordered by id
+     */
+    Flux<Book> getBookList();
+
+    /**
+     * Finds a book.
+     * @param id the id of the book
+     * @return the book, or an empty Mono if it does not exist
+     */
+    Mono<Book> findOne(int id);
+
+    /**
+     * Streams the books that contain the searchString in either the title, the author name or the publisher.
+     * @param searchString string used for filtering the books
+     * @return the matching books
+     */
+    Flux<Book> filter(String searchString);
+}
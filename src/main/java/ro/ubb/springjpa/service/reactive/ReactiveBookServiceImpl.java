@@ -0,0 +1,37 @@
+package ro.ubb.springjpa.service.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.repository.reactive.ReactiveBookRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    public static final Logger log = LoggerFactory.getLogger(ReactiveBookServiceImpl.class);
+
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    public Flux<Book> getBookList() {
+        log.trace("getBookList - method entered");
+        return this.bookRepository.findAll();
+    }
+
+    public Mono<Book> findOne(int id) {
+        log.trace("findOne - method entered: id={}", id);
+        return this.bookRepository.findById(id);
+    }
+
+    public Flux<Book> filter(String searchString) {
+        log.trace("filter (Book) - method entered: searchString={}", searchString);
+        return this.bookRepository.findAll()
+                .filter(book -> book.getTitle().contains(searchString) ||
+                        book.getAuthor().contains(searchString) ||
+                        book.getPublisher().contains(searchString));
+    }
+}
@@ -0,0 +1,31 @@
+package ro.ubb.springjpa.service.reactive;
+
+import ro.ubb.springjpa.domain.model.Client;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the clients. Changes still go through ClientService, which also records them in the outbox.
+ */
+public interface ReactiveClientService
+{
+    /**
+     * Streams all the clients.
+     * @return the clients, ordered by id
+     */
+    Flux<Client> getClientList();
+
+    /**
+     * Finds a client.
+     * @param id the id of the client
+     * @return the client, or an empty Mono if it does not exist
+     */
+    Mono<Client> findOne(int id);
+
+    /**
+     * Streams the clients that contain the searchString in one or more of their attributes.
+     * @param searchString string used for filtering the clients
+     * @return the matching clients
+     */
+    Flux<Client> filter(String searchString);
+}
@@ -0,0 +1,37 @@
+package ro.ubb.springjpa.service.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.repository.reactive.ReactiveClientRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveClientServiceImpl implements ReactiveClientService {
+
+    public static final Logger log = LoggerFactory.getLogger(ReactiveClientServiceImpl.class);
+
+    @Autowired
+    private ReactiveClientRepository clientRepository;
+
+    public Flux<Client> getClientList() {
+        log.trace("getClientList - method entered");
+        return this.clientRepository.findAll();
+    }
+
+    public Mono<Client> findOne(int id) {
+        log.trace("findOne - method entered: id={}", id);
+        return this.clientRepository.findById(id);
+    }
+
+    public Flux<Client> filter(String searchString) {
+        log.trace("filter (Client) - method entered: searchString={}", searchString);
+        return this.clientRepository.findAll()
+                .filter(client -> client.getFirstName().contains(searchString) ||
+                        client.getLastName().contains(searchString) ||
+                        client.getAddress().contains(searchString));
+    }
+}
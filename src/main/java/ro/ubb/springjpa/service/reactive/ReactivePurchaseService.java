@@ -0,0 +1,68 @@
+package ro.ubb.springjpa.service.reactive;
+
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking reads of the purchases and of the sales reports. Purchases are still added through PurchaseService,
+ * which keeps the sales rollup and the outbox in the same transaction.
+ */
+public interface ReactivePurchaseService
+{
+    /**
+     * Streams all the purchases.
+     * @return the purchases, ordered by id
+     */
+    Flux<Purchase> getPurchaseList();
+
+    /**
+     * Finds a purchase.
+     * @param id the id of the purchase
+     * @return the purchase, or an empty Mono if it does not exist
+     */
+    Mono<Purchase> findOne(int id);
+
+    /**
+     * Streams the purchases of a client.
+     * @param clientId the id of the client
+     * @return the purchases, ordered by date
+     */
+    Flux<Purchase> getPurchasesOfClient(int clientId);
+
+    /**
+     * Returns the total amount of money a client has spent on books.
+     * @param clientId the id of the client
+     * @return the money spent
+     */
+    Mono<Money> getMoneySpentForClient(int clientId);
+
+    /**
+     * Streams the 3 clients who spent the most money.
+     * @return pairs of client and money spent, in descending order of the money spent
+     */
+    Flux<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent();
+
+    /**
+     * Streams the units sold and the revenue of every library.
+     * @return the report rows, in descending order of the revenue
+     */
+    Flux<SalesReport> reportSalesPerLibrary();
+
+    /**
+     * Streams the units sold and the revenue of every author.
+     * @return the report rows, in descending order of the revenue
+     */
+    Flux<SalesReport> reportSalesPerAuthor();
+
+    /**
+     * Streams the units sold and the revenue of every publisher.
+     * @return the report rows, in descending order of the revenue
+     */
+    Flux<SalesReport> reportSalesPerPublisher();
+}
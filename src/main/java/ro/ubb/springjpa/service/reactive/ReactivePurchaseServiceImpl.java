@@ -0,0 +1,71 @@
+package ro.ubb.springjpa.service.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
+import ro.ubb.springjpa.repository.reactive.ReactiveClientRepository;
+import ro.ubb.springjpa.repository.reactive.ReactivePurchaseRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.AbstractMap;
+import java.util.Map;
+
+@Service
+public class ReactivePurchaseServiceImpl implements ReactivePurchaseService {
+
+    public static final Logger log = LoggerFactory.getLogger(ReactivePurchaseServiceImpl.class);
+
+    @Autowired
+    private ReactivePurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ReactiveClientRepository clientRepository;
+
+    public Flux<Purchase> getPurchaseList() {
+        log.trace("getPurchaseList - method entered");
+        return this.purchaseRepository.findAll();
+    }
+
+    public Mono<Purchase> findOne(int id) {
+        log.trace("findOne - method entered: id={}", id);
+        return this.purchaseRepository.findById(id);
+    }
+
+    public Flux<Purchase> getPurchasesOfClient(int clientId) {
+        log.trace("getPurchasesOfClient - method entered: clientId={}", clientId);
+        return this.purchaseRepository.findByClientId(clientId);
+    }
+
+    public Mono<Money> getMoneySpentForClient(int clientId) {
+        log.trace("getMoneySpentForClient - method entered: clientId={}", clientId);
+        return this.purchaseRepository.sumPriceCentsByClientId(clientId);
+    }
+
+    public Flux<Map.Entry<Client, Money>> reportTop3ClientsBasedOnMoneySpent() {
+        log.trace("reportTop3ClientsBasedOnMoneySpent - method entered");
+        return this.purchaseRepository.moneySpentPerClient(3)
+                .concatMap(spent -> this.clientRepository.findById(spent.getKey())
+                        .map(client -> new AbstractMap.SimpleImmutableEntry<>(client, spent.getValue())));
+    }
+
+    public Flux<SalesReport> reportSalesPerLibrary() {
+        log.trace("reportSalesPerLibrary - method entered");
+        return this.purchaseRepository.salesPerLibrary();
+    }
+
+    public Flux<SalesReport> reportSalesPerAuthor() {
+        log.trace("reportSalesPerAuthor - method entered");
+        return this.purchaseRepository.salesPerAuthor();
+    }
+
+    public Flux<SalesReport> reportSalesPerPublisher() {
+        log.trace("reportSalesPerPublisher - method entered");
+        return this.purchaseRepository.salesPerPublisher();
+    }
+}
@@ -0,0 +1,123 @@
+package ro.ubb.springjpa.service.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Count-Min sketch of the counts of keys. Uses depth rows of width counters whatever the number of keys;
+ * an estimate is never below the real count and exceeds it by at most e / width of the total with probability
+ * 1 - e^-depth.
+ */
+public final class CountMinSketch
+{
+    /** 8 MiB of counters */
+    private static final int MAX_COUNTERS = 1 << 20;
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    /**
+     * Instantiates a new CountMinSketch.
+     * @param width the number of counters of every row
+     * @param depth the number of rows, each with its own hash function
+     */
+    public CountMinSketch(int width, int depth)
+    {
+        if (width < 1 || depth < 1)
+            throw new IllegalArgumentException("Invalid dimensions: " + width + "x" + depth);
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Adds occurrences of a key.
+     * @param key the key
+     * @param count the number of occurrences
+     */
+    public void add(long key, long count)
+    {
+        for (int row = 0; row < this.depth; row++)
+            this.counters[row * this.width + this.column(key, row)] += count;
+        this.total += count;
+    }
+
+    /**
+     * Estimates the occurrences of a key.
+     * @param key the key
+     * @return the smallest counter of the key
+     */
+    public long estimate(long key)
+    {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++)
+            estimate = Math.min(estimate, this.counters[row * this.width + this.column(key, row)]);
+        return estimate;
+    }
+
+    /**
+     * Gets total.
+     * @return the occurrences of all the keys added
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Adds all the occurrences counted by another sketch. The occurrences are summed, so the sketches must count
+     * disjoint streams: an occurrence counted by both is counted twice.
+     * @param other a sketch with the same dimensions
+     */
+    public void merge(CountMinSketch other)
+    {
+        if (other.width != this.width || other.depth != this.depth)
+            throw new IllegalArgumentException("Cannot merge " + other.width + "x" + other.depth + " into " + this.width + "x" + this.depth);
+        for (int i = 0; i < this.counters.length; i++)
+            this.counters[i] += other.counters[i];
+        this.total += other.total;
+    }
+
+    /**
+     * Writes the sketch in the format read by readFrom: the width, the depth, the total, then the counters.
+     * @param output the output written to
+     */
+    public void writeTo(DataOutput output) throws IOException
+    {
+        output.writeInt(this.width);
+        output.writeInt(this.depth);
+        output.writeLong(this.total);
+        for (long counter : this.counters)
+            output.writeLong(counter);
+    }
+
+    /**
+     * Reads a sketch written by writeTo.
+     * @param input the input read from
+     * @return the sketch
+     * @throws IOException if the input cannot be read or does not hold a valid sketch
+     */
+    public static CountMinSketch readFrom(DataInput input) throws IOException
+    {
+        int width = input.readInt();
+        int depth = input.readInt();
+        if (width < 1 || depth < 1 || (long) width * depth > MAX_COUNTERS)
+            throw new IOException("Invalid dimensions: " + width + "x" + depth);
+        CountMinSketch read = new CountMinSketch(width, depth);
+        read.total = input.readLong();
+        for (int i = 0; i < read.counters.length; i++)
+        {
+            read.counters[i] = input.readLong();
+            if (read.counters[i] < 0 || read.counters[i] > read.total)
+                throw new IOException("Invalid counter: " + read.counters[i]);
+        }
+        return read;
+    }
+
+    private int column(long key, int row)
+    {
+        return (int) ((Hashing.hash(key, row + 1) >>> 1) % this.width);
+    }
+}
@@ -0,0 +1,26 @@
+package ro.ubb.springjpa.service.sketch;
+
+/**
+ * 64-bit hash of the keys counted by the sketches.
+ */
+final class Hashing
+{
+    private Hashing() {}
+
+    /**
+     * Hashes a key with the finalizer of MurmurHash3, which spreads every input bit over all the output bits.
+     * @param key the key
+     * @param seed selects one of a family of independent hash functions
+     * @return the hash
+     */
+    static long hash(long key, long seed)
+    {
+        long h = key ^ (seed * 0x9e3779b97f4a7c15L);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,113 @@
+package ro.ubb.springjpa.service.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog estimator of the number of distinct keys. Uses 2^precision one-byte registers whatever the number
+ * of keys added; the standard error of the estimate is about 1.04 / sqrt(2^precision).
+ */
+public final class HyperLogLog
+{
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Instantiates a new HyperLogLog.
+     * @param precision the number of bits selecting a register, between 4 and 18
+     */
+    public HyperLogLog(int precision)
+    {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("Precision out of range: " + precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Gets precision.
+     * @return the number of bits selecting a register
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds a key.
+     * @param key the key
+     */
+    public void add(long key)
+    {
+        long hash = Hashing.hash(key, 0);
+        int register = (int) (hash >>> (64 - this.precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << this.precision) | (1L << (this.precision - 1))) + 1);
+        if (rank > this.registers[register])
+            this.registers[register] = rank;
+    }
+
+    /**
+     * Estimates the number of distinct keys added, with the linear counting correction for small cardinalities.
+     * @return the estimate
+     */
+    public long estimate()
+    {
+        int m = this.registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : this.registers)
+        {
+            sum += 1.0 / (1L << register);
+            if (register == 0)
+                zeros++;
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0)
+            estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds all the keys of another estimator, as if they had been added to this one. A key added to both
+     * is counted once.
+     * @param other an estimator with the same precision
+     */
+    public void merge(HyperLogLog other)
+    {
+        if (other.precision != this.precision)
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + this.precision);
+        for (int i = 0; i < this.registers.length; i++)
+            if (other.registers[i] > this.registers[i])
+                this.registers[i] = other.registers[i];
+    }
+
+    /**
+     * Writes the estimator in the format read by readFrom: the precision, then the registers.
+     * @param output the output written to
+     */
+    public void writeTo(DataOutput output) throws IOException
+    {
+        output.writeByte(this.precision);
+        output.write(this.registers);
+    }
+
+    /**
+     * Reads an estimator written by writeTo.
+     * @param input the input read from
+     * @return the estimator
+     * @throws IOException if the input cannot be read or does not hold a valid estimator
+     */
+    public static HyperLogLog readFrom(DataInput input) throws IOException
+    {
+        int precision = input.readUnsignedByte();
+        if (precision < 4 || precision > 18)
+            throw new IOException("Invalid precision: " + precision);
+        HyperLogLog read = new HyperLogLog(precision);
+        input.readFully(read.registers);
+        for (byte register : read.registers)
+            if (register < 0 || register > 65 - precision)
+                throw new IOException("Invalid register: " + register);
+        return read;
+    }
+}
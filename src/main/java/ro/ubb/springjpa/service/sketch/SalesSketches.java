@@ -0,0 +1,226 @@
+package ro.ubb.springjpa.service.sketch;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sketches maintained on every purchase: distinct clients per book and per library, and the sales per book.
+ * Their size depends on the number of books and libraries but not on the number of purchases. Sketches of disjoint
+ * sets of purchases are merged into the sales of all of them.
+ */
+public final class SalesSketches
+{
+    /** "SKCH", the first bytes of a sketches file */
+    private static final int MAGIC = 0x534b4348;
+    private static final int FORMAT_VERSION = 1;
+
+    /** 1 KiB per book, 3.3% standard error */
+    private static final int BOOK_PRECISION = 10;
+    /** 16 KiB per library, 0.8% standard error */
+    private static final int LIBRARY_PRECISION = 14;
+    private static final int SALES_WIDTH = 4096;
+    private static final int SALES_DEPTH = 5;
+    private static final int BESTSELLERS = 256;
+
+    private final Int2ObjectOpenHashMap<HyperLogLog> clientsPerBook = new Int2ObjectOpenHashMap<>();
+    private final Map<String, HyperLogLog> clientsPerLibrary = new HashMap<>();
+    private final CountMinSketch salesPerBook = new CountMinSketch(SALES_WIDTH, SALES_DEPTH);
+    private final SpaceSaving bestsellers = new SpaceSaving(BESTSELLERS);
+
+    /**
+     * Adds a purchase.
+     * @param clientId the id of the client
+     * @param bookId the id of the book
+     * @param library the library the book was bought from
+     */
+    public synchronized void add(int clientId, int bookId, String library)
+    {
+        HyperLogLog bookClients = this.clientsPerBook.get(bookId);
+        if (bookClients == null)
+        {
+            bookClients = new HyperLogLog(BOOK_PRECISION);
+            this.clientsPerBook.put(bookId, bookClients);
+        }
+        bookClients.add(clientId);
+        this.clientsPerLibrary.computeIfAbsent(library, key -> new HyperLogLog(LIBRARY_PRECISION)).add(clientId);
+        this.salesPerBook.add(bookId, 1);
+        this.bestsellers.add(bookId, 1);
+    }
+
+    /**
+     * Estimates the number of distinct clients who bought a book.
+     * @param bookId the id of the book
+     * @return the estimate
+     */
+    public synchronized long distinctClients(int bookId)
+    {
+        HyperLogLog bookClients = this.clientsPerBook.get(bookId);
+        return bookClients == null ? 0 : bookClients.estimate();
+    }
+
+    /**
+     * Estimates the number of distinct clients who bought from a library.
+     * @param library the name of the library
+     * @return the estimate
+     */
+    public synchronized long distinctClients(String library)
+    {
+        HyperLogLog libraryClients = this.clientsPerLibrary.get(library);
+        return libraryClients == null ? 0 : libraryClients.estimate();
+    }
+
+    /**
+     * Estimates the sales of a book.
+     * @param bookId the id of the book
+     * @return the estimate, never below the real sales
+     */
+    public synchronized long sales(int bookId)
+    {
+        return this.salesPerBook.estimate(bookId);
+    }
+
+    /**
+     * Returns the books which sold the most. Both the heavy-hitters summary and the Count-Min sketch overestimate
+     * the sales, so the smaller of the two is reported.
+     * @param k maximum number of books, at most 256
+     * @return a list of (book id, estimated sales) entries, in descending order of the sales
+     */
+    public synchronized List<Map.Entry<Integer, Long>> bestsellers(int k)
+    {
+        List<Map.Entry<Integer, Long>> bestsellers = this.bestsellers.top(BESTSELLERS);
+        bestsellers.replaceAll(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                Math.min(entry.getValue(), this.salesPerBook.estimate(entry.getKey()))));
+        bestsellers.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+        return bestsellers.subList(0, Math.min(Math.max(k, 0), bestsellers.size()));
+    }
+
+    /**
+     * Adds the purchases counted by other sketches. The sales are summed, so the other sketches must count other
+     * purchases than these ones, like the purchases of another period or those committed while these were built:
+     * a purchase counted by both is counted twice.
+     * @param other sketches of a disjoint set of purchases
+     */
+    public synchronized void merge(SalesSketches other)
+    {
+        synchronized (other)
+        {
+            for (Int2ObjectMap.Entry<HyperLogLog> entry : other.clientsPerBook.int2ObjectEntrySet())
+            {
+                HyperLogLog bookClients = this.clientsPerBook.get(entry.getIntKey());
+                if (bookClients == null)
+                {
+                    bookClients = new HyperLogLog(BOOK_PRECISION);
+                    this.clientsPerBook.put(entry.getIntKey(), bookClients);
+                }
+                bookClients.merge(entry.getValue());
+            }
+            other.clientsPerLibrary.forEach((library, libraryClients) ->
+                    this.clientsPerLibrary.computeIfAbsent(library, key -> new HyperLogLog(LIBRARY_PRECISION)).merge(libraryClients));
+            this.salesPerBook.merge(other.salesPerBook);
+            this.bestsellers.merge(other.bestsellers);
+        }
+    }
+
+    /**
+     * Saves the sketches to a file, in a binary format holding nothing but the sketches. The file is written next to
+     * the target and moved over it, so a crash never leaves a truncated file behind.
+     * @param file the file written
+     */
+    public synchronized void writeTo(Path file) throws IOException
+    {
+        if (file.toAbsolutePath().getParent() != null)
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(this.clientsPerBook.size());
+            for (Int2ObjectMap.Entry<HyperLogLog> entry : this.clientsPerBook.int2ObjectEntrySet())
+            {
+                output.writeInt(entry.getIntKey());
+                entry.getValue().writeTo(output);
+            }
+            output.writeInt(this.clientsPerLibrary.size());
+            for (Map.Entry<String, HyperLogLog> entry : this.clientsPerLibrary.entrySet())
+            {
+                output.writeBoolean(entry.getKey() != null);
+                if (entry.getKey() != null)
+                    output.writeUTF(entry.getKey());
+                entry.getValue().writeTo(output);
+            }
+            this.salesPerBook.writeTo(output);
+            this.bestsellers.writeTo(output);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads sketches saved by writeTo. The file is only read as numbers and names, checked against the dimensions
+     * of the sketches, so a corrupt or foreign file is rejected rather than trusted.
+     * @param file the file read
+     * @return the sketches
+     * @throws IOException if the file cannot be read or is not a sketches file of this version
+     */
+    public static SalesSketches readFrom(Path file) throws IOException
+    {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC)
+                throw new IOException("Not a sketches file: " + file);
+            int version = input.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported sketches file version " + version + ": " + file);
+            SalesSketches read = new SalesSketches();
+            int books = count(input);
+            for (int i = 0; i < books; i++)
+            {
+                int bookId = input.readInt();
+                if (read.clientsPerBook.put(bookId, precision(HyperLogLog.readFrom(input), BOOK_PRECISION)) != null)
+                    throw new IOException("Duplicate book: " + bookId);
+            }
+            int libraries = count(input);
+            for (int i = 0; i < libraries; i++)
+            {
+                String library = input.readBoolean() ? input.readUTF() : null;
+                if (read.clientsPerLibrary.containsKey(library))
+                    throw new IOException("Duplicate library: " + library);
+                read.clientsPerLibrary.put(library, precision(HyperLogLog.readFrom(input), LIBRARY_PRECISION));
+            }
+            read.salesPerBook.merge(CountMinSketch.readFrom(input));
+            read.bestsellers.merge(SpaceSaving.readFrom(input));
+            if (input.read() != -1)
+                throw new IOException("Unexpected data after the sketches: " + file);
+            return read;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid sketches file: " + file, e);
+        }
+    }
+
+    private static int count(DataInput input) throws IOException
+    {
+        int count = input.readInt();
+        if (count < 0)
+            throw new IOException("Invalid count: " + count);
+        return count;
+    }
+
+    private static HyperLogLog precision(HyperLogLog read, int precision) throws IOException
+    {
+        if (read.getPrecision() != precision)
+            throw new IOException("Invalid precision: " + read.getPrecision() + ", expected " + precision);
+        return read;
+    }
+}
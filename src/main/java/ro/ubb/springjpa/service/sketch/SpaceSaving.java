@@ -0,0 +1,182 @@
+package ro.ubb.springjpa.service.sketch;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving summary of the most frequent keys. Monitors at most capacity keys: a new key replaces the least
+ * counted one and inherits its count as error, so every key occurring more than total / capacity times is monitored
+ * and its count is overestimated by at most its error.
+ */
+public final class SpaceSaving
+{
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    private final int capacity;
+    private final Int2LongOpenHashMap counts;
+    private final Int2LongOpenHashMap errors;
+
+    /**
+     * Instantiates a new SpaceSaving.
+     * @param capacity the maximum number of keys monitored
+     */
+    public SpaceSaving(int capacity)
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        this.capacity = capacity;
+        this.counts = new Int2LongOpenHashMap(capacity);
+        this.errors = new Int2LongOpenHashMap(capacity);
+    }
+
+    /**
+     * Adds occurrences of a key.
+     * @param key the key
+     * @param count the number of occurrences
+     */
+    public void add(int key, long count)
+    {
+        if (this.counts.containsKey(key) || this.counts.size() < this.capacity)
+        {
+            this.counts.addTo(key, count);
+            return;
+        }
+        int minimum = this.minimumKey();
+        long inherited = this.counts.remove(minimum);
+        this.errors.remove(minimum);
+        this.counts.put(key, inherited + count);
+        this.errors.put(key, inherited);
+    }
+
+    /**
+     * Returns the keys with the highest counts.
+     * @param k maximum number of keys
+     * @return a list of (key, count) entries, in descending order of the count
+     */
+    public List<Map.Entry<Integer, Long>> top(int k)
+    {
+        List<Map.Entry<Integer, Long>> top = new ArrayList<>(this.counts.size());
+        for (Int2LongMap.Entry entry : this.counts.int2LongEntrySet())
+            top.add(new AbstractMap.SimpleImmutableEntry<>(entry.getIntKey(), entry.getLongValue()));
+        top.sort(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder()));
+        return top.subList(0, Math.min(Math.max(k, 0), top.size()));
+    }
+
+    /**
+     * Gets the error of a key.
+     * @param key the key
+     * @return by how much the count of the key may be overestimated
+     */
+    public long error(int key)
+    {
+        return this.errors.get(key);
+    }
+
+    /**
+     * Adds the keys monitored by another summary. A key missing from a full summary may have occurred up to its
+     * smallest count, which is added to the count and to the error of the key; the keys with the highest merged
+     * counts are kept. The counts are summed, so the summaries must count disjoint streams.
+     * @param other a summary with the same capacity
+     */
+    public void merge(SpaceSaving other)
+    {
+        if (other.capacity != this.capacity)
+            throw new IllegalArgumentException("Cannot merge capacity " + other.capacity + " into " + this.capacity);
+        long thisMinimum = this.counts.size() < this.capacity ? 0 : this.counts.get(this.minimumKey());
+        long otherMinimum = other.counts.size() < other.capacity ? 0 : other.counts.get(other.minimumKey());
+
+        IntOpenHashSet keys = new IntOpenHashSet(this.counts.size() + other.counts.size());
+        keys.addAll(this.counts.keySet());
+        keys.addAll(other.counts.keySet());
+        Int2LongOpenHashMap mergedCounts = new Int2LongOpenHashMap(keys.size());
+        Int2LongOpenHashMap mergedErrors = new Int2LongOpenHashMap(keys.size());
+        for (int key : keys.toIntArray())
+        {
+            boolean inThis = this.counts.containsKey(key);
+            boolean inOther = other.counts.containsKey(key);
+            mergedCounts.put(key, (inThis ? this.counts.get(key) : thisMinimum) + (inOther ? other.counts.get(key) : otherMinimum));
+            mergedErrors.put(key, (inThis ? this.errors.get(key) : thisMinimum) + (inOther ? other.errors.get(key) : otherMinimum));
+        }
+
+        List<Integer> ordered = new ArrayList<>(keys);
+        ordered.sort(Comparator.comparingLong((Integer key) -> mergedCounts.get(key.intValue())).reversed());
+        this.counts.clear();
+        this.errors.clear();
+        for (int key : ordered.subList(0, Math.min(this.capacity, ordered.size())))
+        {
+            this.counts.put(key, mergedCounts.get(key));
+            this.errors.put(key, mergedErrors.get(key));
+        }
+    }
+
+    /**
+     * Writes the summary in the format read by readFrom: the capacity, the number of keys, then the key, count
+     * and error of every key.
+     * @param output the output written to
+     */
+    public void writeTo(DataOutput output) throws IOException
+    {
+        output.writeInt(this.capacity);
+        output.writeInt(this.counts.size());
+        for (Int2LongMap.Entry entry : this.counts.int2LongEntrySet())
+        {
+            output.writeInt(entry.getIntKey());
+            output.writeLong(entry.getLongValue());
+            output.writeLong(this.errors.get(entry.getIntKey()));
+        }
+    }
+
+    /**
+     * Reads a summary written by writeTo.
+     * @param input the input read from
+     * @return the summary
+     * @throws IOException if the input cannot be read or does not hold a valid summary
+     */
+    public static SpaceSaving readFrom(DataInput input) throws IOException
+    {
+        int capacity = input.readInt();
+        if (capacity < 1 || capacity > MAX_CAPACITY)
+            throw new IOException("Invalid capacity: " + capacity);
+        int size = input.readInt();
+        if (size < 0 || size > capacity)
+            throw new IOException("Invalid number of keys: " + size);
+        SpaceSaving read = new SpaceSaving(capacity);
+        for (int i = 0; i < size; i++)
+        {
+            int key = input.readInt();
+            long count = input.readLong();
+            long error = input.readLong();
+            if (error < 0 || count < error || read.counts.containsKey(key))
+                throw new IOException("Invalid key " + key + ": count " + count + ", error " + error);
+            read.counts.put(key, count);
+            if (error > 0)
+                read.errors.put(key, error);
+        }
+        return read;
+    }
+
+    private int minimumKey()
+    {
+        int minimum = 0;
+        long minimumCount = Long.MAX_VALUE;
+        for (Int2LongMap.Entry entry : this.counts.int2LongEntrySet())
+        {
+            if (entry.getLongValue() < minimumCount)
+            {
+                minimum = entry.getIntKey();
+                minimumCount = entry.getLongValue();
+            }
+        }
+        return minimum;
+    }
+}
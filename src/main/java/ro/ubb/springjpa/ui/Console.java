@@ -1,20 +1,41 @@
 package ro.ubb.springjpa.ui;
 
+import io.r2dbc.spi.R2dbcException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import ro.ubb.springjpa.repository.BulkTable;
+import ro.ubb.springjpa.repository.CopyFormat;
 import ro.ubb.springjpa.service.*;
+import ro.ubb.springjpa.service.reactive.ReactiveBookService;
+import ro.ubb.springjpa.service.reactive.ReactiveClientService;
+import ro.ubb.springjpa.service.reactive.ReactivePurchaseService;
+import ro.ubb.springjpa.domain.catalog.CatalogPage;
+import ro.ubb.springjpa.domain.catalog.CatalogQuery;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
 import ro.ubb.springjpa.domain.model.Book;
 import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
 import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReport;
+import ro.ubb.springjpa.domain.report.SalesReportType;
 import ro.ubb.springjpa.domain.validators.BookstoreException;
 import ro.ubb.springjpa.domain.validators.ValidatorException;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * The type Console.
@@ -31,6 +52,33 @@ public class Console
     @Autowired
     private PurchaseService purchaseService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private SketchAnalyticsService sketchAnalyticsService;
+
+    @Autowired
+    private PurchaseAnalyticsService purchaseAnalyticsService;
+
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private ReactiveBookService reactiveBookService;
+
+    @Autowired
+    private ReactiveClientService reactiveClientService;
+
+    @Autowired
+    private ReactivePurchaseService reactivePurchaseService;
+
     /**
      * Run the program
      */
@@ -54,7 +102,22 @@ public class Console
                         "13. Delete purchase\n" +
                         "14. Get purchases.\n" +
                         "15. Get top 3 clients based on amount of money spent.\n" +
-                        "16. Get top 3 best-selling books.\n";
+                        "16. Get top 3 best-selling books.\n" +
+                        "17. Get sales per library.\n" +
+                        "18. Get sales per day.\n" +
+                        "19. Get sales per month.\n" +
+                        "20. Get sales per author.\n" +
+                        "21. Get sales per publisher.\n" +
+                        "22. Get sales reports for a period.\n" +
+                        "23. Export to file.\n" +
+                        "24. Get books bought together with a book.\n" +
+                        "25. Get approximate top 3 best-selling books.\n" +
+                        "26. Autocomplete titles, authors and client last names.\n" +
+                        "27. Browse the catalog.\n" +
+                        "28. Restock book.\n" +
+                        "29. Bulk export a table.\n" +
+                        "30. Bulk import a table.\n" +
+                        "31. Get revenue per library from the analytics snapshot.\n";
                 System.out.println(textMenu);
                 BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
                 String choice = reader.readLine();
@@ -125,17 +188,313 @@ public class Console
                         this.getTop3BestSellingBooks();
                         break;
                     }
+                    case("17"): {
+                        this.printSalesReport("library", this.purchaseService.reportSalesPerLibrary());
+                        break;
+                    }
+                    case("18"): {
+                        this.printSalesReport("day", this.purchaseService.reportSalesPerDay());
+                        break;
+                    }
+                    case("19"): {
+                        this.printSalesReport("month", this.purchaseService.reportSalesPerMonth());
+                        break;
+                    }
+                    case("20"): {
+                        this.printSalesReport("author", this.purchaseService.reportSalesPerAuthor());
+                        break;
+                    }
+                    case("21"): {
+                        this.printSalesReport("publisher", this.purchaseService.reportSalesPerPublisher());
+                        break;
+                    }
+                    case("22"): {
+                        this.getSalesReportsForPeriod();
+                        break;
+                    }
+                    case("23"): {
+                        this.export();
+                        break;
+                    }
+                    case("24"): {
+                        this.getRelatedBooks();
+                        break;
+                    }
+                    case("25"): {
+                        this.getApproximateTop3BestSellingBooks();
+                        break;
+                    }
+                    case("26"): {
+                        this.autocomplete();
+                        break;
+                    }
+                    case("27"): {
+                        this.browseCatalog();
+                        break;
+                    }
+                    case("28"): {
+                        this.restockBook();
+                        break;
+                    }
+                    case("29"): {
+                        this.bulkExport();
+                        break;
+                    }
+                    case("30"): {
+                        this.bulkImport();
+                        break;
+                    }
+                    case("31"): {
+                        this.getSnapshotRevenuePerLibrary();
+                        break;
+                    }
                     default:
                         System.out.println("Not a valid choice!\n");
                 }
             }
-            catch(IOException | BookstoreException | ValidatorException | NumberFormatException | NullPointerException | SQLException exception)
+            catch(IOException | BookstoreException | ValidatorException | NumberFormatException | NullPointerException | SQLException | DateTimeParseException | R2dbcException exception)
             {
                 System.out.println(exception.toString());
             }
         }
     }
 
+    /**
+     * Reads a table, a format and a file from the keyboard and copies the table to the file.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     * @throws BookstoreException if the export fails
+     */
+    private void bulkExport() throws IOException, BookstoreException {
+        System.out.println("Table{book, client or purchase} Format{csv or binary} File{path, compressed if it ends in .gz}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String table = reader.readLine().trim().toUpperCase();
+        String format = reader.readLine().trim().toUpperCase();
+        Path file = Paths.get(reader.readLine().trim());
+
+        try {
+            long rows = this.bulkTransferService.export(BulkTable.valueOf(table), file, CopyFormat.valueOf(format));
+            System.out.println(rows + " rows written to " + file + "\n");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Not a valid table or format!\n");
+        }
+    }
+
+    /**
+     * Reads a table, a format and a file from the keyboard and copies the file into the table,
+     * overwriting the rows with the same id.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     * @throws BookstoreException if the import fails
+     */
+    private void bulkImport() throws IOException, BookstoreException {
+        System.out.println("Table{book, client or purchase} Format{csv or binary} File{path, compressed if it ends in .gz}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String table = reader.readLine().trim().toUpperCase();
+        String format = reader.readLine().trim().toUpperCase();
+        Path file = Paths.get(reader.readLine().trim());
+
+        try {
+            long rows = this.bulkTransferService.importFile(BulkTable.valueOf(table), file, CopyFormat.valueOf(format));
+            System.out.println(rows + " rows read from " + file + "\n");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Not a valid table or format!\n");
+        }
+    }
+
+    /**
+     * Reads a book id, a library (empty for none) and a quantity from the keyboard and adds the copies to the stock.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     */
+    private void restockBook() throws IOException, BookstoreException {
+        System.out.println("Stock{bookId, library, quantity}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        int bookId = Integer.parseInt(reader.readLine());
+        String library = reader.readLine().trim();
+        int quantity = Integer.parseInt(reader.readLine());
+
+        this.bookService.restock(bookId, library.isEmpty() ? null : library, quantity);
+    }
+
+    /**
+     * Reads the catalog filters from the keyboard, empty lines meaning no filter, and prints the matching books
+     * page by page together with the publisher and author facets.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     */
+    private void browseCatalog() throws IOException, BookstoreException {
+        System.out.println("Price{min, max} Year{from, to} Publisher Author " +
+                "Sort{price_asc, price_desc, year_asc, year_desc or title} (empty for any)");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        CatalogQuery query = new CatalogQuery();
+        String line;
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setMinPrice(Money.parse(line));
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setMaxPrice(Money.parse(line));
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setFromYear(Integer.parseInt(line));
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setToYear(Integer.parseInt(line));
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setPublisher(line);
+        if (!(line = reader.readLine().trim()).isEmpty())
+            query.setAuthor(line);
+        if (!(line = reader.readLine().trim()).isEmpty()) {
+            try {
+                query.setSort(CatalogSort.valueOf(line.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Not a valid order!\n");
+                return;
+            }
+        }
+
+        while (true) {
+            CatalogPage page = this.bookService.browse(query);
+            page.getBooks().forEach(book -> System.out.println(book.toString()));
+            System.out.println("Publishers: " + page.getPublishers());
+            System.out.println("Authors: " + page.getAuthors());
+            if (page.getNextKey() == null) {
+                System.out.println("No more books.\n");
+                return;
+            }
+            System.out.println("Next page? (y/n)");
+            if (!"y".equalsIgnoreCase(reader.readLine().trim())) {
+                System.out.println();
+                return;
+            }
+            query.setAfter(page.getNextKey());
+        }
+    }
+
+    /**
+     * Reads a prefix from the keyboard and prints the most popular titles, authors and client last names starting with it.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     * @throws BookstoreException if the suggestions are still being built
+     */
+    private void autocomplete() throws IOException, BookstoreException {
+        System.out.println("Prefix{string}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String prefix = reader.readLine();
+
+        System.out.println("Titles: " + this.typeaheadService.suggestTitles(prefix, 5).stream().map(Suggestion::getText).collect(Collectors.toList()));
+        System.out.println("Authors: " + this.typeaheadService.suggestAuthors(prefix, 5).stream().map(Suggestion::getText).collect(Collectors.toList()));
+        System.out.println("Client last names: " + this.typeaheadService.suggestClientLastNames(prefix, 5).stream().map(Suggestion::getText).collect(Collectors.toList()));
+        System.out.println();
+    }
+
+    /**
+     * Reads a book id from the keyboard and prints the 5 books bought most often by the clients who bought it.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     */
+    private void getRelatedBooks() throws IOException, BookstoreException {
+        System.out.println("Book{id}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        int id = Integer.parseInt(reader.readLine());
+
+        System.out.println("Clients who bought this book also bought:");
+        List<Map.Entry<Integer, Integer>> related = this.recommendationService.getRelatedBooks(id, 5);
+        if (related.isEmpty())
+            System.out.println("No result!");
+        for (Map.Entry<Integer, Integer> entry : related) {
+            Optional<Book> book = this.bookService.findOne(entry.getKey());
+            System.out.println((book.isPresent() ? book.get().toString() : "Book " + entry.getKey()) + " - bought by " + entry.getValue() + " of them.");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Reads from the keyboard what to export and where, and writes it to the file.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     * @throws BookstoreException if the export fails
+     */
+    private void export() throws IOException, BookstoreException {
+        System.out.println("Export{books, clients, purchases, library, day, month, author or publisher} " +
+                "Format{csv or jsonl} File{path, compressed if it ends in .gz}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String what = reader.readLine().trim().toUpperCase();
+        String format = reader.readLine().trim().toUpperCase();
+        Path file = Paths.get(reader.readLine().trim());
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Not a valid format!\n");
+            return;
+        }
+
+        long rows;
+        switch (what) {
+            case "BOOKS":
+                rows = this.exportService.exportBooks(file, exportFormat);
+                break;
+            case "CLIENTS":
+                rows = this.exportService.exportClients(file, exportFormat);
+                break;
+            case "PURCHASES":
+                rows = this.exportService.exportPurchases(file, exportFormat);
+                break;
+            default:
+                SalesReportType report;
+                try {
+                    report = SalesReportType.valueOf(what);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Nothing to export named " + what.toLowerCase() + "!\n");
+                    return;
+                }
+                rows = this.exportService.exportReport(report, file, exportFormat);
+        }
+        System.out.println(rows + " rows written to " + file + "\n");
+    }
+
+    /**
+     * Reads a period from the keyboard and prints the sales reports of that period.
+     * @throws IOException if there is an error concerning the reading of data from the console
+     */
+    private void getSalesReportsForPeriod() throws IOException, BookstoreException {
+        System.out.println("Period{from (yyyy-mm-dd), to (yyyy-mm-dd)}");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        LocalDate from = LocalDate.parse(reader.readLine());
+        LocalDate to = LocalDate.parse(reader.readLine());
+
+        System.out.println("Top 3 clients ordered based on amount of money spent:");
+        AtomicInteger clientRank = new AtomicInteger(1);
+        this.purchaseService.reportTop3ClientsBasedOnMoneySpent(from, to).forEach(entry ->
+                System.out.println(clientRank.getAndIncrement() + ". " + entry.getKey().toString() + " spent " + entry.getValue().toString()));
+
+        System.out.println("Top 3 books ordered based on sales:");
+        AtomicInteger bookRank = new AtomicInteger(1);
+        this.purchaseService.reportTop3BestSellingBooks(from, to).forEach(entry ->
+                System.out.println(bookRank.getAndIncrement() + ". " + entry.getKey().toString() + " sold " + entry.getValue().toString() + " times."));
+        System.out.println();
+
+        this.printSalesReport("library", this.purchaseService.reportSalesPerLibrary(from, to));
+        this.printSalesReport("author", this.purchaseService.reportSalesPerAuthor(from, to));
+        this.printSalesReport("publisher", this.purchaseService.reportSalesPerPublisher(from, to));
+    }
+
+    /**
+     * Prints on the screen a grouped sales report.
+     * @param groupName what the sales are grouped by
+     * @param reports the rows of the report
+     */
+    private void printSalesReport(String groupName, List<SalesReport> reports) {
+        System.out.println("Sales per " + groupName + ":");
+
+        if (reports.size() != 0)
+            reports.forEach(report -> System.out.println(report.getGroup() + ": " + report.getUnits() + " books sold, revenue " + report.getRevenue()));
+        else
+            System.out.println("No result!");
+
+        System.out.println();
+    }
+
     /**
      * Prints on the screen the top 3 books ordered based sales.
      */
@@ -151,6 +510,40 @@ public class Console
         System.out.println();
     }
 
+    /**
+     * Prints on the screen the top 3 books ordered based on the sales estimated by the sketches,
+     * together with the estimated number of distinct buyers.
+     */
+    private void getApproximateTop3BestSellingBooks() throws BookstoreException {
+        System.out.println("Top 3 books ordered based on estimated sales:");
+
+        AtomicInteger rank = new AtomicInteger(1);
+        for (Map.Entry<Integer, Long> entry : this.sketchAnalyticsService.getBestSellingBooks(3)) {
+            Optional<Book> book = this.bookService.findOne(entry.getKey());
+            System.out.println(rank.getAndIncrement() + ". " + (book.isPresent() ? book.get().toString() : "Book " + entry.getKey()) +
+                    " sold about " + entry.getValue() + " times to about " + this.sketchAnalyticsService.getDistinctClients(entry.getKey()) + " clients.");
+        }
+
+        System.out.println();
+    }
+
+    /**
+     * Prints on the screen the revenue of every library, computed from the analytics snapshot.
+     */
+    private void getSnapshotRevenuePerLibrary() throws BookstoreException {
+        System.out.println("Revenue per library as of " + Instant.ofEpochMilli(this.purchaseAnalyticsService.getSnapshotTime()) + ":");
+
+        Map<String, Money> revenuePerLibrary = this.purchaseAnalyticsService.getRevenuePerLibrary();
+        if (revenuePerLibrary.size() != 0)
+            revenuePerLibrary.entrySet().stream()
+                    .sorted(Map.Entry.<String, Money>comparingByValue().reversed())
+                    .forEach(entry -> System.out.println(entry.getKey() + ": revenue " + entry.getValue()));
+        else
+            System.out.println("No result!");
+
+        System.out.println();
+    }
+
     /**
      * Prints on the screen the top 3 clients ordered based on money spent.
      */
@@ -167,11 +560,10 @@ public class Console
     }
 
     /**
-     * Prints on the screen all the purchases.
+     * Prints on the screen all the purchases, as they are read from the database.
      */
-    private void getPurchases() throws BookstoreException {
-        Set<Purchase> allPurchases = this.purchaseService.getPurchaseList();
-        allPurchases.forEach(System.out::println);
+    private void getPurchases() {
+        this.reactivePurchaseService.getPurchaseList().doOnNext(System.out::println).blockLast();
     }
 
     /**
@@ -206,7 +598,7 @@ public class Console
         String author = reader.readLine();
         String publisher = reader.readLine();
         int publicationYear = Integer.parseInt(reader.readLine());
-        float price = Float.parseFloat(reader.readLine());
+        Money price = Money.parse(reader.readLine());
 
         Book newBook = new Book(title, author, publisher, publicationYear, price);
         newBook.setId(id);
@@ -284,19 +676,17 @@ public class Console
     }
 
     /**
-     * Lists all books stored by the program
+     * Lists all books stored by the program, as they are read from the database
      */
-    private void listAllBooks() throws BookstoreException {
-        Set<Book> allBooks = this.bookService.getBookList();
-        allBooks.forEach(System.out::println);
+    private void listAllBooks() {
+        this.reactiveBookService.getBookList().doOnNext(System.out::println).blockLast();
     }
 
     /**
-     * Lists all clients stored by the program
+     * Lists all clients stored by the program, as they are read from the database
      */
-    private void listAllClients() throws BookstoreException {
-        Set<Client> allClient = this.clientService.getClientList();
-        allClient.forEach(System.out::println);
+    private void listAllClients() {
+        this.reactiveClientService.getClientList().doOnNext(System.out::println).blockLast();
     }
 
     /**
@@ -314,7 +704,7 @@ public class Console
         String author = reader.readLine();
         String publisher = reader.readLine();
         int publicationYear = Integer.parseInt(reader.readLine());
-        float price = Float.parseFloat(reader.readLine());
+        Money price = Money.parse(reader.readLine());
 
         Book newBook = new Book(title, author, publisher, publicationYear, price);
         newBook.setId(id);
@@ -350,14 +740,17 @@ public class Console
      * @throws BookstoreException
      */
     private void purchaseBook() throws IOException, BookstoreException, ValidatorException, SQLException {
-        System.out.println("Client{id} Book{id} Purchase{library}");
+        System.out.println("Client{id} Book{id} Purchase{library, key (empty for none)}");
 
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
         int idClient = Integer.parseInt(reader.readLine());
         int idBook = Integer.parseInt(reader.readLine());
         String library = reader.readLine();
+        String key = reader.readLine().trim();
 
         Purchase newPurchase = new Purchase(idClient, idBook, library);
+        if (!key.isEmpty())
+            newPurchase.setPurchaseKey(key);
 
         this.purchaseService.add(newPurchase);
     }
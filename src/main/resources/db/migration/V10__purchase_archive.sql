@@ -0,0 +1,9 @@
+-- Months of purchases archived to files by the PurchasePartitionMaintenance. Their purchases are no longer in the
+-- database, so the rebuild of the sales rollup keeps the rollup rows of these months instead of recomputing them.
+
+create table purchasearchive (
+    month      date         not null primary key,
+    file       varchar(1024) not null,
+    rowscount  bigint       not null,
+    archivedat timestamp    not null
+);
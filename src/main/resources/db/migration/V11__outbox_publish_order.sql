@@ -0,0 +1,7 @@
+-- Outbox ids are taken before the commit, so a transaction committing late can hold a lower id than events already
+-- published. The relay numbers the events from this sequence when it publishes them instead, in the order it sees
+-- them committed, and the consumers receive them in that order.
+
+create sequence outboxpublishorder;
+
+alter table outboxevent add column publishorder bigint;
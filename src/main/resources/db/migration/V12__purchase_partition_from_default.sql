@@ -0,0 +1,24 @@
+-- A partition cannot be created while the default partition holds rows of its month, which happens to purchases
+-- written before the partition of their month existed. The rows of the month are moved out of the default partition
+-- into the new one, in the transaction creating it.
+
+create or replace function create_purchase_partition(month date) returns text
+    language plpgsql as $$
+declare
+    partition_name text  := 'purchase_' || to_char(month, 'YYYY_MM');
+    month_start timestamp := date_trunc('month', month);
+    month_end timestamp   := date_trunc('month', month) + interval '1 month';
+begin
+    if to_regclass(partition_name) is not null then
+        return partition_name;
+    end if;
+
+    create temporary table purchase_moved as
+        select * from purchase_default where purchasedate >= month_start and purchasedate < month_end;
+    delete from purchase_default where purchasedate >= month_start and purchasedate < month_end;
+    execute format('create table %I partition of purchase for values from (%L) to (%L)',
+                   partition_name, month_start, month_end);
+    insert into purchase select * from purchase_moved;
+    drop table purchase_moved;
+    return partition_name;
+end $$;
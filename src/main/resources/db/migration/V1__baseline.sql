@@ -0,0 +1,37 @@
+-- Baseline schema, matching the tables Hibernate used to generate with db.generateDDL = true.
+-- Written with "if not exists" so it can run against databases created by the old DDL generation.
+
+create sequence if not exists hibernate_sequence start 1 increment 1;
+
+create table if not exists book (
+    id              integer not null primary key,
+    author          varchar(255),
+    publicationyear integer not null,
+    publisher       varchar(255),
+    title           varchar(255)
+);
+
+create table if not exists client (
+    id        integer not null primary key,
+    address   varchar(255),
+    firstname varchar(255),
+    lastname  varchar(255)
+);
+
+create table if not exists purchase (
+    id       integer not null primary key,
+    bookid   integer not null,
+    clientid integer not null,
+    library  varchar(255)
+);
+
+alter table purchase add column if not exists purchasedate timestamp;
+
+create table if not exists purchaserollup (
+    id           integer not null primary key,
+    library      varchar(255),
+    revenuecents bigint  not null,
+    saledate     date,
+    units        bigint  not null,
+    constraint uk_purchaserollup_saledate_library unique (saledate, library)
+);
@@ -0,0 +1,15 @@
+-- Book prices are stored as an exact number of cents instead of a float.
+
+alter table book add column if not exists pricecents bigint;
+
+do $$
+begin
+    if exists (select 1 from information_schema.columns
+               where table_schema = current_schema() and table_name = 'book' and column_name = 'price') then
+        update book set pricecents = round(cast(price as numeric) * 100) where pricecents is null;
+        alter table book drop column price;
+    end if;
+end $$;
+
+update book set pricecents = 0 where pricecents is null;
+alter table book alter column pricecents set not null;
@@ -0,0 +1,6 @@
+-- Indexes for the purchase lookups: deleteByClientId, sumPriceCentsByClientId, deleteByBookId, countByBookId
+-- and the reports over a period of time.
+
+create index if not exists idx_purchase_clientid on purchase (clientid);
+create index if not exists idx_purchase_bookid on purchase (bookid);
+create index if not exists idx_purchase_purchasedate on purchase (purchasedate);
@@ -0,0 +1,48 @@
+-- Purchase becomes a table partitioned by month on purchasedate (requires PostgreSQL 11 or newer).
+-- Reports filtering on purchasedate only read the partitions of the requested months.
+
+create or replace function create_purchase_partition(month date) returns text
+    language plpgsql as $$
+declare
+    partition_name text := 'purchase_' || to_char(month, 'YYYY_MM');
+begin
+    execute format('create table if not exists %I partition of purchase for values from (%L) to (%L)',
+                   partition_name, date_trunc('month', month), date_trunc('month', month) + interval '1 month');
+    return partition_name;
+end $$;
+
+drop index if exists idx_purchase_clientid;
+drop index if exists idx_purchase_bookid;
+drop index if exists idx_purchase_purchasedate;
+
+alter table purchase rename to purchase_unpartitioned;
+alter table purchase_unpartitioned rename constraint purchase_pkey to purchase_unpartitioned_pkey;
+
+create table purchase (
+    id           integer   not null,
+    bookid       integer   not null,
+    clientid     integer   not null,
+    library      varchar(255),
+    purchasedate timestamp not null,
+    primary key (id, purchasedate)
+) partition by range (purchasedate);
+
+-- Purchases recorded before purchase dates existed are dated at the epoch and end up in the default partition.
+create table purchase_default partition of purchase default;
+
+select create_purchase_partition(cast(month as date))
+from (select distinct date_trunc('month', purchasedate) as month
+      from purchase_unpartitioned where purchasedate is not null) months;
+
+select create_purchase_partition(cast(date_trunc('month', now()) + months * interval '1 month' as date))
+from generate_series(0, 2) months;
+
+insert into purchase (id, bookid, clientid, library, purchasedate)
+select id, bookid, clientid, library, coalesce(purchasedate, timestamp 'epoch')
+from purchase_unpartitioned;
+
+drop table purchase_unpartitioned;
+
+create index idx_purchase_clientid on purchase (clientid);
+create index idx_purchase_bookid on purchase (bookid);
+create index idx_purchase_purchasedate on purchase (purchasedate);
@@ -0,0 +1,15 @@
+-- Transactional outbox: every change of a book, client or purchase is recorded here in the same transaction
+-- and published afterwards, in id order, by the OutboxRelay.
+
+create table outboxevent (
+    id            integer not null primary key,
+    aggregatetype varchar(255),
+    aggregateid   integer,
+    eventtype     varchar(255),
+    payload       text,
+    createdat     timestamp,
+    publishedat   timestamp
+);
+
+-- The relay only looks at the rows which were not published yet.
+create index idx_outboxevent_unpublished on outboxevent (id) where publishedat is null;
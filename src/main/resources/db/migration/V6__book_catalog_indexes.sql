@@ -0,0 +1,9 @@
+-- Indexes for the catalog pages: every order is (value, id), so keyset pagination is a range scan of one index,
+-- read forwards for the ascending orders and backwards for the descending ones. The publisher and author indexes
+-- serve the facet filters and the facet counts.
+
+create index if not exists idx_book_pricecents_id on book (pricecents, id);
+create index if not exists idx_book_publicationyear_id on book (publicationyear, id);
+create index if not exists idx_book_title_id on book (title, id);
+create index if not exists idx_book_publisher_pricecents_id on book (publisher, pricecents, id);
+create index if not exists idx_book_author_publicationyear_id on book (author, publicationyear, id);
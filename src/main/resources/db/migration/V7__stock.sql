@@ -0,0 +1,14 @@
+-- Stock of the books. A null stock means the book is sold without a limit, which keeps the existing books as they were.
+
+alter table book add column if not exists stock integer;
+alter table book add constraint ck_book_stock check (stock is null or stock >= 0);
+
+-- Copies a single library may still sell out of book.stock; a library with no row for a book is only limited by book.stock.
+create table librarystock (
+    id       integer not null primary key,
+    bookid   integer not null,
+    library  varchar(255),
+    quantity integer not null,
+    constraint uk_librarystock_bookid_library unique (bookid, library),
+    constraint ck_librarystock_quantity check (quantity >= 0)
+);
@@ -0,0 +1,13 @@
+-- Idempotency keys of the purchases. The purchase table is partitioned by purchasedate, so a unique index there
+-- would have to include the date; the keys are kept in their own table instead.
+
+create table purchasekey (
+    id          integer not null primary key,
+    purchasekey varchar(64) not null,
+    purchaseid  integer not null,
+    createdat   timestamp not null,
+    constraint uk_purchasekey_purchasekey unique (purchasekey)
+);
+
+-- The purge deletes the keys older than purchase.keys.retentionDays.
+create index idx_purchasekey_createdat on purchasekey (createdat);
@@ -0,0 +1,9 @@
+-- Purchases keep the price their book was sold at, so the revenue of a sale does not change with the book price.
+-- The existing purchases are priced at the current price of their book, which is what the reports used so far.
+
+alter table purchase add column if not exists pricecents bigint;
+
+update purchase p set pricecents = b.pricecents from book b where b.id = p.bookid and p.pricecents is null;
+update purchase set pricecents = 0 where pricecents is null;
+
+alter table purchase alter column pricecents set not null;
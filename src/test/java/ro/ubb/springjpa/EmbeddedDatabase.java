@@ -0,0 +1,176 @@
+package ro.ubb.springjpa;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ro.ubb.springjpa.config.AppLocalConfig;
+import ro.ubb.springjpa.config.CatalogConfig;
+import ro.ubb.springjpa.service.PurchaseAnalyticsService;
+import ro.ubb.springjpa.service.RecommendationService;
+import ro.ubb.springjpa.service.SketchAnalyticsService;
+import ro.ubb.springjpa.service.TypeaheadService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * An embedded PostgreSQL migrated to the latest schema, with the application context started against it.
+ * Started once per test class in @BeforeClass and closed in @AfterClass. The settings of the context are
+ * system properties, which take precedence over local/db.properties and local/app.properties, and are
+ * restored on close. The start returns once the recommendations, suggestions, sketches and analytics snapshot
+ * built in the background after the startup are ready.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final Path directory;
+    private final Map<String, String> previous = new HashMap<>();
+    private AnnotationConfigApplicationContext context;
+
+    private EmbeddedDatabase(EmbeddedPostgres postgres, Path directory) {
+        this.postgres = postgres;
+        this.directory = directory;
+    }
+
+    /**
+     * Starts a database and the application context.
+     * @param settings "name=value" settings of the context, overriding the properties files
+     * @return the started database
+     */
+    public static EmbeddedDatabase start(String... settings) throws IOException {
+        EmbeddedDatabase database = startDatabase();
+        try {
+            database.startContext(settings);
+        } catch (RuntimeException e) {
+            database.close();
+            throw e;
+        }
+        return database;
+    }
+
+    /**
+     * Starts a migrated database without the application context.
+     * @return the started database
+     */
+    public static EmbeddedDatabase startDatabase() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        Migrate.migrate(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+        return new EmbeddedDatabase(postgres, Files.createTempDirectory("bookstore-test"));
+    }
+
+    /**
+     * Starts the application context on a database started without one, for example after seeding it.
+     * @param settings "name=value" settings of the context, overriding the properties files
+     */
+    public void startContext(String... settings) {
+        this.set("db.jdbcUrl", this.getJdbcUrl());
+        this.set("db.username", "postgres");
+        this.set("db.password", "postgres");
+        this.set("db.showSql", "false");
+        this.set("events.file", "");
+        this.set("warmup.enabled", "false");
+        this.set("sketches.file", this.directory.resolve("sketches/sales.bin").toString());
+        this.set("purchase.archive.directory", this.directory.resolve("archive").toString());
+        for (String setting : settings) {
+            int separator = setting.indexOf('=');
+            this.set(setting.substring(0, separator), setting.substring(separator + 1));
+        }
+        this.context = new AnnotationConfigApplicationContext(AppLocalConfig.class, CatalogConfig.class);
+        this.awaitReady(this.context.getBean(RecommendationService.class)::isReady, "recommendations");
+        this.awaitReady(this.context.getBean(TypeaheadService.class)::isReady, "suggestions");
+        this.awaitReady(this.context.getBean(SketchAnalyticsService.class)::isReady, "sketches");
+        this.awaitReady(this.context.getBean(PurchaseAnalyticsService.class)::isReady, "analytics snapshot");
+    }
+
+    private void awaitReady(BooleanSupplier ready, String name) {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!ready.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                throw new IllegalStateException("Timed out waiting for the " + name);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the " + name, e);
+            }
+        }
+    }
+
+    private void set(String name, String value) {
+        if (!this.previous.containsKey(name))
+            this.previous.put(name, System.getProperty(name));
+        System.setProperty(name, value);
+    }
+
+    /**
+     * Gets a bean of the application context.
+     * @param type the type of the bean
+     * @return the bean
+     */
+    public <T> T getBean(Class<T> type) {
+        return this.context.getBean(type);
+    }
+
+    /**
+     * Gets a bean of the application context by name.
+     * @param name the name of the bean
+     * @param type the type of the bean
+     * @return the bean
+     */
+    public <T> T getBean(String name, Class<T> type) {
+        return this.context.getBean(name, type);
+    }
+
+    /**
+     * Gets the JDBC url of the database.
+     * @return the url, for the user postgres
+     */
+    public String getJdbcUrl() {
+        return this.postgres.getJdbcUrl("postgres", "postgres");
+    }
+
+    /**
+     * Gets a data source of the database, outside of the pools of the application.
+     * @return a data source opening a new connection every time
+     */
+    public DataSource getDataSource() {
+        return this.postgres.getPostgresDatabase();
+    }
+
+    /**
+     * Gets a JdbcTemplate on connections of its own, outside of the pools of the application.
+     * @return the template
+     */
+    public JdbcTemplate jdbc() {
+        return new JdbcTemplate(this.getDataSource());
+    }
+
+    /**
+     * Gets the directory of the files written by the test.
+     * @return a temporary directory
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.context != null)
+                this.context.close();
+        } finally {
+            this.previous.forEach((name, value) -> {
+                if (value == null)
+                    System.clearProperty(name);
+                else
+                    System.setProperty(name, value);
+            });
+            this.postgres.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ro.ubb.springjpa.domain.catalog;
+
+import org.junit.Test;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Money;
+
+import static org.junit.Assert.assertEquals;
+
+public class CatalogKeyTest {
+
+    private static Book book(int id, String title, int year, long priceCents) {
+        Book book = new Book(title, "Author", "Publisher", year, Money.ofCents(priceCents));
+        book.setId(id);
+        return book;
+    }
+
+    private static CatalogKey roundTrip(CatalogSort sort, Book book) {
+        return CatalogKey.parse(sort, CatalogKey.of(sort, book).toString());
+    }
+
+    @Test
+    public void keyIsReadBackWithTheTypeOfTheSortedValue() {
+        Book book = book(42, "Dune", 1965, 1999);
+        assertEquals(42, roundTrip(CatalogSort.PRICE_ASC, book).getId());
+        assertEquals(1999L, roundTrip(CatalogSort.PRICE_ASC, book).getValue());
+        assertEquals(1999L, roundTrip(CatalogSort.PRICE_DESC, book).getValue());
+        assertEquals(1965, roundTrip(CatalogSort.YEAR_ASC, book).getValue());
+        assertEquals(1965, roundTrip(CatalogSort.YEAR_DESC, book).getValue());
+        assertEquals("Dune", roundTrip(CatalogSort.TITLE, book).getValue());
+        assertEquals("42:1999", CatalogKey.of(CatalogSort.PRICE_ASC, book).toString());
+    }
+
+    @Test
+    public void titleWithSeparatorsAndSpacesSurvivesTheRoundTrip() {
+        for (String title : new String[]{"Dune: Messiah", "a:b:c", " Leading and trailing ", ":", "\u0218tefan cel Mare"}) {
+            CatalogKey key = roundTrip(CatalogSort.TITLE, book(7, title, 2000, 100));
+            assertEquals(7, key.getId());
+            assertEquals(title, key.getValue());
+        }
+    }
+
+    @Test
+    public void negativeAndLargeValuesSurviveTheRoundTrip() {
+        Book book = book(Integer.MAX_VALUE, "Title", -300, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, roundTrip(CatalogSort.PRICE_DESC, book).getValue());
+        assertEquals(-300, roundTrip(CatalogSort.YEAR_ASC, book).getValue());
+        assertEquals(Integer.MAX_VALUE, roundTrip(CatalogSort.YEAR_ASC, book).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyWithoutSeparatorIsRejected() {
+        CatalogKey.parse(CatalogSort.TITLE, "42");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyWithoutIdIsRejected() {
+        CatalogKey.parse(CatalogSort.TITLE, "book:Dune");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyOfAnotherOrderIsRejected() {
+        CatalogKey.parse(CatalogSort.PRICE_ASC, CatalogKey.of(CatalogSort.TITLE, book(1, "Dune", 1965, 1999)).toString());
+    }
+}
@@ -0,0 +1,70 @@
+package ro.ubb.springjpa.domain.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MoneyTest {
+
+    @Test
+    public void parsedAmountsAreRoundedHalfUpToCents() {
+        assertEquals(1250, Money.parse("12.5").getCents());
+        assertEquals(1999, Money.parse(" 19.99 ").getCents());
+        assertEquals(300, Money.parse("3").getCents());
+        assertEquals(1, Money.parse("0.005").getCents());
+        assertEquals(0, Money.parse("0.0049").getCents());
+        assertEquals(200, Money.parse("1.995").getCents());
+        assertEquals(-1, Money.parse("-0.005").getCents());
+        assertEquals(0, Money.parse("-0.004").getCents());
+        assertEquals(123, Money.parse("1.23E0").getCents());
+    }
+
+    @Test
+    public void zeroIsShared() {
+        assertSame(Money.ZERO, Money.ofCents(0));
+        assertSame(Money.ZERO, Money.parse("0.001"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void textIsNotAnAmount() {
+        Money.parse("twelve");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void amountBeyondTheCentsOfALongIsRejected() {
+        Money.parse("92233720368547758.08");
+    }
+
+    @Test
+    public void largestAmountIsParsed() {
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07").getCents());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void overflowingSumIsRejected() {
+        Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1));
+    }
+
+    @Test
+    public void amountsArePrintedWithTwoDecimals() {
+        assertEquals("12.50", Money.ofCents(1250).toString());
+        assertEquals("0.05", Money.ofCents(5).toString());
+        assertEquals("-0.05", Money.ofCents(-5).toString());
+        assertEquals("0.00", Money.ZERO.toString());
+        assertEquals(Money.parse("12.50"), Money.parse(Money.parse("12.5").toString()));
+    }
+
+    @Test
+    public void amountsAreComparedByTheirCents() {
+        assertEquals(Money.ofCents(1999), Money.parse("19.99"));
+        assertEquals(Money.ofCents(1999).hashCode(), Money.parse("19.99").hashCode());
+        assertFalse(Money.ofCents(1999).equals(Money.ofCents(2000)));
+        assertTrue(Money.ofCents(1999).compareTo(Money.ofCents(2000)) < 0);
+        assertEquals(Money.ofCents(2500), Money.ofCents(1999).plus(Money.ofCents(501)));
+        assertTrue(Money.ofCents(1).isPositive());
+        assertFalse(Money.ZERO.isPositive());
+    }
+}
@@ -0,0 +1,93 @@
+package ro.ubb.springjpa.domain.validators;
+
+import org.junit.Test;
+import ro.ubb.springjpa.domain.model.Purchase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValidationEngineTest {
+
+    private final ValidationEngine engine = new ValidationEngine();
+    private final PurchaseValidator validator = new PurchaseValidator();
+
+    /**
+     * Builds purchases which are all valid except the ones at the given positions, which have no client.
+     */
+    private static List<Purchase> purchases(int count, int... invalid) {
+        List<Purchase> purchases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            purchases.add(new Purchase(1, 1 + i, "Library"));
+        for (int i : invalid)
+            purchases.get(i).setClientId(0);
+        return purchases;
+    }
+
+    private static void assertFailuresAt(List<ValidationFailure<Purchase>> failures, List<Purchase> purchases, int... indexes) {
+        assertEquals(indexes.length, failures.size());
+        for (int i = 0; i < indexes.length; i++) {
+            assertEquals(indexes[i], failures.get(i).getIndex());
+            assertSame(purchases.get(indexes[i]), failures.get(i).getObject());
+            assertEquals(Collections.singletonList(Violation.PURCHASE_CLIENT_ID), failures.get(i).getViolations());
+        }
+    }
+
+    @Test
+    public void validObjectsHaveNoFailures() {
+        assertTrue(engine.validateAll(purchases(10), validator).isEmpty());
+        assertTrue(engine.validateAll(Collections.<Purchase>emptyList(), validator).isEmpty());
+    }
+
+    @Test
+    public void invalidObjectsAreReportedWithTheirIndex() {
+        List<Purchase> purchases = purchases(10, 0, 4, 9);
+        assertFailuresAt(engine.validateAll(purchases, validator), purchases, 0, 4, 9);
+    }
+
+    @Test
+    public void parallelRangesKeepTheOrderOfTheCollection() {
+        // several times the size of a range, with failures on both sides of the splits
+        List<Purchase> purchases = purchases(10_000, 3, 1023, 1024, 5000, 9999);
+        assertFailuresAt(engine.validateAll(purchases, validator), purchases, 3, 1023, 1024, 5000, 9999);
+    }
+
+    @Test
+    public void collectionsWithoutRandomAccessAreValidated() {
+        List<Purchase> purchases = purchases(5000, 1, 2500, 4999);
+        assertFailuresAt(engine.validateAll(new LinkedList<>(purchases), validator), purchases, 1, 2500, 4999);
+        assertFailuresAt(engine.validateAll(new LinkedHashSet<>(purchases), validator), purchases, 1, 2500, 4999);
+    }
+
+    @Test
+    public void requireAllValidListsEveryInvalidObject() throws Exception {
+        engine.requireAllValid(purchases(3), validator);
+
+        List<Purchase> purchases = purchases(3, 0, 2);
+        purchases.get(2).setLibrary("");
+        try {
+            engine.requireAllValid(purchases, validator);
+            fail();
+        } catch (ValidatorException e) {
+            assertEquals("#0: Purchase Validation Error\nInvalid Client Id\n" +
+                    "#2: Purchase Validation Error\nInvalid Client Id\nInvalid library\n", e.getMessage());
+        }
+    }
+
+    @Test
+    public void failuresKeepTheirViolationsWhenTheResultIsReused() {
+        List<Purchase> purchases = purchases(2, 0, 1);
+        purchases.get(1).setBookId(0);
+        List<ValidationFailure<Purchase>> failures = engine.validateAll(purchases, validator);
+        assertEquals(Collections.singletonList(Violation.PURCHASE_CLIENT_ID), failures.get(0).getViolations());
+        assertEquals(Arrays.asList(Violation.PURCHASE_CLIENT_ID, Violation.PURCHASE_BOOK_ID), failures.get(1).getViolations());
+    }
+}
@@ -0,0 +1,86 @@
+package ro.ubb.springjpa.domain.validators;
+
+import org.junit.Test;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValidatorTest {
+
+    private static void assertInvalid(Validator<?> validator, Object object, String message) {
+        try {
+            validate(validator, object);
+            fail();
+        } catch (ValidatorException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void validate(Validator<?> validator, Object object) throws ValidatorException {
+        ((Validator<Object>) validator).validate(object);
+    }
+
+    @Test
+    public void resultRecordsEveryViolationOnce() {
+        ValidationResult result = new ValidationResult();
+        assertTrue(result.isValid());
+        assertEquals("", result.getMessage());
+        assertEquals(Collections.emptyList(), result.getViolations());
+
+        result.add(Violation.BOOK_TITLE);
+        result.add(Violation.BOOK_PRICE);
+        result.add(Violation.BOOK_TITLE);
+        assertFalse(result.isValid());
+        assertEquals(Arrays.asList(Violation.BOOK_TITLE, Violation.BOOK_PRICE), result.getViolations());
+        assertEquals("Book Validation Error\nInvalid title!\nInvalid price!\n", result.getMessage());
+
+        result.reset();
+        assertTrue(result.isValid());
+        assertEquals(Collections.emptyList(), result.getViolations());
+    }
+
+    @Test
+    public void localResultIsClearedForEveryObject() {
+        ValidationResult.local().add(Violation.CLIENT_ADDRESS);
+        assertTrue(ValidationResult.local().isValid());
+    }
+
+    @Test
+    public void validObjectsPass() throws Exception {
+        new BookValidator().validate(new Book("Title", "Author", "Publisher", 2019, Money.ofCents(1999)));
+        new ClientValidator().validate(new Client("First", "Last", "first.last@bookstore.ro"));
+        Purchase purchase = new Purchase(1, 2, "Library");
+        purchase.setPurchaseKey("checkout-1");
+        new PurchaseValidator().validate(purchase);
+    }
+
+    @Test
+    public void invalidBookListsEveryBrokenRule() {
+        assertInvalid(new BookValidator(), new Book("", null, "Publisher", 1949, Money.ZERO),
+                "Book Validation Error\nInvalid title!\nInvalid author!\nInvalid publication date!\nInvalid price!\n");
+    }
+
+    @Test
+    public void invalidClientListsEveryBrokenRule() {
+        assertInvalid(new ClientValidator(), new Client(null, "Last", "no address"),
+                "Client Validation Error\nInvalid first name!\nInvalid address!\n");
+    }
+
+    @Test
+    public void invalidPurchaseListsEveryBrokenRuleOnALineOfItsOwn() {
+        Purchase purchase = new Purchase(0, 0, null);
+        purchase.setPurchaseKey(String.join("", Collections.nCopies(65, "k")));
+        assertInvalid(new PurchaseValidator(), purchase,
+                "Purchase Validation Error\nInvalid Client Id\nInvalid Book Id\nInvalid library\nInvalid purchase key\n");
+    }
+}
@@ -0,0 +1,127 @@
+package ro.ubb.springjpa.repository;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.service.PurchaseService;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the creation of the coming partitions, at the startup and past a month which cannot be created,
+ * and that the rebuild of the sales rollup keeps the archived months.
+ */
+public class PurchasePartitionMaintenanceTest {
+
+    private static final int MONTHS_AHEAD = 3;
+    private static final int ARCHIVE_AFTER_MONTHS = 24;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'purchase_'yyyy_MM");
+
+    private static EmbeddedDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static PurchasePartitionMaintenance maintenance;
+    private static PurchaseService purchaseService;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start("purchase.partitions.monthsAhead=" + MONTHS_AHEAD,
+                "purchase.archive.afterMonths=" + ARCHIVE_AFTER_MONTHS);
+        jdbcTemplate = database.jdbc();
+        maintenance = database.getBean(PurchasePartitionMaintenance.class);
+        purchaseService = database.getBean(PurchaseService.class);
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    @Before
+    public void setUp() {
+        jdbcTemplate.update("delete from purchase");
+        jdbcTemplate.update("delete from purchaserollup");
+    }
+
+    private static boolean partitionExists(YearMonth month) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, month.format(PARTITION_NAME));
+    }
+
+    private static void insertPurchase(LocalDate date, String library, long priceCents) {
+        jdbcTemplate.update("insert into purchase (id, bookid, clientid, library, purchasedate, pricecents) " +
+                "values (nextval('hibernate_sequence'), 1, 1, ?, ?, ?)", library, date.atTime(12, 0), priceCents);
+    }
+
+    @Test
+    public void partitionsOfTheComingMonthsExistAfterTheStartup() {
+        for (int i = 0; i <= MONTHS_AHEAD; i++)
+            assertTrue(partitionExists(YearMonth.now().plusMonths(i)));
+    }
+
+    @Test
+    public void monthWhichCannotBeCreatedDoesNotStopTheFollowingOnes() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        for (int i = 1; i <= MONTHS_AHEAD; i++)
+            jdbcTemplate.execute("drop table " + YearMonth.now().plusMonths(i).format(PARTITION_NAME));
+        // a partition overlapping next month makes its partition impossible to create
+        jdbcTemplate.execute("create table purchase_overlap partition of purchase for values from ('" +
+                next.atDay(1) + "') to ('" + next.atDay(2) + "')");
+
+        assertEquals(1, maintenance.createPartitions());
+        assertFalse(partitionExists(next));
+        for (int i = 2; i <= MONTHS_AHEAD; i++)
+            assertTrue(partitionExists(YearMonth.now().plusMonths(i)));
+
+        jdbcTemplate.execute("drop table purchase_overlap");
+        assertEquals(0, maintenance.createPartitions());
+        assertTrue(partitionExists(next));
+    }
+
+    @Test
+    public void purchasesOfTheDefaultPartitionMoveToTheNewPartitionOfTheirMonth() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        jdbcTemplate.execute("drop table " + next.format(PARTITION_NAME));
+        insertPurchase(next.atDay(1), "North", 100);
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject("select count(*) from purchase_default", Integer.class));
+
+        assertEquals(0, maintenance.createPartitions());
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("select count(*) from purchase_default", Integer.class));
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+                "select count(*) from " + next.format(PARTITION_NAME), Integer.class));
+    }
+
+    @Test
+    public void rebuiltRollupKeepsTheArchivedMonths() throws Exception {
+        YearMonth old = YearMonth.now().minusMonths(ARCHIVE_AFTER_MONTHS + 6);
+        jdbcTemplate.queryForObject("select create_purchase_partition(?)", String.class, old.atDay(1));
+        insertPurchase(old.atDay(10), "North", 700);
+        insertPurchase(old.atDay(10), "North", 300);
+        insertPurchase(LocalDate.now(), "South", 500);
+        purchaseService.rebuildSalesRollup();
+
+        maintenance.archivePartitions();
+        assertFalse(partitionExists(old));
+        assertTrue(Files.exists(database.getDirectory().resolve("archive").resolve(old.format(PARTITION_NAME) + ".csv.gz")));
+        assertEquals(Long.valueOf(2), jdbcTemplate.queryForObject(
+                "select rowscount from purchasearchive where month = ?", Long.class, old.atDay(1)));
+
+        // a leftover row of a day which is not archived and has no purchases any more
+        jdbcTemplate.update("insert into purchaserollup (id, saledate, library, units, revenuecents) " +
+                "values (nextval('hibernate_sequence'), ?, 'East', 1, 100)", LocalDate.now().minusDays(40));
+        purchaseService.rebuildSalesRollup();
+
+        assertEquals("[{saledate=" + old.atDay(10) + ", library=North, units=2, revenuecents=1000}, " +
+                        "{saledate=" + LocalDate.now() + ", library=South, units=1, revenuecents=500}]",
+                jdbcTemplate.queryForList("select saledate, library, units, revenuecents from purchaserollup " +
+                        "order by saledate, library").toString());
+    }
+}
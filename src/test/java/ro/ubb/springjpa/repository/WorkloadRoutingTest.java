@@ -0,0 +1,140 @@
+package ro.ubb.springjpa.repository;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.service.BookService;
+import ro.ubb.springjpa.service.BulkTransferService;
+import ro.ubb.springjpa.service.ClientService;
+import ro.ubb.springjpa.service.ExportFormat;
+import ro.ubb.springjpa.service.ExportService;
+import ro.ubb.springjpa.service.PurchaseService;
+import ro.ubb.springjpa.service.ReportingBulkhead;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that every kind of work gets its connections from the pool of its workload: the pools are told apart
+ * by the statement_timeout their connections are opened with, and by exhausting one pool while the work
+ * of the other one runs.
+ */
+public class WorkloadRoutingTest {
+
+    private static final int OLTP_POOL_SIZE = 3;
+    private static final int REPORTING_POOL_SIZE = 2;
+    private static final String OLTP_TIMEOUT = "5s";
+    private static final String REPORTING_TIMEOUT = "5min";
+
+    private static EmbeddedDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start(
+                "db.oltp.poolSize=" + OLTP_POOL_SIZE, "db.oltp.statementTimeoutMillis=5000",
+                "db.reporting.poolSize=" + REPORTING_POOL_SIZE, "db.reporting.statementTimeoutMillis=300000");
+        jdbcTemplate = new JdbcTemplate(database.getBean("dataSource", DataSource.class));
+        transactionTemplate = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+
+        database.getBean(BookService.class).addBook(new Book("Title", "Author", "Publisher", 2019, Money.ofCents(1999)));
+        database.getBean(ClientService.class).addClient(new Client("First", "Last", "first.last@bookstore.ro"));
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static String statementTimeout() {
+        return jdbcTemplate.queryForObject("show statement_timeout", String.class);
+    }
+
+    @Test
+    public void transactionsRunOnTheOltpPoolByDefault() {
+        assertEquals(OLTP_TIMEOUT, transactionTemplate.execute(status -> statementTimeout()));
+        assertEquals(OLTP_TIMEOUT, statementTimeout());
+    }
+
+    @Test
+    public void reportingWorkRunsOnTheReportingPool() {
+        assertEquals(REPORTING_TIMEOUT, WorkloadType.run(WorkloadType.REPORTING,
+                () -> transactionTemplate.execute(status -> statementTimeout())));
+    }
+
+    @Test
+    public void transactionStartedBeforeTheWorkloadUsesThePoolOfTheWorkload() {
+        // the pattern of the @Transactional reports which enter the bulkhead inside their transaction
+        assertEquals(REPORTING_TIMEOUT, transactionTemplate.execute(status ->
+                WorkloadType.run(WorkloadType.REPORTING, WorkloadRoutingTest::statementTimeout)));
+    }
+
+    @Test
+    public void transactionKeepsItsConnectionWhenTheWorkloadChanges() {
+        assertEquals(OLTP_TIMEOUT, transactionTemplate.execute(status -> {
+            statementTimeout();
+            return WorkloadType.run(WorkloadType.REPORTING, WorkloadRoutingTest::statementTimeout);
+        }));
+    }
+
+    @Test
+    public void bulkheadRunsOnTheReportingPool() throws Exception {
+        ReportingBulkhead bulkhead = database.getBean(ReportingBulkhead.class);
+        assertEquals(REPORTING_TIMEOUT, bulkhead.call(WorkloadRoutingTest::statementTimeout));
+        assertEquals(OLTP_TIMEOUT, statementTimeout());
+    }
+
+    @Test(timeout = 20_000)
+    public void reportsExportsAndImportsRunWhileEveryOltpConnectionIsTaken() throws Exception {
+        PurchaseService purchaseService = database.getBean(PurchaseService.class);
+        Path books = database.getDirectory().resolve("routing-books.csv");
+        List<Connection> taken = take(database.getBean("oltpDataSource", DataSource.class), OLTP_POOL_SIZE);
+        try {
+            purchaseService.reportSalesPerAuthor();
+            database.getBean(ExportService.class).exportClients(database.getDirectory().resolve("routing-clients.csv"), ExportFormat.CSV);
+            BulkTransferService bulkTransferService = database.getBean(BulkTransferService.class);
+            assertEquals(1, bulkTransferService.export(BulkTable.BOOK, books, CopyFormat.CSV));
+            assertEquals(1, bulkTransferService.importFile(BulkTable.BOOK, books, CopyFormat.CSV));
+        } finally {
+            release(taken);
+        }
+    }
+
+    @Test(timeout = 20_000)
+    public void purchasesRunWhileEveryReportingConnectionIsTaken() throws Exception {
+        int bookId = database.getBean(BookService.class).getBookList().iterator().next().getId();
+        int clientId = database.getBean(ClientService.class).getClientList().iterator().next().getId();
+        List<Connection> taken = take(database.getBean("reportingDataSource", DataSource.class), REPORTING_POOL_SIZE);
+        try {
+            database.getBean(PurchaseService.class).add(new Purchase(clientId, bookId, "Library"));
+        } finally {
+            release(taken);
+        }
+    }
+
+    private static List<Connection> take(DataSource pool, int connections) throws Exception {
+        List<Connection> taken = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++)
+            taken.add(pool.getConnection());
+        return taken;
+    }
+
+    private static void release(List<Connection> taken) throws Exception {
+        for (Connection connection : taken)
+            connection.close();
+    }
+}
@@ -0,0 +1,104 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.repository.BulkTable;
+import ro.ubb.springjpa.repository.CopyFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the COPY exports and imports, and that imported purchases land in the partitions of their months.
+ */
+public class BulkTransferServiceTest {
+
+    private static final String BOOKS = "select id, title, author, publisher, publicationyear, pricecents, stock from book order by id";
+
+    private static EmbeddedDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static BulkTransferService bulkTransferService;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        jdbcTemplate = database.jdbc();
+        bulkTransferService = database.getBean(BulkTransferService.class);
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    @Before
+    public void setUp() {
+        jdbcTemplate.update("delete from purchase");
+        jdbcTemplate.update("delete from purchaserollup");
+        jdbcTemplate.update("delete from book");
+        jdbcTemplate.update("insert into book (id, title, author, publisher, publicationyear, pricecents, stock) " +
+                "values (1, 'First, \"the\" one', 'Author', 'Publisher', 2019, 1999, null), " +
+                "(2, 'Second', 'Author', 'Publisher', 2018, 500, 7)");
+    }
+
+    private static String partitionOf(int purchaseId) {
+        return jdbcTemplate.queryForObject("select tableoid::regclass::text from purchase where id = ?", String.class, purchaseId);
+    }
+
+    @Test
+    public void exportedCsvHasAHeaderAndOneLinePerRow() throws Exception {
+        Path file = database.getDirectory().resolve("books.csv");
+        assertEquals(2, bulkTransferService.export(BulkTable.BOOK, file, CopyFormat.CSV));
+        assertEquals(Arrays.asList("id,title,author,publisher,publicationyear,pricecents,stock",
+                "1,\"First, \"\"the\"\" one\",Author,Publisher,2019,1999,",
+                "2,Second,Author,Publisher,2018,500,7"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void booksRoundTripInEveryFormat() throws Exception {
+        String books = jdbcTemplate.queryForList(BOOKS).toString();
+        for (String name : new String[]{"books.csv", "books.csv.gz", "books.bin", "books.bin.gz"}) {
+            CopyFormat format = name.contains(".csv") ? CopyFormat.CSV : CopyFormat.BINARY;
+            Path file = database.getDirectory().resolve(name);
+            bulkTransferService.export(BulkTable.BOOK, file, format);
+
+            jdbcTemplate.update("delete from book where id = 1");
+            jdbcTemplate.update("update book set title = 'Changed', stock = 0 where id = 2");
+            assertEquals(2, bulkTransferService.importFile(BulkTable.BOOK, file, format));
+            assertEquals(name, books, jdbcTemplate.queryForList(BOOKS).toString());
+        }
+    }
+
+    @Test
+    public void importedPurchasesLandInThePartitionsOfTheirMonths() throws Exception {
+        // written before the partition of its month existed
+        jdbcTemplate.update("insert into purchase (id, bookid, clientid, library, purchasedate, pricecents) " +
+                "values (10, 1, 1, 'North', '2015-03-01 09:00:00', 1999)");
+        assertEquals("purchase_default", partitionOf(10));
+
+        Path file = database.getDirectory().resolve("purchases.csv");
+        List<String> lines = Arrays.asList("id,bookid,clientid,library,purchasedate,pricecents",
+                "11,1,1,North,2015-03-10 12:00:00,1999",
+                "12,2,1,South,2015-04-02 12:00:00,500",
+                "13,2,1,South,1970-01-01 00:00:00,500");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        assertEquals(3, bulkTransferService.importFile(BulkTable.PURCHASE, file, CopyFormat.CSV));
+
+        assertEquals("purchase_2015_03", partitionOf(10));
+        assertEquals("purchase_2015_03", partitionOf(11));
+        assertEquals("purchase_2015_04", partitionOf(12));
+        assertEquals("purchase_default", partitionOf(13));
+        assertEquals(Long.valueOf(2 * 1999), jdbcTemplate.queryForObject(
+                "select sum(revenuecents) from purchaserollup where saledate >= '2015-03-01' and saledate < '2015-04-01'", Long.class));
+    }
+}
@@ -0,0 +1,58 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.Test;
+import org.springframework.cache.CacheManager;
+import ro.ubb.springjpa.EmbeddedDatabase;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the warm-up fills the caches and that the application is ready once the warm-up budget ran out.
+ */
+public class CacheWarmupTest {
+
+    private static EmbeddedDatabase seededDatabase() throws Exception {
+        EmbeddedDatabase database = EmbeddedDatabase.startDatabase();
+        for (int id = 1; id <= 3; id++) {
+            database.jdbc().update("insert into book (id, author, publicationyear, publisher, title, pricecents) " +
+                    "values (?, 'Author', 2019, 'Publisher', ?, 1000)", id, "Title " + id);
+            database.jdbc().update("insert into client (id, address, firstname, lastname) " +
+                    "values (?, 'client@bookstore.ro', 'First', 'Last')", 100 + id);
+            database.jdbc().update("insert into purchase (id, bookid, clientid, library, purchasedate, pricecents) " +
+                    "values (?, ?, ?, 'Library', now(), 1000)", 200 + id, id, 100 + id);
+        }
+        database.jdbc().execute("select setval('hibernate_sequence', 1000)");
+        return database;
+    }
+
+    @Test
+    public void warmedUpCachesHoldTheBestSellingBooksAndTheMostActiveClients() throws Exception {
+        try (EmbeddedDatabase database = seededDatabase()) {
+            database.startContext("warmup.enabled=true", "warmup.budgetMillis=60000");
+            CacheWarmup warmup = database.getBean(CacheWarmup.class);
+
+            assertTrue(warmup.awaitReady());
+            assertTrue(warmup.isReady());
+            CacheManager cacheManager = database.getBean(CacheManager.class);
+            for (int id = 1; id <= 3; id++) {
+                assertNotNull(cacheManager.getCache("books").get(id));
+                assertNotNull(cacheManager.getCache("clients").get(100 + id));
+            }
+        }
+    }
+
+    @Test
+    public void warmUpIsReadyOnceItsBudgetRanOut() throws Exception {
+        try (EmbeddedDatabase database = seededDatabase()) {
+            database.startContext("warmup.enabled=true", "warmup.budgetMillis=0");
+            CacheWarmup warmup = database.getBean(CacheWarmup.class);
+
+            // whether the loads finished or not, nothing is waited for past the budget
+            assertTrue(warmup.isReady());
+            long start = System.nanoTime();
+            warmup.awaitReady();
+            assertTrue((System.nanoTime() - start) / 1_000_000 < 1000);
+        }
+    }
+}
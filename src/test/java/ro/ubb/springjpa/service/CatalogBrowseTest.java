@@ -0,0 +1,119 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.catalog.CatalogPage;
+import ro.ubb.springjpa.domain.catalog.CatalogQuery;
+import ro.ubb.springjpa.domain.catalog.CatalogSort;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Walks the catalog page by page in every order, following the keys of the pages, and checks that every book
+ * is returned once and in order, including the books with the same sorted value on both sides of a page break.
+ */
+public class CatalogBrowseTest {
+
+    private static final int BOOKS = 23;
+    private static final int PAGE_SIZE = 4;
+
+    private static EmbeddedDatabase database;
+    private static BookService bookService;
+    private static final List<Book> books = new ArrayList<>();
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        bookService = database.getBean(BookService.class);
+        // few distinct values, so most page breaks fall between books with the same value
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book("Title " + (char) ('A' + i % 4) + ": part", "Author", "Publisher",
+                    2000 + i % 3, Money.ofCents(100 * (1 + i % 5)));
+            bookService.addBook(book);
+            books.add(book);
+        }
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static Comparator<Book> order(CatalogSort sort) {
+        Comparator<Book> comparator;
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                comparator = Comparator.comparingLong(Book::getPriceCents);
+                break;
+            case YEAR_ASC:
+            case YEAR_DESC:
+                comparator = Comparator.comparingInt(Book::getPublicationYear);
+                break;
+            default:
+                comparator = Comparator.comparing(Book::getTitle);
+        }
+        comparator = comparator.thenComparing(Book::getId);
+        return sort.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void followingThePageKeysReturnsEveryBookOnceInOrder() throws Exception {
+        for (CatalogSort sort : CatalogSort.values()) {
+            CatalogQuery query = new CatalogQuery();
+            query.setSort(sort);
+            query.setPageSize(PAGE_SIZE);
+
+            List<Book> walked = new ArrayList<>();
+            int pages = 0;
+            CatalogPage page;
+            do {
+                page = bookService.browse(query);
+                walked.addAll(page.getBooks());
+                query.setAfter(page.getNextKey());
+                pages++;
+            } while (page.getNextKey() != null);
+
+            List<Book> expected = books.stream().sorted(order(sort)).collect(Collectors.toList());
+            assertEquals(sort.toString(), ids(expected), ids(walked));
+            assertEquals(sort.toString(), (BOOKS + PAGE_SIZE - 1) / PAGE_SIZE, pages);
+        }
+    }
+
+    @Test
+    public void lastFullPageHasNoNextKey() throws Exception {
+        CatalogQuery query = new CatalogQuery();
+        query.setSort(CatalogSort.PRICE_ASC);
+        query.setPageSize(BOOKS);
+        CatalogPage page = bookService.browse(query);
+        assertEquals(BOOKS, page.getBooks().size());
+        assertNull(page.getNextKey());
+    }
+
+    @Test(expected = BookstoreException.class)
+    public void keyOfAnotherOrderIsRejected() throws Exception {
+        CatalogQuery query = new CatalogQuery();
+        query.setSort(CatalogSort.TITLE);
+        query.setPageSize(PAGE_SIZE);
+        String titleKey = bookService.browse(query).getNextKey();
+
+        query.setSort(CatalogSort.YEAR_DESC);
+        query.setAfter(titleKey);
+        bookService.browse(query);
+    }
+}
@@ -0,0 +1,104 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CoPurchaseMatrixTest {
+
+    private static Map.Entry<Integer, Integer> cell(int book, int clients) {
+        return new AbstractMap.SimpleImmutableEntry<>(book, clients);
+    }
+
+    /**
+     * Random distinct histories of up to 8 books out of 50, for more clients than a single build task takes.
+     */
+    private static int[][] randomHistories(int clients, long seed) {
+        Random random = new Random(seed);
+        int[][] histories = new int[clients][];
+        for (int client = 0; client < clients; client++)
+            histories[client] = random.ints(1, 51).distinct().limit(random.nextInt(9)).toArray();
+        return histories;
+    }
+
+    /**
+     * Counts the clients who bought both books of every pair with two nested loops.
+     */
+    private static Map<Integer, Map<Integer, Integer>> bruteForce(int[][] histories) {
+        Map<Integer, Map<Integer, Integer>> counts = new HashMap<>();
+        for (int[] books : histories)
+            for (int book : books)
+                for (int other : books)
+                    if (book != other)
+                        counts.computeIfAbsent(book, key -> new HashMap<>()).merge(other, 1, Integer::sum);
+        return counts;
+    }
+
+    private static void assertSameCounts(Map<Integer, Map<Integer, Integer>> expected, CoPurchaseMatrix matrix) {
+        assertEquals(expected.size(), matrix.size());
+        for (Map.Entry<Integer, Map<Integer, Integer>> row : expected.entrySet()) {
+            Map<Integer, Integer> related = new HashMap<>();
+            matrix.related(row.getKey(), 100).forEach(entry -> related.put(entry.getKey(), entry.getValue()));
+            assertEquals("row of book " + row.getKey(), row.getValue(), related);
+        }
+    }
+
+    @Test
+    public void relatedBooksAreRankedByTheClientsWhoBoughtBoth() {
+        CoPurchaseMatrix matrix = CoPurchaseMatrix.build(new int[]{1, 2, 3, 4},
+                new int[][]{{10, 20, 30}, {10, 20}, {10, 20, 40}, {10, 30}});
+
+        assertEquals(Arrays.asList(cell(20, 3), cell(30, 2), cell(40, 1)), matrix.related(10, 5));
+        assertEquals(Arrays.asList(cell(20, 3), cell(30, 2)), matrix.related(10, 2));
+        assertEquals(Arrays.asList(cell(10, 1), cell(20, 1)), sortByBook(matrix.related(40, 5)));
+        assertEquals(Collections.emptyList(), matrix.related(50, 5));
+        assertEquals(Collections.emptyList(), matrix.related(10, 0));
+        assertEquals(4, matrix.size());
+    }
+
+    @Test
+    public void addedPurchaseIsCountedOncePerClient() {
+        CoPurchaseMatrix matrix = CoPurchaseMatrix.build(new int[]{1}, new int[][]{{10, 20}});
+
+        assertTrue(matrix.add(1, 30));
+        assertFalse(matrix.add(1, 30));
+        assertTrue(matrix.add(2, 10));
+        assertTrue(matrix.add(2, 30));
+
+        assertEquals(Arrays.asList(cell(30, 2), cell(20, 1)), matrix.related(10, 5));
+        assertEquals(Arrays.asList(cell(10, 2), cell(20, 1)), matrix.related(30, 5));
+    }
+
+    @Test
+    public void parallelBuildCountsLikeTheNestedLoops() {
+        int[][] histories = randomHistories(5_000, 42);
+        int[] clientIds = IntStream.range(0, histories.length).toArray();
+        assertSameCounts(bruteForce(histories), CoPurchaseMatrix.build(clientIds, histories));
+    }
+
+    @Test
+    public void addingThePurchasesOneByOneBuildsTheSameMatrix() {
+        int[][] histories = randomHistories(2_000, 7);
+        CoPurchaseMatrix matrix = CoPurchaseMatrix.build(new int[0], new int[0][]);
+        for (int client = 0; client < histories.length; client++)
+            for (int book : histories[client])
+                matrix.add(client, book);
+        assertSameCounts(bruteForce(histories), matrix);
+    }
+
+    private static List<Map.Entry<Integer, Integer>> sortByBook(List<Map.Entry<Integer, Integer>> cells) {
+        cells.sort(Map.Entry.comparingByKey());
+        return cells;
+    }
+}
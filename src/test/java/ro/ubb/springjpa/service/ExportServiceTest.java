@@ -0,0 +1,136 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.report.SalesReportType;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exports the books, purchases and reports of the embedded database and reads the files back.
+ */
+public class ExportServiceTest {
+
+    private static EmbeddedDatabase database;
+    private static ExportService exportService;
+    private static List<Book> books = new ArrayList<>();
+    private static Purchase purchase;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        exportService = database.getBean(ExportService.class);
+        BookService bookService = database.getBean(BookService.class);
+
+        Book limited = new Book("Limited, \"signed\" edition", "Author", "Publisher", 2019, Money.ofCents(1999));
+        limited.setStock(5);
+        Book unlimited = new Book("Unlimited", "Author", "Publisher", 2018, Money.ofCents(500));
+        for (Book book : Arrays.asList(limited, unlimited)) {
+            bookService.addBook(book);
+            books.add(book);
+        }
+        Client client = new Client("First", "Last", "first.last@bookstore.ro");
+        database.getBean(ClientService.class).addClient(client);
+        purchase = new Purchase(client.getId(), limited.getId(), "North");
+        database.getBean(PurchaseService.class).add(purchase);
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    /**
+     * Splits a CSV file into its records, unquoting the fields.
+     */
+    private static List<List<String>> readCsv(Path file) throws Exception {
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted && c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == ',' || c == '\n')) {
+                record.add(field.toString());
+                field.setLength(0);
+                if (c == '\n') {
+                    records.add(record);
+                    record = new ArrayList<>();
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void exportedBooksReadBackAsTheStoredBooks() throws Exception {
+        Path file = database.getDirectory().resolve("books.csv");
+        assertEquals(2, exportService.exportBooks(file, ExportFormat.CSV));
+
+        List<List<String>> records = readCsv(file);
+        assertEquals(Arrays.asList("id", "title", "author", "publisher", "publicationYear", "price", "stock"), records.get(0));
+        assertEquals(books.size() + 1, records.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            List<String> record = records.get(i + 1);
+            assertEquals(String.valueOf(book.getId()), record.get(0));
+            assertEquals(book.getTitle(), record.get(1));
+            assertEquals(book.getPublicationYear(), Integer.parseInt(record.get(4)));
+            assertEquals(book.getPriceCents(), new BigDecimal(record.get(5)).movePointRight(2).longValueExact());
+        }
+        // the purchase took a copy of the limited book, the other one has no stock
+        assertEquals("4", records.get(1).get(6));
+        assertEquals("", records.get(2).get(6));
+    }
+
+    @Test
+    public void exportedPurchasesAreCompressedJsonLines() throws Exception {
+        Path file = database.getDirectory().resolve("purchases.jsonl.gz");
+        assertEquals(1, exportService.exportPurchases(file, ExportFormat.JSONL));
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).startsWith("{\"id\":" + purchase.getId() + ",\"clientId\":" + purchase.getClientId() +
+                ",\"bookId\":" + purchase.getBookId() + ",\"library\":\"North\",\"purchaseDate\":\""));
+        assertTrue(lines.get(0), lines.get(0).endsWith(",\"price\":19.99}"));
+    }
+
+    @Test
+    public void exportedReportHasItsGroupAsFirstColumn() throws Exception {
+        Path file = database.getDirectory().resolve("libraries.csv");
+        assertEquals(1, exportService.exportReport(SalesReportType.LIBRARY, file, ExportFormat.CSV));
+        assertEquals(Arrays.asList(Arrays.asList("library", "units", "revenue"), Arrays.asList("North", "1", "19.99")),
+                readCsv(file));
+    }
+}
@@ -0,0 +1,78 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExportWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> readGzip(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void csvStartsWithTheHeaderAndQuotesOnlyWhatNeedsIt() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("rows.csv");
+        try (ExportWriter writer = new ExportWriter(file, ExportFormat.CSV, "id", "title, full", "price")) {
+            writer.write(1, "Plain", new BigDecimal("19.99"));
+            writer.write(2, "Comma, and \"quotes\"", null);
+            writer.write(3, "Two\nlines", 0);
+            assertEquals(3, writer.getRows());
+        }
+        assertEquals("id,\"title, full\",price\n" +
+                        "1,Plain,19.99\n" +
+                        "2,\"Comma, and \"\"quotes\"\"\",\n" +
+                        "3,\"Two\nlines\",0\n",
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void jsonlWritesOneEscapedObjectPerLineWithoutHeader() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("rows.jsonl");
+        try (ExportWriter writer = new ExportWriter(file, ExportFormat.JSONL, "id", "title", "stock")) {
+            writer.write(1, "Say \"hi\"\\", 7);
+            writer.write(2, "Tab\there", null);
+        }
+        assertEquals(Arrays.asList("{\"id\":1,\"title\":\"Say \\\"hi\\\"\\\\\",\"stock\":7}",
+                "{\"id\":2,\"title\":\"Tab\\there\",\"stock\":null}"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void gzFilesAreCompressed() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("nested/rows.csv.gz");
+        try (ExportWriter writer = new ExportWriter(file, ExportFormat.CSV, "id", "title")) {
+            writer.write(1, "\u00c9mile");
+        }
+        assertEquals(Arrays.asList("id,title", "1,\u00c9mile"), readGzip(file));
+    }
+
+    @Test
+    public void existingFileIsReplaced() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("rows.csv");
+        Files.write(file, "a much longer content than the export\n".getBytes(StandardCharsets.UTF_8));
+        try (ExportWriter writer = new ExportWriter(file, ExportFormat.CSV, "id")) {
+            assertEquals(0, writer.getRows());
+        }
+        assertEquals("id\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that a purchase submitted again with the same key is stored once, whether the key is still
+ * remembered in memory or only found in the purchasekey table, and that a rolled back purchase does not use up its key.
+ */
+public class PurchaseKeyTest {
+
+    private static EmbeddedDatabase database;
+    private static PurchaseService purchaseService;
+    private static BookService bookService;
+    private static int clientId;
+    private static int bookId;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        // a single key is remembered, so the second key pushes the first one out to the database check
+        database = EmbeddedDatabase.start("purchase.keys.cacheSize=1");
+        purchaseService = database.getBean(PurchaseService.class);
+        bookService = database.getBean(BookService.class);
+
+        Book book = new Book("Title", "Author", "Publisher", 2019, Money.ofCents(1999));
+        bookService.addBook(book);
+        bookId = book.getId();
+        Client client = new Client("First", "Last", "first.last@bookstore.ro");
+        database.getBean(ClientService.class).addClient(client);
+        clientId = client.getId();
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static Purchase purchase(int bookId, String key) {
+        Purchase purchase = new Purchase(clientId, bookId, "Library");
+        purchase.setPurchaseKey(key);
+        return purchase;
+    }
+
+    private static int purchasesWithKey(String key) {
+        return database.jdbc().queryForObject("select count(*) from purchase p join purchasekey k on k.purchaseid = p.id " +
+                "where k.purchasekey = ?", Integer.class, key);
+    }
+
+    private static void assertRejected(Purchase purchase) throws Exception {
+        try {
+            purchaseService.add(purchase);
+            fail("the duplicate purchase was stored");
+        } catch (BookstoreException e) {
+            assertEquals("Duplicate purchase, key " + purchase.getPurchaseKey() + " was already used!\n", e.getMessage());
+        }
+    }
+
+    @Test
+    public void retryOfARecentPurchaseIsRejected() throws Exception {
+        purchaseService.add(purchase(bookId, "recent"));
+        assertRejected(purchase(bookId, "recent"));
+        assertEquals(1, purchasesWithKey("recent"));
+    }
+
+    @Test
+    public void retryOfAnOlderPurchaseIsRejectedByTheDatabase() throws Exception {
+        purchaseService.add(purchase(bookId, "older"));
+        purchaseService.add(purchase(bookId, "newer"));
+        int purchases = database.jdbc().queryForObject("select count(*) from purchase", Integer.class);
+
+        assertRejected(purchase(bookId, "older"));
+        assertEquals(purchases, (int) database.jdbc().queryForObject("select count(*) from purchase", Integer.class));
+    }
+
+    @Test
+    public void purchaseWithoutKeyIsNeverRejected() throws Exception {
+        int purchases = database.jdbc().queryForObject("select count(*) from purchase", Integer.class);
+        purchaseService.add(purchase(bookId, null));
+        purchaseService.add(purchase(bookId, null));
+        assertEquals(purchases + 2, (int) database.jdbc().queryForObject("select count(*) from purchase", Integer.class));
+    }
+
+    @Test
+    public void keyOfARolledBackPurchaseCanBeRetried() throws Exception {
+        Book book = new Book("Sold out", "Author", "Publisher", 2019, Money.ofCents(999));
+        book.setStock(0);
+        bookService.addBook(book);
+        try {
+            purchaseService.add(purchase(book.getId(), "sold-out"));
+            fail("a sold out book was sold");
+        } catch (BookstoreException e) {
+            assertEquals("Book " + book.getId() + " is sold out!\n", e.getMessage());
+        }
+        assertEquals(0, purchasesWithKey("sold-out"));
+
+        bookService.restock(book.getId(), null, 1);
+        purchaseService.add(purchase(book.getId(), "sold-out"));
+        assertEquals(1, purchasesWithKey("sold-out"));
+    }
+
+    @Test
+    public void concurrentRetriesStoreThePurchaseOnce() throws Exception {
+        int retries = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(retries);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < retries; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        purchaseService.add(purchase(bookId, "concurrent"));
+                        return true;
+                    } catch (BookstoreException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int stored = 0;
+            for (Future<Boolean> result : results)
+                stored += result.get() ? 1 : 0;
+            assertEquals(1, stored);
+            assertEquals(1, purchasesWithKey("concurrent"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the top 3 clients and books reports, over all the purchases (ranked from the analytics snapshot)
+ * and over a period (ranked in the database).
+ */
+public class PurchaseReportsTest {
+
+    private static EmbeddedDatabase database;
+    private static PurchaseService purchaseService;
+    private static BookService bookService;
+    private static ClientService clientService;
+    private static PurchaseAnalyticsService purchaseAnalyticsService;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        purchaseService = database.getBean(PurchaseService.class);
+        bookService = database.getBean(BookService.class);
+        clientService = database.getBean(ClientService.class);
+        purchaseAnalyticsService = database.getBean(PurchaseAnalyticsService.class);
+
+        int cheap = addBook("Cheap", 500);
+        int middle = addBook("Middle", 1999);
+        int dear = addBook("Dear", 4550);
+        addBook("Unsold", 100);
+        int first = addClient("First");
+        int second = addClient("Second");
+        int third = addClient("Third");
+        int fourth = addClient("Fourth");
+        addClient("Idle");
+
+        purchase(first, dear);
+        purchase(first, dear);
+        purchase(second, middle);
+        purchase(second, cheap);
+        purchase(third, cheap);
+        purchase(third, cheap);
+        purchase(third, middle);
+        purchase(fourth, cheap);
+        purchase(fourth, dear);
+        purchaseAnalyticsService.refresh();
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static int addBook(String title, long priceCents) throws Exception {
+        Book book = new Book(title, "Author", "Publisher", 2019, Money.ofCents(priceCents));
+        bookService.addBook(book);
+        return book.getId();
+    }
+
+    private static int addClient(String firstName) throws Exception {
+        Client client = new Client(firstName, "Last", firstName.toLowerCase() + ".last@bookstore.ro");
+        clientService.addClient(client);
+        return client.getId();
+    }
+
+    private static void purchase(int clientId, int bookId) throws Exception {
+        purchaseService.add(new Purchase(clientId, bookId, "Library"));
+    }
+
+    private static String clients(List<Map.Entry<Client, Money>> report) {
+        return report.stream().map(entry -> entry.getKey().getFirstName() + "=" + entry.getValue()).collect(Collectors.joining(", "));
+    }
+
+    private static String books(List<Map.Entry<Book, Long>> report) {
+        return report.stream().map(entry -> entry.getKey().getTitle() + "=" + entry.getValue()).collect(Collectors.joining(", "));
+    }
+
+    @Test
+    public void topClientsAreTheClientsWhoSpentTheMost() throws Exception {
+        assertEquals("First=91.00, Fourth=50.50, Third=29.99", clients(purchaseService.reportTop3ClientsBasedOnMoneySpent()));
+    }
+
+    @Test
+    public void topBooksAreTheBooksSoldTheMost() throws Exception {
+        assertEquals("Cheap=4, Dear=3, Middle=2", books(purchaseService.reportTop3BestSellingBooks()));
+    }
+
+    @Test
+    public void periodReportsAgreeWithTheAllTimeReports() throws Exception {
+        LocalDate today = LocalDate.now();
+        assertEquals(clients(purchaseService.reportTop3ClientsBasedOnMoneySpent()),
+                clients(purchaseService.reportTop3ClientsBasedOnMoneySpent(today.minusDays(1), today.plusDays(1))));
+        assertEquals("", clients(purchaseService.reportTop3ClientsBasedOnMoneySpent(today.minusDays(10), today.minusDays(5))));
+        assertEquals("", books(purchaseService.reportTop3BestSellingBooks(today.minusDays(10), today.minusDays(5))));
+    }
+
+    @Test
+    public void snapshotAgreesWithTheDatabase() throws Exception {
+        assertEquals(Collections.singletonMap("Library", Money.ofCents(3 * 4550 + 2 * 1999 + 4 * 500)),
+                purchaseAnalyticsService.getRevenuePerLibrary());
+        assertEquals(9, purchaseAnalyticsService.getSalesPerBook().values().stream().mapToLong(Long::longValue).sum());
+        for (Map.Entry<Client, Money> entry : purchaseService.reportTop3ClientsBasedOnMoneySpent())
+            assertEquals(purchaseService.getMoneySpentForClient(entry.getKey().getId()), entry.getValue());
+    }
+}
@@ -0,0 +1,81 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PurchaseSnapshotTest {
+
+    @Test
+    public void columnsAreGroupedByTheirDecodedIds() {
+        PurchaseSnapshot snapshot = PurchaseSnapshot.builder()
+                .add(7, 100, 500, "North")
+                .add(3, 100, 500, "South")
+                .add(7, 200, 1999, "North")
+                .add(7, 100, 500, "South")
+                .build();
+
+        assertEquals(4, snapshot.size());
+        assertEquals(2, snapshot.clients());
+        assertEquals(2, snapshot.books());
+        assertEquals(2, snapshot.libraries());
+
+        long[] spend = snapshot.spendPerClient();
+        assertEquals(7, snapshot.clientAt(0));
+        assertEquals(2999, spend[0]);
+        assertEquals(500, spend[1]);
+
+        long[] sales = snapshot.salesPerBook();
+        assertEquals(100, snapshot.bookAt(0));
+        assertEquals(3, sales[0]);
+        assertEquals(1, sales[1]);
+
+        long[] revenue = snapshot.revenuePerLibrary();
+        assertEquals("North", snapshot.libraryAt(0));
+        assertEquals(2499, revenue[0]);
+        assertEquals(1000, revenue[1]);
+    }
+
+    @Test
+    public void topCodesAreRankedByValueThenByCode() {
+        assertArrayEquals(new int[]{1, 3, 0}, PurchaseSnapshot.topN(new long[]{5, 9, 2, 9, 1}, 3));
+        assertArrayEquals(new int[]{1, 3, 0, 2, 4}, PurchaseSnapshot.topN(new long[]{5, 9, 2, 9, 1}, 10));
+        assertArrayEquals(new int[0], PurchaseSnapshot.topN(new long[]{5, 9}, 0));
+        assertArrayEquals(new int[0], PurchaseSnapshot.topN(new long[0], 3));
+    }
+
+    @Test
+    public void parallelScansSumLikeASequentialLoop() {
+        Random random = new Random(42);
+        PurchaseSnapshot.Builder builder = PurchaseSnapshot.builder();
+        Map<Integer, Long> expectedSpend = new HashMap<>();
+        Map<Integer, Long> expectedSales = new HashMap<>();
+        // more rows than a single scan chunk takes
+        for (int row = 0; row < 200_000; row++) {
+            int clientId = random.nextInt(5_000);
+            int bookId = random.nextInt(300);
+            long price = 100 + random.nextInt(10_000);
+            builder.add(clientId, bookId, price, "Library " + random.nextInt(4));
+            expectedSpend.merge(clientId, price, Long::sum);
+            expectedSales.merge(bookId, 1L, Long::sum);
+        }
+        PurchaseSnapshot snapshot = builder.build();
+
+        long[] spend = snapshot.spendPerClient();
+        Map<Integer, Long> actualSpend = new HashMap<>();
+        for (int code = 0; code < spend.length; code++)
+            actualSpend.put(snapshot.clientAt(code), spend[code]);
+        assertEquals(expectedSpend, actualSpend);
+
+        long[] sales = snapshot.salesPerBook();
+        Map<Integer, Long> actualSales = new HashMap<>();
+        for (int code = 0; code < sales.length; code++)
+            actualSales.put(snapshot.bookAt(code), sales[code]);
+        assertEquals(expectedSales, actualSales);
+    }
+}
@@ -0,0 +1,186 @@
+package ro.ubb.springjpa.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the write-behind queue writes a batch with one statement of each kind, rejects only the failing
+ * purchases of a batch and never leaves a caller waiting when it stops.
+ */
+public class PurchaseWriteBehindQueueTest {
+
+    private static final int BATCH_SIZE = 20;
+
+    private EmbeddedDatabase database;
+    private PurchaseService purchaseService;
+    private int clientId;
+    private int bookId;
+
+    /**
+     * Records the SQL of the statements Hibernate prepares; a JDBC batch is prepared once.
+     */
+    public static class Statements implements StatementInspector {
+        private static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (statements) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        static long count(String prefix) {
+            synchronized (statements) {
+                return statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+            }
+        }
+
+        static void clear() {
+            synchronized (statements) {
+                statements.clear();
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // a batch is written once it is full, well before the delay runs out
+        this.database = EmbeddedDatabase.start("purchase.writeBehind.enabled=true", "purchase.writeBehind.batchSize=" + BATCH_SIZE,
+                "purchase.writeBehind.maxDelayMillis=5000", "db.statementInspector=" + Statements.class.getName());
+        this.purchaseService = this.database.getBean(PurchaseService.class);
+        Client client = new Client("First", "Last", "first.last@bookstore.ro");
+        this.database.getBean(ClientService.class).addClient(client);
+        this.clientId = client.getId();
+        Book book = new Book("Title", "Author", "Publisher", 2019, Money.ofCents(1999));
+        book.setStock(BATCH_SIZE);
+        this.database.getBean(BookService.class).addBook(book);
+        this.bookId = book.getId();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.database.close();
+    }
+
+    private Purchase purchase(String key) {
+        Purchase purchase = new Purchase(this.clientId, this.bookId, "Library");
+        purchase.setPurchaseKey(key);
+        return purchase;
+    }
+
+    private long count(String sql) {
+        return this.database.jdbc().queryForObject(sql, Long.class);
+    }
+
+    @Test
+    public void batchIsWrittenWithOneStatementOfEachKind() throws Exception {
+        Statements.clear();
+        List<CompletableFuture<Purchase>> written = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++)
+            written.add(this.purchaseService.submit(this.purchase("key-" + i)));
+        for (CompletableFuture<Purchase> future : written)
+            future.get(10, TimeUnit.SECONDS);
+
+        assertEquals(BATCH_SIZE, this.count("select count(*) from purchase"));
+        assertEquals(BATCH_SIZE, this.count("select count(*) from purchasekey"));
+        assertEquals(0, this.count("select stock from book"));
+        assertEquals(BATCH_SIZE, this.count("select units from purchaserollup"));
+        assertEquals(1, Statements.count("insert into Purchase "));
+        assertEquals(1, Statements.count("insert into PurchaseKey "));
+        assertEquals(1, Statements.count("insert into OutboxEvent "));
+        assertEquals(1, Statements.count("insert into purchaserollup"));
+        assertEquals(1, Statements.count("update librarystock"));
+        assertEquals(1, Statements.count("update book"));
+    }
+
+    @Test
+    public void onlyTheFailingPurchasesOfABatchAreRejected() throws Exception {
+        this.purchaseService.add(this.purchase("used"));
+        // one copy left for the rest of the batch
+        this.database.jdbc().update("update book set stock = ? where id = ?", BATCH_SIZE - 3, this.bookId);
+
+        List<CompletableFuture<Purchase>> written = new ArrayList<>();
+        written.add(this.purchaseService.submit(this.purchase("twice")));
+        written.add(this.purchaseService.submit(this.purchase("twice")));
+        for (int i = 2; i < BATCH_SIZE; i++)
+            written.add(this.purchaseService.submit(this.purchase(null)));
+        int stored = 0;
+        List<String> failures = new ArrayList<>();
+        for (CompletableFuture<Purchase> future : written) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                stored++;
+            } catch (ExecutionException e) {
+                failures.add(e.getCause().getMessage());
+            }
+        }
+        assertEquals(BATCH_SIZE - 3, stored);
+        assertEquals(3, failures.size());
+        assertTrue(failures.toString(), failures.contains("Duplicate purchase, key twice was already used!\n"));
+        assertTrue(failures.toString(), failures.contains("Book " + this.bookId + " is sold out!\n"));
+        assertEquals(1 + BATCH_SIZE - 3, this.count("select count(*) from purchase"));
+    }
+
+    @Test
+    public void purchasesSubmittedWhileTheQueueStopsAreNeverLeftWaiting() throws Exception {
+        this.database.jdbc().update("update book set stock = null where id = ?", this.bookId);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<CompletableFuture<Purchase>>>> submitters = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                submitters.add(executor.submit(() -> {
+                    List<CompletableFuture<Purchase>> submitted = new ArrayList<>();
+                    while (true) {
+                        try {
+                            submitted.add(this.purchaseService.submit(this.purchase(null)));
+                        } catch (BookstoreException e) {
+                            if (e.getMessage().startsWith("Purchase queue is not running"))
+                                return submitted;
+                        } catch (RuntimeException e) {
+                            // the context is closing
+                            return submitted;
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            this.database.getBean(PurchaseWriteBehindQueue.class).destroy();
+
+            for (Future<List<CompletableFuture<Purchase>>> submitter : submitters) {
+                for (CompletableFuture<Purchase> future : submitter.get(10, TimeUnit.SECONDS)) {
+                    try {
+                        future.get(10, TimeUnit.SECONDS);
+                    } catch (ExecutionException e) {
+                        // failed, but completed
+                    } catch (java.util.concurrent.TimeoutException e) {
+                        fail("a submitted purchase was left waiting");
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the daily sales rollup matches the purchases after every kind of change to them.
+ */
+public class SalesRollupTest {
+
+    private static final String ROLLUP = "select saledate, library, units, revenuecents from purchaserollup order by saledate, library";
+    private static final String PURCHASES = "select cast(p.purchasedate as date) as saledate, p.library, count(*) as units, " +
+            "sum(p.pricecents) as revenuecents from purchase p " +
+            "group by cast(p.purchasedate as date), p.library order by saledate, library";
+
+    private static EmbeddedDatabase database;
+    private static PurchaseService purchaseService;
+    private static BookService bookService;
+    private static ClientService clientService;
+
+    private int firstBookId;
+    private int secondBookId;
+    private int firstClientId;
+    private int secondClientId;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        purchaseService = database.getBean(PurchaseService.class);
+        bookService = database.getBean(BookService.class);
+        clientService = database.getBean(ClientService.class);
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static int addBook(String title, long priceCents) throws Exception {
+        Book book = new Book(title, "Author", "Publisher", 2019, Money.ofCents(priceCents));
+        bookService.addBook(book);
+        return book.getId();
+    }
+
+    private static int addClient(String firstName) throws Exception {
+        Client client = new Client(firstName, "Last", firstName.toLowerCase() + ".last@bookstore.ro");
+        clientService.addClient(client);
+        return client.getId();
+    }
+
+    private static int purchase(int clientId, int bookId, String library) throws Exception {
+        Purchase purchase = new Purchase(clientId, bookId, library);
+        purchaseService.add(purchase);
+        return purchase.getId();
+    }
+
+    private static void assertRollupMatchesThePurchases() {
+        List<Map<String, Object>> rollup = database.jdbc().queryForList(ROLLUP);
+        assertEquals(database.jdbc().queryForList(PURCHASES).toString(), rollup.toString());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        database.jdbc().update("delete from purchase");
+        database.jdbc().update("delete from purchaserollup");
+        this.firstBookId = addBook("First", 1999);
+        this.secondBookId = addBook("Second", 500);
+        this.firstClientId = addClient("First");
+        this.secondClientId = addClient("Second");
+        purchase(this.firstClientId, this.firstBookId, "North");
+        purchase(this.firstClientId, this.secondBookId, "North");
+        purchase(this.secondClientId, this.firstBookId, "South");
+        purchase(this.secondClientId, this.secondBookId, "North");
+        assertRollupMatchesThePurchases();
+    }
+
+    @Test
+    public void deletedPurchaseIsTakenOutOfTheRollup() throws Exception {
+        int purchaseId = purchase(this.secondClientId, this.firstBookId, "East");
+        purchaseService.deletePurchase(purchaseId);
+        assertRollupMatchesThePurchases();
+    }
+
+    @Test
+    public void purchasesOfADeletedClientAreTakenOutOfTheRollup() throws Exception {
+        purchaseService.deletePurchaseWithClientID(this.secondClientId);
+        assertRollupMatchesThePurchases();
+        purchaseService.cascadeDeleteClient(this.firstClientId);
+        assertRollupMatchesThePurchases();
+        assertEquals(0, database.jdbc().queryForList(ROLLUP).size());
+    }
+
+    @Test
+    public void purchasesOfADeletedBookAreTakenOutOfTheRollup() throws Exception {
+        purchaseService.deletePurchaseWithBookID(this.secondBookId);
+        assertRollupMatchesThePurchases();
+        purchaseService.cascadeDeleteBook(this.firstBookId);
+        assertRollupMatchesThePurchases();
+    }
+
+    @Test
+    public void updatedPurchaseMovesToItsNewLibraryAndBook() throws Exception {
+        int purchaseId = purchase(this.secondClientId, this.firstBookId, "East");
+        Purchase updated = new Purchase(this.secondClientId, this.secondBookId, "West");
+        updated.setId(purchaseId);
+        purchaseService.updatePurchase(updated);
+        assertRollupMatchesThePurchases();
+    }
+
+    @Test
+    public void updatedPurchaseKeepsItsNewClient() throws Exception {
+        int purchaseId = purchase(this.firstClientId, this.firstBookId, "East");
+        Purchase updated = new Purchase(this.secondClientId, this.firstBookId, "East");
+        updated.setId(purchaseId);
+        purchaseService.updatePurchase(updated);
+        assertEquals(Integer.valueOf(this.secondClientId), database.jdbc().queryForObject(
+                "select clientid from purchase where id = ?", Integer.class, purchaseId));
+        assertRollupMatchesThePurchases();
+    }
+
+    @Test
+    public void purchaseDeletedAfterAPriceChangeTakesOutWhatItWasSoldAt() throws Exception {
+        int purchaseId = purchase(this.secondClientId, this.firstBookId, "East");
+        Book book = bookService.findOne(this.firstBookId).get();
+        book.setPrice(Money.ofCents(99_999));
+        bookService.updateBook(book);
+
+        purchaseService.deletePurchase(purchaseId);
+        assertRollupMatchesThePurchases();
+        assertEquals(Long.valueOf(2 * 1999 + 2 * 500), database.jdbc().queryForObject("select sum(revenuecents) from purchaserollup", Long.class));
+        assertTrue(database.jdbc().queryForList("select 1 from purchaserollup where revenuecents < 0").isEmpty());
+
+        purchaseService.deletePurchaseWithBookID(this.firstBookId);
+        assertRollupMatchesThePurchases();
+        assertEquals(Long.valueOf(2 * 500), database.jdbc().queryForObject("select sum(revenuecents) from purchaserollup", Long.class));
+    }
+}
@@ -0,0 +1,143 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private AnnotationConfigApplicationContext context;
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+
+    static class Config {
+        @Bean
+        public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            Properties properties = new Properties();
+            properties.setProperty("reports.freshMillis", "60000");
+            properties.setProperty("reports.staleMillis", "120000");
+            PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+            configurer.setProperties(properties);
+            return configurer;
+        }
+
+        @Bean
+        public SingleFlight singleFlight() {
+            return new SingleFlight();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.context = new AnnotationConfigApplicationContext(Config.class);
+        this.singleFlight = this.context.getBean(SingleFlight.class);
+        this.executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+        this.context.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Starts CALLERS identical calls of a computation which waits for the release latch, once they all wait for it.
+     */
+    private List<Future<Object>> callConcurrently(SingleFlight.Loader<Object> loader, CountDownLatch release) throws Exception {
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++)
+            results.add(this.executor.submit(() -> this.singleFlight.get("report", () -> {
+                await(release);
+                return loader.load();
+            })));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (this.singleFlight.getCoalescedCallers() < CALLERS - 1 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(CALLERS - 1, this.singleFlight.getCoalescedCallers());
+        release.countDown();
+        return results;
+    }
+
+    @Test
+    public void concurrentCallsShareOneComputation() throws Exception {
+        Object value = new Object();
+        List<Future<Object>> results = this.callConcurrently(() -> value, new CountDownLatch(1));
+        for (Future<Object> result : results)
+            assertSame(value, result.get(10, TimeUnit.SECONDS));
+        assertEquals(1, this.singleFlight.getLoads());
+    }
+
+    @Test
+    public void freshResultIsReturnedWithoutComputingItAgain() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, (int) this.singleFlight.get("report", loads::incrementAndGet));
+        assertEquals(1, (int) this.singleFlight.get("report", loads::incrementAndGet));
+        assertEquals(2, (int) this.singleFlight.get("other report", loads::incrementAndGet));
+
+        this.singleFlight.invalidateAll();
+        assertEquals(3, (int) this.singleFlight.get("report", loads::incrementAndGet));
+    }
+
+    @Test
+    public void failureIsSharedAndNotKept() throws Exception {
+        List<Future<Object>> results = this.callConcurrently(() -> {
+            throw new BookstoreException("Report failed!\n");
+        }, new CountDownLatch(1));
+        for (Future<Object> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("the failure was not shared");
+            } catch (ExecutionException e) {
+                assertEquals("Report failed!\n", e.getCause().getMessage());
+            }
+        }
+        assertEquals("recovered", this.singleFlight.get("report", () -> "recovered"));
+    }
+
+    @Test
+    public void errorCompletesTheComputation() throws Exception {
+        List<Future<Object>> results = this.callConcurrently(() -> {
+            throw new StackOverflowError();
+        }, new CountDownLatch(1));
+        for (Future<Object> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("the error was not shared");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+        }
+        assertEquals("recovered", this.singleFlight.get("report", () -> "recovered"));
+    }
+}
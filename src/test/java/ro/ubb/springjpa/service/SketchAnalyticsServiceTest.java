@@ -0,0 +1,109 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that rebuilt sketches count the purchases stored by other instances, forget the deleted ones and count
+ * the purchases committed during the rebuild exactly once.
+ */
+public class SketchAnalyticsServiceTest {
+
+    private static EmbeddedDatabase database;
+    private static SketchAnalyticsService sketchAnalyticsService;
+    private static PurchaseService purchaseService;
+    private static BookService bookService;
+    private static int clientId;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        sketchAnalyticsService = database.getBean(SketchAnalyticsService.class);
+        purchaseService = database.getBean(PurchaseService.class);
+        bookService = database.getBean(BookService.class);
+        Client client = new Client("First", "Last", "first.last@bookstore.ro");
+        database.getBean(ClientService.class).addClient(client);
+        clientId = client.getId();
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static int addBook(String title) throws Exception {
+        Book book = new Book(title, "Author", "Publisher", 2019, Money.ofCents(1999));
+        book.setStock(1_000_000);
+        bookService.addBook(book);
+        return book.getId();
+    }
+
+    private static long purchases(int bookId) {
+        return database.jdbc().queryForObject("select count(*) from purchase where bookid = ?", Long.class, bookId);
+    }
+
+    @Test
+    public void purchasesAreCountedOnCommit() throws Exception {
+        int bookId = addBook("Counted");
+        purchaseService.add(new Purchase(clientId, bookId, "Library"));
+        purchaseService.add(new Purchase(clientId, bookId, "Library"));
+        assertEquals(2, sketchAnalyticsService.getEstimatedSales(bookId));
+        assertEquals(1, sketchAnalyticsService.getDistinctClients(bookId));
+    }
+
+    @Test
+    public void rebuildCountsThePurchasesOfOtherInstancesAndForgetsTheDeletedOnes() throws Exception {
+        int bookId = addBook("Shared");
+        purchaseService.add(new Purchase(clientId, bookId, "Library"));
+        // stored by another instance, which this one is not told about
+        for (int i = 0; i < 3; i++)
+            database.jdbc().update("insert into purchase (id, bookid, clientid, library, purchasedate, pricecents) " +
+                    "values (nextval('hibernate_sequence'), ?, ?, 'Library', now(), 0)", bookId, clientId);
+        assertEquals(1, sketchAnalyticsService.getEstimatedSales(bookId));
+
+        sketchAnalyticsService.rebuild();
+        assertEquals(4, sketchAnalyticsService.getEstimatedSales(bookId));
+
+        database.jdbc().update("delete from purchase where id = (select max(id) from purchase where bookid = ?)", bookId);
+        sketchAnalyticsService.rebuild();
+        assertEquals(3, sketchAnalyticsService.getEstimatedSales(bookId));
+    }
+
+    @Test
+    public void purchasesCommittedDuringARebuildAreCountedOnce() throws Exception {
+        int bookId = addBook("Concurrent");
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> added = executor.submit(() -> {
+                int count = 0;
+                while (running.get()) {
+                    purchaseService.add(new Purchase(clientId, bookId, "Library"));
+                    count++;
+                }
+                return count;
+            });
+            for (int i = 0; i < 20; i++)
+                sketchAnalyticsService.rebuild();
+            running.set(false);
+            assertTrue(added.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(purchases(bookId), sketchAnalyticsService.getEstimatedSales(bookId));
+    }
+}
@@ -0,0 +1,178 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.domain.validators.BookstoreException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the stock of the books and of the libraries follows the purchases when they are added, moved and deleted,
+ * and that the cached books show it.
+ */
+public class StockTest {
+
+    private static EmbeddedDatabase database;
+    private static JdbcTemplate jdbcTemplate;
+    private static BookService bookService;
+    private static ClientService clientService;
+    private static PurchaseService purchaseService;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        jdbcTemplate = database.jdbc();
+        bookService = database.getBean(BookService.class);
+        clientService = database.getBean(ClientService.class);
+        purchaseService = database.getBean(PurchaseService.class);
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    /**
+     * Adds a book with the given copies in the library North and no stock kept by the other libraries.
+     */
+    private static Book addBook(int copies) throws Exception {
+        Book book = new Book("Title", "Author", "Publisher", 2019, Money.ofCents(1000));
+        bookService.addBook(book);
+        bookService.restock(book.getId(), "North", copies);
+        return book;
+    }
+
+    private static Client addClient() throws Exception {
+        Client client = new Client("First", "Last", "first.last@bookstore.ro");
+        clientService.addClient(client);
+        return client;
+    }
+
+    private static Purchase buy(Client client, Book book, String library) throws Exception {
+        Purchase purchase = new Purchase(client.getId(), book.getId(), library);
+        purchaseService.add(purchase);
+        return purchase;
+    }
+
+    private static void move(Purchase purchase, Book book, String library) throws Exception {
+        Purchase moved = new Purchase(purchase.getClientId(), book.getId(), library);
+        moved.setId(purchase.getId());
+        purchaseService.updatePurchase(moved);
+    }
+
+    private static Integer stock(Book book) throws Exception {
+        Integer cached = bookService.findOne(book.getId()).get().getStock();
+        assertEquals(jdbcTemplate.queryForObject("select stock from book where id = ?", Integer.class, book.getId()), cached);
+        return cached;
+    }
+
+    private static Integer stock(Book book, String library) {
+        return jdbcTemplate.query("select quantity from librarystock where bookid = ? and library = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, book.getId(), library);
+    }
+
+    @Test
+    public void cachedBookShowsTheCopiesTakenByPurchases() throws Exception {
+        Book book = addBook(3);
+        Client client = addClient();
+        assertEquals(Integer.valueOf(3), stock(book));
+
+        buy(client, book, "North");
+        buy(client, book, "South");
+        assertEquals(Integer.valueOf(1), stock(book));
+        assertEquals(Integer.valueOf(2), stock(book, "North"));
+        assertNull(stock(book, "South"));
+    }
+
+    @Test
+    public void deletedPurchasePutsItsCopyBack() throws Exception {
+        Book book = addBook(2);
+        Purchase purchase = buy(addClient(), book, "North");
+        assertEquals(Integer.valueOf(1), stock(book));
+
+        purchaseService.deletePurchase(purchase.getId());
+        assertEquals(Integer.valueOf(2), stock(book));
+        assertEquals(Integer.valueOf(2), stock(book, "North"));
+    }
+
+    @Test
+    public void updatedPurchaseMovesItsCopy() throws Exception {
+        Book first = addBook(2);
+        Book second = addBook(2);
+        Client client = addClient();
+        Purchase purchase = buy(client, first, "North");
+
+        move(purchase, second, "North");
+        assertEquals(Integer.valueOf(2), stock(first));
+        assertEquals(Integer.valueOf(2), stock(first, "North"));
+        assertEquals(Integer.valueOf(1), stock(second));
+        assertEquals(Integer.valueOf(1), stock(second, "North"));
+
+        // moved to a library without a stock of its own, only the book keeps the copy
+        move(purchase, second, "South");
+        assertEquals(Integer.valueOf(1), stock(second));
+        assertEquals(Integer.valueOf(2), stock(second, "North"));
+    }
+
+    @Test
+    public void purchaseMovedToASoldOutBookIsRolledBack() throws Exception {
+        Book first = addBook(2);
+        Book soldOut = addBook(1);
+        Client client = addClient();
+        Purchase purchase = buy(client, first, "North");
+        buy(client, soldOut, "North");
+
+        try {
+            move(purchase, soldOut, "North");
+            fail();
+        } catch (BookstoreException e) {
+            assertEquals("Book " + soldOut.getId() + " is sold out in library North!\n", e.getMessage());
+        }
+        assertEquals(Integer.valueOf(first.getId()), jdbcTemplate.queryForObject(
+                "select bookid from purchase where id = ?", Integer.class, purchase.getId()));
+        assertEquals(Integer.valueOf(1), stock(first));
+        assertEquals(Integer.valueOf(1), stock(first, "North"));
+        assertEquals(Integer.valueOf(0), stock(soldOut));
+    }
+
+    @Test
+    public void purchasesDeletedWithTheirClientOrBookPutTheirCopiesBack() throws Exception {
+        Book first = addBook(5);
+        Book second = addBook(5);
+        Client leaving = addClient();
+        Client staying = addClient();
+        buy(leaving, first, "North");
+        buy(leaving, first, "North");
+        buy(leaving, second, "South");
+        buy(staying, second, "North");
+
+        purchaseService.deletePurchaseWithClientID(leaving.getId());
+        assertEquals(Integer.valueOf(5), stock(first));
+        assertEquals(Integer.valueOf(5), stock(first, "North"));
+        assertEquals(Integer.valueOf(4), stock(second));
+        assertEquals(Integer.valueOf(4), stock(second, "North"));
+
+        purchaseService.deletePurchaseWithBookID(second.getId());
+        assertEquals(Integer.valueOf(5), stock(second));
+        assertEquals(Integer.valueOf(5), stock(second, "North"));
+    }
+
+    @Test
+    public void deletedBookLeavesNoLibraryStock() throws Exception {
+        Book book = addBook(2);
+        buy(addClient(), book, "North");
+
+        purchaseService.cascadeDeleteBook(book.getId());
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+                "select count(*) from librarystock where bookid = ?", Integer.class, book.getId()));
+    }
+}
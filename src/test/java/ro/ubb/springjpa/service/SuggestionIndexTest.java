@@ -0,0 +1,90 @@
+package ro.ubb.springjpa.service;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class SuggestionIndexTest {
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).collect(Collectors.toList());
+    }
+
+    private static SuggestionIndex titles() {
+        Map<String, Long> weights = new HashMap<>();
+        weights.put("Dune", 50L);
+        weights.put("Dune Messiah", 20L);
+        weights.put("Dubliners", 35L);
+        weights.put("Dracula", 40L);
+        weights.put("Emma", 10L);
+        return SuggestionIndex.of(weights);
+    }
+
+    @Test
+    public void textsStartingWithThePrefixAreRankedByWeight() {
+        SuggestionIndex index = titles();
+        assertEquals(Arrays.asList("Dune", "Dracula", "Dubliners", "Dune Messiah"), texts(index.suggest("d", 10)));
+        assertEquals(Arrays.asList("Dune", "Dubliners"), texts(index.suggest("Du", 2)));
+        assertEquals(Arrays.asList("Dune", "Dune Messiah"), texts(index.suggest("  DUNE", 5)));
+        assertEquals(Arrays.asList("Dune", "Dracula", "Dubliners", "Dune Messiah", "Emma"), texts(index.suggest("", 10)));
+    }
+
+    @Test
+    public void nothingIsSuggestedWithoutMatchesOrRoom() {
+        SuggestionIndex index = titles();
+        assertEquals(Collections.emptyList(), index.suggest("x", 5));
+        assertEquals(Collections.emptyList(), index.suggest("zz", 5));
+        assertEquals(Collections.emptyList(), index.suggest("d", 0));
+        assertEquals(Collections.emptyList(), SuggestionIndex.of(Collections.emptyMap()).suggest("d", 5));
+    }
+
+    @Test
+    public void textsDifferingInCaseAreMergedAndBlankTextsDropped() {
+        Map<String, Long> weights = new HashMap<>();
+        weights.put("Tolkien", 3L);
+        weights.put("TOLKIEN ", 4L);
+        weights.put("Tolstoy", 5L);
+        weights.put(" ", 100L);
+        weights.put(null, 100L);
+        SuggestionIndex index = SuggestionIndex.of(weights);
+
+        assertEquals(2, index.size());
+        List<Suggestion> suggestions = index.suggest("tol", 5);
+        assertEquals(7, suggestions.get(0).getWeight());
+        assertEquals("tolkien", SuggestionIndex.normalize(suggestions.get(0).getText()));
+        assertEquals("Tolstoy", suggestions.get(1).getText());
+    }
+
+    @Test
+    public void suggestionsAreTheHeaviestMatchesOfAFullScan() {
+        Random random = new Random(42);
+        Map<String, Long> weights = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            char[] text = new char[1 + random.nextInt(6)];
+            for (int j = 0; j < text.length; j++)
+                text[j] = (char) ('a' + random.nextInt(4));
+            // distinct weights, so the expected order is unique
+            weights.put(new String(text), (long) i * 7919 % 100_003);
+        }
+        SuggestionIndex index = SuggestionIndex.of(weights);
+
+        for (String prefix : Arrays.asList("", "a", "b", "cd", "dab", "abcd", "aaaaaa", "bbbbbbb")) {
+            List<String> expected = weights.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .limit(10)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals("prefix " + prefix, expected, texts(index.suggest(prefix, 10)));
+        }
+    }
+}
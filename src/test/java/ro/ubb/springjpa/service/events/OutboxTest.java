@@ -0,0 +1,139 @@
+package ro.ubb.springjpa.service.events;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the rows recorded by the Outbox and their delivery by the OutboxRelay, read back from the events file.
+ */
+public class OutboxTest {
+
+    private static final Pattern EVENT = Pattern.compile("^\\{\"id\":(\\d+),.*\"publishOrder\":(\\d+),");
+
+    private static EmbeddedDatabase database;
+    private static Path events;
+    private static Outbox outbox;
+    private static OutboxRelay relay;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        events = Files.createTempFile("outbox-test", ".jsonl");
+        // the scheduled relay only runs at the startup, the tests relay themselves
+        database = EmbeddedDatabase.start("events.file=" + events, "events.relay.delayMillis=3600000");
+        outbox = database.getBean(Outbox.class);
+        relay = database.getBean(OutboxRelay.class);
+        transactionTemplate = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+        Files.deleteIfExists(events);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        relay.relay();
+        Files.write(events, new byte[0]);
+    }
+
+    /**
+     * Reads the (id, publish order) pairs of the events published so far, in the order they were written.
+     */
+    private static List<long[]> published() throws Exception {
+        List<long[]> published = new ArrayList<>();
+        for (String line : Files.readAllLines(events, StandardCharsets.UTF_8)) {
+            Matcher matcher = EVENT.matcher(line);
+            assertTrue(line, matcher.find());
+            published.add(new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))});
+        }
+        return published;
+    }
+
+    private static int recordDeletion(int id) {
+        transactionTemplate.execute(status -> {
+            outbox.deleted("Book", id);
+            return null;
+        });
+        return database.jdbc().queryForObject("select id from outboxevent where aggregateid = ?", Integer.class, id);
+    }
+
+    @Test(expected = IllegalTransactionStateException.class)
+    public void recordingOutsideATransactionFails() {
+        outbox.deleted("Book", 1000);
+    }
+
+    @Test
+    public void recordedEventIsPublishedOnceAndMarked() throws Exception {
+        transactionTemplate.execute(status -> {
+            outbox.purchasesDeleted(ChangeEvent.DELETED_FOR_CLIENT, 42);
+            return null;
+        });
+        Map<String, Object> row = database.jdbc().queryForMap(
+                "select aggregatetype, eventtype, payload, publishedat from outboxevent order by id desc limit 1");
+        assertEquals("Purchase", row.get("aggregatetype"));
+        assertEquals(ChangeEvent.DELETED_FOR_CLIENT, row.get("eventtype"));
+        assertEquals("{\"clientId\":42}", row.get("payload"));
+        assertEquals(null, row.get("publishedat"));
+
+        relay.relay();
+        relay.relay();
+        List<String> lines = Files.readAllLines(events, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).contains("\"payload\":{\"clientId\":42}"));
+        assertEquals(Integer.valueOf(0), database.jdbc().queryForObject(
+                "select count(*) from outboxevent where publishedat is null or publishorder is null", Integer.class));
+    }
+
+    @Test
+    public void eventCommittedAfterAHigherIdIsPublishedAfterIt() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        // the first transaction takes its id, then waits while a second one records and commits
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            outbox.deleted("Book", 1001);
+            recorded.countDown();
+            try {
+                assertTrue(commit.await(30, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        }));
+        assertTrue(recorded.await(30, TimeUnit.SECONDS));
+        int second = recordDeletion(1002);
+
+        relay.relay();
+        commit.countDown();
+        first.get(30, TimeUnit.SECONDS);
+        relay.relay();
+
+        List<long[]> published = published();
+        assertEquals(2, published.size());
+        assertEquals(second, published.get(0)[0]);
+        assertTrue(published.get(1)[0] < second);
+        assertTrue(published.get(0)[1] < published.get(1)[1]);
+    }
+}
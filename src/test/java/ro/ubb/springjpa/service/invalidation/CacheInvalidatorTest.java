@@ -0,0 +1,118 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import ro.ubb.springjpa.service.SingleFlight;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CacheInvalidatorTest {
+
+    private AnnotationConfigApplicationContext context;
+    private InvalidationListener invalidator;
+    private Cache books;
+    private Cache clients;
+
+    /**
+     * Registered explicitly rather than annotated, so the component scan of the application contexts of other tests
+     * does not pick it up.
+     */
+    static class Config {
+        @Bean
+        public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            Properties properties = new Properties();
+            properties.setProperty("reports.freshMillis", "60000");
+            properties.setProperty("reports.staleMillis", "60000");
+            PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+            configurer.setProperties(properties);
+            return configurer;
+        }
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("books", "clients");
+        }
+
+        @Bean
+        public SingleFlight singleFlight() {
+            return new SingleFlight();
+        }
+
+        @Bean
+        public CacheInvalidator cacheInvalidator() {
+            return new CacheInvalidator();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.context = new AnnotationConfigApplicationContext(Config.class);
+        this.invalidator = this.context.getBean(CacheInvalidator.class);
+        CacheManager cacheManager = this.context.getBean(CacheManager.class);
+        this.books = cacheManager.getCache("books");
+        this.clients = cacheManager.getCache("clients");
+        this.books.put(1, "book 1");
+        this.books.put(2, "book 2");
+        this.clients.put(1, "client 1");
+    }
+
+    @After
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Test
+    public void entityInvalidationEvictsOnlyThatEntry() {
+        this.invalidator.onInvalidation(Invalidation.of("books", 1));
+        assertNull(this.books.get(1));
+        assertNotNull(this.books.get(2));
+        assertNotNull(this.clients.get(1));
+    }
+
+    @Test
+    public void cacheInvalidationClearsOnlyThatCache() {
+        this.invalidator.onInvalidation(Invalidation.allOf("books"));
+        assertNull(this.books.get(1));
+        assertNull(this.books.get(2));
+        assertNotNull(this.clients.get(1));
+    }
+
+    @Test
+    public void invalidationOfEverythingClearsEveryCache() {
+        this.invalidator.onInvalidation(Invalidation.everything());
+        assertNull(this.books.get(1));
+        assertNull(this.books.get(2));
+        assertNull(this.clients.get(1));
+    }
+
+    @Test
+    public void invalidationOfAnUnknownCacheIsIgnored() {
+        this.invalidator.onInvalidation(Invalidation.allOf("authors"));
+        assertNotNull(this.books.get(1));
+        assertNotNull(this.clients.get(1));
+    }
+
+    @Test
+    public void everyInvalidationDropsTheReportResults() throws Exception {
+        SingleFlight singleFlight = this.context.getBean(SingleFlight.class);
+        AtomicInteger loads = new AtomicInteger();
+        singleFlight.get("report", loads::incrementAndGet);
+        singleFlight.get("report", loads::incrementAndGet);
+        assertEquals(1, loads.get());
+
+        this.invalidator.onInvalidation(Invalidation.of("clients", 1));
+        assertEquals(2, (int) singleFlight.get("report", loads::incrementAndGet));
+    }
+}
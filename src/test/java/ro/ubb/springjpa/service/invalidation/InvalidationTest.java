@@ -0,0 +1,55 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InvalidationTest {
+
+    @Test
+    public void entityInvalidationRoundTrips() {
+        Invalidation invalidation = Invalidation.parse(Invalidation.of("books", 42).toString());
+        assertEquals("books", invalidation.getCache());
+        assertEquals(Integer.valueOf(42), invalidation.getId());
+        assertEquals("books:42", invalidation.toString());
+    }
+
+    @Test
+    public void cacheInvalidationRoundTrips() {
+        Invalidation invalidation = Invalidation.parse(Invalidation.allOf("clients").toString());
+        assertEquals("clients", invalidation.getCache());
+        assertNull(invalidation.getId());
+        assertEquals("clients:*", invalidation.toString());
+    }
+
+    @Test
+    public void everythingRoundTrips() {
+        Invalidation invalidation = Invalidation.parse(Invalidation.everything().toString());
+        assertNull(invalidation.getCache());
+        assertNull(invalidation.getId());
+        assertEquals("*", invalidation.toString());
+    }
+
+    @Test
+    public void cacheNameMayContainTheSeparator() {
+        Invalidation invalidation = Invalidation.parse("reports:daily:7");
+        assertEquals("reports:daily", invalidation.getCache());
+        assertEquals(Integer.valueOf(7), invalidation.getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void textWithoutCacheIsRejected() {
+        Invalidation.parse(":42");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void textWithoutSeparatorIsRejected() {
+        Invalidation.parse("books");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonNumericIdIsRejected() {
+        Invalidation.parse("books:forty-two");
+    }
+}
@@ -0,0 +1,127 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoopbackInvalidationBusTest {
+
+    private AnnotationConfigApplicationContext context;
+    private InvalidationBus bus;
+    private RecordingListener first;
+    private RecordingListener second;
+    private TransactionTemplate transactionTemplate;
+
+    static class Config {
+        @Bean
+        public InvalidationBus invalidationBus() {
+            return new LoopbackInvalidationBus();
+        }
+
+        @Bean
+        public RecordingListener first() {
+            return new RecordingListener();
+        }
+
+        @Bean
+        public RecordingListener second() {
+            return new RecordingListener();
+        }
+    }
+
+    /**
+     * Runs the transaction synchronizations like a real transaction manager, without a resource.
+     */
+    static class SynchronizationOnlyTransactionManager extends AbstractPlatformTransactionManager {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.context = new AnnotationConfigApplicationContext(Config.class);
+        this.bus = this.context.getBean(InvalidationBus.class);
+        this.first = this.context.getBean("first", RecordingListener.class);
+        this.second = this.context.getBean("second", RecordingListener.class);
+        this.transactionTemplate = new TransactionTemplate(new SynchronizationOnlyTransactionManager());
+    }
+
+    @After
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Test
+    public void outsideATransactionEveryListenerGetsItRightAway() {
+        this.bus.publish(Invalidation.of("books", 1));
+        assertEquals(Collections.singletonList("books:1"), this.first.getReceived());
+        assertEquals(Collections.singletonList("books:1"), this.second.getReceived());
+    }
+
+    @Test
+    public void insideATransactionItIsDeliveredAfterTheCommit() {
+        this.transactionTemplate.execute(status -> {
+            this.bus.publish(Invalidation.of("books", 1));
+            this.bus.publish(Invalidation.allOf("clients"));
+            assertEquals(Collections.emptyList(), this.first.getReceived());
+            return null;
+        });
+        assertEquals(Arrays.asList("books:1", "clients:*"), this.first.getReceived());
+        assertEquals(Arrays.asList("books:1", "clients:*"), this.second.getReceived());
+    }
+
+    @Test
+    public void onRollbackItIsNotDelivered() {
+        this.transactionTemplate.execute(status -> {
+            this.bus.publish(Invalidation.of("books", 1));
+            status.setRollbackOnly();
+            return null;
+        });
+        assertEquals(Collections.emptyList(), this.first.getReceived());
+        assertEquals(Collections.emptyList(), this.second.getReceived());
+    }
+
+    @Test
+    public void aFailingListenerDoesNotStopTheOthers() {
+        AnnotationConfigApplicationContext failing = new AnnotationConfigApplicationContext();
+        failing.register(Config.class);
+        failing.registerBean("failing", InvalidationListener.class, () -> invalidation -> {
+            throw new IllegalStateException("listener failure");
+        });
+        failing.refresh();
+        try {
+            failing.getBean(InvalidationBus.class).publish(Invalidation.everything());
+            assertEquals(Collections.singletonList("*"), failing.getBean("first", RecordingListener.class).getReceived());
+            assertEquals(Collections.singletonList("*"), failing.getBean("second", RecordingListener.class).getReceived());
+        } finally {
+            failing.close();
+        }
+    }
+}
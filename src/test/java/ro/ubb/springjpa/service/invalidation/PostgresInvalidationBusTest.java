@@ -0,0 +1,160 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ro.ubb.springjpa.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs two instances of the bus, each in a context of its own, against an embedded PostgreSQL.
+ */
+public class PostgresInvalidationBusTest {
+
+    private static final long DELIVERY_TIMEOUT_MILLIS = 5000;
+    private static final long QUIET_MILLIS = 500;
+
+    private static EmbeddedDatabase database;
+
+    private AnnotationConfigApplicationContext instance;
+    private AnnotationConfigApplicationContext otherInstance;
+
+    static class Config {
+        @Bean
+        public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            Properties properties = new Properties();
+            properties.setProperty("db.jdbcUrl", database.getJdbcUrl());
+            properties.setProperty("db.username", "postgres");
+            properties.setProperty("db.password", "postgres");
+            properties.setProperty("cache.invalidation.channel", "cache_invalidation");
+            properties.setProperty("cache.invalidation.pollMillis", "50");
+            PropertySourcesPlaceholderConfigurer configurer = new PropertySourcesPlaceholderConfigurer();
+            configurer.setProperties(properties);
+            return configurer;
+        }
+
+        @Bean
+        public DataSource dataSource() {
+            return database.getDataSource();
+        }
+
+        @Bean
+        public DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public InvalidationBus invalidationBus() {
+            return new PostgresInvalidationBus();
+        }
+
+        @Bean
+        public RecordingListener listener() {
+            return new RecordingListener();
+        }
+    }
+
+    @BeforeClass
+    public static void startDatabase() throws Exception {
+        database = EmbeddedDatabase.startDatabase();
+    }
+
+    @AfterClass
+    public static void stopDatabase() throws Exception {
+        database.close();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.instance = new AnnotationConfigApplicationContext(Config.class);
+        this.otherInstance = new AnnotationConfigApplicationContext(Config.class);
+        awaitListeners(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.instance.close();
+        this.otherInstance.close();
+    }
+
+    private static void awaitListeners(int listeners) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+        while (listenerPids().size() < listeners && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(listeners, listenerPids().size());
+    }
+
+    private static List<Integer> listenerPids() {
+        return database.jdbc().queryForList("select pid from pg_stat_activity where query like 'listen %'", Integer.class);
+    }
+
+    private RecordingListener listener(AnnotationConfigApplicationContext context) {
+        return context.getBean(RecordingListener.class);
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(this.instance.getBean(DataSourceTransactionManager.class));
+    }
+
+    @Test
+    public void invalidationOutsideATransactionReachesEveryInstance() throws Exception {
+        this.instance.getBean(InvalidationBus.class).publish(Invalidation.of("books", 7));
+        assertEquals(Collections.singletonList("books:7"), this.listener(this.instance).await(1, DELIVERY_TIMEOUT_MILLIS));
+        assertEquals(Collections.singletonList("books:7"), this.listener(this.otherInstance).await(1, DELIVERY_TIMEOUT_MILLIS));
+    }
+
+    @Test
+    public void invalidationInsideATransactionIsDeliveredAfterTheCommit() throws Exception {
+        InvalidationBus bus = this.instance.getBean(InvalidationBus.class);
+        this.transactionTemplate().execute(status -> {
+            bus.publish(Invalidation.of("books", 1));
+            bus.publish(Invalidation.allOf("clients"));
+            try {
+                Thread.sleep(QUIET_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertEquals(Collections.emptyList(), this.listener(this.otherInstance).getReceived());
+            return null;
+        });
+        assertEquals(Arrays.asList("books:1", "clients:*"), this.listener(this.otherInstance).await(2, DELIVERY_TIMEOUT_MILLIS));
+        assertEquals(Arrays.asList("books:1", "clients:*"), this.listener(this.instance).await(2, DELIVERY_TIMEOUT_MILLIS));
+    }
+
+    @Test
+    public void invalidationOfARolledBackTransactionIsNotDelivered() throws Exception {
+        this.transactionTemplate().execute(status -> {
+            this.instance.getBean(InvalidationBus.class).publish(Invalidation.of("books", 1));
+            status.setRollbackOnly();
+            return null;
+        });
+        Thread.sleep(QUIET_MILLIS);
+        assertEquals(Collections.emptyList(), this.listener(this.instance).getReceived());
+        assertEquals(Collections.emptyList(), this.listener(this.otherInstance).getReceived());
+    }
+
+    @Test
+    public void instanceDropsEveryCacheAfterItReconnects() throws Exception {
+        database.jdbc().queryForList("select pg_terminate_backend(pid) from pg_stat_activity where query like 'listen %'");
+        assertEquals(Collections.singletonList("*"), this.listener(this.instance).await(1, DELIVERY_TIMEOUT_MILLIS));
+        assertEquals(Collections.singletonList("*"), this.listener(this.otherInstance).await(1, DELIVERY_TIMEOUT_MILLIS));
+        awaitListeners(2);
+
+        this.instance.getBean(InvalidationBus.class).publish(Invalidation.of("books", 3));
+        assertEquals(Arrays.asList("*", "books:3"), this.listener(this.otherInstance).await(2, DELIVERY_TIMEOUT_MILLIS));
+    }
+}
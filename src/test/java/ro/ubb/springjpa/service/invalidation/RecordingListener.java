@@ -0,0 +1,34 @@
+package ro.ubb.springjpa.service.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records the invalidations it receives, as text.
+ */
+class RecordingListener implements InvalidationListener {
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void onInvalidation(Invalidation invalidation) {
+        this.received.add(invalidation.toString());
+    }
+
+    List<String> getReceived() {
+        return this.received.stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Waits until the given number of invalidations were received.
+     * @return the invalidations received, which may be fewer if the timeout elapsed
+     */
+    List<String> await(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (this.received.size() < count && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        return this.getReceived();
+    }
+}
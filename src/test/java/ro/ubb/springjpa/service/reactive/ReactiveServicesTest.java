@@ -0,0 +1,151 @@
+package ro.ubb.springjpa.service.reactive;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.ubb.springjpa.EmbeddedDatabase;
+import ro.ubb.springjpa.domain.model.BaseEntity;
+import ro.ubb.springjpa.domain.model.Book;
+import ro.ubb.springjpa.domain.model.Client;
+import ro.ubb.springjpa.domain.model.Money;
+import ro.ubb.springjpa.domain.model.Purchase;
+import ro.ubb.springjpa.service.BookService;
+import ro.ubb.springjpa.service.ClientService;
+import ro.ubb.springjpa.service.PurchaseAnalyticsService;
+import ro.ubb.springjpa.service.PurchaseService;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the reactive services read the same books, clients, purchases and reports as the blocking services.
+ */
+public class ReactiveServicesTest {
+
+    private static EmbeddedDatabase database;
+    private static BookService bookService;
+    private static ClientService clientService;
+    private static PurchaseService purchaseService;
+    private static ReactiveBookService reactiveBookService;
+    private static ReactiveClientService reactiveClientService;
+    private static ReactivePurchaseService reactivePurchaseService;
+
+    private static int firstClientId;
+    private static int idleClientId;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        bookService = database.getBean(BookService.class);
+        clientService = database.getBean(ClientService.class);
+        purchaseService = database.getBean(PurchaseService.class);
+        reactiveBookService = database.getBean(ReactiveBookService.class);
+        reactiveClientService = database.getBean(ReactiveClientService.class);
+        reactivePurchaseService = database.getBean(ReactivePurchaseService.class);
+
+        int cheapBookId = addBook("Cheap", "First Author", "First Publisher", 500, null);
+        int middleBookId = addBook("Middle", "Second Author", "First Publisher", 1999, 10);
+        int dearBookId = addBook("Dear", "Third Author", "Second Publisher", 4550, null);
+        firstClientId = addClient("First");
+        int secondClientId = addClient("Second");
+        int thirdClientId = addClient("Third");
+        int fourthClientId = addClient("Fourth");
+        idleClientId = addClient("Idle");
+
+        purchase(firstClientId, dearBookId, "North");
+        purchase(firstClientId, dearBookId, "South");
+        purchase(firstClientId, cheapBookId, "North");
+        purchase(secondClientId, dearBookId, "North");
+        purchase(secondClientId, middleBookId, "South");
+        purchase(thirdClientId, middleBookId, "North");
+        purchase(thirdClientId, cheapBookId, "North");
+        purchase(fourthClientId, cheapBookId, "South");
+        // the blocking top 3 reports rank the clients and books of the analytics snapshot
+        database.getBean(PurchaseAnalyticsService.class).refresh();
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        database.close();
+    }
+
+    private static int addBook(String title, String author, String publisher, long priceCents, Integer stock) throws Exception {
+        Book book = new Book(title, author, publisher, 2019, Money.ofCents(priceCents));
+        book.setStock(stock);
+        bookService.addBook(book);
+        return book.getId();
+    }
+
+    private static int addClient(String firstName) throws Exception {
+        Client client = new Client(firstName, "Last", firstName.toLowerCase() + ".last@bookstore.ro");
+        clientService.addClient(client);
+        return client.getId();
+    }
+
+    private static void purchase(int clientId, int bookId, String library) throws Exception {
+        purchaseService.add(new Purchase(clientId, bookId, library));
+    }
+
+    private static <T extends BaseEntity<Integer>> String byId(Collection<T> entities) {
+        return entities.stream().sorted(Comparator.comparing(BaseEntity::getId)).collect(Collectors.toList()).toString();
+    }
+
+    @Test
+    public void booksAreTheStoredBooks() throws Exception {
+        List<Book> books = reactiveBookService.getBookList().collectList().block();
+        assertEquals(byId(bookService.getBookList()), books.toString());
+
+        // the stock is compared with the uncached list: the books cache of BookService keeps the stock a book had when cached
+        Book book = books.get(1);
+        assertEquals(book.toString(), reactiveBookService.findOne(book.getId()).block().toString());
+        assertNull(reactiveBookService.findOne(-1).block());
+        assertEquals(byId(bookService.filter("First Publisher")), reactiveBookService.filter("First Publisher").collectList().block().toString());
+    }
+
+    @Test
+    public void clientsAreTheStoredClients() throws Exception {
+        List<Client> clients = reactiveClientService.getClientList().collectList().block();
+        assertEquals(byId(clientService.getClientList()), clients.toString());
+
+        assertEquals(clientService.findOne(firstClientId).get().toString(), reactiveClientService.findOne(firstClientId).block().toString());
+        assertNull(reactiveClientService.findOne(-1).block());
+        assertEquals(byId(clientService.filter("Idle")), reactiveClientService.filter("Idle").collectList().block().toString());
+    }
+
+    @Test
+    public void purchasesAreTheStoredPurchases() throws Exception {
+        List<Purchase> purchases = reactivePurchaseService.getPurchaseList().collectList().block();
+        assertEquals(byId(purchaseService.getPurchaseList()), purchases.toString());
+
+        Purchase purchase = purchases.get(3);
+        assertEquals(purchase.toString(), reactivePurchaseService.findOne(purchase.getId()).block().toString());
+        assertNull(reactivePurchaseService.findOne(-1).block());
+
+        List<Purchase> ofClient = reactivePurchaseService.getPurchasesOfClient(firstClientId).collectList().block();
+        assertEquals(3, ofClient.size());
+        assertTrue(ofClient.stream().allMatch(p -> p.getClientId() == firstClientId));
+        assertTrue(reactivePurchaseService.getPurchasesOfClient(idleClientId).collectList().block().isEmpty());
+    }
+
+    @Test
+    public void moneySpentIsTheMoneySpentOfTheBlockingService() throws Exception {
+        assertEquals(purchaseService.getMoneySpentForClient(firstClientId), reactivePurchaseService.getMoneySpentForClient(firstClientId).block());
+        assertEquals(Money.ofCents(9600), reactivePurchaseService.getMoneySpentForClient(firstClientId).block());
+        assertEquals(Money.ofCents(0), reactivePurchaseService.getMoneySpentForClient(idleClientId).block());
+        assertEquals(purchaseService.reportTop3ClientsBasedOnMoneySpent().toString(),
+                reactivePurchaseService.reportTop3ClientsBasedOnMoneySpent().collectList().block().toString());
+    }
+
+    @Test
+    public void salesReportsAreTheReportsOfTheBlockingService() throws Exception {
+        assertEquals(purchaseService.reportSalesPerLibrary().toString(), reactivePurchaseService.reportSalesPerLibrary().collectList().block().toString());
+        assertEquals(purchaseService.reportSalesPerAuthor().toString(), reactivePurchaseService.reportSalesPerAuthor().collectList().block().toString());
+        assertEquals(purchaseService.reportSalesPerPublisher().toString(), reactivePurchaseService.reportSalesPerPublisher().collectList().block().toString());
+    }
+}
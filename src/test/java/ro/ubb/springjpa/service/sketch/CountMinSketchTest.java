@@ -0,0 +1,88 @@
+package ro.ubb.springjpa.service.sketch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CountMinSketchTest {
+
+    private static final int KEYS = 10_000;
+
+    private static long count(int key) {
+        return key % 10 + 1;
+    }
+
+    private static CountMinSketch sketch(int from, int to) {
+        CountMinSketch sketch = new CountMinSketch(2048, 5);
+        for (int key = from; key < to; key++)
+            sketch.add(key, count(key));
+        return sketch;
+    }
+
+    @Test
+    public void estimatesAreNeverBelowTheCountAndRarelyAboveTheBound() {
+        CountMinSketch sketch = sketch(0, KEYS);
+        // exceeded by at most e / width of the total with probability 1 - e^-5, above 99%
+        double bound = Math.E / 2048 * sketch.getTotal();
+        int exceeding = 0;
+        for (int key = 0; key < KEYS; key++) {
+            long estimate = sketch.estimate(key);
+            assertTrue("estimate " + estimate + " of key " + key, estimate >= count(key));
+            if (estimate - count(key) > bound)
+                exceeding++;
+        }
+        assertTrue(exceeding + " keys above the bound", exceeding <= KEYS / 100);
+    }
+
+    @Test
+    public void totalCountsEveryOccurrence() {
+        CountMinSketch sketch = new CountMinSketch(16, 2);
+        sketch.add(1, 3);
+        sketch.add(2, 4);
+        assertEquals(7, sketch.getTotal());
+        assertEquals(0, new CountMinSketch(16, 2).estimate(1));
+    }
+
+    @Test
+    public void mergeOfDisjointStreamsCountsBoth() {
+        CountMinSketch merged = sketch(0, KEYS / 2);
+        merged.merge(sketch(KEYS / 2, KEYS));
+        CountMinSketch whole = sketch(0, KEYS);
+        assertEquals(whole.getTotal(), merged.getTotal());
+        for (int key = 0; key < KEYS; key++)
+            assertEquals(whole.estimate(key), merged.estimate(key));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeOfOtherDimensionsIsRejected() {
+        new CountMinSketch(16, 2).merge(new CountMinSketch(16, 3));
+    }
+
+    @Test
+    public void writtenSketchIsReadBack() throws IOException {
+        CountMinSketch sketch = sketch(0, 1_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+
+        CountMinSketch read = CountMinSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(sketch.getTotal(), read.getTotal());
+        for (int key = 0; key < 1_000; key++)
+            assertEquals(sketch.estimate(key), read.estimate(key));
+    }
+
+    @Test(expected = IOException.class)
+    public void oversizedDimensionsAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(Integer.MAX_VALUE);
+        output.writeInt(Integer.MAX_VALUE);
+        CountMinSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,89 @@
+package ro.ubb.springjpa.service.sketch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest {
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        assertTrue("estimate " + actual + " of " + expected, Math.abs(actual - expected) <= expected * relativeError);
+    }
+
+    @Test
+    public void estimateIsWithinThreeStandardErrors() {
+        // precision 14: 0.8% standard error
+        HyperLogLog hyperLogLog = new HyperLogLog(14);
+        for (int key = 0; key < 200_000; key++)
+            hyperLogLog.add(key);
+        assertWithin(200_000, hyperLogLog.estimate(), 0.025);
+    }
+
+    @Test
+    public void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog hyperLogLog = new HyperLogLog(10);
+        for (int key = 0; key < 100; key++)
+            hyperLogLog.add(key);
+        assertWithin(100, hyperLogLog.estimate(), 0.03);
+        assertEquals(0, new HyperLogLog(10).estimate());
+    }
+
+    @Test
+    public void repeatedKeysAreCountedOnce() {
+        HyperLogLog hyperLogLog = new HyperLogLog(12);
+        for (int i = 0; i < 50; i++)
+            for (int key = 0; key < 1_000; key++)
+                hyperLogLog.add(key);
+        assertWithin(1_000, hyperLogLog.estimate(), 0.05);
+    }
+
+    @Test
+    public void mergeOfOverlappingSetsEstimatesTheUnion() {
+        HyperLogLog first = new HyperLogLog(14);
+        HyperLogLog second = new HyperLogLog(14);
+        for (int key = 0; key < 60_000; key++)
+            first.add(key);
+        for (int key = 40_000; key < 100_000; key++)
+            second.add(key);
+        first.merge(second);
+        assertWithin(100_000, first.estimate(), 0.025);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeOfAnotherPrecisionIsRejected() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+
+    @Test
+    public void writtenEstimatorIsReadBack() throws IOException {
+        HyperLogLog hyperLogLog = new HyperLogLog(10);
+        for (int key = 0; key < 5_000; key++)
+            hyperLogLog.add(key);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hyperLogLog.writeTo(new DataOutputStream(bytes));
+
+        HyperLogLog read = HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(10, read.getPrecision());
+        assertEquals(hyperLogLog.estimate(), read.estimate());
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidPrecisionIsRejected() throws IOException {
+        HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[] {30, 0, 0})));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidRegisterIsRejected() throws IOException {
+        byte[] bytes = new byte[1 + 16];
+        bytes[0] = 4;
+        bytes[5] = 62;
+        HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
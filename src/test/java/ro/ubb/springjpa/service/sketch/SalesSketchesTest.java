@@ -0,0 +1,104 @@
+package ro.ubb.springjpa.service.sketch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SalesSketchesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Client c buys book b from library c % 3 for every book b below c % 10, the last library being null.
+     */
+    private static SalesSketches sketches(int fromClient, int toClient) {
+        SalesSketches sketches = new SalesSketches();
+        for (int clientId = fromClient; clientId < toClient; clientId++)
+            for (int bookId = 0; bookId < clientId % 10; bookId++)
+                sketches.add(clientId, bookId, clientId % 3 == 2 ? null : "Library " + clientId % 3);
+        return sketches;
+    }
+
+    private static void assertSame(SalesSketches expected, SalesSketches actual) {
+        for (int bookId = 0; bookId < 10; bookId++) {
+            assertEquals(expected.distinctClients(bookId), actual.distinctClients(bookId));
+            assertEquals(expected.sales(bookId), actual.sales(bookId));
+        }
+        for (String library : Arrays.asList("Library 0", "Library 1", null))
+            assertEquals(expected.distinctClients(library), actual.distinctClients(library));
+        assertEquals(expected.bestsellers(10), actual.bestsellers(10));
+    }
+
+    private static void assertRejected(Path file) {
+        try {
+            SalesSketches.readFrom(file);
+            fail("the file was read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void bestsellersAreInDescendingOrderOfTheSales() {
+        SalesSketches sketches = sketches(0, 1_000);
+        // book b is bought by the clients whose id ends in a digit above b: 900 - 100 b of them
+        List<Map.Entry<Integer, Long>> bestsellers = sketches.bestsellers(3);
+        assertEquals(3, bestsellers.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, (int) bestsellers.get(i).getKey());
+            assertEquals(900 - 100 * i, (long) bestsellers.get(i).getValue());
+        }
+        assertEquals(900, sketches.sales(0));
+        assertEquals(0, sketches.sales(9));
+        assertEquals(0, sketches.distinctClients(9));
+    }
+
+    @Test
+    public void writtenSketchesAreReadBack() throws IOException {
+        SalesSketches sketches = sketches(0, 1_000);
+        Path file = folder.getRoot().toPath().resolve("sketches/sales.bin");
+        sketches.writeTo(file);
+        assertSame(sketches, SalesSketches.readFrom(file));
+    }
+
+    @Test
+    public void mergeOfDisjointPurchasesCountsBoth() {
+        SalesSketches merged = sketches(0, 500);
+        merged.merge(sketches(500, 1_000));
+        assertSame(sketches(0, 1_000), merged);
+    }
+
+    @Test
+    public void javaSerializedFileIsRejected() throws IOException {
+        Path file = folder.newFile().toPath();
+        try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(file))) {
+            output.writeObject(new HashMap<String, Long>());
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void truncatedAndExtendedFilesAreRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("sales.bin");
+        sketches(0, 100).writeTo(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertRejected(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length + 1));
+        assertRejected(file);
+    }
+}
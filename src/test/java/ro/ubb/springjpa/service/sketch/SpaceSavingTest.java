@@ -0,0 +1,103 @@
+package ro.ubb.springjpa.service.sketch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpaceSavingTest {
+
+    /** sales of the heavy hitters 1 to 5 */
+    private static final long[] HEAVY = {1_000, 900, 800, 700, 600};
+
+    /**
+     * Adds the heavy hitters interleaved with many keys occurring once.
+     */
+    private static SpaceSaving summary(int firstRareKey, int rareKeys) {
+        SpaceSaving summary = new SpaceSaving(64);
+        for (int round = 0; round < 1_000; round++) {
+            for (int key = 1; key <= HEAVY.length; key++)
+                if (round < HEAVY[key - 1])
+                    summary.add(key, 1);
+            for (int i = 0; i < rareKeys / 1_000; i++)
+                summary.add(firstRareKey + round * (rareKeys / 1_000) + i, 1);
+        }
+        return summary;
+    }
+
+    private static List<Integer> keys(List<Map.Entry<Integer, Long>> top) {
+        return top.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    public void heavyHittersAreReportedInDescendingOrder() {
+        SpaceSaving summary = summary(100, 10_000);
+        List<Map.Entry<Integer, Long>> top = summary.top(5);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), keys(top));
+        for (Map.Entry<Integer, Long> entry : top) {
+            long sales = HEAVY[entry.getKey() - 1];
+            assertTrue("count " + entry.getValue() + " of " + sales, entry.getValue() >= sales);
+            assertTrue("count " + entry.getValue() + " of " + sales, entry.getValue() - summary.error(entry.getKey()) <= sales);
+        }
+    }
+
+    @Test
+    public void countsAreExactBelowTheCapacity() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add(7, 3);
+        summary.add(8, 5);
+        summary.add(7, 1);
+        assertEquals(Arrays.asList(8, 7), keys(summary.top(10)));
+        assertEquals(4L, (long) summary.top(2).get(1).getValue());
+        assertEquals(0, summary.error(7));
+        assertEquals(1, summary.top(1).size());
+        assertEquals(0, summary.top(-1).size());
+    }
+
+    @Test
+    public void mergeOfDisjointStreamsKeepsTheHeavyHitters() {
+        SpaceSaving merged = summary(100, 10_000);
+        merged.merge(summary(100_000, 10_000));
+        List<Map.Entry<Integer, Long>> top = merged.top(5);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), keys(top));
+        for (Map.Entry<Integer, Long> entry : top)
+            assertTrue(entry.getValue() >= 2 * HEAVY[entry.getKey() - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeOfAnotherCapacityIsRejected() {
+        new SpaceSaving(4).merge(new SpaceSaving(8));
+    }
+
+    @Test
+    public void writtenSummaryIsReadBack() throws IOException {
+        SpaceSaving summary = summary(100, 10_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        summary.writeTo(new DataOutputStream(bytes));
+
+        SpaceSaving read = SpaceSaving.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(new HashSet<>(summary.top(64)), new HashSet<>(read.top(64)));
+        for (Map.Entry<Integer, Long> entry : summary.top(64))
+            assertEquals(summary.error(entry.getKey()), read.error(entry.getKey()));
+    }
+
+    @Test(expected = IOException.class)
+    public void moreKeysThanTheCapacityAreRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(2);
+        output.writeInt(3);
+        SpaceSaving.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}